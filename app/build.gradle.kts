@@ -1,8 +1,33 @@
+import groovy.json.JsonSlurper
+
 plugins {
     alias(libs.plugins.android.application)
     id("com.google.gms.google-services")
 }
 
+/**
+ * Runs :bundlegen to write the lab catalog bundle (see LabCatalogBundle) into an assets directory
+ */
+abstract class GenerateLabCatalogBundle : JavaExec() {
+    @get:Input
+    abstract val firebaseProjectId: Property<String>
+
+    @get:OutputDirectory
+    abstract val outputDir: DirectoryProperty
+
+    override fun exec() {
+        args(firebaseProjectId.get(), outputDir.file("bundles/lab_catalog.bundle").get().asFile.path)
+        super.exec()
+    }
+}
+
+val bundlegen: Configuration by configurations.creating {
+    isCanBeConsumed = false
+    attributes {
+        attribute(Usage.USAGE_ATTRIBUTE, objects.named(Usage.JAVA_RUNTIME))
+    }
+}
+
 android {
     namespace = "com.testlab.labbooking"
     compileSdk = 36
@@ -30,13 +55,44 @@ android {
         sourceCompatibility = JavaVersion.VERSION_11
         targetCompatibility = JavaVersion.VERSION_11
     }
+    testOptions {
+        // android.util.Log and friends are no-ops in JVM unit tests
+        unitTests.isReturnDefaultValues = true
+    }
+}
+
+// Release builds ship the current lab catalog so a fresh install shows labs before going online.
+// The bundle is read from the project in google-services.json (override with -PlabCatalogProject)
+// with Application Default Credentials, or from the emulator when FIRESTORE_EMULATOR_HOST is set.
+// Debug builds skip it; the app runs without a bundle.
+val generateLabCatalogBundle = tasks.register<GenerateLabCatalogBundle>("generateLabCatalogBundle") {
+    classpath = bundlegen
+    mainClass.set("com.testlab.labbooking.bundlegen.BundleGenerator")
+    firebaseProjectId.set(providers.gradleProperty("labCatalogProject").orElse(provider {
+        @Suppress("UNCHECKED_CAST")
+        val json = JsonSlurper().parse(file("google-services.json")) as Map<String, Map<String, Any>>
+        json.getValue("project_info").getValue("project_id") as String
+    }))
+    outputDir.set(layout.buildDirectory.dir("generated/labCatalog/assets"))
+    // The catalog lives in Firestore, so it is never up to date
+    outputs.upToDateWhen { false }
+}
+
+androidComponents {
+    onVariants(selector().withBuildType("release")) { variant ->
+        variant.sources.assets?.addGeneratedSourceDirectory(
+            generateLabCatalogBundle, GenerateLabCatalogBundle::outputDir)
+    }
 }
 
 dependencies {
 
+    implementation(project(":core"))
+    bundlegen(project(":bundlegen"))
     implementation(libs.appcompat)
     implementation(libs.material)
     implementation(libs.swiperefreshlayout)
+    implementation(libs.work.runtime)
     testImplementation(libs.junit)
     androidTestImplementation(libs.ext.junit)
     androidTestImplementation(libs.espresso.core)
@@ -0,0 +1,75 @@
+package com.testlab.labbooking.activities;
+
+import android.os.Bundle;
+import android.widget.TextView;
+import android.widget.Toast;
+
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.appcompat.widget.Toolbar;
+
+import com.testlab.labbooking.R;
+import com.testlab.labbooking.metrics.MetricsRegistry;
+import com.testlab.labbooking.startup.StartupPipeline;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Hidden debug screen with the Firestore metrics and startup reports; opened by long-pressing
+ * the dashboard toolbar
+ */
+public class MetricsDebugActivity extends AppCompatActivity {
+    private static final String REPORT_FILE = "metrics.txt";
+
+    private TextView tvMetrics;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_metrics_debug);
+
+        Toolbar toolbar = findViewById(R.id.toolbar);
+        setSupportActionBar(toolbar);
+        if (getSupportActionBar() != null) {
+            getSupportActionBar().setDisplayHomeAsUpEnabled(true);
+        }
+
+        tvMetrics = findViewById(R.id.tvMetrics);
+        findViewById(R.id.btnDumpLog).setOnClickListener(v -> {
+            MetricsRegistry.getInstance().dumpToLog();
+            Toast.makeText(this, "Metrics written to logcat", Toast.LENGTH_SHORT).show();
+        });
+        findViewById(R.id.btnDumpFile).setOnClickListener(v -> saveReport());
+        findViewById(R.id.btnReset).setOnClickListener(v -> {
+            MetricsRegistry.getInstance().reset();
+            refresh();
+        });
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        refresh();
+    }
+
+    private void refresh() {
+        tvMetrics.setText(MetricsRegistry.getInstance().dump() + "\n" +
+                StartupPipeline.getInstance().getTrace().report());
+    }
+
+    private void saveReport() {
+        File file = new File(getFilesDir(), REPORT_FILE);
+        try {
+            MetricsRegistry.getInstance().dumpToFile(file);
+            Toast.makeText(this, "Saved to " + file.getAbsolutePath(), Toast.LENGTH_LONG).show();
+        } catch (IOException e) {
+            Toast.makeText(this, "Error saving metrics: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+        }
+    }
+
+    @Override
+    public boolean onSupportNavigateUp() {
+        onBackPressed();
+        return true;
+    }
+}
@@ -0,0 +1,182 @@
+package com.testlab.labbooking.services;
+
+import android.util.Log;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Minimal local stand-in for the push relay's send endpoint, for exercising the push dispatch
+ * path offline and under load. Debug builds only.
+ *
+ * Accepts {@code POST /v1/projects/{project}/messages:send} for user and topic messages on
+ * 127.0.0.1 with keep-alive; every message succeeds after an optional delay.
+ *
+ * <pre>
+ * LocalFcmServer server = LocalFcmServer.start(5);
+ * NotificationDispatcher.getInstance().setPushSender(new HttpPushSender(server.getEndpoint(), null));
+ * </pre>
+ */
+public class LocalFcmServer {
+    private static final String TAG = "LocalFcmServer";
+    private static final Pattern TARGET_PATTERN =
+            Pattern.compile("\"(user|topic)\"\\s*:\\s*\"([^\"]*)\"");
+
+    private final ServerSocket serverSocket;
+    private final long responseDelayMillis;
+    private final ExecutorService connections = Executors.newCachedThreadPool();
+    private final AtomicInteger sentCount = new AtomicInteger();
+    private volatile boolean running = true;
+
+    private LocalFcmServer(long responseDelayMillis) throws IOException {
+        this.responseDelayMillis = responseDelayMillis;
+        this.serverSocket = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"));
+    }
+
+    /**
+     * Start on an ephemeral port
+     *
+     * @param responseDelayMillis simulated FCM latency per message
+     */
+    public static LocalFcmServer start(long responseDelayMillis) throws IOException {
+        LocalFcmServer server = new LocalFcmServer(responseDelayMillis);
+        Thread acceptor = new Thread(server::acceptLoop, TAG);
+        acceptor.setDaemon(true);
+        acceptor.start();
+        return server;
+    }
+
+    public String getEndpoint() {
+        return "http://127.0.0.1:" + serverSocket.getLocalPort() + "/v1/projects/local/messages:send";
+    }
+
+    public int getSentCount() {
+        return sentCount.get();
+    }
+
+    public void stop() {
+        running = false;
+        try {
+            serverSocket.close();
+        } catch (IOException ignored) {
+        }
+        connections.shutdownNow();
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                connections.execute(() -> serve(socket));
+            } catch (IOException e) {
+                if (running) {
+                    Log.e(TAG, "Accept failed", e);
+                }
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (Socket s = socket;
+             InputStream in = new BufferedInputStream(s.getInputStream());
+             OutputStream out = s.getOutputStream()) {
+            while (running) {
+                String requestLine = readLine(in);
+                if (requestLine == null || requestLine.isEmpty()) {
+                    return; // client closed the connection
+                }
+
+                int contentLength = 0;
+                boolean close = false;
+                String header;
+                while ((header = readLine(in)) != null && !header.isEmpty()) {
+                    String lower = header.toLowerCase(Locale.US);
+                    if (lower.startsWith("content-length:")) {
+                        contentLength = Integer.parseInt(header.substring(15).trim());
+                    } else if (lower.startsWith("connection:") && lower.contains("close")) {
+                        close = true;
+                    }
+                }
+
+                byte[] body = new byte[contentLength];
+                int offset = 0;
+                while (offset < contentLength) {
+                    int read = in.read(body, offset, contentLength - offset);
+                    if (read == -1) {
+                        return;
+                    }
+                    offset += read;
+                }
+
+                respond(out, requestLine, new String(body, StandardCharsets.UTF_8));
+                if (close) {
+                    return;
+                }
+            }
+        } catch (IOException | InterruptedException e) {
+            if (running) {
+                Log.w(TAG, "Connection ended: " + e.getMessage());
+            }
+        }
+    }
+
+    private void respond(OutputStream out, String requestLine, String body)
+            throws IOException, InterruptedException {
+        if (responseDelayMillis > 0) {
+            Thread.sleep(responseDelayMillis);
+        }
+
+        int status;
+        String response;
+        Matcher matcher = TARGET_PATTERN.matcher(body);
+        if (!requestLine.startsWith("POST ") || !requestLine.contains("/messages:send")) {
+            status = 404;
+            response = "{\"error\":{\"code\":404,\"status\":\"NOT_FOUND\"}}";
+        } else if (!matcher.find()) {
+            status = 400;
+            response = "{\"error\":{\"code\":400,\"status\":\"INVALID_ARGUMENT\"}}";
+        } else {
+            status = 200;
+            response = "{\"name\":\"projects/local/messages/" + sentCount.incrementAndGet() + "\"}";
+        }
+
+        byte[] bytes = response.getBytes(StandardCharsets.UTF_8);
+        String head = "HTTP/1.1 " + status + (status == 200 ? " OK" : " Error") + "\r\n" +
+                "Content-Type: application/json; charset=UTF-8\r\n" +
+                "Content-Length: " + bytes.length + "\r\n" +
+                "Connection: keep-alive\r\n\r\n";
+        out.write(head.getBytes(StandardCharsets.US_ASCII));
+        out.write(bytes);
+        out.flush();
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != -1) {
+            if (b == '\n') {
+                break;
+            }
+            if (b != '\r') {
+                line.write(b);
+            }
+        }
+        if (b == -1 && line.size() == 0) {
+            return null;
+        }
+        return line.toString("US-ASCII");
+    }
+}
@@ -1,20 +1,109 @@
 package com.testlab.labbooking;
 
+import android.app.Activity;
 import android.app.Application;
 import android.app.NotificationChannel;
 import android.app.NotificationManager;
 import android.os.Build;
+import android.os.Bundle;
 
 import com.google.firebase.FirebaseApp;
+import com.testlab.labbooking.managers.DeviceTokenRegistry;
+import com.testlab.labbooking.metrics.CostBudget;
+import com.testlab.labbooking.metrics.MetricsRegistry;
+import com.testlab.labbooking.repositories.LabCatalogBundle;
+import com.testlab.labbooking.startup.StartupPipeline;
+import com.testlab.labbooking.utils.DatabaseUtils;
+import com.testlab.labbooking.workers.DigestFlushWorker;
+import com.testlab.labbooking.workers.NotificationCompactionWorker;
+
+import java.io.File;
 
 public class LabBookingApp extends Application {
     public static final String BOOKING_CHANNEL_ID = "booking_channel";
+    private static final String COST_REPORT_DIR = "cost_reports";
 
     @Override
     public void onCreate() {
         super.onCreate();
-        FirebaseApp.initializeApp(this);
-        createNotificationChannel();
+        // Only what the first screen needs runs before its first frame; see StartupPipeline
+        StartupPipeline.getInstance()
+                .critical("firebase", () -> FirebaseApp.initializeApp(this))
+                .critical("metrics", () -> {
+                    configureCostBudgets();
+                    trackCurrentScreen();
+                })
+                // A push can arrive before any activity starts, so the channel has to exist first
+                .critical("notification channel", this::createNotificationChannel)
+                // Applies the Firestore settings and opens the local cache off the main thread
+                .background("firestore", DatabaseUtils::getInstance)
+                // Seed the cache with the lab catalog so a fresh install shows labs before going online
+                .background("lab catalog bundle", () -> LabCatalogBundle.getInstance().load(this))
+                .deferred("messaging", () -> DeviceTokenRegistry.getInstance(this).refresh())
+                .deferred("workers", () -> {
+                    NotificationCompactionWorker.schedule(this);
+                    DigestFlushWorker.schedule(this);
+                })
+                .start(this);
+    }
+
+    /**
+     * Per-session Firestore read budgets; the admin screens list every booking and lab, so they
+     * get more room than the default
+     */
+    private void configureCostBudgets() {
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        metrics.setReportDir(new File(getFilesDir(), COST_REPORT_DIR));
+        CostBudget budget = metrics.getBudget();
+        budget.setSessionBudget(5000, 500);
+        budget.setDefaultScreenReadBudget(500);
+        budget.setScreenReadBudget("AdminActivity", 2000);
+        budget.setScreenReadBudget("AllBookingsActivity", 2000);
+        budget.setScreenReadBudget("ManageLabsActivity", 1000);
+    }
+
+    /**
+     * Attribute Firestore metrics to the activity in the foreground, and save the session's cost
+     * report whenever the app goes to the background
+     */
+    private void trackCurrentScreen() {
+        registerActivityLifecycleCallbacks(new ActivityLifecycleCallbacks() {
+            private int started = 0;
+
+            @Override
+            public void onActivityResumed(Activity activity) {
+                MetricsRegistry.getInstance().setCurrentScreen(activity.getClass().getSimpleName());
+            }
+
+            @Override
+            public void onActivityCreated(Activity activity, Bundle savedInstanceState) {
+            }
+
+            @Override
+            public void onActivityStarted(Activity activity) {
+                started++;
+            }
+
+            @Override
+            public void onActivityPaused(Activity activity) {
+            }
+
+            @Override
+            public void onActivityStopped(Activity activity) {
+                if (--started == 0 && !activity.isChangingConfigurations()) {
+                    MetricsRegistry.getInstance().setCurrentScreen(null);
+                    MetricsRegistry.getInstance().writeSessionReport();
+                }
+            }
+
+            @Override
+            public void onActivitySaveInstanceState(Activity activity, Bundle outState) {
+            }
+
+            @Override
+            public void onActivityDestroyed(Activity activity) {
+            }
+        });
     }
 
     private void createNotificationChannel() {
@@ -15,6 +15,7 @@ import android.widget.Toast;
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.Toolbar;
+import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
@@ -28,19 +29,25 @@ import com.testlab.labbooking.adapters.BookingsAdapter;
 import com.testlab.labbooking.models.Booking;
 import com.testlab.labbooking.models.Lab;
 import com.testlab.labbooking.models.User;
+import com.testlab.labbooking.repositories.BookingRepository;
 import com.testlab.labbooking.utils.AuthUtils;
 import com.testlab.labbooking.utils.DatabaseUtils;
+import com.testlab.labbooking.viewmodels.ApprovalQueueViewModel;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
 public class AdminActivity extends AppCompatActivity implements BookingsAdapter.BookingActionListener {
+    private static final int CLAIM_BATCH_SIZE = 5;
+    private static final int LOAD_MORE_THRESHOLD = 5;
+
     private RecyclerView recyclerPendingBookings;
     private BookingsAdapter bookingsAdapter;
     private FloatingActionButton fabAddLab;
     private TextView tvEmptyState;
     private User currentUser;
+    private ApprovalQueueViewModel queueViewModel;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -52,6 +59,7 @@ public class AdminActivity extends AppCompatActivity implements BookingsAdapter.
         setupToolbar();
         setupRecyclerView();
         setupClickListeners();
+        setupObservers();
     }
 
     @Override
@@ -97,37 +105,61 @@ public class AdminActivity extends AppCompatActivity implements BookingsAdapter.
     private void setupRecyclerView() {
         bookingsAdapter = new BookingsAdapter(this, true);
         bookingsAdapter.setBookingActionListener(this);
-        recyclerPendingBookings.setLayoutManager(new LinearLayoutManager(this));
+        LinearLayoutManager layoutManager = new LinearLayoutManager(this);
+        recyclerPendingBookings.setLayoutManager(layoutManager);
         recyclerPendingBookings.setAdapter(bookingsAdapter);
+
+        // Page in more of the approval queue as the list nears its end
+        recyclerPendingBookings.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                if (dy > 0 && layoutManager.findLastVisibleItemPosition() >=
+                        bookingsAdapter.getItemCount() - LOAD_MORE_THRESHOLD) {
+                    queueViewModel.loadMore();
+                }
+            }
+        });
     }
 
     private void setupClickListeners() {
         fabAddLab.setOnClickListener(v -> showAddLabDialog());
     }
 
+    private void setupObservers() {
+        queueViewModel = new ViewModelProvider(this).get(ApprovalQueueViewModel.class);
+
+        queueViewModel.getQueue().observe(this, bookings -> {
+            if (bookings == null) {
+                return; // not loaded yet
+            }
+            bookingsAdapter.updateBookings(bookings);
+            tvEmptyState.setVisibility(bookings.isEmpty() ? View.VISIBLE : View.GONE);
+        });
+
+        queueViewModel.getError().observe(this, error -> {
+            if (error != null && !error.isEmpty()) {
+                Toast.makeText(this, "Error loading bookings: " + error, Toast.LENGTH_SHORT).show();
+            }
+        });
+    }
+
     private void loadPendingBookings() {
-        DatabaseUtils.getPendingBookingsQuery()
-                .addSnapshotListener((queryDocumentSnapshots, error) -> {
-                    if (error != null) {
-                        Toast.makeText(this, "Error loading bookings: " + error.getMessage(),
-                                Toast.LENGTH_SHORT).show();
-                        return;
-                    }
+        // No-op when the approval queue is already being watched
+        queueViewModel.loadQueue();
+    }
 
-                    if (queryDocumentSnapshots != null && !queryDocumentSnapshots.isEmpty()) {
-                        List<Booking> bookings = new ArrayList<>();
-                        for (QueryDocumentSnapshot document : queryDocumentSnapshots) {
-                            Booking booking = document.toObject(Booking.class);
-                            booking.setId(document.getId());
-                            bookings.add(booking);
-                        }
-                        bookingsAdapter.updateBookings(bookings);
-                        tvEmptyState.setVisibility(View.GONE);
-                    } else {
-                        bookingsAdapter.updateBookings(new ArrayList<>());
-                        tvEmptyState.setVisibility(View.VISIBLE);
-                    }
-                });
+    private void claimNextBookings() {
+        queueViewModel.claimNext(CLAIM_BATCH_SIZE).addOnCompleteListener(this, task -> {
+            if (!task.isSuccessful()) {
+                Toast.makeText(this, "Error claiming bookings: " +
+                        DatabaseUtils.getFormattedErrorMessage(task.getException()), Toast.LENGTH_SHORT).show();
+            } else if (task.getResult().isEmpty()) {
+                Toast.makeText(this, "No unclaimed bookings left", Toast.LENGTH_SHORT).show();
+            } else {
+                Toast.makeText(this, "Claimed " + task.getResult().size() + " bookings for review",
+                        Toast.LENGTH_SHORT).show();
+            }
+        });
     }
 
     @Override
@@ -147,6 +179,10 @@ public class AdminActivity extends AppCompatActivity implements BookingsAdapter.
 
 
     private void showActionDialog(Booking booking, String newStatus, String title) {
+        if (queueViewModel.isHeldByOther(booking)) {
+            Toast.makeText(this, "Another admin is reviewing this booking", Toast.LENGTH_SHORT).show();
+            return;
+        }
         AlertDialog.Builder builder = new AlertDialog.Builder(this);
         builder.setTitle(title);
         builder.setMessage("Lab: " + booking.getLabName() + "\nDate: " + booking.getDate() +
@@ -165,9 +201,10 @@ public class AdminActivity extends AppCompatActivity implements BookingsAdapter.
     }
 
     private void updateBookingStatus(Booking booking, String status, String notes) {
-        DatabaseUtils.getInstance().collection(DatabaseUtils.BOOKINGS_COLLECTION)
-                .document(booking.getId())
-                .update("status", status, "adminNotes", notes)
+        // Also clears the review claim, taking the booking out of the approval queue, and frees
+        // a rejected booking's seats and units
+        BookingRepository.getInstance().updateBookingStatus(booking.getId(), status,
+                        AuthUtils.getCurrentUserId(), notes)
                 .addOnSuccessListener(aVoid -> {
                     String message = DatabaseUtils.STATUS_APPROVED.equals(status) ?
                             "Booking approved" : "Booking rejected";
@@ -254,6 +291,9 @@ public class AdminActivity extends AppCompatActivity implements BookingsAdapter.
         } else if (id == R.id.action_manage_labs) {
 //            startActivity(new Intent(this, ManageLabsActivity.class));
             return true;
+        } else if (id == R.id.action_claim_next) {
+            claimNextBookings();
+            return true;
         } else if (id == R.id.action_reports) {
             // TODO: Implement reports
             Toast.makeText(this, "Reports feature coming soon", Toast.LENGTH_SHORT).show();
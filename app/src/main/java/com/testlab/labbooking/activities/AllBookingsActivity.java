@@ -9,24 +9,21 @@ import android.widget.Toast;
 
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.Toolbar;
+import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
-import com.google.firebase.firestore.QueryDocumentSnapshot;
 import com.testlab.labbooking.R;
 import com.testlab.labbooking.adapters.BookingsAdapter;
-import com.testlab.labbooking.models.Booking;
 import com.testlab.labbooking.models.BookingStatus;
-import com.testlab.labbooking.utils.DatabaseUtils;
-
-import java.util.ArrayList;
-import java.util.List;
+import com.testlab.labbooking.viewmodels.BookingViewModel;
 
 public class AllBookingsActivity extends AppCompatActivity {
 
     private RecyclerView recyclerBookings;
     private BookingsAdapter bookingsAdapter;
     private TextView tvEmptyState;
+    private BookingViewModel bookingViewModel;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -36,6 +33,7 @@ public class AllBookingsActivity extends AppCompatActivity {
         initViews();
         setupToolbar();
         setupRecyclerView();
+        setupObservers();
         loadAllBookings();
     }
 
@@ -59,29 +57,25 @@ public class AllBookingsActivity extends AppCompatActivity {
         recyclerBookings.setAdapter(bookingsAdapter);
     }
 
+    private void setupObservers() {
+        bookingViewModel = new ViewModelProvider(this).get(BookingViewModel.class);
+
+        bookingViewModel.getBookings().observe(this, bookings -> {
+            bookingsAdapter.updateBookings(bookings);
+            tvEmptyState.setVisibility(bookings == null || bookings.isEmpty() ? View.VISIBLE : View.GONE);
+        });
+
+        bookingViewModel.getError().observe(this, error -> {
+            if (error != null && !error.isEmpty()) {
+                Toast.makeText(this, "Error loading bookings: " + error, Toast.LENGTH_SHORT).show();
+                bookingViewModel.onErrorShown();
+            }
+        });
+    }
+
     private void loadAllBookings() {
-        DatabaseUtils.getInstance().collection(DatabaseUtils.BOOKINGS_COLLECTION)
-                .addSnapshotListener((queryDocumentSnapshots, error) -> {
-                    if (error != null) {
-                        Toast.makeText(this, "Error loading bookings: " + error.getMessage(),
-                                Toast.LENGTH_SHORT).show();
-                        return;
-                    }
-
-                    if (queryDocumentSnapshots != null && !queryDocumentSnapshots.isEmpty()) {
-                        List<Booking> bookings = new ArrayList<>();
-                        for (QueryDocumentSnapshot document : queryDocumentSnapshots) {
-                            Booking booking = document.toObject(Booking.class);
-                            booking.setId(document.getId());
-                            bookings.add(booking);
-                        }
-                        bookingsAdapter.updateBookings(bookings);
-                        tvEmptyState.setVisibility(View.GONE);
-                    } else {
-                        bookingsAdapter.updateBookings(new ArrayList<>());
-                        tvEmptyState.setVisibility(View.VISIBLE);
-                    }
-                });
+        // The ViewModel keeps both the snapshot and the selected filter across rotation
+        bookingViewModel.loadAllBookings();
     }
 
     @Override
@@ -103,36 +97,15 @@ public class AllBookingsActivity extends AppCompatActivity {
             filterBookings(BookingStatus.REJECTED);
             return true;
         } else if (id == R.id.filter_all) {
-            loadAllBookings();
+            bookingViewModel.clearFilter();
             return true;
         }
         return super.onOptionsItemSelected(item);
     }
 
     private void filterBookings(BookingStatus status) {
-        DatabaseUtils.getInstance().collection(DatabaseUtils.BOOKINGS_COLLECTION)
-                .whereEqualTo("status", status.toString())
-                .addSnapshotListener((queryDocumentSnapshots, error) -> {
-                    if (error != null) {
-                        Toast.makeText(this, "Error loading bookings: " + error.getMessage(),
-                                Toast.LENGTH_SHORT).show();
-                        return;
-                    }
-
-                    if (queryDocumentSnapshots != null && !queryDocumentSnapshots.isEmpty()) {
-                        List<Booking> bookings = new ArrayList<>();
-                        for (QueryDocumentSnapshot document : queryDocumentSnapshots) {
-                            Booking booking = document.toObject(Booking.class);
-                            booking.setId(document.getId());
-                            bookings.add(booking);
-                        }
-                        bookingsAdapter.updateBookings(bookings);
-                        tvEmptyState.setVisibility(View.GONE);
-                    } else {
-                        bookingsAdapter.updateBookings(new ArrayList<>());
-                        tvEmptyState.setVisibility(View.VISIBLE);
-                    }
-                });
+        // Filters the snapshot already held by the ViewModel; no new query
+        bookingViewModel.filterByStatus(status);
     }
 
     @Override
@@ -19,9 +19,11 @@ import androidx.appcompat.widget.Toolbar;
 
 import com.google.firebase.firestore.QueryDocumentSnapshot;
 import com.testlab.labbooking.R;
+import com.testlab.labbooking.managers.TopicSubscriptions;
 import com.testlab.labbooking.models.Booking;
 import com.testlab.labbooking.models.Lab;
 import com.testlab.labbooking.models.User;
+import com.testlab.labbooking.repositories.BookingRepository;
 import com.testlab.labbooking.utils.AuthUtils;
 import com.testlab.labbooking.utils.DatabaseUtils;
 import com.testlab.labbooking.utils.DateTimeUtils;
@@ -217,6 +219,12 @@ public class BookingActivity extends AppCompatActivity {
         int selectedPosition = spinnerLabs.getSelectedItemPosition();
         Lab selectedLab = availableLabs.get(selectedPosition);
 
+        // Seats, counted equipment and overlaps are checked when the booking is written
+        if (selectedLab.usesDayIndex()) {
+            createBooking(selectedLab);
+            return;
+        }
+
         // Check for conflicts first
         checkForConflicts(selectedLab, () -> {
             // No conflicts, proceed with booking
@@ -316,11 +324,40 @@ public class BookingActivity extends AppCompatActivity {
                 purpose
         );
 
+        if (lab.usesDayIndex()) {
+            reserveBooking(lab, booking);
+            return;
+        }
+
         DatabaseUtils.getInstance()
                 .collection(DatabaseUtils.BOOKINGS_COLLECTION)
                 .add(booking)
                 .addOnSuccessListener(documentReference -> {
+                    TopicSubscriptions.getInstance(this).subscribeToLab(lab.getId());
+                    showProgress(false);
+                    Toast.makeText(this, "Booking submitted successfully!", Toast.LENGTH_SHORT).show();
+                    finish();
+                })
+                .addOnFailureListener(e -> {
                     showProgress(false);
+                    Toast.makeText(this, "Error creating booking: " + e.getMessage(),
+                            Toast.LENGTH_SHORT).show();
+                });
+    }
+
+    private void reserveBooking(Lab lab, Booking booking) {
+        BookingRepository.getInstance().reserveBooking(booking, lab)
+                .addOnSuccessListener(admission -> {
+                    showProgress(false);
+                    if (!admission.admitted) {
+                        new AlertDialog.Builder(BookingActivity.this)
+                                .setTitle("Time Slot Full")
+                                .setMessage(admission.describeShortfall())
+                                .setPositiveButton("OK", null)
+                                .show();
+                        return;
+                    }
+                    TopicSubscriptions.getInstance(this).subscribeToLab(lab.getId());
                     Toast.makeText(this, "Booking submitted successfully!", Toast.LENGTH_SHORT).show();
                     finish();
                 })
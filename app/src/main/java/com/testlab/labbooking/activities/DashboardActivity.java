@@ -10,6 +10,7 @@ import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.annotation.NonNull;
+import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.Toolbar;
 import androidx.fragment.app.Fragment;
@@ -23,12 +24,18 @@ import com.google.android.material.tabs.TabLayoutMediator;
 import com.testlab.labbooking.R;
 import com.testlab.labbooking.fragments.BookingsFragment;
 import com.testlab.labbooking.fragments.LabsFragment;
+import com.testlab.labbooking.managers.AnnouncementManager;
+import com.testlab.labbooking.managers.SessionBootstrap;
+import com.testlab.labbooking.managers.TopicSubscriptions;
 import com.testlab.labbooking.models.User;
 import com.testlab.labbooking.utils.AuthUtils;
+import com.testlab.labbooking.utils.DatabaseUtils;
 
 public class DashboardActivity extends AppCompatActivity {
 
     private static final String TAG = "DashboardActivity";
+    private static final int ANNOUNCEMENT_FEED_LIMIT = 20;
+    private static final String METRICS_DEBUG_ACTIVITY = "com.testlab.labbooking.activities.MetricsDebugActivity";
 
     private TextView tvWelcome;
     private Button btnAdminPanel;
@@ -71,24 +78,37 @@ public class DashboardActivity extends AppCompatActivity {
     private void setupToolbar() {
         Toolbar toolbar = findViewById(R.id.toolbar);
         setSupportActionBar(toolbar);
+        // Hidden entry to the Firestore metrics report, which only debug builds declare
+        Intent metricsReport = new Intent().setClassName(this, METRICS_DEBUG_ACTIVITY);
+        if (metricsReport.resolveActivity(getPackageManager()) != null) {
+            toolbar.setOnLongClickListener(v -> {
+                startActivity(metricsReport);
+                return true;
+            });
+        }
     }
 
     private void loadUserData() {
-        AuthUtils.getCurrentUserData(new AuthUtils.UserDataCallback() {
-            @Override
-            public void onUserDataReceived(User user) {
-                currentUser = user;
-                updateUIWithUserData(user);
+        // Usually already running (or done) since login; otherwise this starts it
+        SessionBootstrap bootstrap = SessionBootstrap.getInstance(this);
+        bootstrap.start().addOnCompleteListener(this, task -> {
+            if (task.isSuccessful()) {
+                SessionBootstrap.State state = task.getResult();
+                currentUser = state.user;
+                updateUIWithUserData(state.user);
+                updateUnreadCount(state.unreadCount);
                 setupViewPager();
-            }
-
-            @Override
-            public void onError(String error) {
+                Log.d(TAG, "Dashboard ready with " + state.labs.size() + " labs and " +
+                        state.upcomingBookings.size() + " upcoming bookings");
+            } else {
+                String error = DatabaseUtils.getFormattedErrorMessage(task.getException());
                 Toast.makeText(DashboardActivity.this, "Error loading user data: " + error, Toast.LENGTH_SHORT).show();
                 Log.e(TAG, "Error loading user data: " + error);
                 // Still setup view pager but without user data
                 setupViewPager();
             }
+            // The tabs have subscribed to the warmed queries by now or within the registry's linger
+            bootstrap.release();
         });
     }
 
@@ -99,6 +119,13 @@ public class DashboardActivity extends AppCompatActivity {
         }
     }
 
+    private void updateUnreadCount(int unreadCount) {
+        if (getSupportActionBar() != null) {
+            getSupportActionBar().setSubtitle(unreadCount > 0 ?
+                    unreadCount + " unread notification" + (unreadCount == 1 ? "" : "s") : null);
+        }
+    }
+
     private void setupViewPager() {
         // Create adapter with current user context
         adapter = new DashboardPagerAdapter(this, currentUser);
@@ -180,12 +207,8 @@ public class DashboardActivity extends AppCompatActivity {
         @Override
         public Fragment createFragment(int position) {
             if (position == 0) {
-                LabsFragment labsFragment = new LabsFragment();
-                // Set user context if available
-                if (userForFragments != null) {
-                    // Note: We'll set this after the fragment is created via the callback
-                }
-                return labsFragment;
+                // Created with the user so the first load uses the role-filtered labs
+                return LabsFragment.newInstance(userForFragments);
             } else {
                 // Create BookingsFragment with user context
                 return BookingsFragment.newInstance(userForFragments);
@@ -212,6 +235,31 @@ public class DashboardActivity extends AppCompatActivity {
         startActivity(new Intent(this, BookingActivity.class));
     }
 
+    /**
+     * Role, lab and system announcements for this user
+     */
+    private void showAnnouncements() {
+        AnnouncementManager.loadFeed(AnnouncementManager.getFeedTopics(
+                        TopicSubscriptions.getInstance(this).getSubscribedTopics(), currentUser),
+                        ANNOUNCEMENT_FEED_LIMIT)
+                .addOnCompleteListener(this, task -> {
+                    if (!task.isSuccessful()) {
+                        String error = DatabaseUtils.getFormattedErrorMessage(task.getException());
+                        Toast.makeText(this, "Error loading announcements: " + error, Toast.LENGTH_SHORT).show();
+                        return;
+                    }
+                    if (task.getResult().isEmpty()) {
+                        Toast.makeText(this, "No announcements", Toast.LENGTH_SHORT).show();
+                        return;
+                    }
+                    new AlertDialog.Builder(this)
+                            .setTitle("Announcements")
+                            .setItems(task.getResult().toArray(new CharSequence[0]), null)
+                            .setPositiveButton("Close", null)
+                            .show();
+                });
+    }
+
     /**
      * Refresh the currently active fragment
      */
@@ -290,6 +338,9 @@ public class DashboardActivity extends AppCompatActivity {
         if (id == R.id.action_refresh) {
             refreshCurrentFragment();
             return true;
+        } else if (id == R.id.action_announcements) {
+            showAnnouncements();
+            return true;
         } else if (id == R.id.action_logout) {
             logout();
             return true;
@@ -16,6 +16,9 @@ import androidx.appcompat.app.AppCompatActivity;
 
 import com.google.android.material.textfield.TextInputLayout;
 import com.testlab.labbooking.R;
+import com.testlab.labbooking.managers.DeviceTokenRegistry;
+import com.testlab.labbooking.managers.SessionBootstrap;
+import com.testlab.labbooking.managers.TopicSubscriptions;
 import com.testlab.labbooking.models.User;
 import com.testlab.labbooking.utils.AuthUtils;
 import com.testlab.labbooking.utils.DatabaseUtils;
@@ -72,6 +75,8 @@ public class LoginActivity extends AppCompatActivity {
 
         // Check if user is already logged in and initialize session
         if (AuthUtils.isUserLoggedIn()) {
+            // Load the dashboard's data while the session is being checked
+            SessionBootstrap.getInstance(this).start();
             initializeUserSession();
             return;
         }
@@ -104,6 +109,8 @@ public class LoginActivity extends AppCompatActivity {
     }
 
     private void goToDashboard() {
+        DeviceTokenRegistry.getInstance(this).onUserSignedIn();
+        TopicSubscriptions.getInstance(this).syncForCurrentUser();
         startActivity(new Intent(this, DashboardActivity.class));
         finish();
     }
@@ -188,6 +195,8 @@ public class LoginActivity extends AppCompatActivity {
                         // Update last login and initialize session
                         String userId = AuthUtils.getCurrentUserId();
                         if (userId != null) {
+                            // Profile, labs, bookings and unread count load concurrently from here
+                            SessionBootstrap.getInstance(this).start();
                             AuthUtils.updateLastLogin(userId);
 
                             // Verify user profile exists and is complete
@@ -517,13 +526,4 @@ public class LoginActivity extends AppCompatActivity {
         Toast.makeText(this, message, Toast.LENGTH_LONG).show();
         AuthUtils.logAuthEvent("SUCCESS", AuthUtils.getCurrentUserId(), message);
     }
-
-    @Override
-    protected void onDestroy() {
-        super.onDestroy();
-        // Clear any cached data if activity is destroyed
-        if (isFinishing()) {
-            AuthUtils.clearUserCache();
-        }
-    }
 }
\ No newline at end of file
@@ -25,6 +25,8 @@ import com.google.firebase.firestore.QueryDocumentSnapshot;
 import com.testlab.labbooking.R;
 import com.testlab.labbooking.adapters.LabsAdapter;
 import com.testlab.labbooking.models.Lab;
+import com.testlab.labbooking.repositories.LabRepository;
+import com.testlab.labbooking.repositories.QueryListenerRegistry;
 import com.testlab.labbooking.utils.DatabaseUtils;
 
 import java.text.SimpleDateFormat;
@@ -104,8 +106,10 @@ public class ManageLabsActivity extends AppCompatActivity implements LabsAdapter
     }
 
     private void loadLabs() {
-        DatabaseUtils.getAllLabsQuery()
-                .addSnapshotListener((queryDocumentSnapshots, error) -> {
+        // Released automatically when the activity is destroyed
+        QueryListenerRegistry.getInstance().subscribe(DatabaseUtils.getAllLabsQuery(),
+                DatabaseUtils.LABS_COLLECTION, this,
+                (queryDocumentSnapshots, error) -> {
                     if (error != null) {
                         DatabaseUtils.logOperation("LOAD_LABS_ERROR",
                                 DatabaseUtils.LABS_COLLECTION, null, null);
@@ -222,7 +226,7 @@ public class ManageLabsActivity extends AppCompatActivity implements LabsAdapter
 
     @Override
     public void onToggleStatus(Lab lab) {
-        DatabaseUtils.updateLabStatus(lab.getId(), !lab.isActive())
+        LabRepository.getInstance().updateLabStatus(lab.getId(), !lab.isActive())
                 .addOnSuccessListener(aVoid -> {
                     String message = lab.isActive() ?
                             getString(R.string.lab_disabled, lab.getName()) :
@@ -240,7 +244,7 @@ public class ManageLabsActivity extends AppCompatActivity implements LabsAdapter
     }
 
     private void deleteLab(Lab lab) {
-        DatabaseUtils.deleteLab(lab.getId())
+        LabRepository.getInstance().deleteLab(lab.getId())
                 .addOnSuccessListener(aVoid -> {
                     Toast.makeText(this, getString(R.string.lab_deleted_successfully),
                             Toast.LENGTH_SHORT).show();
@@ -534,7 +538,7 @@ public class ManageLabsActivity extends AppCompatActivity implements LabsAdapter
     }
 
     private void createLab(Lab lab) {
-        DatabaseUtils.createLab(lab)
+        LabRepository.getInstance().createLab(lab)
                 .addOnSuccessListener(documentReference -> {
                     Toast.makeText(this, getString(R.string.lab_created_successfully),
                             Toast.LENGTH_SHORT).show();
@@ -549,7 +553,7 @@ public class ManageLabsActivity extends AppCompatActivity implements LabsAdapter
     }
 
     private void updateLab(Lab lab) {
-        DatabaseUtils.updateLab(lab.getId(), lab)
+        LabRepository.getInstance().updateLab(lab.getId(), lab)
                 .addOnSuccessListener(aVoid -> {
                     Toast.makeText(this, getString(R.string.lab_updated_successfully),
                             Toast.LENGTH_SHORT).show();
@@ -12,19 +12,18 @@ import android.widget.Toast;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
+import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import androidx.swiperefreshlayout.widget.SwipeRefreshLayout;
 
-import com.google.firebase.firestore.FirebaseFirestoreException;
-import com.google.firebase.firestore.QuerySnapshot;
 import com.testlab.labbooking.R;
 import com.testlab.labbooking.adapters.BookingsAdapter;
 import com.testlab.labbooking.models.Booking;
 import com.testlab.labbooking.models.User;
 import com.testlab.labbooking.utils.DatabaseUtils;
+import com.testlab.labbooking.viewmodels.BookingViewModel;
 
-import java.util.ArrayList;
 import java.util.List;
 
 public class BookingsFragment extends Fragment implements BookingsAdapter.BookingActionListener {
@@ -38,6 +37,7 @@ public class BookingsFragment extends Fragment implements BookingsAdapter.Bookin
     private TextView tvEmptyMessage;
     private ProgressBar progressBar;
     private User currentUser;
+    private BookingViewModel bookingViewModel;
 
     public static BookingsFragment newInstance(User user) {
         BookingsFragment fragment = new BookingsFragment();
@@ -55,6 +55,7 @@ public class BookingsFragment extends Fragment implements BookingsAdapter.Bookin
         if (getArguments() != null) {
             currentUser = (User) getArguments().getSerializable(ARG_USER);
         }
+        bookingViewModel = new ViewModelProvider(this).get(BookingViewModel.class);
         Log.d(TAG, "BookingsFragment created with user: " + (currentUser != null ? currentUser.getName() : "null"));
     }
 
@@ -71,6 +72,7 @@ public class BookingsFragment extends Fragment implements BookingsAdapter.Bookin
         initViews(view);
         setupRecyclerView();
         setupSwipeRefresh();
+        setupObservers();
 
         // Load bookings if user is available
         if (currentUser != null) {
@@ -107,39 +109,43 @@ public class BookingsFragment extends Fragment implements BookingsAdapter.Bookin
         }
     }
 
+    private void setupObservers() {
+        bookingViewModel.getBookings().observe(getViewLifecycleOwner(), this::handleBookingsUpdate);
+        bookingViewModel.getIsLoading().observe(getViewLifecycleOwner(), isLoading -> {
+            if (isLoading != null && isLoading) {
+                showLoading();
+            } else {
+                hideLoading();
+            }
+        });
+        bookingViewModel.getError().observe(getViewLifecycleOwner(), error -> {
+            if (error != null && !error.isEmpty()) {
+                Log.e(TAG, "Error loading bookings: " + error);
+                Toast.makeText(requireContext(), "Error: " + error, Toast.LENGTH_SHORT).show();
+                bookingViewModel.onErrorShown();
+            }
+        });
+    }
+
     public void loadUserBookings(User user) {
         if (user == null || user.getId() == null) {
             showEmptyState("User information not available");
             return;
         }
 
-        showLoading();
-
-        DatabaseUtils.getUserBookingsQuery(user.getId())
-                .addSnapshotListener(this::handleBookingsSnapshot);
+        // Served from the ViewModel when this user's bookings are already loaded
+        bookingViewModel.loadUserBookings(user.getId());
     }
 
-    private void handleBookingsSnapshot(QuerySnapshot snapshot, FirebaseFirestoreException error) {
+    private void handleBookingsUpdate(List<Booking> bookings) {
         hideLoading();
 
-        if (error != null) {
-            Log.e(TAG, "Error loading bookings", error);
-            showEmptyState("Failed to load bookings");
-            Toast.makeText(requireContext(), "Error: " + error.getMessage(), Toast.LENGTH_SHORT).show();
-            return;
-        }
-
-        if (snapshot == null || snapshot.isEmpty()) {
+        if (bookings == null || bookings.isEmpty()) {
+            bookingsAdapter.updateBookings(null);
             showEmptyState("No bookings found");
             return;
         }
 
-        List<Booking> bookings = snapshot.toObjects(Booking.class);
-        // Set IDs from document references
-        for (int i = 0; i < bookings.size(); i++) {
-            bookings.get(i).setId(snapshot.getDocuments().get(i).getId());
-        }
-
         bookingsAdapter.updateBookings(bookings);
         showEmptyState(null); // Hide empty state
         Log.d(TAG, "Loaded " + bookings.size() + " bookings");
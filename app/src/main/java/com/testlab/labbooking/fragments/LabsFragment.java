@@ -33,6 +33,7 @@ import com.testlab.labbooking.viewmodels.LabViewModel;
 import java.util.List;
 
 public class LabsFragment extends Fragment implements LabsAdapter.OnLabBookClickListener {
+    private static final String ARG_USER = "user";
 
     private RecyclerView recyclerLabs;
     private LabsAdapter labsAdapter;
@@ -46,11 +47,25 @@ public class LabsFragment extends Fragment implements LabsAdapter.OnLabBookClick
     private SearchView searchView;
     private MenuItem searchMenuItem;
 
+    public static LabsFragment newInstance(User user) {
+        LabsFragment fragment = new LabsFragment();
+        Bundle args = new Bundle();
+        if (user != null) {
+            args.putSerializable(ARG_USER, user);
+        }
+        fragment.setArguments(args);
+        return fragment;
+    }
+
     @Override
     public void onCreate(@Nullable Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setHasOptionsMenu(true);
         labViewModel = new ViewModelProvider(this).get(LabViewModel.class);
+        if (getArguments() != null && getArguments().getSerializable(ARG_USER) != null) {
+            // Start with the role-filtered labs the session bootstrap already loaded
+            labViewModel.setCurrentUser((User) getArguments().getSerializable(ARG_USER));
+        }
     }
 
     @Nullable
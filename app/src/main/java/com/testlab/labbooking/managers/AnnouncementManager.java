@@ -0,0 +1,147 @@
+package com.testlab.labbooking.managers;
+
+import android.util.Log;
+
+import com.google.android.gms.tasks.Task;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.Query;
+import com.testlab.labbooking.metrics.FirestoreMetrics;
+import com.testlab.labbooking.models.Notification;
+import com.testlab.labbooking.models.User;
+import com.testlab.labbooking.utils.DatabaseUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Topic-based announcements for audiences defined by role or lab.
+ *
+ * An announcement is one shared document in the announcements collection plus one FCM topic
+ * publish, instead of one notification document per recipient. Clients subscribe to topics
+ * through {@link TopicSubscriptions} and read the shared documents (one read each per client)
+ * in the dashboard's announcement feed, which does not depend on the topic push arriving.
+ */
+public class AnnouncementManager {
+    private static final String TAG = "AnnouncementManager";
+    private static final int WHERE_IN_LIMIT = 30;
+
+    public static final String TOPIC_ALL_USERS = "all_users";
+    private static final String TOPIC_ROLE_PREFIX = "role_";
+    private static final String TOPIC_LAB_PREFIX = "lab_";
+
+    private static final ExecutorService publisher = Executors.newSingleThreadExecutor();
+
+    private AnnouncementManager() {
+    }
+
+    public static String roleTopic(String role) {
+        return TOPIC_ROLE_PREFIX + role;
+    }
+
+    public static String labTopic(String labId) {
+        return TOPIC_LAB_PREFIX + labId;
+    }
+
+    // ======================= PUBLISHING =======================
+
+    /**
+     * Write the shared announcement document, then publish it to the topic once
+     */
+    public static Task<DocumentReference> publish(String topic, String title, String message,
+                                                  Notification.NotificationType type, String relatedId) {
+        DocumentReference ref = DatabaseUtils.getInstance()
+                .collection(DatabaseUtils.ANNOUNCEMENTS_COLLECTION).document();
+
+        Map<String, Object> announcement = new HashMap<>();
+        announcement.put("topic", topic);
+        announcement.put("title", title);
+        announcement.put("message", message);
+        announcement.put("type", type.getValue());
+        announcement.put("relatedId", relatedId);
+        announcement.put(DatabaseUtils.FIELD_PRIORITY, type.getDefaultPriority());
+        announcement.put(DatabaseUtils.FIELD_CREATED_AT, FieldValue.serverTimestamp());
+        announcement.put(DatabaseUtils.FIELD_EXPIRE_AT, DatabaseUtils.getNotificationExpiry());
+
+        return ref.set(announcement).continueWith(task -> {
+            if (!task.isSuccessful()) {
+                throw task.getException();
+            }
+
+            Map<String, String> data = new HashMap<>();
+            data.put("announcementId", ref.getId());
+            data.put("type", type.getValue());
+            data.put("relatedId", relatedId);
+            PushSender.PushMessage push = PushSender.PushMessage.toTopic(topic, title, message, data);
+
+            publisher.execute(() -> {
+                try {
+                    List<PushSender.Result> results = NotificationDispatcher.getInstance().getPushSender()
+                            .send(Collections.singletonList(push));
+                    Log.d(TAG, "Published announcement " + ref.getId() + " to " + topic + ": " + results.get(0));
+                } catch (Exception e) {
+                    Log.e(TAG, "Error publishing announcement to " + topic, e);
+                }
+            });
+            return ref;
+        });
+    }
+
+    // ======================= READING =======================
+
+    /**
+     * Topics whose announcements the user should see: the device's subscriptions plus the
+     * all-users and role topics, which may not be synced yet right after sign-in
+     */
+    public static Set<String> getFeedTopics(Collection<String> subscribedTopics, User user) {
+        Set<String> topics = new LinkedHashSet<>();
+        topics.add(TOPIC_ALL_USERS);
+        if (user != null && user.getRole() != null) {
+            topics.add(roleTopic(user.getRole()));
+        }
+        topics.addAll(subscribedTopics);
+        return topics;
+    }
+
+    /**
+     * The user's unexpired announcements, newest first, as "title: message" lines
+     */
+    public static Task<List<String>> loadFeed(Collection<String> topics, int limit) {
+        return FirestoreMetrics.query("announcementFeed", getAnnouncementsQuery(topics, limit).get())
+                .continueWith(task -> {
+                    Date now = new Date();
+                    List<String> lines = new ArrayList<>();
+                    for (DocumentSnapshot doc : task.getResult().getDocuments()) {
+                        Date expireAt = doc.getDate(DatabaseUtils.FIELD_EXPIRE_AT);
+                        if (expireAt == null || expireAt.after(now)) {
+                            lines.add(doc.getString("title") + ": " + doc.getString("message"));
+                        }
+                    }
+                    return lines;
+                });
+    }
+
+    /**
+     * Recent announcements for the given topics, newest first (at most 30 topics)
+     */
+    public static Query getAnnouncementsQuery(Collection<String> topics, int limit) {
+        List<String> topicList = new ArrayList<>(topics);
+        if (topicList.size() > WHERE_IN_LIMIT) {
+            topicList = topicList.subList(0, WHERE_IN_LIMIT);
+        }
+        return DatabaseUtils.getInstance().collection(DatabaseUtils.ANNOUNCEMENTS_COLLECTION)
+                .whereIn("topic", topicList)
+                .orderBy(DatabaseUtils.FIELD_CREATED_AT, Query.Direction.DESCENDING)
+                .limit(limit);
+    }
+}
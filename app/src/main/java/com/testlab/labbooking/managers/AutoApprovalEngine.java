@@ -0,0 +1,178 @@
+package com.testlab.labbooking.managers;
+
+import android.util.Log;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.testlab.labbooking.core.AutoApprovalPolicy;
+import com.testlab.labbooking.metrics.FirestoreMetrics;
+import com.testlab.labbooking.models.Booking;
+import com.testlab.labbooking.models.Lab;
+import com.testlab.labbooking.models.User;
+import com.testlab.labbooking.utils.DatabaseUtils;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decides at creation time whether a booking can skip the approval queue, using the rules in
+ * the settings/autoApproval document:
+ * <pre>
+ * { enabled: true,
+ *   rules: [ { name: "faculty-off-peak", action: "approve", roles: ["faculty"],
+ *              peakStart: "10:00", peakEnd: "16:00", maxDurationMinutes: 120 }, ... ] }
+ * </pre>
+ * See {@link AutoApprovalPolicy} for the conditions a rule can use. The compiled rules are cached
+ * for a few minutes, so creating a booking costs no extra read in the common case; only rules on
+ * the user's history read their review counts. Any failure leaves the booking pending.
+ */
+public class AutoApprovalEngine {
+    private static final String TAG = "AutoApprovalEngine";
+    public static final String SETTINGS_DOCUMENT = "autoApproval";
+    public static final String REVIEWER_PREFIX = "auto:";
+    private static final long TTL_MILLIS = 10 * 60 * 1000; // 10 minutes
+
+    private static AutoApprovalEngine instance;
+
+    private AutoApprovalPolicy policy;
+    private long loadedAt;
+
+    private AutoApprovalEngine() {
+    }
+
+    public static synchronized AutoApprovalEngine getInstance() {
+        if (instance == null) {
+            instance = new AutoApprovalEngine();
+        }
+        return instance;
+    }
+
+    /**
+     * The name of the rule that approves this booking, or null when it needs an admin
+     */
+    public Task<String> evaluate(User user, Lab lab, Booking booking) {
+        return getPolicy().continueWithTask(policyTask -> {
+            AutoApprovalPolicy policy = policyTask.getResult();
+            if (policy.isEmpty()) {
+                return Tasks.forResult(null);
+            }
+            if (!policy.usesHistory()) {
+                return evaluate(policy, user, lab, booking);
+            }
+
+            // The review transactions keep the user's approved/rejected counts up to date
+            return FirestoreMetrics.document("autoApproval.reviewHistory",
+                            DatabaseUtils.getReviewHistoryRef(user.getId()).get())
+                    .continueWithTask(historyTask -> {
+                        if (!historyTask.isSuccessful()) {
+                            Log.w(TAG, "Could not read the user's review history; leaving booking pending",
+                                    historyTask.getException());
+                            return Tasks.forResult(null);
+                        }
+                        DocumentSnapshot history = historyTask.getResult();
+                        user.setApprovedBookings(count(history, DatabaseUtils.FIELD_APPROVED_BOOKINGS));
+                        user.setRejectedBookings(count(history, DatabaseUtils.FIELD_REJECTED_BOOKINGS));
+                        return evaluate(policy, user, lab, booking);
+                    });
+        });
+    }
+
+    private Task<String> evaluate(AutoApprovalPolicy policy, User user, Lab lab, Booking booking) {
+        AutoApprovalPolicy.Request request;
+        try {
+            request = new AutoApprovalPolicy.Request(user.getRole(), lab.getCategory(),
+                    booking.getStartTime(), booking.getEndTime(), booking.getNumberOfParticipants(),
+                    user.getApprovedBookings(), user.getRejectedBookings());
+        } catch (IllegalArgumentException e) {
+            return Tasks.forResult(null); // validation reports the bad times
+        }
+
+        AutoApprovalPolicy.Decision decision = policy.evaluate(request);
+        if (decision.outcome != AutoApprovalPolicy.Outcome.NEEDS_CAPACITY) {
+            return Tasks.forResult(approvingRule(decision));
+        }
+
+        // Only now is the lab's day worth reading
+        return FirestoreMetrics.query("autoApproval.dayBookings",
+                        DatabaseUtils.getConflictingBookingsQuery(booking.getLabId(), booking.getDate(),
+                                booking.getStartTime(), booking.getEndTime()).get())
+                .continueWith(bookingsTask -> {
+                    if (!bookingsTask.isSuccessful()) {
+                        Log.w(TAG, "Could not read the lab's bookings; leaving booking pending",
+                                bookingsTask.getException());
+                        return null;
+                    }
+                    List<Booking> dayBookings = bookingsTask.getResult().toObjects(Booking.class);
+                    int remaining = AutoApprovalPolicy.remainingCapacityPercent(dayBookings,
+                            booking.getDate(), lab.getOpenTime(), lab.getCloseTime(),
+                            booking.getStartTime(), booking.getEndTime());
+                    return approvingRule(policy.evaluate(request.withRemainingCapacity(remaining)));
+                });
+    }
+
+    /**
+     * Drop the cached rules so the next booking re-reads them (e.g. after editing them)
+     */
+    public synchronized void invalidate() {
+        policy = null;
+    }
+
+    private static int count(DocumentSnapshot doc, String field) {
+        Long value = doc.exists() ? doc.getLong(field) : null;
+        return value != null ? value.intValue() : 0;
+    }
+
+    private static String approvingRule(AutoApprovalPolicy.Decision decision) {
+        if (decision.ruleName != null) {
+            Log.d(TAG, "Rule " + decision.ruleName + " decided " + decision.outcome);
+        }
+        return decision.isApproved() ? decision.ruleName : null;
+    }
+
+    /**
+     * The cached policy, re-read once it is older than the TTL. Never fails: a missing, disabled
+     * or invalid settings document gives a policy that approves nothing.
+     */
+    private Task<AutoApprovalPolicy> getPolicy() {
+        synchronized (this) {
+            if (policy != null && System.currentTimeMillis() - loadedAt < TTL_MILLIS) {
+                return Tasks.forResult(policy);
+            }
+        }
+
+        return FirestoreMetrics.document("autoApprovalSettings",
+                        DatabaseUtils.getInstance().collection(DatabaseUtils.SETTINGS_COLLECTION)
+                                .document(SETTINGS_DOCUMENT)
+                                .get())
+                .continueWith(task -> {
+                    if (!task.isSuccessful()) {
+                        // Not cached, so the next booking tries again
+                        Log.w(TAG, "Error loading auto-approval rules", task.getException());
+                        return AutoApprovalPolicy.none();
+                    }
+                    AutoApprovalPolicy loaded = compile(task.getResult());
+                    synchronized (this) {
+                        policy = loaded;
+                        loadedAt = System.currentTimeMillis();
+                    }
+                    return loaded;
+                });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static AutoApprovalPolicy compile(DocumentSnapshot doc) {
+        if (!doc.exists() || !Boolean.TRUE.equals(doc.getBoolean("enabled"))) {
+            return AutoApprovalPolicy.none();
+        }
+        try {
+            AutoApprovalPolicy compiled = AutoApprovalPolicy.compile(
+                    (List<Map<String, Object>>) doc.get("rules"));
+            Log.d(TAG, "Loaded " + compiled.size() + " auto-approval rules");
+            return compiled;
+        } catch (IllegalArgumentException | ClassCastException e) {
+            Log.e(TAG, "Invalid auto-approval rules; every booking needs an admin", e);
+            return AutoApprovalPolicy.none();
+        }
+    }
+}
@@ -4,14 +4,21 @@ import android.util.Log;
 import com.google.android.gms.tasks.Task;
 import com.google.android.gms.tasks.Tasks;
 import com.google.firebase.firestore.DocumentReference;
+import com.testlab.labbooking.core.LabDay;
+import com.testlab.labbooking.core.QuotaPolicy;
+import com.testlab.labbooking.core.SeatOccupancy;
+import com.testlab.labbooking.metrics.FirestoreMetrics;
 import com.testlab.labbooking.models.Booking;
 import com.testlab.labbooking.models.BookingStatus;
 import com.testlab.labbooking.models.Lab;
 import com.testlab.labbooking.models.User;
+import com.testlab.labbooking.repositories.BookingRepository;
+import com.testlab.labbooking.repositories.SessionRepository;
 import com.testlab.labbooking.utils.AuthUtils;
 import com.testlab.labbooking.utils.DatabaseUtils;
 import com.testlab.labbooking.utils.DateTimeUtils;
 
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -33,100 +40,133 @@ public class BookingManager {
                                                     int numberOfParticipants,
                                                     List<String> requiredResources) {
 
-        return AuthUtils.getCurrentUserData(new AuthUtils.UserDataCallback() {
-            @Override
-            public void onUserDataReceived(User user) {
-                // Create booking object
-                Booking booking = new Booking();
-                booking.setLabId(labId);
-                booking.setUserId(user.getId());
-                booking.setUserName(user.getName());
-                booking.setUserEmail(user.getEmail());
-                booking.setUserPhone(user.getPhoneNumber());
-                booking.setDate(date);
-                booking.setStartTime(startTime);
-                booking.setEndTime(endTime);
-                booking.setPurpose(purpose);
-                booking.setNumberOfParticipants(numberOfParticipants);
-                booking.setRequiredResources(requiredResources);
-
-                // Step 1: Check user permissions and limits
-                checkUserBookingPermissions(user, labId, date)
-                        .continueWithTask(permissionTask -> {
-                            if (!permissionTask.isSuccessful() || !permissionTask.getResult().canBook) {
-                                return Tasks.forException(new IllegalStateException(
-                                        permissionTask.getResult().message));
-                            }
-
-                            // Step 2: Get lab data and set booking details
-                            return DatabaseUtils.getLabById(labId);
-                        })
-                        .continueWithTask(labTask -> {
-                            if (labTask.isSuccessful() && labTask.getResult().exists()) {
-                                Lab lab = labTask.getResult().toObject(Lab.class);
-                                if (lab != null) {
-                                    booking.setLabName(lab.getName());
-
-                                    // Calculate cost
-                                    double hours = booking.getDurationHours();
-                                    booking.setTotalCost(hours * lab.getHourlyRate());
-
-                                    // Set approval requirement
-                                    if (!lab.isRequiresApproval() || user.isCanBookWithoutApproval()) {
-                                        booking.setStatus(BookingStatus.APPROVED);
-                                    }
+        // The profile comes from the session store; no read when it is already loaded
+        return FirestoreMetrics.workflow("booking.create", SessionRepository.getInstance().getUser().continueWithTask(userTask -> {
+            if (!userTask.isSuccessful()) {
+                return Tasks.forResult(new BookingResult(false,
+                        DatabaseUtils.getFormattedErrorMessage(userTask.getException())));
+            }
+            User user = userTask.getResult();
+
+            // Create booking object
+            Booking booking = new Booking();
+            booking.setLabId(labId);
+            booking.setUserId(user.getId());
+            booking.setUserName(user.getName());
+            booking.setUserEmail(user.getEmail());
+            booking.setUserPhone(user.getPhoneNumber());
+            booking.setDate(date);
+            booking.setStartTime(startTime);
+            booking.setEndTime(endTime);
+            booking.setPurpose(purpose);
+            booking.setNumberOfParticipants(numberOfParticipants);
+            booking.setRequiredResources(requiredResources);
+
+            Lab[] bookedLab = new Lab[1];
+            LabDay.Admission[] admission = new LabDay.Admission[1];
+
+            // Step 1: Check user permissions and limits
+            return checkUserBookingPermissions(user, labId, date)
+                    .continueWithTask(permissionTask -> {
+                        if (!permissionTask.isSuccessful() || !permissionTask.getResult().canBook) {
+                            return Tasks.forException(new IllegalStateException(
+                                    permissionTask.getResult().message));
+                        }
 
-                                    // Step 3: Validate booking details
+                        // Step 2: Get lab data and set booking details
+                        return DatabaseUtils.getLabById(labId);
+                    })
+                    .continueWithTask(labTask -> {
+                        if (labTask.isSuccessful() && labTask.getResult().exists()) {
+                            Lab lab = labTask.getResult().toObject(Lab.class);
+                            if (lab != null) {
+                                bookedLab[0] = lab;
+                                booking.setLabName(lab.getName());
+
+                                // Calculate cost
+                                double hours = booking.getDurationHours();
+                                booking.setTotalCost(hours * lab.getHourlyRate());
+
+                                // Set approval requirement
+                                if (!lab.isRequiresApproval() || user.isCanBookWithoutApproval()) {
+                                    booking.setStatus(BookingStatus.APPROVED);
                                     return DatabaseUtils.validateBookingRequest(booking);
                                 }
-                            }
-                            return Tasks.forException(new IllegalStateException("Lab not found"));
-                        })
-                        .continueWithTask(validationTask -> {
-                            if (validationTask.isSuccessful()) {
-                                DatabaseUtils.ValidationResult validation = validationTask.getResult();
-                                if (!validation.isValid) {
-                                    return Tasks.forException(new IllegalArgumentException(
-                                            String.join(", ", validation.errors)));
-                                }
 
-                                // Step 4: Create the booking
-                                return DatabaseUtils.createBookingWithValidation(booking);
+                                // Otherwise the auto-approval rules may still let it skip the queue
+                                return AutoApprovalEngine.getInstance().evaluate(user, lab, booking)
+                                        .continueWithTask(ruleTask -> {
+                                            String rule = ruleTask.getResult();
+                                            if (rule != null) {
+                                                booking.setStatus(BookingStatus.APPROVED);
+                                                booking.setReviewedBy(AutoApprovalEngine.REVIEWER_PREFIX + rule);
+                                                booking.setReviewedAt(new Date());
+                                            }
+
+                                            // Step 3: Validate booking details
+                                            return DatabaseUtils.validateBookingRequest(booking);
+                                        });
                             }
-                            return Tasks.forException(Objects.requireNonNull(validationTask.getException()));
-                        })
-                        .continueWith(createTask -> {
-                            BookingResult result = new BookingResult();
-
-                            if (createTask.isSuccessful()) {
-                                DocumentReference docRef = createTask.getResult();
-                                booking.setId(docRef.getId());
-
-                                result.success = true;
-                                result.booking = booking;
-                                result.message = booking.getStatus() == BookingStatus.APPROVED ?
-                                        "Booking created and approved!" :
-                                        "Booking created and pending approval";
-
-                                // Send notification
-                                NotificationManager.sendBookingCreatedNotification(booking);
-
-                                Log.d(TAG, "Booking created successfully: " + docRef.getId());
-                            } else {
-                                result.success = false;
-                                result.message = DatabaseUtils.getFormattedErrorMessage(createTask.getException());
-                                Log.e(TAG, "Error creating booking", createTask.getException());
+                        }
+                        return Tasks.forException(new IllegalStateException("Lab not found"));
+                    })
+                    .continueWithTask(validationTask -> {
+                        if (validationTask.isSuccessful()) {
+                            DatabaseUtils.ValidationResult validation = validationTask.getResult();
+                            if (!validation.isValid) {
+                                return Tasks.forException(new IllegalArgumentException(
+                                        String.join(", ", validation.errors)));
                             }
 
-                            return result;
-                        });
-            }
+                            // Step 4: Create the booking; seats and counted equipment are reserved with it
+                            Lab lab = bookedLab[0];
+                            if (lab.usesDayIndex()) {
+                                return BookingRepository.getInstance().reserveBooking(booking, lab)
+                                        .continueWithTask(reserveTask -> {
+                                            admission[0] = reserveTask.getResult();
+                                            if (!admission[0].admitted) {
+                                                return Tasks.forException(new IllegalStateException(
+                                                        admission[0].describeShortfall()));
+                                            }
+                                            return Tasks.forResult(DatabaseUtils.getInstance()
+                                                    .collection(DatabaseUtils.BOOKINGS_COLLECTION)
+                                                    .document(admission[0].bookingId));
+                                        });
+                            }
+                            return BookingRepository.getInstance().createBookingWithValidation(booking);
+                        }
+                        return Tasks.forException(Objects.requireNonNull(validationTask.getException()));
+                    })
+                    .continueWith(createTask -> {
+                        BookingResult result = new BookingResult();
+
+                        if (createTask.isSuccessful()) {
+                            DocumentReference docRef = createTask.getResult();
+                            booking.setId(docRef.getId());
+
+                            result.success = true;
+                            result.booking = booking;
+                            if (admission[0] != null) {
+                                result.remainingSeats = admission[0].remainingSeats;
+                                result.remainingUnits = admission[0].remainingUnits;
+                            }
+                            result.message = booking.getStatus() == BookingStatus.APPROVED ?
+                                    "Booking created and approved!" :
+                                    "Booking created and pending approval";
+
+                            // Send notification
+                            NotificationManager.sendBookingCreatedNotification(booking);
+
+                            Log.d(TAG, "Booking created successfully: " + docRef.getId());
+                        } else {
+                            result.success = false;
+                            result.message = DatabaseUtils.getFormattedErrorMessage(createTask.getException());
+                            Log.e(TAG, "Error creating booking", createTask.getException());
+                        }
 
-            @Override
-            public void onError(String error) {
-                // Handle user data error
-            }
-        });
+                        return result;
+                    });
+        }));
     }
 
     /**
@@ -143,30 +183,32 @@ public class BookingManager {
      * Approve booking with notification
      */
     public static Task<BookingResult> approveBooking(String bookingId, String adminNotes) {
-        return updateBookingWithWorkflow(bookingId, BookingStatus.APPROVED, adminNotes,
-                "Booking approved successfully");
+        return FirestoreMetrics.workflow("booking.approve",
+                updateBookingWithWorkflow(bookingId, BookingStatus.APPROVED, adminNotes,
+                        "Booking approved successfully"));
     }
 
     /**
      * Reject booking with notification
      */
     public static Task<BookingResult> rejectBooking(String bookingId, String reason) {
-        return updateBookingWithWorkflow(bookingId, BookingStatus.REJECTED, reason,
-                "Booking rejected");
+        return FirestoreMetrics.workflow("booking.reject",
+                updateBookingWithWorkflow(bookingId, BookingStatus.REJECTED, reason, "Booking rejected"));
     }
 
     /**
      * Cancel booking with workflow
      */
     public static Task<BookingResult> cancelBooking(String bookingId, String reason) {
-        return DatabaseUtils.getInstance().collection(DatabaseUtils.BOOKINGS_COLLECTION)
-                .document(bookingId)
-                .get()
+        return FirestoreMetrics.workflow("booking.cancel", FirestoreMetrics.document("getBooking",
+                        DatabaseUtils.getInstance().collection(DatabaseUtils.BOOKINGS_COLLECTION)
+                                .document(bookingId)
+                                .get())
                 .continueWithTask(task -> {
                     if (task.isSuccessful() && task.getResult().exists()) {
                         Booking booking = task.getResult().toObject(Booking.class);
                         if (booking != null && booking.canBeCancelled()) {
-                            return DatabaseUtils.cancelBookingWithRefund(bookingId, reason, booking.getUserId())
+                            return BookingRepository.getInstance().cancelBookingWithRefund(bookingId, reason, booking.getUserId())
                                     .continueWith(cancelTask -> {
                                         BookingResult result = new BookingResult();
                                         if (cancelTask.isSuccessful()) {
@@ -186,21 +228,23 @@ public class BookingManager {
                         }
                     }
                     return Tasks.forResult(new BookingResult(false, "Cannot cancel this booking"));
-                });
+                }));
     }
 
     /**
      * Check-in to booking
      */
     public static Task<BookingResult> checkInBooking(String bookingId) {
-        return updateBookingCheckInOut(bookingId, true, false, "Checked in successfully");
+        return FirestoreMetrics.workflow("booking.checkIn",
+                updateBookingCheckInOut(bookingId, true, false, "Checked in successfully"));
     }
 
     /**
      * Check-out from booking
      */
     public static Task<BookingResult> checkOutBooking(String bookingId) {
-        return updateBookingCheckInOut(bookingId, false, true, "Checked out successfully");
+        return FirestoreMetrics.workflow("booking.checkOut",
+                updateBookingCheckInOut(bookingId, false, true, "Checked out successfully"));
     }
 
     // ======================= BOOKING QUERIES SIMPLIFIED =======================
@@ -215,7 +259,7 @@ public class BookingManager {
                 UserDashboardData dashboard = new UserDashboardData();
 
                 // Get user's upcoming bookings
-                DatabaseUtils.getUserUpcomingBookingsQuery(userId).get()
+                FirestoreMetrics.query("userUpcomingBookings", DatabaseUtils.getUserUpcomingBookingsQuery(userId).get())
                         .addOnSuccessListener(upcomingSnapshot -> {
                             if (upcomingSnapshot != null) {
                                 dashboard.upcomingBookings = upcomingSnapshot.toObjects(Booking.class);
@@ -223,7 +267,7 @@ public class BookingManager {
                         });
 
                 // Get user's recent bookings
-                DatabaseUtils.getUserBookingsQuery(userId, 10).get()
+                FirestoreMetrics.query("userRecentBookings", DatabaseUtils.getUserBookingsQuery(userId, 10).get())
                         .addOnSuccessListener(recentSnapshot -> {
                             if (recentSnapshot != null) {
                                 dashboard.recentBookings = recentSnapshot.toObjects(Booking.class);
@@ -240,7 +284,17 @@ public class BookingManager {
      */
     public static Task<List<DateTimeUtils.TimeSlot>> getAvailableTimeSlots(String labId, String date,
                                                                            int durationMinutes) {
-        return DatabaseUtils.getLabById(labId)
+        return getAvailableTimeSlots(labId, date, durationMinutes, null);
+    }
+
+    /**
+     * Available time slots that also have units free of every counted resource asked for. Labs
+     * with shared seats or counted equipment answer from their day index in a single read.
+     */
+    public static Task<List<DateTimeUtils.TimeSlot>> getAvailableTimeSlots(String labId, String date,
+                                                                           int durationMinutes,
+                                                                           List<String> requiredResources) {
+        return FirestoreMetrics.workflow("booking.availableSlots", DatabaseUtils.getLabById(labId)
                 .continueWithTask(labTask -> {
                     if (labTask.isSuccessful() && labTask.getResult().exists()) {
                         Lab lab = labTask.getResult().toObject(Lab.class);
@@ -250,37 +304,36 @@ public class BookingManager {
                                     lab.getOpenTime(), lab.getCloseTime(), durationMinutes, 30);
 
                             // Check which slots are available
-                            return DatabaseUtils.getLabBookingsQuery(labId).get()
-                                    .continueWith(bookingsTask -> {
-                                        if (bookingsTask.isSuccessful()) {
-                                            List<Booking> existingBookings = bookingsTask.getResult().toObjects(Booking.class);
-
-                                            // Mark unavailable slots
-                                            for (DateTimeUtils.TimeSlot slot : allSlots) {
-                                                for (Booking booking : existingBookings) {
-                                                    if (booking.getDate().equals(date) &&
-                                                            booking.isActive() &&
-                                                            DateTimeUtils.doTimeSlotsOverlap(
-                                                                    slot.getStartTime(), slot.getEndTime(),
-                                                                    booking.getStartTime(), booking.getEndTime())) {
-                                                        slot.setAvailable(false);
-                                                        break;
-                                                    }
-                                                }
-                                            }
-                                        }
-                                        return allSlots;
-                                    });
+                            Task<List<Booking>> bookings = lab.usesDayIndex() ?
+                                    DatabaseUtils.getLabDayReservations(labId, date) :
+                                    FirestoreMetrics.query("labBookings", DatabaseUtils.getLabBookingsQuery(labId).get())
+                                            .continueWith(task -> task.getResult().toObjects(Booking.class));
+                            return bookings.continueWith(bookingsTask -> {
+                                if (bookingsTask.isSuccessful()) {
+                                    List<Booking> existingBookings = bookingsTask.getResult();
+
+                                    // Mark unavailable slots, or count seats where groups share the lab
+                                    if (lab.isSharedCapacity()) {
+                                        DateTimeUtils.markRemainingSeats(allSlots, existingBookings, date,
+                                                lab.getCapacity());
+                                    } else {
+                                        DateTimeUtils.markUnavailableSlots(allSlots, existingBookings, date);
+                                    }
+                                    DateTimeUtils.markRemainingUnits(allSlots, existingBookings, date,
+                                            requiredResources, lab.getInventory());
+                                }
+                                return allSlots;
+                            });
                         }
                     }
                     return Tasks.forException(new IllegalStateException("Lab not found"));
-                });
+                }));
     }
 
     // ======================= VALIDATION HELPERS =======================
 
     private static Task<DatabaseUtils.BookingLimitResult> checkUserBookingPermissions(User user, String labId, String date) {
-        return DatabaseUtils.checkUserBookingLimits(user.getId(), date)
+        return DatabaseUtils.checkUserBookingLimits(user, date)
                 .continueWithTask(limitsTask -> {
                     DatabaseUtils.BookingLimitResult result = limitsTask.getResult();
 
@@ -296,14 +349,6 @@ public class BookingManager {
                             result.canBook = false;
                             result.message = "Please verify your email before booking";
                         }
-                    } else {
-                        if (result.activeBookings >= result.maxBookings) {
-                            result.message = "You have reached your maximum concurrent bookings (" +
-                                    result.maxBookings + ")";
-                        } else if (result.weeklyHours >= result.maxWeeklyHours) {
-                            result.message = "You have reached your weekly booking limit (" +
-                                    result.maxWeeklyHours + " hours)";
-                        }
                     }
 
                     return Tasks.forResult(result);
@@ -312,16 +357,18 @@ public class BookingManager {
 
     private static Task<BookingResult> updateBookingWithWorkflow(String bookingId, BookingStatus newStatus,
                                                                  String notes, String successMessage) {
-        return DatabaseUtils.getInstance().collection(DatabaseUtils.BOOKINGS_COLLECTION)
-                .document(bookingId)
-                .get()
+        return FirestoreMetrics.document("getBooking",
+                        DatabaseUtils.getInstance().collection(DatabaseUtils.BOOKINGS_COLLECTION)
+                                .document(bookingId)
+                                .get())
                 .continueWithTask(task -> {
                     if (task.isSuccessful() && task.getResult().exists()) {
                         Booking booking = task.getResult().toObject(Booking.class);
                         if (booking != null) {
                             String currentUserId = AuthUtils.getCurrentUserId();
 
-                            return DatabaseUtils.updateBookingStatus(bookingId, newStatus.getValue(), notes)
+                            return BookingRepository.getInstance().updateBookingStatus(bookingId, newStatus.getValue(),
+                                            currentUserId, notes)
                                     .continueWith(updateTask -> {
                                         BookingResult result = new BookingResult();
 
@@ -356,9 +403,10 @@ public class BookingManager {
 
     private static Task<BookingResult> updateBookingCheckInOut(String bookingId, boolean checkIn,
                                                                boolean checkOut, String successMessage) {
-        return DatabaseUtils.getInstance().collection(DatabaseUtils.BOOKINGS_COLLECTION)
-                .document(bookingId)
-                .get()
+        return FirestoreMetrics.document("getBooking",
+                        DatabaseUtils.getInstance().collection(DatabaseUtils.BOOKINGS_COLLECTION)
+                                .document(bookingId)
+                                .get())
                 .continueWithTask(task -> {
                     if (task.isSuccessful() && task.getResult().exists()) {
                         Booking booking = task.getResult().toObject(Booking.class);
@@ -372,9 +420,10 @@ public class BookingManager {
                                 // Status is set to COMPLETED in checkOut() method
                             }
 
-                            return DatabaseUtils.getInstance().collection(DatabaseUtils.BOOKINGS_COLLECTION)
-                                    .document(bookingId)
-                                    .set(booking)
+                            return FirestoreMetrics.write("updateBookingCheckInOut", 1,
+                                            DatabaseUtils.getInstance().collection(DatabaseUtils.BOOKINGS_COLLECTION)
+                                                    .document(bookingId)
+                                                    .set(booking))
                                     .continueWith(updateTask -> {
                                         BookingResult result = new BookingResult();
 
@@ -406,14 +455,15 @@ public class BookingManager {
      */
     public static Task<List<Booking>> getTodaysBookings(String userId) {
         String today = DateTimeUtils.getCurrentDate();
-        return DatabaseUtils.getInstance().collection(DatabaseUtils.BOOKINGS_COLLECTION)
-                .whereEqualTo(DatabaseUtils.FIELD_USER_ID, userId)
-                .whereEqualTo(DatabaseUtils.FIELD_DATE, today)
-                .whereIn(DatabaseUtils.FIELD_STATUS,
-                        java.util.Arrays.asList(BookingStatus.APPROVED.getValue(),
-                                BookingStatus.IN_PROGRESS.getValue()))
-                .orderBy(DatabaseUtils.FIELD_START_TIME)
-                .get()
+        return FirestoreMetrics.query("userTodaysBookings",
+                        DatabaseUtils.getInstance().collection(DatabaseUtils.BOOKINGS_COLLECTION)
+                                .whereEqualTo(DatabaseUtils.FIELD_USER_ID, userId)
+                                .whereEqualTo(DatabaseUtils.FIELD_DATE, today)
+                                .whereIn(DatabaseUtils.FIELD_STATUS,
+                                        java.util.Arrays.asList(BookingStatus.APPROVED.getValue(),
+                                                BookingStatus.IN_PROGRESS.getValue()))
+                                .orderBy(DatabaseUtils.FIELD_START_TIME)
+                                .get())
                 .continueWith(task -> {
                     if (task.isSuccessful()) {
                         return task.getResult().toObjects(Booking.class);
@@ -426,9 +476,10 @@ public class BookingManager {
      * Get next upcoming booking
      */
     public static Task<Booking> getNextUpcomingBooking(String userId) {
-        return DatabaseUtils.getUserUpcomingBookingsQuery(userId)
-                .limit(1)
-                .get()
+        return FirestoreMetrics.query("nextUpcomingBooking",
+                        DatabaseUtils.getUserUpcomingBookingsQuery(userId)
+                                .limit(1)
+                                .get())
                 .continueWith(task -> {
                     if (task.isSuccessful() && !task.getResult().isEmpty()) {
                         return task.getResult().toObjects(Booking.class).get(0);
@@ -440,60 +491,69 @@ public class BookingManager {
     /**
      * Check if user can book at this time
      */
-    public static Task<BookingResult> checkBookingEligibility(String userId, String labId,
-                                                              String date, String startTime,
-                                                              String endTime) {
-        return AuthUtils.getCurrentUserData(new AuthUtils.UserDataCallback() {
-            @Override
-            public void onUserDataReceived(User user) {
-                BookingEligibility eligibility = new BookingEligibility();
-
-                // Basic user checks
-                if (!user.isActive()) {
-                    eligibility.eligible = false;
-                    eligibility.reason = "Account is inactive";
-                    return;
-                }
-
-                if (!user.isVerified()) {
-                    eligibility.eligible = false;
-                    eligibility.reason = "Email verification required";
-                    return;
-                }
-
-                if (user.isLabRestricted(labId)) {
-                    eligibility.eligible = false;
-                    eligibility.reason = "You are restricted from this lab";
-                    return;
-                }
-
-                // Check time slot availability
-                DatabaseUtils.isTimeSlotAvailable(labId, date, startTime, endTime)
-                        .addOnSuccessListener(available -> {
-                            if (!available) {
-                                eligibility.eligible = false;
-                                eligibility.reason = "Time slot is not available";
-                            } else {
-                                // Check user limits
-                                DatabaseUtils.checkUserBookingLimits(userId, date)
-                                        .addOnSuccessListener(limitResult -> {
-                                            eligibility.eligible = limitResult.canBook;
-                                            eligibility.reason = limitResult.canBook ?
-                                                    "Eligible to book" : limitResult.message;
-                                            eligibility.currentBookings = limitResult.activeBookings;
-                                            eligibility.maxBookings = limitResult.maxBookings;
-                                            eligibility.weeklyHours = limitResult.weeklyHours;
-                                            eligibility.maxWeeklyHours = limitResult.maxWeeklyHours;
-                                        });
-                            }
-                        });
+    public static Task<BookingEligibility> checkBookingEligibility(String userId, String labId,
+                                                                   String date, String startTime,
+                                                                   String endTime) {
+        return FirestoreMetrics.workflow("booking.eligibility", SessionRepository.getInstance().getUser().continueWithTask(userTask -> {
+            BookingEligibility eligibility = new BookingEligibility();
+            if (!userTask.isSuccessful()) {
+                eligibility.eligible = false;
+                eligibility.reason = DatabaseUtils.getFormattedErrorMessage(userTask.getException());
+                return Tasks.forResult(eligibility);
             }
+            User user = userTask.getResult();
 
-            @Override
-            public void onError(String error) {
-                // Handle error
+            // Basic user checks
+            if (!user.isActive()) {
+                eligibility.eligible = false;
+                eligibility.reason = "Account is inactive";
+                return Tasks.forResult(eligibility);
             }
-        });
+
+            if (!user.isVerified()) {
+                eligibility.eligible = false;
+                eligibility.reason = "Email verification required";
+                return Tasks.forResult(eligibility);
+            }
+
+            if (user.isLabRestricted(labId)) {
+                eligibility.eligible = false;
+                eligibility.reason = "You are restricted from this lab";
+                return Tasks.forResult(eligibility);
+            }
+
+            // Check time slot availability, then user limits against the profile we hold
+            return DatabaseUtils.isTimeSlotAvailable(labId, date, startTime, endTime)
+                    .continueWithTask(availableTask -> {
+                        if (!availableTask.isSuccessful() || !Boolean.TRUE.equals(availableTask.getResult())) {
+                            eligibility.eligible = false;
+                            eligibility.reason = "Time slot is not available";
+                            return Tasks.forResult(eligibility);
+                        }
+
+                        User limitsUser = user.getId() != null && user.getId().equals(userId) ? user : null;
+                        Task<DatabaseUtils.BookingLimitResult> limits = limitsUser != null ?
+                                DatabaseUtils.checkUserBookingLimits(limitsUser, date) :
+                                DatabaseUtils.checkUserBookingLimits(userId, date);
+
+                        return limits.continueWith(limitTask -> {
+                            if (!limitTask.isSuccessful()) {
+                                eligibility.eligible = false;
+                                eligibility.reason = DatabaseUtils.getFormattedErrorMessage(limitTask.getException());
+                                return eligibility;
+                            }
+                            DatabaseUtils.BookingLimitResult limitResult = limitTask.getResult();
+                            eligibility.eligible = limitResult.canBook;
+                            eligibility.reason = limitResult.canBook ?
+                                    "Eligible to book" : limitResult.message;
+                            eligibility.currentBookings = limitResult.activeBookings;
+                            eligibility.maxBookings = limitResult.maxBookings;
+                            eligibility.weeklyHours = limitResult.weeklyHours;
+                            eligibility.maxWeeklyHours = limitResult.maxWeeklyHours;
+                            return eligibility;
+                        });
+                    });
+        }));
     }
 
     // ======================= ADMIN WORKFLOWS =======================
@@ -507,18 +567,22 @@ public class BookingManager {
             return Tasks.forResult(new BatchResult(false, "Admin not logged in", 0, 0));
         }
 
-        return DatabaseUtils.batchApproveBookings(bookingIds, adminId, adminNotes)
+        return FirestoreMetrics.workflow("booking.batchApprove", BookingRepository.getInstance().batchApproveBookings(bookingIds, adminId, adminNotes)
                 .continueWith(task -> {
                     BatchResult result = new BatchResult();
 
                     if (task.isSuccessful()) {
+                        // Bookings already reviewed or claimed by another admin are skipped
+                        List<String> approved = task.getResult();
                         result.success = true;
-                        result.message = "Bookings approved successfully";
+                        result.message = approved.size() == bookingIds.size() ? "Bookings approved successfully" :
+                                approved.size() + " of " + bookingIds.size() +
+                                        " bookings approved; the rest were already reviewed or are being reviewed";
                         result.processedCount = bookingIds.size();
-                        result.successCount = bookingIds.size();
+                        result.successCount = approved.size();
 
                         // Send notifications for each approved booking
-                        for (String bookingId : bookingIds) {
+                        for (String bookingId : approved) {
                             NotificationManager.sendBookingApprovedNotificationById(bookingId);
                         }
                     } else {
@@ -529,7 +593,7 @@ public class BookingManager {
                     }
 
                     return result;
-                });
+                }));
     }
 
     /**
@@ -555,7 +619,7 @@ public class BookingManager {
                 });
 
                 // Get pending bookings
-                DatabaseUtils.getPendingBookingsQuery().get()
+                FirestoreMetrics.query("pendingBookings", DatabaseUtils.getPendingBookingsQuery().get())
                         .addOnSuccessListener(pendingSnapshot -> {
                             if (pendingSnapshot != null) {
                                 dashboard.pendingBookings = pendingSnapshot.toObjects(Booking.class);
@@ -563,7 +627,7 @@ public class BookingManager {
                         });
 
                 // Get today's bookings
-                DatabaseUtils.getTodaysBookingsQuery().get()
+                FirestoreMetrics.query("todaysBookings", DatabaseUtils.getTodaysBookingsQuery().get())
                         .addOnSuccessListener(todaySnapshot -> {
                             if (todaySnapshot != null) {
                                 dashboard.todaysBookings = todaySnapshot.toObjects(Booking.class);
@@ -582,6 +646,8 @@ public class BookingManager {
         public String message;
         public Booking booking;
         public double refundAmount;
+        public List<SeatOccupancy.Window> remainingSeats; // Shared-capacity labs only
+        public Map<String, Integer> remainingUnits; // Counted equipment the booking reserved
 
         public BookingResult() {}
 
@@ -684,26 +750,22 @@ public class BookingManager {
         String weekStart = DateTimeUtils.getWeekStartDate(date);
         String weekEnd = DateTimeUtils.getWeekEndDate(date);
 
-        return DatabaseUtils.getInstance().collection(DatabaseUtils.BOOKINGS_COLLECTION)
-                .whereEqualTo(DatabaseUtils.FIELD_USER_ID, userId)
-                .whereGreaterThanOrEqualTo(DatabaseUtils.FIELD_DATE, weekStart)
-                .whereLessThanOrEqualTo(DatabaseUtils.FIELD_DATE, weekEnd)
-                .whereIn(DatabaseUtils.FIELD_STATUS,
-                        java.util.Arrays.asList(BookingStatus.APPROVED.getValue(),
-                                BookingStatus.COMPLETED.getValue(),
-                                BookingStatus.IN_PROGRESS.getValue()))
-                .get()
+        return FirestoreMetrics.query("userWeeklyUsage",
+                        DatabaseUtils.getInstance().collection(DatabaseUtils.BOOKINGS_COLLECTION)
+                                .whereEqualTo(DatabaseUtils.FIELD_USER_ID, userId)
+                                .whereGreaterThanOrEqualTo(DatabaseUtils.FIELD_DATE, weekStart)
+                                .whereLessThanOrEqualTo(DatabaseUtils.FIELD_DATE, weekEnd)
+                                .whereIn(DatabaseUtils.FIELD_STATUS,
+                                        java.util.Arrays.asList(BookingStatus.APPROVED.getValue(),
+                                                BookingStatus.COMPLETED.getValue(),
+                                                BookingStatus.IN_PROGRESS.getValue()))
+                                .get())
                 .continueWith(task -> {
-                    int totalMinutes = 0;
-                    if (task.isSuccessful()) {
-                        for (com.google.firebase.firestore.DocumentSnapshot doc : task.getResult().getDocuments()) {
-                            Booking booking = doc.toObject(Booking.class);
-                            if (booking != null) {
-                                totalMinutes += booking.getDurationMinutes();
-                            }
-                        }
+                    if (!task.isSuccessful()) {
+                        return 0;
                     }
-                    return totalMinutes / 60; // Return hours
+                    List<Booking> bookings = task.getResult().toObjects(Booking.class);
+                    return QuotaPolicy.bookedMinutesInWeek(bookings, date) / 60; // Return hours
                 });
     }
 }
\ No newline at end of file
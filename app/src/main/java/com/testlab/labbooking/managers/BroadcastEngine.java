@@ -0,0 +1,430 @@
+package com.testlab.labbooking.managers;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.WriteBatch;
+import com.testlab.labbooking.models.Notification;
+import com.testlab.labbooking.utils.DatabaseUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Sends one notification to many users without truncating or hitting the batch limit.
+ *
+ * Recipients are paged in user ID order with the last ID as the cursor, each page is split into
+ * 500-operation batches committed in parallel, and progress is checkpointed to a broadcasts/{id}
+ * document after every page. An interrupted broadcast can be resumed from its last checkpoint;
+ * recipients whose batch failed are recorded and retried first on resume.
+ *
+ * Notification documents use deterministic IDs ({broadcastId}_{userId}), so re-sending a page
+ * after an interruption overwrites rather than duplicates. The unread counter of such a user may
+ * be bumped twice; it is corrected by the periodic unread count reconciliation.
+ */
+public class BroadcastEngine {
+    private static final String TAG = "BroadcastEngine";
+    private static final int PAGE_SIZE = 1000;
+    private static final int USERS_PER_BATCH = 250; // 2 writes each, 500-op batch limit
+
+    public static final String STATUS_RUNNING = "running";
+    public static final String STATUS_INTERRUPTED = "interrupted";
+    public static final String STATUS_COMPLETED = "completed";
+    public static final String STATUS_PARTIAL = "partial";
+
+    private static BroadcastEngine instance;
+
+    private final Store store;
+    private final Executor executor;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private BroadcastEngine() {
+        this(new FirestoreStore(), Executors.newCachedThreadPool());
+    }
+
+    BroadcastEngine(Store store, Executor executor) {
+        this.store = store;
+        this.executor = executor;
+    }
+
+    public static synchronized BroadcastEngine getInstance() {
+        if (instance == null) {
+            instance = new BroadcastEngine();
+        }
+        return instance;
+    }
+
+    // ======================= BROADCAST OPERATIONS =======================
+
+    /**
+     * Notify an explicit list of users
+     */
+    public Task<BroadcastResult> broadcastToUsers(List<String> userIds, String title, String message,
+                                                  Notification.NotificationType type,
+                                                  ProgressListener listener) {
+        Broadcast broadcast = Broadcast.create(title, message, type);
+        // Sorted so the user ID works as a cursor
+        broadcast.recipientIds = new ArrayList<>(new TreeSet<>(userIds));
+        return start(broadcast, listener);
+    }
+
+    /**
+     * Continue a broadcast from its last checkpoint, retrying recipients that failed before
+     */
+    public Task<BroadcastResult> resume(String broadcastId, ProgressListener listener) {
+        return getBroadcastRef(broadcastId).get().continueWithTask(task -> {
+            if (!task.isSuccessful()) {
+                return Tasks.forException(task.getException());
+            }
+            DocumentSnapshot doc = task.getResult();
+            if (!doc.exists()) {
+                return Tasks.forException(new IllegalArgumentException("Broadcast not found: " + broadcastId));
+            }
+
+            Broadcast broadcast = Broadcast.fromSnapshot(doc);
+            if (STATUS_COMPLETED.equals(broadcast.status)) {
+                return Tasks.forResult(broadcast.toResult());
+            }
+            return run(broadcast, listener);
+        });
+    }
+
+    private Task<BroadcastResult> start(Broadcast broadcast, ProgressListener listener) {
+        Map<String, Object> data = broadcast.toMap();
+        data.put(DatabaseUtils.FIELD_CREATED_AT, FieldValue.serverTimestamp());
+
+        return getBroadcastRef(broadcast.id).set(data)
+                .continueWithTask(task -> {
+                    if (!task.isSuccessful()) {
+                        return Tasks.forException(task.getException());
+                    }
+                    return run(broadcast, listener);
+                });
+    }
+
+    Task<BroadcastResult> run(Broadcast broadcast, ProgressListener listener) {
+        TaskCompletionSource<BroadcastResult> source = new TaskCompletionSource<>();
+
+        executor.execute(() -> {
+            try {
+                source.setResult(execute(broadcast, listener));
+            } catch (Exception e) {
+                Log.e(TAG, "Broadcast " + broadcast.id + " interrupted at cursor " + broadcast.cursor, e);
+                broadcast.status = STATUS_INTERRUPTED;
+                saveCheckpoint(broadcast);
+                source.setException(e);
+            }
+        });
+
+        return source.getTask();
+    }
+
+    /**
+     * Runs on a worker thread; blocks on Firestore tasks
+     */
+    private BroadcastResult execute(Broadcast broadcast, ProgressListener listener) throws Exception {
+        long startedAt = System.currentTimeMillis();
+        broadcast.status = STATUS_RUNNING;
+
+        // Retry recipients whose batch failed in an earlier run
+        if (!broadcast.failedUserIds.isEmpty()) {
+            List<String> retry = broadcast.failedUserIds;
+            broadcast.failed -= retry.size();
+            broadcast.failedUserIds = new ArrayList<>();
+            try {
+                writePage(broadcast, retry);
+            } catch (Exception e) {
+                // Nobody was written; keep them for the next resume
+                broadcast.failed += retry.size();
+                broadcast.failedUserIds = retry;
+                throw e;
+            }
+            await(saveCheckpoint(broadcast));
+            postProgress(listener, broadcast);
+        }
+
+        Task<List<String>> nextPage = fetchPage(broadcast, broadcast.cursor);
+        while (true) {
+            List<String> page = await(nextPage);
+            if (page.isEmpty()) {
+                break;
+            }
+
+            String lastUserId = page.get(page.size() - 1);
+            boolean hasMore = page.size() == PAGE_SIZE;
+            if (hasMore) {
+                // Fetch the next page while this one is being written
+                nextPage = fetchPage(broadcast, lastUserId);
+            }
+
+            writePage(broadcast, page);
+            broadcast.cursor = lastUserId;
+            await(saveCheckpoint(broadcast));
+            postProgress(listener, broadcast);
+
+            if (!hasMore) {
+                break;
+            }
+        }
+
+        broadcast.status = broadcast.failedUserIds.isEmpty() ? STATUS_COMPLETED : STATUS_PARTIAL;
+        await(saveCheckpoint(broadcast));
+
+        Log.d(TAG, "Broadcast " + broadcast.id + " " + broadcast.status + ": " + broadcast.sent +
+                " sent, " + broadcast.failed + " failed in " + (System.currentTimeMillis() - startedAt) + "ms");
+        return broadcast.toResult();
+    }
+
+    private Task<List<String>> fetchPage(Broadcast broadcast, String startAfterUserId) {
+        List<String> page = new ArrayList<>();
+        for (String userId : broadcast.recipientIds) {
+            if (startAfterUserId != null && userId.compareTo(startAfterUserId) <= 0) {
+                continue;
+            }
+            page.add(userId);
+            if (page.size() == PAGE_SIZE) {
+                break;
+            }
+        }
+        return Tasks.forResult(page);
+    }
+
+    /**
+     * Write one page as parallel batches. Fails only if every batch fails (e.g. offline), so the
+     * caller stops without advancing the cursor; partial failures are recorded for retry.
+     */
+    private void writePage(Broadcast broadcast, List<String> userIds) throws Exception {
+        List<List<String>> chunks = new ArrayList<>();
+        List<Task<Void>> commits = new ArrayList<>();
+
+        for (int i = 0; i < userIds.size(); i += USERS_PER_BATCH) {
+            List<String> chunk = userIds.subList(i, Math.min(i + USERS_PER_BATCH, userIds.size()));
+            chunks.add(chunk);
+            commits.add(store.commit(broadcast, chunk));
+        }
+
+        await(Tasks.whenAllComplete(commits));
+
+        Exception lastError = null;
+        int failedChunks = 0;
+        for (int i = 0; i < commits.size(); i++) {
+            if (commits.get(i).isSuccessful()) {
+                broadcast.sent += chunks.get(i).size();
+            } else {
+                failedChunks++;
+                lastError = commits.get(i).getException();
+                Log.e(TAG, "Broadcast batch of " + chunks.get(i).size() + " failed", lastError);
+            }
+        }
+
+        if (failedChunks == commits.size() && lastError != null) {
+            throw lastError;
+        }
+        for (int i = 0; i < commits.size(); i++) {
+            if (!commits.get(i).isSuccessful()) {
+                broadcast.failed += chunks.get(i).size();
+                broadcast.failedUserIds.addAll(chunks.get(i));
+            }
+        }
+    }
+
+    private Task<Void> saveCheckpoint(Broadcast broadcast) {
+        Map<String, Object> checkpoint = new HashMap<>();
+        checkpoint.put("status", broadcast.status);
+        checkpoint.put("cursor", broadcast.cursor);
+        checkpoint.put("sent", broadcast.sent);
+        checkpoint.put("failed", broadcast.failed);
+        checkpoint.put("failedUserIds", broadcast.failedUserIds);
+        return store.saveCheckpoint(broadcast.id, checkpoint);
+    }
+
+    /**
+     * Tasks.await without its main-thread check, which JVM tests cannot satisfy; the engine only
+     * blocks on its own worker threads
+     */
+    private static <T> T await(Task<T> task) throws Exception {
+        CountDownLatch done = new CountDownLatch(1);
+        task.addOnCompleteListener(Runnable::run, finished -> done.countDown());
+        done.await();
+        if (task.isCanceled()) {
+            throw new CancellationException("Task was cancelled");
+        }
+        if (!task.isSuccessful()) {
+            throw new ExecutionException(task.getException());
+        }
+        return task.getResult();
+    }
+
+    private void postProgress(ProgressListener listener, Broadcast broadcast) {
+        if (listener == null) {
+            return;
+        }
+        String broadcastId = broadcast.id;
+        int sent = broadcast.sent;
+        int failed = broadcast.failed;
+        mainHandler.post(() -> listener.onProgress(broadcastId, sent, failed));
+    }
+
+    // ======================= HELPER METHODS =======================
+
+    private static DocumentReference getBroadcastRef(String broadcastId) {
+        return DatabaseUtils.getInstance().collection(DatabaseUtils.BROADCASTS_COLLECTION).document(broadcastId);
+    }
+
+    private static DocumentReference getNotificationRef(String broadcastId, String userId) {
+        return DatabaseUtils.getInstance().collection(DatabaseUtils.NOTIFICATIONS_COLLECTION)
+                .document(broadcastId + "_" + userId);
+    }
+
+    /**
+     * Where notifications and checkpoints are written
+     */
+    interface Store {
+        /**
+         * Write the notifications of one chunk of recipients in a single batch
+         */
+        Task<Void> commit(Broadcast broadcast, List<String> userIds);
+
+        Task<Void> saveCheckpoint(String broadcastId, Map<String, Object> checkpoint);
+    }
+
+    private static class FirestoreStore implements Store {
+        @Override
+        public Task<Void> commit(Broadcast broadcast, List<String> userIds) {
+            WriteBatch batch = DatabaseUtils.getInstance().batch();
+            for (String userId : userIds) {
+                DatabaseUtils.addNotificationToBatch(batch, getNotificationRef(broadcast.id, userId),
+                        broadcast.buildNotificationData(userId));
+            }
+            return batch.commit();
+        }
+
+        @Override
+        public Task<Void> saveCheckpoint(String broadcastId, Map<String, Object> checkpoint) {
+            Map<String, Object> data = new HashMap<>(checkpoint);
+            data.put(DatabaseUtils.FIELD_UPDATED_AT, FieldValue.serverTimestamp());
+            return getBroadcastRef(broadcastId).set(data, SetOptions.merge());
+        }
+    }
+
+    /**
+     * Mutable broadcast state; only touched by the worker running it
+     */
+    static class Broadcast {
+        String id;
+        String title;
+        String message;
+        Notification.NotificationType type;
+        List<String> recipientIds;
+        String cursor;
+        String status;
+        int sent;
+        int failed;
+        List<String> failedUserIds = new ArrayList<>();
+
+        static Broadcast create(String title, String message, Notification.NotificationType type) {
+            Broadcast broadcast = new Broadcast();
+            broadcast.id = getBroadcastRefId();
+            broadcast.title = title;
+            broadcast.message = message;
+            broadcast.type = type;
+            broadcast.status = STATUS_RUNNING;
+            return broadcast;
+        }
+
+        @SuppressWarnings("unchecked")
+        static Broadcast fromSnapshot(DocumentSnapshot doc) {
+            Broadcast broadcast = new Broadcast();
+            broadcast.id = doc.getId();
+            broadcast.title = doc.getString("title");
+            broadcast.message = doc.getString("message");
+            broadcast.type = Notification.NotificationType.fromString(doc.getString("type"));
+            List<String> recipientIds = (List<String>) doc.get("recipientIds");
+            broadcast.recipientIds = recipientIds != null ? recipientIds : Collections.emptyList();
+            broadcast.cursor = doc.getString("cursor");
+            broadcast.status = doc.getString("status");
+            Long sent = doc.getLong("sent");
+            Long failed = doc.getLong("failed");
+            broadcast.sent = sent != null ? sent.intValue() : 0;
+            broadcast.failed = failed != null ? failed.intValue() : 0;
+            List<String> failedUserIds = (List<String>) doc.get("failedUserIds");
+            if (failedUserIds != null) {
+                broadcast.failedUserIds = new ArrayList<>(failedUserIds);
+            }
+            return broadcast;
+        }
+
+        private static String getBroadcastRefId() {
+            return DatabaseUtils.getInstance().collection(DatabaseUtils.BROADCASTS_COLLECTION).document().getId();
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> data = new HashMap<>();
+            data.put("title", title);
+            data.put("message", message);
+            data.put("type", type.getValue());
+            data.put("recipientIds", recipientIds);
+            data.put("cursor", cursor);
+            data.put("status", status);
+            data.put("sent", sent);
+            data.put("failed", failed);
+            data.put("failedUserIds", failedUserIds);
+            return data;
+        }
+
+        Map<String, Object> buildNotificationData(String userId) {
+            Map<String, Object> data = DatabaseUtils.buildNotificationData(userId, title, message,
+                    type.getValue(), null, type.getDefaultPriority());
+            data.put("iconName", type.getDefaultIcon());
+            data.put("broadcastId", id);
+            return data;
+        }
+
+        BroadcastResult toResult() {
+            return new BroadcastResult(id, status, sent, failed, failedUserIds);
+        }
+    }
+
+    // ======================= RESULT AND CALLBACKS =======================
+
+    public static class BroadcastResult {
+        public final String broadcastId;
+        public final String status;
+        public final int sent;
+        public final int failed;
+        public final List<String> failedUserIds;
+
+        BroadcastResult(String broadcastId, String status, int sent, int failed, List<String> failedUserIds) {
+            this.broadcastId = broadcastId;
+            this.status = status;
+            this.sent = sent;
+            this.failed = failed;
+            this.failedUserIds = Collections.unmodifiableList(new ArrayList<>(failedUserIds));
+        }
+
+        public boolean isComplete() {
+            return STATUS_COMPLETED.equals(status);
+        }
+    }
+
+    public interface ProgressListener {
+        void onProgress(String broadcastId, int sent, int failed);
+    }
+}
@@ -0,0 +1,197 @@
+package com.testlab.labbooking.managers;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.WriteBatch;
+import com.google.firebase.messaging.FirebaseMessaging;
+import com.testlab.labbooking.utils.AuthUtils;
+import com.testlab.labbooking.utils.DatabaseUtils;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Registry of FCM tokens, one document per device under users/{userId}/deviceTokens/{deviceId}.
+ *
+ * Token refreshes and sign-ins are debounced into a single batched upsert, and the last-seen
+ * timestamp is written at most once a day. A device only ever touches its own user's tokens:
+ * the push relay reads them server-side to send (see {@link PushSender}) and drops the ones FCM
+ * reports as unregistered, while tokens not seen for {@link #STALE_AFTER_MILLIS} are pruned here.
+ */
+public class DeviceTokenRegistry {
+    private static final String TAG = "DeviceTokenRegistry";
+    private static final String PREFS_NAME = "device_token_registry";
+    private static final String PREF_DEVICE_ID = "device_id";
+    private static final String PREF_TOKEN = "token";
+    private static final String PREF_SYNCED_TOKEN = "synced_token";
+    private static final String PREF_SYNCED_USER_ID = "synced_user_id";
+    private static final String PREF_LAST_SEEN_WRITTEN_AT = "last_seen_written_at";
+
+    private static final long FLUSH_DELAY_MILLIS = 2000;
+    private static final long LAST_SEEN_INTERVAL_MILLIS = 24 * 60 * 60 * 1000L; // 1 day
+    public static final long STALE_AFTER_MILLIS = 60L * 24 * 60 * 60 * 1000; // 60 days
+
+    private static DeviceTokenRegistry instance;
+
+    private final SharedPreferences prefs;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable flushRunnable = this::flush;
+
+    private DeviceTokenRegistry(Context context) {
+        prefs = context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    public static synchronized DeviceTokenRegistry getInstance(Context context) {
+        if (instance == null) {
+            instance = new DeviceTokenRegistry(context);
+        }
+        return instance;
+    }
+
+    /**
+     * The registry once created by {@link #getInstance(Context)}, or null
+     */
+    public static synchronized DeviceTokenRegistry peekInstance() {
+        return instance;
+    }
+
+    // ======================= REGISTRATION =======================
+
+    /**
+     * Fetch the current token (app start) and make sure it is registered
+     */
+    public void refresh() {
+        FirebaseMessaging.getInstance().getToken()
+                .addOnSuccessListener(this::onNewToken)
+                .addOnFailureListener(e -> Log.e(TAG, "Error fetching FCM token", e));
+    }
+
+    /**
+     * Called from the messaging service when FCM rotates the token; may arrive before sign-in
+     */
+    public void onNewToken(String token) {
+        prefs.edit().putString(PREF_TOKEN, token).apply();
+        scheduleFlush();
+    }
+
+    /**
+     * Called after sign-in so the token is attached to the signed-in user
+     */
+    public void onUserSignedIn() {
+        scheduleFlush();
+    }
+
+    /**
+     * Detach this device from the user before signing out
+     */
+    public void onUserSigningOut() {
+        String userId = prefs.getString(PREF_SYNCED_USER_ID, null);
+        if (userId == null) {
+            return;
+        }
+        mainHandler.removeCallbacks(flushRunnable);
+        DatabaseUtils.getDeviceTokenRef(userId, getDeviceId()).delete()
+                .addOnFailureListener(e -> Log.e(TAG, "Error removing device token", e));
+        prefs.edit()
+                .remove(PREF_SYNCED_USER_ID)
+                .remove(PREF_SYNCED_TOKEN)
+                .remove(PREF_LAST_SEEN_WRITTEN_AT)
+                .apply();
+    }
+
+    private void scheduleFlush() {
+        // Token refresh, sign-in and app start often arrive together; write once
+        mainHandler.removeCallbacks(flushRunnable);
+        mainHandler.postDelayed(flushRunnable, FLUSH_DELAY_MILLIS);
+    }
+
+    private void flush() {
+        String userId = AuthUtils.getCurrentUserId();
+        String token = prefs.getString(PREF_TOKEN, null);
+        if (userId == null || token == null) {
+            return;
+        }
+
+        String syncedUserId = prefs.getString(PREF_SYNCED_USER_ID, null);
+        String syncedToken = prefs.getString(PREF_SYNCED_TOKEN, null);
+        long lastSeenWrittenAt = prefs.getLong(PREF_LAST_SEEN_WRITTEN_AT, 0);
+        long now = System.currentTimeMillis();
+
+        boolean changed = !userId.equals(syncedUserId) || !token.equals(syncedToken);
+        if (!changed && now - lastSeenWrittenAt < LAST_SEEN_INTERVAL_MILLIS) {
+            return;
+        }
+
+        String deviceId = getDeviceId();
+        WriteBatch batch = DatabaseUtils.getInstance().batch();
+
+        Map<String, Object> data = new HashMap<>();
+        data.put(DatabaseUtils.FIELD_USER_ID, userId);
+        data.put("token", token);
+        data.put("platform", "android");
+        data.put("model", Build.MODEL);
+        data.put(DatabaseUtils.FIELD_LAST_SEEN_AT, FieldValue.serverTimestamp());
+        data.put(DatabaseUtils.FIELD_UPDATED_AT, FieldValue.serverTimestamp());
+        batch.set(DatabaseUtils.getDeviceTokenRef(userId, deviceId), data, SetOptions.merge());
+
+        if (syncedUserId != null && !syncedUserId.equals(userId)) {
+            // Another account used this device before; stop sending it that account's pushes
+            batch.delete(DatabaseUtils.getDeviceTokenRef(syncedUserId, deviceId));
+        }
+
+        batch.commit()
+                .addOnSuccessListener(aVoid -> prefs.edit()
+                        .putString(PREF_SYNCED_USER_ID, userId)
+                        .putString(PREF_SYNCED_TOKEN, token)
+                        .putLong(PREF_LAST_SEEN_WRITTEN_AT, now)
+                        .apply())
+                .addOnFailureListener(e -> Log.e(TAG, "Error registering device token", e));
+    }
+
+    private String getDeviceId() {
+        String deviceId = prefs.getString(PREF_DEVICE_ID, null);
+        if (deviceId == null) {
+            deviceId = UUID.randomUUID().toString();
+            prefs.edit().putString(PREF_DEVICE_ID, deviceId).apply();
+        }
+        return deviceId;
+    }
+
+    // ======================= PRUNING =======================
+
+    /**
+     * Delete a user's tokens that have not been seen recently
+     */
+    public static Task<Integer> pruneStaleTokens(String userId) {
+        Date cutoff = new Date(System.currentTimeMillis() - STALE_AFTER_MILLIS);
+        return DatabaseUtils.getInstance().collection(DatabaseUtils.USERS_COLLECTION).document(userId)
+                .collection(DatabaseUtils.DEVICE_TOKENS_COLLECTION)
+                .whereLessThan(DatabaseUtils.FIELD_LAST_SEEN_AT, cutoff)
+                .get()
+                .continueWithTask(task -> {
+                    List<DocumentSnapshot> stale = task.getResult().getDocuments();
+                    if (stale.isEmpty()) {
+                        return Tasks.forResult(0);
+                    }
+                    WriteBatch batch = DatabaseUtils.getInstance().batch();
+                    for (DocumentSnapshot doc : stale) {
+                        batch.delete(doc.getReference());
+                    }
+                    Log.d(TAG, "Pruning " + stale.size() + " stale device tokens for " + userId);
+                    return batch.commit().continueWith(commit -> stale.size());
+                });
+    }
+}
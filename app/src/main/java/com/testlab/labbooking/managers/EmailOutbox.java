@@ -0,0 +1,81 @@
+package com.testlab.labbooking.managers;
+
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.WriteBatch;
+import com.testlab.labbooking.utils.DatabaseUtils;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Durable email pipeline backed by the emailOutbox collection.
+ *
+ * The app only writes emails to the outbox (template ID plus parameters, rendered at send time),
+ * due right away. The mail drain (the :maildrain module) runs on a trusted host with the SMTP
+ * credentials and sends them in batches, retries transient failures with backoff and
+ * dead-letters the rest; client devices never talk to the mail server.
+ */
+public class EmailOutbox {
+    // The drain moves entries on to "sent" or "dead_letter"
+    public static final String STATUS_PENDING = "pending";
+
+    private static final String FIELD_TO = "to";
+    private static final String FIELD_TEMPLATE = "template";
+    private static final String FIELD_PARAMS = "params";
+    private static final String FIELD_ATTEMPTS = "attempts";
+
+    private static EmailOutbox instance;
+
+    private EmailOutbox() {
+    }
+
+    public static synchronized EmailOutbox getInstance() {
+        if (instance == null) {
+            instance = new EmailOutbox();
+        }
+        return instance;
+    }
+
+    // ======================= ENQUEUE =======================
+
+    /**
+     * Write the deliveries to the outbox for the mail drain. Blocks on the outbox write; call off
+     * the main thread.
+     */
+    void enqueue(List<NotificationDispatcher.Delivery> deliveries) throws Exception {
+        CollectionReference outbox = DatabaseUtils.getInstance().collection(DatabaseUtils.EMAIL_OUTBOX_COLLECTION);
+        WriteBatch batch = DatabaseUtils.getInstance().batch();
+        Date now = new Date();
+        int count = 0;
+
+        for (NotificationDispatcher.Delivery delivery : deliveries) {
+            NotificationPreferenceCache.Recipient recipient = delivery.recipient;
+            if (recipient == null || recipient.email == null || recipient.email.isEmpty()) {
+                continue;
+            }
+
+            DocumentReference ref = outbox.document();
+            Map<String, Object> data = new HashMap<>();
+            data.put(DatabaseUtils.FIELD_USER_ID, recipient.userId);
+            data.put(FIELD_TO, recipient.email);
+            data.put(FIELD_TEMPLATE, EmailTemplates.templateFor(delivery.notification.getType()));
+            data.put(FIELD_PARAMS, EmailTemplates.paramsFor(delivery.notification, recipient));
+            data.put(FIELD_ATTEMPTS, 0);
+            data.put(DatabaseUtils.FIELD_STATUS, STATUS_PENDING);
+            data.put(DatabaseUtils.FIELD_NEXT_ATTEMPT_AT, now);
+            data.put(DatabaseUtils.FIELD_CREATED_AT, FieldValue.serverTimestamp());
+            data.put(DatabaseUtils.FIELD_EXPIRE_AT, DatabaseUtils.getNotificationExpiry());
+            batch.set(ref, data);
+            count++;
+        }
+
+        if (count > 0) {
+            Tasks.await(batch.commit());
+        }
+    }
+}
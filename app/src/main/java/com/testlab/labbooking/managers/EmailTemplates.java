@@ -0,0 +1,56 @@
+package com.testlab.labbooking.managers;
+
+import com.testlab.labbooking.models.Notification;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Picks the email template for a notification and the parameters stored with its outbox entry.
+ * The mail drain renders the template at send time, so the IDs and parameter names here must
+ * match its EmailTemplates.
+ */
+public class EmailTemplates {
+    public static final String TEMPLATE_DEFAULT = "default";
+    public static final String TEMPLATE_BOOKING_REMINDER = "booking_reminder";
+    public static final String TEMPLATE_BOOKING_UPDATE = "booking_update";
+
+    public static final String PARAM_NAME = "name";
+    public static final String PARAM_TITLE = "title";
+    public static final String PARAM_MESSAGE = "message";
+    public static final String PARAM_ACTION_TEXT = "actionText";
+
+    private EmailTemplates() {
+    }
+
+    /**
+     * Template used for a notification type
+     */
+    public static String templateFor(Notification.NotificationType type) {
+        switch (type) {
+            case BOOKING_REMINDER:
+            case BOOKING_OVERDUE:
+                return TEMPLATE_BOOKING_REMINDER;
+            case BOOKING_APPROVED:
+            case BOOKING_REJECTED:
+            case BOOKING_CANCELLED:
+            case BOOKING_COMPLETED:
+                return TEMPLATE_BOOKING_UPDATE;
+            default:
+                return TEMPLATE_DEFAULT;
+        }
+    }
+
+    /**
+     * Parameters stored in the outbox for a notification and its recipient
+     */
+    public static Map<String, String> paramsFor(Notification notification,
+                                                NotificationPreferenceCache.Recipient recipient) {
+        Map<String, String> params = new HashMap<>();
+        params.put(PARAM_NAME, recipient.name != null ? recipient.name : "user");
+        params.put(PARAM_TITLE, notification.getTitle());
+        params.put(PARAM_MESSAGE, notification.getMessage());
+        params.put(PARAM_ACTION_TEXT, notification.getActionText());
+        return params;
+    }
+}
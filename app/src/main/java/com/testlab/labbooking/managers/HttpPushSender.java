@@ -0,0 +1,147 @@
+package com.testlab.labbooking.managers;
+
+import android.util.Log;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Sends push messages to an FCM HTTP v1 style endpoint ({@code POST .../messages:send}) on the
+ * backend relay that holds the FCM credentials and the device tokens; a message names a
+ * {@code user} or a {@code topic}, never a token. Debug builds can point it at the local
+ * stand-in server for load tests.
+ *
+ * Messages are sent concurrently over keep-alive connections.
+ */
+public class HttpPushSender implements PushSender {
+    private static final String TAG = "HttpPushSender";
+    private static final int DEFAULT_PARALLELISM = 8;
+    private static final int TIMEOUT_MILLIS = 10_000;
+
+    private final URL endpoint;
+    private final String authorization;
+    private final ExecutorService executor;
+
+    /**
+     * @param endpointUrl   the messages:send URL
+     * @param authorization value of the Authorization header, or null
+     */
+    public HttpPushSender(String endpointUrl, String authorization) throws IOException {
+        this(endpointUrl, authorization, DEFAULT_PARALLELISM);
+    }
+
+    public HttpPushSender(String endpointUrl, String authorization, int parallelism) throws IOException {
+        this.endpoint = new URL(endpointUrl);
+        this.authorization = authorization;
+        this.executor = Executors.newFixedThreadPool(parallelism);
+    }
+
+    @Override
+    public List<Result> send(List<PushMessage> messages) throws Exception {
+        List<Callable<Result>> calls = new ArrayList<>();
+        for (PushMessage message : messages) {
+            calls.add(() -> sendOne(message));
+        }
+
+        List<Result> results = new ArrayList<>();
+        for (Future<Result> future : executor.invokeAll(calls)) {
+            results.add(future.get());
+        }
+        return results;
+    }
+
+    private Result sendOne(PushMessage message) {
+        HttpURLConnection connection = null;
+        try {
+            byte[] body = buildBody(message).getBytes(StandardCharsets.UTF_8);
+
+            connection = (HttpURLConnection) endpoint.openConnection();
+            connection.setRequestMethod("POST");
+            connection.setConnectTimeout(TIMEOUT_MILLIS);
+            connection.setReadTimeout(TIMEOUT_MILLIS);
+            connection.setDoOutput(true);
+            connection.setFixedLengthStreamingMode(body.length);
+            connection.setRequestProperty("Content-Type", "application/json; charset=UTF-8");
+            if (authorization != null) {
+                connection.setRequestProperty("Authorization", authorization);
+            }
+
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body);
+            }
+
+            int code = connection.getResponseCode();
+            // Always drain the body so the connection can be reused
+            String response = readFully(code < 400 ? connection.getInputStream() : connection.getErrorStream());
+
+            if (code == HttpURLConnection.HTTP_OK) {
+                return Result.SENT;
+            }
+            Log.w(TAG, "Push rejected with HTTP " + code + ": " + response);
+            return Result.FAILED;
+        } catch (IOException | JSONException e) {
+            Log.e(TAG, "Error sending push", e);
+            // Only drop the socket on failure; successful responses leave it for reuse
+            if (connection != null) {
+                connection.disconnect();
+            }
+            return Result.FAILED;
+        }
+    }
+
+    private static String buildBody(PushMessage message) throws JSONException {
+        JSONObject notification = new JSONObject();
+        notification.put("title", message.title);
+        notification.put("body", message.body);
+
+        JSONObject data = new JSONObject();
+        if (message.data != null) {
+            for (Map.Entry<String, String> entry : message.data.entrySet()) {
+                if (entry.getValue() != null) {
+                    data.put(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+
+        JSONObject payload = new JSONObject();
+        if (message.topic != null) {
+            payload.put("topic", message.topic);
+        } else {
+            payload.put("user", message.userId);
+        }
+        payload.put("notification", notification);
+        payload.put("data", data);
+
+        return new JSONObject().put("message", payload).toString();
+    }
+
+    private static String readFully(InputStream in) throws IOException {
+        if (in == null) {
+            return "";
+        }
+        try (InputStream stream = in) {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            byte[] chunk = new byte[1024];
+            int read;
+            while ((read = stream.read(chunk)) != -1) {
+                buffer.write(chunk, 0, read);
+            }
+            return buffer.toString("UTF-8");
+        }
+    }
+}
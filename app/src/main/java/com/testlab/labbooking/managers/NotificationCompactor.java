@@ -0,0 +1,253 @@
+package com.testlab.labbooking.managers;
+
+import android.util.Log;
+
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.WriteBatch;
+import com.testlab.labbooking.utils.DatabaseUtils;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Retention for the notifications collection.
+ *
+ * Deletes expired notifications, and read or dismissed ones past a short grace period, using
+ * keyset pagination and rate-limited batch deletes. Every deleted notification is folded into a
+ * per-user monthly summary document (notificationSummaries/{userId}_{yyyy-MM}) so history totals
+ * survive, and deleted unread notifications are taken off the unread counter in the same batch.
+ *
+ * All methods block and must be called off the main thread (see NotificationCompactionWorker).
+ */
+public class NotificationCompactor {
+    private static final String TAG = "NotificationCompactor";
+
+    private static final long READ_GRACE_MILLIS = 7L * 24 * 60 * 60 * 1000; // 7 days
+    private static final int PAGE_SIZE = 300;
+    // Each deleted notification may add a summary and a counter write: 150 * 3 <= 500 ops
+    private static final int DELETE_CHUNK_SIZE = 150;
+    private static final int MAX_DELETES_PER_SECOND = 200;
+    private static final int MAX_DELETES_PER_RUN = 5000; // the next run picks up the rest
+
+    private NotificationCompactor() {
+    }
+
+    // ======================= COMPACTION =======================
+
+    /**
+     * Compact one user's notifications
+     */
+    public static CompactionResult compact(String userId) throws Exception {
+        long now = System.currentTimeMillis();
+        Date readCutoff = new Date(now - READ_GRACE_MILLIS);
+        Date legacyCutoff = new Date(now - DatabaseUtils.NOTIFICATION_RETENTION_MILLIS);
+        Query base = DatabaseUtils.getInstance().collection(DatabaseUtils.NOTIFICATIONS_COLLECTION)
+                .whereEqualTo(DatabaseUtils.FIELD_USER_ID, userId);
+
+        CompactionResult result = new CompactionResult();
+        RateLimiter rateLimiter = new RateLimiter(MAX_DELETES_PER_SECOND);
+
+        // Expired by their own expireAt
+        sweep(base.whereLessThan(DatabaseUtils.FIELD_EXPIRE_AT, new Date(now))
+                .orderBy(DatabaseUtils.FIELD_EXPIRE_AT), result, rateLimiter);
+        // Read or dismissed and past the grace period
+        sweep(base.whereEqualTo("read", true)
+                .whereLessThan(DatabaseUtils.FIELD_CREATED_AT, readCutoff)
+                .orderBy(DatabaseUtils.FIELD_CREATED_AT), result, rateLimiter);
+        sweep(base.whereEqualTo("dismissed", true)
+                .whereLessThan(DatabaseUtils.FIELD_CREATED_AT, readCutoff)
+                .orderBy(DatabaseUtils.FIELD_CREATED_AT), result, rateLimiter);
+        // Notifications written before expireAt existed
+        sweep(base.whereLessThan(DatabaseUtils.FIELD_CREATED_AT, legacyCutoff)
+                .orderBy(DatabaseUtils.FIELD_CREATED_AT), result, rateLimiter);
+
+        Log.d(TAG, "Compacted notifications for " + userId + ": " + result.deleted + " deleted, " +
+                result.summariesUpdated + " summary writes" + (result.truncated ? " (more remaining)" : ""));
+        return result;
+    }
+
+    /**
+     * Dismiss every notification of a user, page by page
+     */
+    public static int dismissAll(String userId) throws Exception {
+        Query query = DatabaseUtils.getInstance().collection(DatabaseUtils.NOTIFICATIONS_COLLECTION)
+                .whereEqualTo(DatabaseUtils.FIELD_USER_ID, userId)
+                .whereEqualTo("dismissed", false)
+                .orderBy(FieldPath.documentId())
+                .limit(PAGE_SIZE);
+
+        int dismissed = 0;
+        RateLimiter rateLimiter = new RateLimiter(MAX_DELETES_PER_SECOND);
+        DocumentSnapshot cursor = null;
+
+        while (true) {
+            QuerySnapshot page = Tasks.await(cursor == null ? query.get() : query.startAfter(cursor).get());
+            List<DocumentSnapshot> docs = page.getDocuments();
+            if (docs.isEmpty()) {
+                break;
+            }
+
+            for (int i = 0; i < docs.size(); i += DELETE_CHUNK_SIZE) {
+                List<DocumentSnapshot> chunk = docs.subList(i, Math.min(i + DELETE_CHUNK_SIZE, docs.size()));
+                WriteBatch batch = DatabaseUtils.getInstance().batch();
+                int unread = 0;
+                for (DocumentSnapshot doc : chunk) {
+                    if (DatabaseUtils.isUnread(doc)) {
+                        unread++;
+                    }
+                    batch.update(doc.getReference(), "dismissed", true,
+                            "dismissedAt", FieldValue.serverTimestamp());
+                }
+                DatabaseUtils.incrementUnreadCounter(batch, userId, -unread);
+                Tasks.await(batch.commit());
+                rateLimiter.acquire(chunk.size());
+                dismissed += chunk.size();
+            }
+
+            if (docs.size() < PAGE_SIZE) {
+                break;
+            }
+            cursor = docs.get(docs.size() - 1);
+        }
+        return dismissed;
+    }
+
+    private static void sweep(Query query, CompactionResult result, RateLimiter rateLimiter) throws Exception {
+        Query paged = query.orderBy(FieldPath.documentId()).limit(PAGE_SIZE);
+        DocumentSnapshot cursor = null;
+
+        while (result.deleted < MAX_DELETES_PER_RUN) {
+            QuerySnapshot page = Tasks.await(cursor == null ? paged.get() : paged.startAfter(cursor).get());
+            List<DocumentSnapshot> docs = page.getDocuments();
+            if (docs.isEmpty()) {
+                return;
+            }
+
+            for (int i = 0; i < docs.size(); i += DELETE_CHUNK_SIZE) {
+                List<DocumentSnapshot> chunk = docs.subList(i, Math.min(i + DELETE_CHUNK_SIZE, docs.size()));
+                deleteChunk(chunk, result);
+                rateLimiter.acquire(chunk.size());
+            }
+
+            if (docs.size() < PAGE_SIZE) {
+                return;
+            }
+            cursor = docs.get(docs.size() - 1);
+        }
+        result.truncated = true;
+    }
+
+    private static void deleteChunk(List<DocumentSnapshot> docs, CompactionResult result) throws Exception {
+        WriteBatch batch = DatabaseUtils.getInstance().batch();
+        Map<String, MonthlySummary> summaries = new HashMap<>();
+        Map<String, Integer> unreadByUser = new HashMap<>();
+
+        for (DocumentSnapshot doc : docs) {
+            String userId = doc.getString(DatabaseUtils.FIELD_USER_ID);
+            String month = formatMonth(doc.getDate(DatabaseUtils.FIELD_CREATED_AT));
+
+            MonthlySummary summary = summaries.get(userId + "_" + month);
+            if (summary == null) {
+                summary = new MonthlySummary(userId, month);
+                summaries.put(userId + "_" + month, summary);
+            }
+            summary.add(doc.getString("type"));
+
+            if (DatabaseUtils.isUnread(doc)) {
+                Integer count = unreadByUser.get(userId);
+                unreadByUser.put(userId, count == null ? 1 : count + 1);
+            }
+            batch.delete(doc.getReference());
+        }
+
+        for (Map.Entry<String, MonthlySummary> entry : summaries.entrySet()) {
+            batch.set(DatabaseUtils.getInstance()
+                            .collection(DatabaseUtils.NOTIFICATION_SUMMARIES_COLLECTION)
+                            .document(entry.getKey()),
+                    entry.getValue().toMap(), SetOptions.merge());
+        }
+        for (Map.Entry<String, Integer> entry : unreadByUser.entrySet()) {
+            DatabaseUtils.incrementUnreadCounter(batch, entry.getKey(), -entry.getValue());
+        }
+
+        Tasks.await(batch.commit());
+        result.deleted += docs.size();
+        result.summariesUpdated += summaries.size();
+    }
+
+    private static String formatMonth(Date date) {
+        return new SimpleDateFormat("yyyy-MM", Locale.US).format(date != null ? date : new Date());
+    }
+
+    // ======================= HELPER CLASSES =======================
+
+    private static class MonthlySummary {
+        final String userId;
+        final String month;
+        int total;
+        final Map<String, Integer> byType = new HashMap<>();
+
+        MonthlySummary(String userId, String month) {
+            this.userId = userId;
+            this.month = month;
+        }
+
+        void add(String type) {
+            total++;
+            String key = type != null ? type : "general";
+            Integer count = byType.get(key);
+            byType.put(key, count == null ? 1 : count + 1);
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> types = new HashMap<>();
+            for (Map.Entry<String, Integer> entry : byType.entrySet()) {
+                types.put(entry.getKey(), FieldValue.increment(entry.getValue()));
+            }
+
+            Map<String, Object> data = new HashMap<>();
+            data.put(DatabaseUtils.FIELD_USER_ID, userId);
+            data.put("month", month);
+            data.put("total", FieldValue.increment(total));
+            data.put("byType", types);
+            data.put(DatabaseUtils.FIELD_UPDATED_AT, FieldValue.serverTimestamp());
+            return data;
+        }
+    }
+
+    /**
+     * Spaces out writes so a large backlog does not saturate the connection or the quota
+     */
+    private static class RateLimiter {
+        private final int permitsPerSecond;
+        private long nextFreeAt = System.currentTimeMillis();
+
+        RateLimiter(int permitsPerSecond) {
+            this.permitsPerSecond = permitsPerSecond;
+        }
+
+        void acquire(int permits) throws InterruptedException {
+            long now = System.currentTimeMillis();
+            if (nextFreeAt > now) {
+                Thread.sleep(nextFreeAt - now);
+            }
+            nextFreeAt = Math.max(now, nextFreeAt) + permits * 1000L / permitsPerSecond;
+        }
+    }
+
+    public static class CompactionResult {
+        public int deleted;
+        public int summariesUpdated;
+        public boolean truncated; // hit the per-run cap; the next run continues
+    }
+}
@@ -0,0 +1,274 @@
+package com.testlab.labbooking.managers;
+
+import android.util.Log;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.Source;
+import com.testlab.labbooking.metrics.FirestoreMetrics;
+import com.testlab.labbooking.models.Notification;
+import com.testlab.labbooking.utils.DatabaseUtils;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.UUID;
+
+/**
+ * Digest mode: non-urgent notifications of users who opted in are appended to one compact
+ * digest document per user and window instead of becoming their own notification document
+ * and push/email. When the window ends the digest is flushed as a single summary notification.
+ *
+ * Windows are aligned to midnight in {@link #WINDOW_TIME_ZONE} (e.g. every 24 hours, or at
+ * 00:00, 06:00, 12:00 and 18:00 for a 6 hour window), so every device derives the same digest
+ * document ID and flush time without reading anything first, whatever its own time zone.
+ *
+ * Appending and flushing both run in transactions: a digest keeps at most
+ * {@link #MAX_SUMMARY_LINES} items alongside the full count, and a digest is flushed by whoever
+ * deletes it first, so a concurrent or retried flush never writes or sends its summary twice.
+ * Each device flushes only its own user's digests.
+ */
+public class NotificationDigest {
+    private static final String TAG = "NotificationDigest";
+    private static final String FIELD_ITEMS = "items";
+    private static final String FIELD_COUNT = "count";
+    private static final int MAX_SUMMARY_LINES = 10; // also the most items a digest keeps
+    private static final int FLUSH_PAGE_SIZE = 100; // 3 writes each, under the 500-op transaction limit
+    private static final long HOUR_MILLIS = 60 * 60 * 1000;
+    static final TimeZone WINDOW_TIME_ZONE = TimeZone.getTimeZone("UTC");
+
+    private NotificationDigest() {
+    }
+
+    /**
+     * Whether a notification may wait for the digest. Reminders, overdue notices, rejections,
+     * cancellations, payment requests, admin messages and persistent notifications go out at once.
+     */
+    public static boolean isDigestible(Notification notification) {
+        if (notification.isPersistent()) {
+            return false;
+        }
+        switch (notification.getType()) {
+            case BOOKING_APPROVED:
+            case BOOKING_COMPLETED:
+            case PAYMENT_CONFIRMED:
+            case LAB_UPDATED:
+            case GENERAL:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * End of the window containing {@code nowMillis}, for windows aligned to midnight in
+     * {@link #WINDOW_TIME_ZONE}
+     */
+    static Date windowEnd(int windowHours, long nowMillis) {
+        Calendar midnight = Calendar.getInstance(WINDOW_TIME_ZONE);
+        midnight.setTimeInMillis(nowMillis);
+        midnight.set(Calendar.HOUR_OF_DAY, 0);
+        midnight.set(Calendar.MINUTE, 0);
+        midnight.set(Calendar.SECOND, 0);
+        midnight.set(Calendar.MILLISECOND, 0);
+        long dayStart = midnight.getTimeInMillis();
+
+        long window = Math.max(1, Math.min(24, windowHours)) * HOUR_MILLIS;
+        long end = dayStart + ((nowMillis - dayStart) / window + 1) * window;
+        return new Date(Math.min(end, dayStart + 24 * HOUR_MILLIS));
+    }
+
+    // ======================= APPEND =======================
+
+    /**
+     * Append deliveries to their users' current digests: one transaction, one write per digest.
+     * Blocking; call off the main thread.
+     */
+    static void append(List<NotificationDispatcher.Delivery> deliveries) throws Exception {
+        long now = System.currentTimeMillis();
+        Map<String, List<Map<String, Object>>> itemsByDigest = new LinkedHashMap<>();
+        Map<String, Map<String, Object>> digests = new HashMap<>();
+
+        for (NotificationDispatcher.Delivery delivery : deliveries) {
+            Notification notification = delivery.notification;
+            Date flushAt = windowEnd(delivery.recipient.digestWindowHours, now);
+            String digestId = notification.getUserId() + "_" + flushAt.getTime();
+
+            if (!digests.containsKey(digestId)) {
+                Map<String, Object> digest = new HashMap<>();
+                digest.put(DatabaseUtils.FIELD_USER_ID, notification.getUserId());
+                digest.put(DatabaseUtils.FIELD_FLUSH_AT, flushAt);
+                digests.put(digestId, digest);
+                itemsByDigest.put(digestId, new ArrayList<>());
+            }
+
+            Map<String, Object> item = new HashMap<>();
+            item.put("id", UUID.randomUUID().toString());
+            item.put("title", notification.getTitle());
+            item.put("message", notification.getMessage());
+            item.put("type", notification.getTypeString());
+            item.put("relatedId", notification.getRelatedId());
+            item.put("at", now);
+            itemsByDigest.get(digestId).add(item);
+        }
+
+        CollectionReference collection = DatabaseUtils.getInstance()
+                .collection(DatabaseUtils.NOTIFICATION_DIGESTS_COLLECTION);
+        int[] written = new int[1];
+        Tasks.await(FirestoreMetrics.transaction("appendDigests", itemsByDigest.size(), written,
+                DatabaseUtils.getInstance().runTransaction(transaction -> {
+                    Map<String, DocumentSnapshot> current = new HashMap<>();
+                    for (String digestId : itemsByDigest.keySet()) {
+                        current.put(digestId, transaction.get(collection.document(digestId)));
+                    }
+
+                    // All reads come before the writes in a transaction
+                    for (Map.Entry<String, List<Map<String, Object>>> entry : itemsByDigest.entrySet()) {
+                        DocumentSnapshot doc = current.get(entry.getKey());
+                        List<Map<String, Object>> items = new ArrayList<>(getItems(doc));
+                        for (Map<String, Object> item : entry.getValue()) {
+                            if (items.size() >= MAX_SUMMARY_LINES) {
+                                break;
+                            }
+                            items.add(item);
+                        }
+                        Long count = doc.getLong(FIELD_COUNT);
+
+                        Map<String, Object> digest = new HashMap<>(digests.get(entry.getKey()));
+                        digest.put(FIELD_ITEMS, items);
+                        digest.put(FIELD_COUNT, (count != null ? count : 0) + entry.getValue().size());
+                        digest.put(DatabaseUtils.FIELD_UPDATED_AT, FieldValue.serverTimestamp());
+                        transaction.set(doc.getReference(), digest, SetOptions.merge());
+                    }
+                    written[0] = itemsByDigest.size();
+                    return null;
+                })));
+
+        Log.d(TAG, "Added " + deliveries.size() + " notifications to " + itemsByDigest.size() + " digests");
+    }
+
+    // ======================= FLUSH =======================
+
+    /**
+     * Turn each of the user's digests whose window has ended into one summary notification,
+     * until none are left or the deadline passes. Blocking; returns the number of digests
+     * flushed here.
+     */
+    public static int flushDue(String userId, long deadlineMillis) throws Exception {
+        int flushed = 0;
+
+        while (System.currentTimeMillis() < deadlineMillis) {
+            QuerySnapshot snapshot = Tasks.await(DatabaseUtils.getInstance()
+                    .collection(DatabaseUtils.NOTIFICATION_DIGESTS_COLLECTION)
+                    .whereEqualTo(DatabaseUtils.FIELD_USER_ID, userId)
+                    .whereLessThanOrEqualTo(DatabaseUtils.FIELD_FLUSH_AT, new Date())
+                    .orderBy(DatabaseUtils.FIELD_FLUSH_AT, Query.Direction.ASCENDING)
+                    .limit(FLUSH_PAGE_SIZE)
+                    .get(Source.SERVER));
+            if (snapshot.isEmpty()) {
+                break;
+            }
+
+            // Only the summaries of digests this flush claimed go out on the external channels
+            List<Notification> summaries = Tasks.await(claim(snapshot.getDocuments()));
+            NotificationDispatcher.getInstance().dispatchDigestSummaries(summaries);
+            flushed += summaries.size();
+
+            if (snapshot.size() < FLUSH_PAGE_SIZE) {
+                break;
+            }
+        }
+
+        Log.d(TAG, "Flushed " + flushed + " digests");
+        return flushed;
+    }
+
+    /**
+     * Re-read the candidates in a transaction; each digest still there is deleted and replaced by
+     * its summary notification (under the digest's ID) in the same transaction. A digest another
+     * flush already claimed is gone and skipped.
+     *
+     * @return the summaries written by this claim
+     */
+    private static Task<List<Notification>> claim(List<DocumentSnapshot> candidates) {
+        int[] written = new int[1];
+        return FirestoreMetrics.transaction("flushDigests", candidates.size(), written,
+                DatabaseUtils.getInstance().runTransaction(transaction -> {
+                    List<DocumentSnapshot> claimed = new ArrayList<>();
+                    for (DocumentSnapshot candidate : candidates) {
+                        DocumentSnapshot doc = transaction.get(candidate.getReference());
+                        if (doc.exists()) {
+                            claimed.add(doc);
+                        }
+                    }
+
+                    // All reads come before the writes in a transaction
+                    List<Notification> summaries = new ArrayList<>();
+                    written[0] = 0;
+                    for (DocumentSnapshot doc : claimed) {
+                        Notification summary = buildSummary(doc);
+                        if (summary != null) {
+                            Map<String, Object> data = DatabaseUtils.buildNotificationData(summary.getUserId(),
+                                    summary.getTitle(), summary.getMessage(), summary.getTypeString(), null,
+                                    summary.getPriority());
+                            data.put("actionUrl", summary.getActionUrl());
+                            DocumentReference notifRef = DatabaseUtils.getInstance()
+                                    .collection(DatabaseUtils.NOTIFICATIONS_COLLECTION).document(doc.getId());
+                            DatabaseUtils.addNotificationToTransaction(transaction, notifRef, data);
+                            summary.setId(notifRef.getId());
+                            summaries.add(summary);
+                            written[0] += 2;
+                        }
+                        transaction.delete(doc.getReference());
+                        written[0]++;
+                    }
+                    return summaries;
+                }));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> getItems(DocumentSnapshot doc) {
+        List<Map<String, Object>> items = doc.exists() ? (List<Map<String, Object>>) doc.get(FIELD_ITEMS) : null;
+        return items != null ? items : new ArrayList<>();
+    }
+
+    private static Notification buildSummary(DocumentSnapshot doc) {
+        String userId = doc.getString(DatabaseUtils.FIELD_USER_ID);
+        List<Map<String, Object>> items = getItems(doc);
+        if (userId == null || items.isEmpty()) {
+            return null;
+        }
+        Long storedCount = doc.getLong(FIELD_COUNT);
+        long count = Math.max(items.size(), storedCount != null ? storedCount : 0);
+
+        StringBuilder message = new StringBuilder();
+        for (int i = 0; i < items.size() && i < MAX_SUMMARY_LINES; i++) {
+            if (message.length() > 0) {
+                message.append("\n");
+            }
+            message.append("• ").append(items.get(i).get("title"));
+        }
+        if (count > MAX_SUMMARY_LINES) {
+            message.append("\n…and ").append(count - MAX_SUMMARY_LINES).append(" more");
+        }
+
+        String title = count == 1 ? "Your digest: 1 update" :
+                "Your digest: " + count + " updates";
+        Notification summary = new Notification(userId, title, message.toString(),
+                Notification.NotificationType.GENERAL);
+        summary.setActionUrl("notifications");
+        return summary;
+    }
+}
@@ -0,0 +1,390 @@
+package com.testlab.labbooking.managers;
+
+import android.util.Log;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.WriteBatch;
+import com.testlab.labbooking.models.Notification;
+import com.testlab.labbooking.utils.DatabaseUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fans notifications out to the in-app, push and email channels.
+ *
+ * Notifications arriving within a short window are coalesced so their recipients are resolved
+ * together from {@link NotificationPreferenceCache}. Each resolved recipient record is then used
+ * for every channel, and each channel drains its own queue in batches on its own worker thread.
+ * A batch that fails is retried with backoff a few times; the task returned by
+ * {@link #dispatch} fails once a channel gives up on the notification.
+ * Non-urgent notifications of recipients in digest mode go to {@link NotificationDigest} instead.
+ */
+public class NotificationDispatcher {
+    private static final String TAG = "NotificationDispatcher";
+    private static final long COALESCE_WINDOW_MILLIS = 100;
+    private static final int IN_APP_BATCH_SIZE = 200; // 2 writes each, under the 500-op batch limit
+    private static final int PUSH_BATCH_SIZE = 100;
+    private static final int EMAIL_BATCH_SIZE = 200; // one outbox write
+    private static final int DIGEST_BATCH_SIZE = 200;
+
+    private static NotificationDispatcher instance;
+
+    private final NotificationPreferenceCache preferenceCache;
+    private volatile PushSender pushSender = new PushSender.LoggingPushSender();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private final List<Notification> pending = new ArrayList<>();
+    private final Set<Notification> digestSummaries = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Map<Notification, TaskCompletionSource<Void>> results = new IdentityHashMap<>();
+    private boolean flushScheduled = false;
+
+    private final DeliveryQueue inAppQueue;
+    private final DeliveryQueue pushQueue;
+    private final DeliveryQueue emailQueue;
+    private final DeliveryQueue digestQueue;
+
+    private NotificationDispatcher() {
+        preferenceCache = NotificationPreferenceCache.getInstance();
+        inAppQueue = new DeliveryQueue("in-app", IN_APP_BATCH_SIZE, this::deliverInApp);
+        pushQueue = new DeliveryQueue("push", PUSH_BATCH_SIZE, this::deliverPush);
+        emailQueue = new DeliveryQueue("email", EMAIL_BATCH_SIZE, this::deliverEmail);
+        digestQueue = new DeliveryQueue("digest", DIGEST_BATCH_SIZE, NotificationDigest::append);
+    }
+
+    public static synchronized NotificationDispatcher getInstance() {
+        if (instance == null) {
+            instance = new NotificationDispatcher();
+        }
+        return instance;
+    }
+
+    /**
+     * Route push delivery through a different sender (relay endpoint, local stand-in)
+     */
+    public void setPushSender(PushSender pushSender) {
+        this.pushSender = pushSender != null ? pushSender : new PushSender.LoggingPushSender();
+    }
+
+    public PushSender getPushSender() {
+        return pushSender;
+    }
+
+    // ======================= DISPATCH =======================
+
+    /**
+     * Queue a notification for delivery on every channel its recipient has enabled. The task
+     * completes once every channel has delivered it, or fails when one gives up.
+     */
+    public Task<Void> dispatch(Notification notification) {
+        return dispatchAll(Collections.singletonList(notification));
+    }
+
+    /**
+     * Queue several notifications; recipients are resolved together
+     */
+    public Task<Void> dispatchAll(List<Notification> notifications) {
+        List<Task<Void>> tasks = new ArrayList<>();
+        synchronized (pending) {
+            for (Notification notification : notifications) {
+                TaskCompletionSource<Void> result = new TaskCompletionSource<>();
+                results.put(notification, result);
+                tasks.add(result.getTask());
+            }
+            pending.addAll(notifications);
+            if (!flushScheduled) {
+                flushScheduled = true;
+                scheduler.schedule(this::flush, COALESCE_WINDOW_MILLIS, TimeUnit.MILLISECONDS);
+            }
+        }
+        return Tasks.whenAll(tasks);
+    }
+
+    /**
+     * Send flushed digest summaries on the external channels; their in-app record is already
+     * written by {@link NotificationDigest#flushDue}
+     */
+    void dispatchDigestSummaries(List<Notification> summaries) {
+        synchronized (pending) {
+            digestSummaries.addAll(summaries);
+        }
+        dispatchAll(summaries);
+    }
+
+    private void flush() {
+        List<Notification> batch;
+        synchronized (pending) {
+            batch = new ArrayList<>(pending);
+            pending.clear();
+            flushScheduled = false;
+        }
+
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        Set<String> userIds = new LinkedHashSet<>();
+        for (Notification notification : batch) {
+            userIds.add(notification.getUserId());
+        }
+
+        preferenceCache.resolve(userIds).addOnCompleteListener(scheduler, task -> {
+            Map<String, NotificationPreferenceCache.Recipient> recipients = task.isSuccessful() ?
+                    task.getResult() : Collections.emptyMap();
+            if (!task.isSuccessful()) {
+                Log.e(TAG, "Error resolving recipients; delivering in-app only", task.getException());
+            }
+
+            for (Notification notification : batch) {
+                NotificationPreferenceCache.Recipient recipient = recipients.get(notification.getUserId());
+                boolean digestSummary;
+                TaskCompletionSource<Void> result;
+                synchronized (pending) {
+                    digestSummary = digestSummaries.remove(notification);
+                    result = results.remove(notification);
+                }
+                Delivery delivery = new Delivery(notification, recipient, result);
+
+                if (!digestSummary && recipient != null && recipient.active && recipient.digestEnabled &&
+                        NotificationDigest.isDigestible(notification)) {
+                    digestQueue.enqueue(delivery);
+                } else {
+                    // In-app is always written; external channels follow the recipient's preferences
+                    if (!digestSummary) {
+                        inAppQueue.enqueue(delivery);
+                    }
+                    if (recipient != null && recipient.active && recipient.pushEnabled) {
+                        pushQueue.enqueue(delivery);
+                    }
+                    if (recipient != null && recipient.active && recipient.emailEnabled) {
+                        emailQueue.enqueue(delivery);
+                    }
+                }
+                delivery.queued();
+            }
+        });
+    }
+
+    // ======================= CHANNELS =======================
+
+    private void deliverInApp(List<Delivery> deliveries) throws Exception {
+        WriteBatch batch = DatabaseUtils.getInstance().batch();
+        List<DocumentReference> refs = new ArrayList<>();
+
+        for (Delivery delivery : deliveries) {
+            Notification notification = delivery.notification;
+            Map<String, Object> data = DatabaseUtils.buildNotificationData(
+                    notification.getUserId(),
+                    notification.getTitle(),
+                    notification.getMessage(),
+                    notification.getTypeString(),
+                    notification.getRelatedId(),
+                    notification.getPriority());
+            if (notification.getActionUrl() != null) {
+                data.put("actionUrl", notification.getActionUrl());
+            }
+            data.put("persistent", notification.isPersistent());
+            refs.add(DatabaseUtils.addNotificationToBatch(batch, data));
+        }
+
+        Tasks.await(batch.commit());
+
+        for (int i = 0; i < deliveries.size(); i++) {
+            deliveries.get(i).notification.setId(refs.get(i).getId());
+        }
+        Log.d(TAG, "Created " + deliveries.size() + " in-app notifications");
+    }
+
+    private void deliverPush(List<Delivery> deliveries) throws Exception {
+        // Addressed by user; the relay resolves each user's device tokens server-side
+        List<PushSender.PushMessage> messages = new ArrayList<>();
+        for (Delivery delivery : deliveries) {
+            messages.add(NotificationManager.buildPushMessage(delivery.notification));
+        }
+
+        List<PushSender.Result> results = pushSender.send(messages);
+        int sent = 0;
+        for (PushSender.Result result : results) {
+            if (result == PushSender.Result.SENT) {
+                sent++;
+            }
+        }
+        Log.d(TAG, "Sent " + sent + "/" + messages.size() + " pushes");
+    }
+
+    private void deliverEmail(List<Delivery> deliveries) throws Exception {
+        EmailOutbox.getInstance().enqueue(deliveries);
+    }
+
+    // ======================= QUEUES =======================
+
+    static class Delivery {
+        final Notification notification;
+        final NotificationPreferenceCache.Recipient recipient;
+        private final TaskCompletionSource<Void> result;
+        // Channels still delivering, plus one held by the dispatcher until every queue has it
+        private final AtomicInteger outstanding = new AtomicInteger(1);
+
+        Delivery(Notification notification, NotificationPreferenceCache.Recipient recipient,
+                 TaskCompletionSource<Void> result) {
+            this.notification = notification;
+            this.recipient = recipient;
+            this.result = result;
+        }
+
+        /**
+         * Called once the delivery is on every queue it goes to
+         */
+        void queued() {
+            delivered();
+        }
+
+        void delivered() {
+            if (outstanding.decrementAndGet() == 0 && result != null) {
+                result.trySetResult(null);
+            }
+        }
+
+        void failed(Exception e) {
+            if (result != null) {
+                result.trySetException(e);
+            }
+        }
+    }
+
+    interface DeliveryChannel {
+        void deliver(List<Delivery> deliveries) throws Exception;
+    }
+
+    /**
+     * Per-channel queue drained in batches by a dedicated worker, so a slow channel (email)
+     * never holds up a fast one (in-app). A failed batch goes back on the queue after a backoff,
+     * up to {@link #MAX_DELIVERY_ATTEMPTS} attempts per delivery.
+     */
+    static class DeliveryQueue {
+        static final int MAX_DELIVERY_ATTEMPTS = 4;
+        private static final long RETRY_BASE_MILLIS = 2000; // doubled per attempt
+
+        private final String name;
+        private final int maxBatchSize;
+        private final DeliveryChannel channel;
+        private final long retryBaseMillis;
+        private final ConcurrentLinkedQueue<Attempt> queue = new ConcurrentLinkedQueue<>();
+        private final ScheduledExecutorService worker = Executors.newSingleThreadScheduledExecutor();
+        private final AtomicBoolean draining = new AtomicBoolean(false);
+
+        DeliveryQueue(String name, int maxBatchSize, DeliveryChannel channel) {
+            this(name, maxBatchSize, channel, RETRY_BASE_MILLIS);
+        }
+
+        DeliveryQueue(String name, int maxBatchSize, DeliveryChannel channel, long retryBaseMillis) {
+            this.name = name;
+            this.maxBatchSize = maxBatchSize;
+            this.channel = channel;
+            this.retryBaseMillis = retryBaseMillis;
+        }
+
+        void enqueue(Delivery delivery) {
+            delivery.outstanding.incrementAndGet();
+            queue.add(new Attempt(delivery));
+            scheduleDrain();
+        }
+
+        int size() {
+            return queue.size();
+        }
+
+        private void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                worker.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                while (true) {
+                    List<Attempt> batch = new ArrayList<>();
+                    Attempt next;
+                    while (batch.size() < maxBatchSize && (next = queue.poll()) != null) {
+                        batch.add(next);
+                    }
+                    if (batch.isEmpty()) {
+                        break;
+                    }
+
+                    List<Delivery> deliveries = new ArrayList<>();
+                    for (Attempt attempt : batch) {
+                        deliveries.add(attempt.delivery);
+                    }
+                    try {
+                        channel.deliver(deliveries);
+                        for (Delivery delivery : deliveries) {
+                            delivery.delivered();
+                        }
+                    } catch (Exception e) {
+                        retryLater(batch, e);
+                    }
+                }
+            } finally {
+                draining.set(false);
+                // Items may have arrived between the last poll and releasing the flag
+                if (!queue.isEmpty()) {
+                    scheduleDrain();
+                }
+            }
+        }
+
+        /**
+         * Put a failed batch back on the queue after a backoff; deliveries out of attempts fail
+         */
+        private void retryLater(List<Attempt> batch, Exception e) {
+            List<Attempt> retry = new ArrayList<>();
+            int attempts = 0;
+            for (Attempt attempt : batch) {
+                attempt.count++;
+                if (attempt.count < MAX_DELIVERY_ATTEMPTS) {
+                    retry.add(attempt);
+                    attempts = Math.max(attempts, attempt.count);
+                } else {
+                    attempt.delivery.failed(e);
+                }
+            }
+            Log.e(TAG, "Error delivering " + batch.size() + " " + name + " notifications; " +
+                    retry.size() + " will be retried", e);
+            if (retry.isEmpty()) {
+                return;
+            }
+
+            long delay = retryBaseMillis << (attempts - 1);
+            worker.schedule(() -> {
+                queue.addAll(retry);
+                scheduleDrain();
+            }, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * A delivery on one channel's queue, with the number of failed attempts on that channel
+     */
+    private static class Attempt {
+        final Delivery delivery;
+        int count;
+
+        Attempt(Delivery delivery) {
+            this.delivery = delivery;
+        }
+    }
+}
@@ -3,11 +3,11 @@ package com.testlab.labbooking.managers;
 import android.util.Log;
 
 import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
 import com.google.firebase.firestore.DocumentReference;
 import com.testlab.labbooking.models.Booking;
 import com.testlab.labbooking.models.Lab;
 import com.testlab.labbooking.models.Notification;
-import com.testlab.labbooking.models.User;
 import com.testlab.labbooking.utils.DatabaseUtils;
 
 import java.util.HashMap;
@@ -18,13 +18,16 @@ import java.util.Map;
  */
 public class NotificationManager {
     private static final String TAG = "NotificationManager";
+    private static final long UNREAD_RECONCILE_INTERVAL = 24 * 60 * 60 * 1000L; // 1 day
+    private static final java.util.concurrent.Executor RETENTION_EXECUTOR =
+            java.util.concurrent.Executors.newSingleThreadExecutor();
 
     // ======================= BOOKING NOTIFICATIONS =======================
 
     /**
      * Send notification when booking is created
      */
-    public static void sendBookingCreatedNotification(Booking booking) {
+    public static Task<Void> sendBookingCreatedNotification(Booking booking) {
         String title = "Booking Created";
         String message = String.format("Your booking for %s on %s has been submitted and is pending review.",
                 booking.getLabName(), booking.getDateTimeDisplay());
@@ -37,13 +40,13 @@ public class NotificationManager {
                 booking.getId()
         );
 
-        createAndSendNotification(notification);
+        return createAndSendNotification(notification);
     }
 
     /**
      * Send notification when booking is approved
      */
-    public static void sendBookingApprovedNotification(Booking booking) {
+    public static Task<Void> sendBookingApprovedNotification(Booking booking) {
         String title = "Booking Approved ✅";
         String message = String.format("Great news! Your booking for %s on %s has been approved. " +
                         "Remember to check in when you arrive.",
@@ -59,13 +62,13 @@ public class NotificationManager {
         notification.setActionUrl("booking_details/" + booking.getId());
         notification.setPriority(1); // High priority
 
-        createAndSendNotification(notification);
+        return createAndSendNotification(notification);
     }
 
     /**
      * Send notification when booking is rejected
      */
-    public static void sendBookingRejectedNotification(Booking booking, String reason) {
+    public static Task<Void> sendBookingRejectedNotification(Booking booking, String reason) {
         String title = "Booking Rejected";
         String message = String.format("Your booking for %s on %s has been rejected.",
                 booking.getLabName(), booking.getDateTimeDisplay());
@@ -83,13 +86,13 @@ public class NotificationManager {
         );
         notification.setPriority(1); // High priority
 
-        createAndSendNotification(notification);
+        return createAndSendNotification(notification);
     }
 
     /**
      * Send notification when booking is cancelled
      */
-    public static void sendBookingCancelledNotification(Booking booking, String reason) {
+    public static Task<Void> sendBookingCancelledNotification(Booking booking, String reason) {
         String title = "Booking Cancelled";
         String message = String.format("Your booking for %s on %s has been cancelled.",
                 booking.getLabName(), booking.getDateTimeDisplay());
@@ -106,13 +109,13 @@ public class NotificationManager {
                 booking.getId()
         );
 
-        createAndSendNotification(notification);
+        return createAndSendNotification(notification);
     }
 
     /**
      * Send booking reminder notification
      */
-    public static void sendBookingReminderNotification(Booking booking) {
+    public static Task<Void> sendBookingReminderNotification(Booking booking) {
         String title = "Booking Reminder 🔔";
         String message = String.format("Don't forget! You have a booking for %s starting in 1 hour at %s. " +
                         "Please arrive on time and check in.",
@@ -130,22 +133,22 @@ public class NotificationManager {
         notification.setPriority(1); // High priority
         notification.setPersistent(true); // Don't auto-dismiss
 
-        createAndSendNotification(notification);
+        // Mark the reminder sent only once it is delivered, so a failed one goes out on the next run
+        return createAndSendNotification(notification).onSuccessTask(aVoid -> {
+            Map<String, Object> updates = new HashMap<>();
+            updates.put("reminderSent", true);
+            updates.put("reminderSentAt", com.google.firebase.firestore.FieldValue.serverTimestamp());
 
-        // Update booking reminder status
-        Map<String, Object> updates = new HashMap<>();
-        updates.put("reminderSent", true);
-        updates.put("reminderSentAt", com.google.firebase.firestore.FieldValue.serverTimestamp());
-
-        DatabaseUtils.getInstance().collection(DatabaseUtils.BOOKINGS_COLLECTION)
-                .document(booking.getId())
-                .update(updates);
+            return DatabaseUtils.getInstance().collection(DatabaseUtils.BOOKINGS_COLLECTION)
+                    .document(booking.getId())
+                    .update(updates);
+        });
     }
 
     /**
      * Send notification when booking is completed
      */
-    public static void sendBookingCompletedNotification(Booking booking) {
+    public static Task<Void> sendBookingCompletedNotification(Booking booking) {
         String title = "Booking Completed ✅";
         String message = String.format("Thank you for using %s. Your booking has been completed. " +
                         "Duration: %s",
@@ -160,13 +163,13 @@ public class NotificationManager {
         );
         notification.setActionUrl("booking_summary/" + booking.getId());
 
-        createAndSendNotification(notification);
+        return createAndSendNotification(notification);
     }
 
     /**
      * Send overdue notification
      */
-    public static void sendBookingOverdueNotification(Booking booking) {
+    public static Task<Void> sendBookingOverdueNotification(Booking booking) {
         String title = "Booking Overdue ⚠️";
         String message = String.format("Your booking for %s was scheduled to end at %s but you haven't checked out yet. " +
                         "Please check out as soon as possible.",
@@ -184,61 +187,39 @@ public class NotificationManager {
         notification.setPriority(1); // High priority
         notification.setPersistent(true);
 
-        createAndSendNotification(notification);
+        return createAndSendNotification(notification);
     }
 
     // ======================= SYSTEM NOTIFICATIONS =======================
 
     /**
-     * Send lab maintenance notification to affected users
+     * Announce lab maintenance to everyone following the lab (one shared announcement)
      */
-    public static void sendLabMaintenanceNotification(Lab lab, String maintenanceMessage,
-                                                      java.util.List<String> affectedUserIds) {
+    public static Task<DocumentReference> sendLabMaintenanceNotification(Lab lab, String maintenanceMessage) {
         String title = "Lab Maintenance Notice";
         String message = String.format("The %s will be under maintenance. %s",
                 lab.getName(), maintenanceMessage);
 
-        for (String userId : affectedUserIds) {
-            Notification notification = new Notification(
-                    userId,
-                    title,
-                    message,
-                    Notification.NotificationType.LAB_MAINTENANCE,
-                    lab.getId()
-            );
-            notification.setPriority(2);
-            notification.setPersistent(true);
-
-            createAndSendNotification(notification);
-        }
+        return AnnouncementManager.publish(AnnouncementManager.labTopic(lab.getId()), title, message,
+                Notification.NotificationType.LAB_MAINTENANCE, lab.getId());
     }
 
     /**
-     * Send system update notification to all users
+     * Announce a system update to all users (one shared announcement)
      */
-    public static void sendSystemUpdateNotification(String updateMessage, java.util.List<String> userIds) {
-        String title = "System Update";
-
-        for (String userId : userIds) {
-            Notification notification = new Notification(
-                    userId,
-                    title,
-                    updateMessage,
-                    Notification.NotificationType.SYSTEM_UPDATE
-            );
-            notification.setPriority(2);
-
-            createAndSendNotification(notification);
-        }
+    public static Task<DocumentReference> sendSystemUpdateNotification(String updateMessage) {
+        return AnnouncementManager.publish(AnnouncementManager.TOPIC_ALL_USERS, "System Update",
+                updateMessage, Notification.NotificationType.SYSTEM_UPDATE, null);
     }
 
     /**
      * Send admin message to specific users
      */
-    public static void sendAdminMessage(String adminMessage, java.util.List<String> userIds,
-                                        String adminName) {
+    public static Task<Void> sendAdminMessage(String adminMessage, java.util.List<String> userIds,
+                                              String adminName) {
         String title = "Message from " + (adminName != null ? adminName : "Administrator");
 
+        java.util.List<Task<Void>> deliveries = new java.util.ArrayList<>();
         for (String userId : userIds) {
             Notification notification = new Notification(
                     userId,
@@ -249,8 +230,9 @@ public class NotificationManager {
             notification.setPriority(1);
             notification.setPersistent(true);
 
-            createAndSendNotification(notification);
+            deliveries.add(createAndSendNotification(notification));
         }
+        return Tasks.whenAll(deliveries);
     }
 
     // ======================= PAYMENT NOTIFICATIONS =======================
@@ -258,7 +240,7 @@ public class NotificationManager {
     /**
      * Send payment required notification
      */
-    public static void sendPaymentRequiredNotification(Booking booking) {
+    public static Task<Void> sendPaymentRequiredNotification(Booking booking) {
         String title = "Payment Required 💳";
         String message = String.format("Payment of $%.2f is required for your booking of %s on %s.",
                 booking.getTotalCost(), booking.getLabName(), booking.getDateTimeDisplay());
@@ -274,13 +256,13 @@ public class NotificationManager {
         notification.setPriority(1);
         notification.setPersistent(true);
 
-        createAndSendNotification(notification);
+        return createAndSendNotification(notification);
     }
 
     /**
      * Send payment confirmation notification
      */
-    public static void sendPaymentConfirmedNotification(Booking booking, String paymentReference) {
+    public static Task<Void> sendPaymentConfirmedNotification(Booking booking, String paymentReference) {
         String title = "Payment Confirmed ✅";
         String message = String.format("Payment of $%.2f for %s has been confirmed. " +
                         "Reference: %s",
@@ -295,34 +277,20 @@ public class NotificationManager {
         );
         notification.setActionUrl("receipt/" + paymentReference);
 
-        createAndSendNotification(notification);
+        return createAndSendNotification(notification);
     }
 
     // ======================= NOTIFICATION OPERATIONS =======================
 
     /**
-     * Create and send notification
+     * Create and send notification; the task fails if a channel gives up on it
      */
-    private static void createAndSendNotification(Notification notification) {
-        DatabaseUtils.createNotification(
-                notification.getUserId(),
-                notification.getTitle(),
-                notification.getMessage(),
-                notification.getTypeString(),
-                notification.getRelatedId()
-        ).addOnSuccessListener(docRef -> {
-            notification.setId(docRef.getId());
-            Log.d(TAG, "Notification created: " + notification.getTitle());
-
-            // Send push notification if user has enabled it
-            sendPushNotificationIfEnabled(notification);
-
-            // Send email notification if user has enabled it
-            sendEmailNotificationIfEnabled(notification);
-
-        }).addOnFailureListener(e -> {
-            Log.e(TAG, "Error creating notification", e);
-        });
+    private static Task<Void> createAndSendNotification(Notification notification) {
+        // The dispatcher writes the in-app record and fans out to push/email using one
+        // resolved recipient record, so preferences are not re-read per channel
+        return NotificationDispatcher.getInstance().dispatch(notification)
+                .addOnFailureListener(e -> Log.e(TAG, "Error delivering " + notification.getTypeString() +
+                        " notification to " + notification.getUserId(), e));
     }
 
     /**
@@ -350,9 +318,7 @@ public class NotificationManager {
         updates.put("read", true);
         updates.put("readAt", com.google.firebase.firestore.FieldValue.serverTimestamp());
 
-        return DatabaseUtils.getInstance().collection(DatabaseUtils.NOTIFICATIONS_COLLECTION)
-                .document(notificationId)
-                .update(updates);
+        return updateAndReleaseUnread(notificationId, updates);
     }
 
     /**
@@ -363,9 +329,36 @@ public class NotificationManager {
         updates.put("dismissed", true);
         updates.put("dismissedAt", com.google.firebase.firestore.FieldValue.serverTimestamp());
 
-        return DatabaseUtils.getInstance().collection(DatabaseUtils.NOTIFICATIONS_COLLECTION)
-                .document(notificationId)
-                .update(updates);
+        return updateAndReleaseUnread(notificationId, updates);
+    }
+
+    /**
+     * Apply a read/dismiss update and decrement the unread counter if the notification was still
+     * counted as unread. Done in a transaction so repeated taps never double-decrement.
+     */
+    private static Task<Void> updateAndReleaseUnread(String notificationId, Map<String, Object> updates) {
+        com.google.firebase.firestore.DocumentReference notifRef = DatabaseUtils.getInstance()
+                .collection(DatabaseUtils.NOTIFICATIONS_COLLECTION)
+                .document(notificationId);
+
+        return DatabaseUtils.getInstance().runTransaction(transaction -> {
+            com.google.firebase.firestore.DocumentSnapshot doc = transaction.get(notifRef);
+            if (!doc.exists()) {
+                return null;
+            }
+
+            boolean wasUnread = DatabaseUtils.isUnread(doc);
+            String userId = doc.getString("userId");
+
+            transaction.update(notifRef, updates);
+            if (wasUnread && userId != null) {
+                transaction.set(DatabaseUtils.getUnreadCounterRef(userId),
+                        java.util.Collections.singletonMap(DatabaseUtils.FIELD_UNREAD_NOTIFICATIONS,
+                                com.google.firebase.firestore.FieldValue.increment(-1)),
+                        com.google.firebase.firestore.SetOptions.merge());
+            }
+            return null;
+        });
     }
 
     /**
@@ -391,113 +384,29 @@ public class NotificationManager {
                 .limit(limit);
     }
 
-//    /**
-//     * Clear old notifications (cleanup job)
-//     */
-//    public static Task<Void> clearOldNotifications(int daysOld) {
-//        long cutoffTime = System.currentTimeMillis() - (daysOld * 24 * 60 * 60 * 1000L);
-//
-//        return DatabaseUtils.getInstance().collection(DatabaseUtils.NOTIFICATIONS_COLLECTION)
-//                .whereEqualTo("read", true)
-//                .whereLessThan("createdAt", new java.util.Date(cutoffTime))
-//                .get()
-//                .continueWithTask(task -> {
-//                    if (task.isSuccessful()) {
-//                        com.google.firebase.firestore.WriteBatch batch = DatabaseUtils.getInstance().batch();
-//
-//                        for (com.google.firebase.firestore.DocumentSnapshot doc : task.getResult().getDocuments()) {
-//                            batch.delete(doc.getReference());
-//                        }
-//
-//                        return batch.commit();
-//                    }
-//                    return task;
-//                });
-//    }
-
-    // ======================= EXTERNAL NOTIFICATION SERVICES =======================
-
     /**
-     * Send push notification if user has enabled it
+     * Clear old notifications (cleanup job). Normally run daily by NotificationCompactionWorker.
      */
-    private static void sendPushNotificationIfEnabled(Notification notification) {
-        // Get user preferences first
-        DatabaseUtils.getUserById(notification.getUserId())
-                .addOnSuccessListener(userDoc -> {
-                    if (userDoc.exists()) {
-                        User user = userDoc.toObject(User.class);
-                        if (user != null && user.isPushNotifications()) {
-                            // TODO: Integrate with Firebase Cloud Messaging
-                            sendFCMNotification(notification, user);
-                        }
-                    }
-                });
+    public static Task<NotificationCompactor.CompactionResult> clearOldNotifications(String userId) {
+        return com.google.android.gms.tasks.Tasks.call(RETENTION_EXECUTOR,
+                () -> NotificationCompactor.compact(userId));
     }
 
-    /**
-     * Send email notification if user has enabled it
-     */
-    private static void sendEmailNotificationIfEnabled(Notification notification) {
-        DatabaseUtils.getUserById(notification.getUserId())
-                .addOnSuccessListener(userDoc -> {
-                    if (userDoc.exists()) {
-                        User user = userDoc.toObject(User.class);
-                        if (user != null && user.isEmailNotifications()) {
-                            // TODO: Integrate with email service (SendGrid, etc.)
-                            sendEmailNotification(notification, user);
-                        }
-                    }
-                });
-    }
+    // ======================= EXTERNAL NOTIFICATION SERVICES =======================
 
     /**
-     * Send FCM push notification
+     * Build the push message for the recipient's devices
      */
-    private static void sendFCMNotification(Notification notification, User user) {
-        // TODO: Implement Firebase Cloud Messaging
-        Log.d(TAG, "Would send FCM notification to: " + user.getEmail());
-
-        /*
-        Example FCM implementation:
-
+    static PushSender.PushMessage buildPushMessage(Notification notification) {
         Map<String, String> data = new HashMap<>();
-        data.put("title", notification.getTitle());
-        data.put("message", notification.getMessage());
         data.put("type", notification.getTypeString());
         data.put("relatedId", notification.getRelatedId());
         data.put("actionUrl", notification.getActionUrl());
-
-        Message message = Message.builder()
-                .setToken(userFCMToken) // You'll need to store FCM tokens
-                .putAllData(data)
-                .setNotification(com.google.firebase.messaging.Notification.builder()
-                        .setTitle(notification.getTitle())
-                        .setBody(notification.getMessage())
-                        .build())
-                .build();
-
-        FirebaseMessaging.getInstance().send(message);
-        */
-    }
-
-    /**
-     * Send email notification
-     */
-    private static void sendEmailNotification(Notification notification, User user) {
-        // TODO: Implement email service integration
-        Log.d(TAG, "Would send email notification to: " + user.getEmail());
-
-        /*
-        Example email implementation with SendGrid or similar:
-
-        Email email = new Email();
-        email.setFrom("noreply@yourlab.edu");
-        email.setTo(user.getEmail());
-        email.setSubject(notification.getTitle());
-        email.setHtmlContent(buildEmailHtml(notification, user));
-
-        SendGridService.send(email);
-        */
+        if (notification.getId() != null) {
+            data.put("notificationId", notification.getId());
+        }
+        return PushSender.PushMessage.toUser(notification.getUserId(), notification.getTitle(),
+                notification.getMessage(), data);
     }
 
     // ======================= AUTOMATED NOTIFICATIONS =======================
@@ -559,41 +468,32 @@ public class NotificationManager {
     // ======================= BULK NOTIFICATION OPERATIONS =======================
 
     /**
-     * Send notification to multiple users
+     * Send notification to multiple users. Large lists are paged and written in parallel
+     * batches; the task fails if any recipient could not be notified.
      */
     public static Task<Void> sendBulkNotification(java.util.List<String> userIds, String title,
                                                   String message, Notification.NotificationType type) {
-        com.google.firebase.firestore.WriteBatch batch = DatabaseUtils.getInstance().batch();
-
-        for (String userId : userIds) {
-            Notification notification = new Notification(userId, title, message, type);
-            DocumentReference notifRef = DatabaseUtils.getInstance().collection(DatabaseUtils.NOTIFICATIONS_COLLECTION).document();
-            batch.set(notifRef, notification);
-        }
-
-        return batch.commit();
+        return BroadcastEngine.getInstance().broadcastToUsers(userIds, title, message, type, null)
+                .continueWithTask(task -> {
+                    if (!task.isSuccessful()) {
+                        return com.google.android.gms.tasks.Tasks.forException(task.getException());
+                    }
+                    BroadcastEngine.BroadcastResult result = task.getResult();
+                    if (!result.isComplete()) {
+                        return com.google.android.gms.tasks.Tasks.forException(new IllegalStateException(
+                                result.failed + " of " + (result.sent + result.failed) +
+                                        " notifications failed (broadcast " + result.broadcastId + ")"));
+                    }
+                    return com.google.android.gms.tasks.Tasks.forResult(null);
+                });
     }
 
     /**
-     * Send notification to users with specific role
+     * Send notification to users with a specific role (one shared announcement)
      */
-    public static void sendRoleBasedNotification(String role, String title, String message,
-                                                 Notification.NotificationType type) {
-        DatabaseUtils.getUsersByRoleQuery(role, 100).get()
-                .addOnSuccessListener(querySnapshot -> {
-                    java.util.List<String> userIds = new java.util.ArrayList<>();
-
-                    for (com.google.firebase.firestore.DocumentSnapshot doc : querySnapshot.getDocuments()) {
-                        User user = doc.toObject(User.class);
-                        if (user != null && user.isActive()) {
-                            userIds.add(user.getId());
-                        }
-                    }
-
-                    if (!userIds.isEmpty()) {
-                        sendBulkNotification(userIds, title, message, type);
-                    }
-                })
+    public static Task<DocumentReference> sendRoleBasedNotification(String role, String title, String message,
+                                                                    Notification.NotificationType type) {
+        return AnnouncementManager.publish(AnnouncementManager.roleTopic(role), title, message, type, null)
                 .addOnFailureListener(e -> Log.e(TAG, "Error sending role-based notification", e));
     }
 
@@ -610,6 +510,22 @@ public class NotificationManager {
         updates.put("pushNotifications", push);
         updates.put("updatedAt", com.google.firebase.firestore.FieldValue.serverTimestamp());
 
+        NotificationPreferenceCache.getInstance().invalidate(userId);
+        return DatabaseUtils.getInstance().collection(DatabaseUtils.USERS_COLLECTION)
+                .document(userId)
+                .update(updates);
+    }
+
+    /**
+     * Turn digest mode on or off; non-urgent notifications are then delivered once per window
+     */
+    public static Task<Void> updateDigestPreference(String userId, boolean digest, int windowHours) {
+        Map<String, Object> updates = new HashMap<>();
+        updates.put("digestNotifications", digest);
+        updates.put("digestWindowHours", Math.max(1, Math.min(24, windowHours)));
+        updates.put("updatedAt", com.google.firebase.firestore.FieldValue.serverTimestamp());
+
+        NotificationPreferenceCache.getInstance().invalidate(userId);
         return DatabaseUtils.getInstance().collection(DatabaseUtils.USERS_COLLECTION)
                 .document(userId)
                 .update(updates);
@@ -618,56 +534,61 @@ public class NotificationManager {
     // ======================= UTILITY METHODS =======================
 
     /**
-     * Get notification count for user
+     * Get notification count for user.
+     *
+     * Reads the maintained counter (one small document). Falls back to a server-side count()
+     * aggregate when the counter is missing, negative or has not been reconciled recently.
      */
     public static Task<Integer> getUnreadNotificationCount(String userId) {
-        return getUnreadNotificationsQuery(userId).get()
-                .continueWith(task -> {
+        return DatabaseUtils.getUnreadCounterRef(userId).get()
+                .continueWithTask(task -> {
                     if (task.isSuccessful()) {
-                        return task.getResult().size();
+                        com.google.firebase.firestore.DocumentSnapshot doc = task.getResult();
+                        Long count = doc.getLong(DatabaseUtils.FIELD_UNREAD_NOTIFICATIONS);
+                        java.util.Date reconciledAt = doc.getDate(DatabaseUtils.FIELD_UNREAD_RECONCILED_AT);
+
+                        boolean fresh = reconciledAt != null &&
+                                System.currentTimeMillis() - reconciledAt.getTime() < UNREAD_RECONCILE_INTERVAL;
+                        if (count != null && count >= 0 && fresh) {
+                            return com.google.android.gms.tasks.Tasks.forResult(count.intValue());
+                        }
                     }
-                    return 0;
+                    return reconcileUnreadCount(userId);
                 });
     }
 
-//    /**
-//     * Clear all notifications for user
-//     */
-//    public static Task<Void> clearAllUserNotifications(String userId) {
-//        return DatabaseUtils.getInstance().collection(DatabaseUtils.NOTIFICATIONS_COLLECTION)
-//                .whereEqualTo("userId", userId)
-//                .get()
-//                .continueWithTask(task -> {
-//                    if (task.isSuccessful()) {
-//                        com.google.firebase.firestore.WriteBatch batch = DatabaseUtils.getInstance().batch();
-//
-//                        for (com.google.firebase.firestore.DocumentSnapshot doc : task.getResult().getDocuments()) {
-//                            batch.update(doc.getReference(), "dismissed", true,
-//                                    "dismissedAt", com.google.firebase.firestore.FieldValue.serverTimestamp());
-//                        }
-//
-//                        return batch.commit();
-//                    }
-//                    return task;
-//                });
-//    }
+    /**
+     * Recount unread notifications with an aggregate query and overwrite the counter
+     */
+    public static Task<Integer> reconcileUnreadCount(String userId) {
+        return getUnreadNotificationsQuery(userId)
+                .count()
+                .get(com.google.firebase.firestore.AggregateSource.SERVER)
+                .continueWithTask(task -> {
+                    if (!task.isSuccessful()) {
+                        Log.e(TAG, "Error counting unread notifications", task.getException());
+                        return com.google.android.gms.tasks.Tasks.forResult(0);
+                    }
+
+                    int count = (int) task.getResult().getCount();
+
+                    Map<String, Object> counter = new HashMap<>();
+                    counter.put(DatabaseUtils.FIELD_UNREAD_NOTIFICATIONS, count);
+                    counter.put(DatabaseUtils.FIELD_UNREAD_RECONCILED_AT,
+                            com.google.firebase.firestore.FieldValue.serverTimestamp());
+
+                    return DatabaseUtils.getUnreadCounterRef(userId)
+                            .set(counter, com.google.firebase.firestore.SetOptions.merge())
+                            .continueWith(writeTask -> count);
+                });
+    }
 
     /**
-     * Build email HTML content for notifications
+     * Clear all notifications for user
      */
-    private static String buildEmailHtml(Notification notification, User user) {
-        // TODO: Create proper HTML email template
-        return String.format(
-                "<html><body>" +
-                        "<h2>%s</h2>" +
-                        "<p>Dear %s,</p>" +
-                        "<p>%s</p>" +
-                        "<br>" +
-                        "<p>Best regards,<br>Lab Booking System</p>" +
-                        "</body></html>",
-                notification.getTitle(),
-                user.getName(),
-                notification.getMessage().replace("\n", "<br>"));
+    public static Task<Integer> clearAllUserNotifications(String userId) {
+        return com.google.android.gms.tasks.Tasks.call(RETENTION_EXECUTOR,
+                () -> NotificationCompactor.dismissAll(userId));
     }
 
     // ======================= CALLBACK INTERFACES =======================
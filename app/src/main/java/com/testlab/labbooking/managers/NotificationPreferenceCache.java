@@ -0,0 +1,187 @@
+package com.testlab.labbooking.managers;
+
+import android.util.Log;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.testlab.labbooking.models.User;
+import com.testlab.labbooking.utils.DatabaseUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bounded, TTL-based cache of notification recipients and their channel preferences.
+ *
+ * Cache misses are resolved together with batched whereIn lookups on the document ID, so
+ * notifying N users costs at most ceil(N / 30) reads instead of one read per user per channel.
+ */
+public class NotificationPreferenceCache {
+    private static final String TAG = "NotificationPrefCache";
+    private static final int MAX_ENTRIES = 500;
+    private static final long TTL_MILLIS = 10 * 60 * 1000; // 10 minutes
+    private static final int WHERE_IN_LIMIT = 30; // Firestore whereIn limit
+
+    private static NotificationPreferenceCache instance;
+
+    private final Map<String, Entry> entries = new LinkedHashMap<String, Entry>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    private NotificationPreferenceCache() {
+    }
+
+    public static synchronized NotificationPreferenceCache getInstance() {
+        if (instance == null) {
+            instance = new NotificationPreferenceCache();
+        }
+        return instance;
+    }
+
+    /**
+     * Resolve recipients for the given users. Users whose document does not exist are omitted.
+     */
+    public Task<Map<String, Recipient>> resolve(Collection<String> userIds) {
+        Map<String, Recipient> resolved = new HashMap<>();
+        List<String> misses = new ArrayList<>();
+        long now = System.currentTimeMillis();
+
+        synchronized (entries) {
+            for (String userId : new LinkedHashSet<>(userIds)) {
+                if (userId == null) {
+                    continue;
+                }
+                Entry entry = entries.get(userId);
+                if (entry != null && now - entry.loadedAt < TTL_MILLIS) {
+                    resolved.put(userId, entry.recipient);
+                } else {
+                    misses.add(userId);
+                }
+            }
+        }
+
+        if (misses.isEmpty()) {
+            return Tasks.forResult(resolved);
+        }
+
+        List<Task<QuerySnapshot>> lookups = new ArrayList<>();
+        for (int i = 0; i < misses.size(); i += WHERE_IN_LIMIT) {
+            List<String> chunk = misses.subList(i, Math.min(i + WHERE_IN_LIMIT, misses.size()));
+            lookups.add(DatabaseUtils.getInstance().collection(DatabaseUtils.USERS_COLLECTION)
+                    .whereIn(FieldPath.documentId(), new ArrayList<>(chunk))
+                    .get());
+        }
+
+        Log.d(TAG, "Resolving " + misses.size() + " recipients in " + lookups.size() + " lookups");
+
+        return Tasks.whenAllComplete(lookups).continueWith(task -> {
+            long loadedAt = System.currentTimeMillis();
+            synchronized (entries) {
+                for (Task<QuerySnapshot> lookup : lookups) {
+                    if (!lookup.isSuccessful()) {
+                        Log.e(TAG, "Error resolving recipients", lookup.getException());
+                        continue;
+                    }
+                    for (DocumentSnapshot doc : lookup.getResult().getDocuments()) {
+                        User user = doc.toObject(User.class);
+                        if (user == null) {
+                            continue;
+                        }
+                        user.setId(doc.getId());
+                        Recipient recipient = Recipient.from(user);
+                        entries.put(recipient.userId, new Entry(recipient, loadedAt));
+                        resolved.put(recipient.userId, recipient);
+                    }
+                }
+            }
+            return resolved;
+        });
+    }
+
+    /**
+     * Seed or refresh a single user (e.g. the signed-in user we already hold)
+     */
+    public void put(User user) {
+        if (user == null || user.getId() == null) {
+            return;
+        }
+        synchronized (entries) {
+            entries.put(user.getId(), new Entry(Recipient.from(user), System.currentTimeMillis()));
+        }
+    }
+
+    /**
+     * Drop a user so the next lookup re-reads their preferences
+     */
+    public void invalidate(String userId) {
+        synchronized (entries) {
+            entries.remove(userId);
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    // ======================= CACHE TYPES =======================
+
+    private static class Entry {
+        final Recipient recipient;
+        final long loadedAt;
+
+        Entry(Recipient recipient, long loadedAt) {
+            this.recipient = recipient;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    /**
+     * Immutable snapshot of what the dispatcher needs to know about a recipient
+     */
+    public static class Recipient {
+        public final String userId;
+        public final String name;
+        public final String email;
+        public final String phoneNumber;
+        public final boolean active;
+        public final boolean pushEnabled;
+        public final boolean emailEnabled;
+        public final boolean smsEnabled;
+        public final boolean digestEnabled;
+        public final int digestWindowHours;
+
+        Recipient(String userId, String name, String email, String phoneNumber, boolean active,
+                  boolean pushEnabled, boolean emailEnabled, boolean smsEnabled,
+                  boolean digestEnabled, int digestWindowHours) {
+            this.userId = userId;
+            this.name = name;
+            this.email = email;
+            this.phoneNumber = phoneNumber;
+            this.active = active;
+            this.pushEnabled = pushEnabled;
+            this.emailEnabled = emailEnabled;
+            this.smsEnabled = smsEnabled;
+            this.digestEnabled = digestEnabled;
+            this.digestWindowHours = digestWindowHours;
+        }
+
+        static Recipient from(User user) {
+            return new Recipient(user.getId(), user.getName(), user.getEmail(), user.getPhoneNumber(),
+                    user.isActive(), user.isPushNotifications(), user.isEmailNotifications(),
+                    user.isSmsNotifications(), user.isDigestNotifications(), user.getDigestWindowHours());
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.testlab.labbooking.managers;
+
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Delivers push messages to a user's devices or to a topic. Device tokens never leave the
+ * server: the relay behind the sender resolves a user's tokens, fans the message out and prunes
+ * tokens FCM no longer accepts. Implementations block and are called from the dispatcher's push
+ * worker.
+ */
+public interface PushSender {
+
+    /**
+     * Send messages and report one result per message, in the same order
+     */
+    List<Result> send(List<PushMessage> messages) throws Exception;
+
+    enum Result {
+        SENT,
+        FAILED
+    }
+
+    class PushMessage {
+        public final String userId; // exactly one of userId and topic is set
+        public final String topic;
+        public final String title;
+        public final String body;
+        public final Map<String, String> data;
+
+        private PushMessage(String userId, String topic, String title, String body, Map<String, String> data) {
+            this.userId = userId;
+            this.topic = topic;
+            this.title = title;
+            this.body = body;
+            this.data = data;
+        }
+
+        /**
+         * One message the relay sends to every device registered to the user
+         */
+        public static PushMessage toUser(String userId, String title, String body, Map<String, String> data) {
+            return new PushMessage(userId, null, title, body, data);
+        }
+
+        /**
+         * One message fanned out by FCM to every device subscribed to the topic
+         */
+        public static PushMessage toTopic(String topic, String title, String body, Map<String, String> data) {
+            return new PushMessage(null, topic, title, body, data);
+        }
+
+        String describeTarget() {
+            if (topic != null) {
+                return "topic " + topic;
+            }
+            return "user " + userId;
+        }
+    }
+
+    /**
+     * Default sender while no push endpoint is configured
+     */
+    class LoggingPushSender implements PushSender {
+        private static final String TAG = "PushSender";
+
+        @Override
+        public List<Result> send(List<PushMessage> messages) {
+            List<Result> results = new ArrayList<>();
+            for (PushMessage message : messages) {
+                Log.d(TAG, "Would send FCM notification \"" + message.title + "\" to " +
+                        message.describeTarget());
+                results.add(Result.SENT);
+            }
+            return results;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.testlab.labbooking.managers;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.testlab.labbooking.models.Booking;
+import com.testlab.labbooking.models.BookingStatus;
+import com.testlab.labbooking.models.Lab;
+import com.testlab.labbooking.models.User;
+import com.testlab.labbooking.repositories.BookingRepository;
+import com.testlab.labbooking.repositories.LabRepository;
+import com.testlab.labbooking.repositories.QueryListenerRegistry;
+import com.testlab.labbooking.repositories.SessionRepository;
+import com.testlab.labbooking.utils.AuthUtils;
+import com.testlab.labbooking.utils.DatabaseUtils;
+import com.testlab.labbooking.utils.DateTimeUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Loads everything the dashboard needs as soon as a signed-in user ID is known: the profile,
+ * labs open to the user's role, the user's bookings and the unread count, all concurrently.
+ *
+ * Labs and bookings are loaded through {@link QueryListenerRegistry} with the same queries the
+ * dashboard tabs use, so the tabs attach to the already-loaded results. The role used for the
+ * labs query is remembered per user; only on a device's first sign-in (or after a role change)
+ * does the labs query wait for the profile.
+ *
+ * Call from the main thread.
+ */
+public class SessionBootstrap {
+    private static final String TAG = "SessionBootstrap";
+    private static final String PREFS_NAME = "session_bootstrap";
+    private static final String PREF_ROLE_PREFIX = "role_";
+
+    private static SessionBootstrap instance;
+
+    private final SharedPreferences prefs;
+    private final List<ListenerRegistration> warmSubscriptions = new ArrayList<>();
+    private String userId;
+    private Task<State> stateTask;
+
+    private SessionBootstrap(Context context) {
+        prefs = context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    public static synchronized SessionBootstrap getInstance(Context context) {
+        if (instance == null) {
+            instance = new SessionBootstrap(context);
+        }
+        return instance;
+    }
+
+    public static synchronized SessionBootstrap peekInstance() {
+        return instance;
+    }
+
+    /**
+     * Start loading for the signed-in user, or return the load already in progress for them
+     */
+    public Task<State> start() {
+        String signedInId = AuthUtils.getCurrentUserId();
+        if (signedInId == null) {
+            return Tasks.forException(new IllegalStateException("User not logged in"));
+        }
+        if (signedInId.equals(userId) && stateTask != null) {
+            return stateTask;
+        }
+
+        release();
+        userId = signedInId;
+        long startedAt = System.currentTimeMillis();
+
+        Task<User> profileTask = SessionRepository.getInstance().getUser();
+        String knownRole = prefs.getString(PREF_ROLE_PREFIX + signedInId, null);
+        Task<List<Lab>> labsTask = knownRole != null ? loadLabs(knownRole) :
+                profileTask.continueWithTask(task -> task.isSuccessful() ?
+                        loadLabs(task.getResult().getRole()) :
+                        Tasks.forResult(Collections.<Lab>emptyList()));
+        Task<List<Booking>> bookingsTask = warm(DatabaseUtils.getUserBookingsQuery(signedInId),
+                DatabaseUtils.BOOKINGS_COLLECTION).continueWith(task -> BookingRepository.parseBookings(task.getResult()));
+        Task<Integer> unreadTask = NotificationManager.getUnreadNotificationCount(signedInId);
+
+        stateTask = Tasks.whenAllComplete(profileTask, labsTask, bookingsTask, unreadTask)
+                .continueWithTask(done -> {
+                    if (!profileTask.isSuccessful()) {
+                        return Tasks.forException(profileTask.getException());
+                    }
+                    User user = profileTask.getResult();
+                    String role = user.getRole();
+                    prefs.edit().putString(PREF_ROLE_PREFIX + signedInId, role).apply();
+
+                    // The remembered role was out of date; load the right labs now
+                    Task<List<Lab>> labs = knownRole == null || knownRole.equals(role) ? labsTask : loadLabs(role);
+                    return labs.continueWith(labsDone -> {
+                        State state = new State(user,
+                                labsDone.isSuccessful() ? labsDone.getResult() : Collections.emptyList(),
+                                bookingsTask.isSuccessful() ? upcoming(bookingsTask.getResult()) : Collections.emptyList(),
+                                unreadTask.isSuccessful() ? unreadTask.getResult() : 0);
+                        Log.d(TAG, "Session ready in " + (System.currentTimeMillis() - startedAt) + " ms");
+                        return state;
+                    });
+                });
+        return stateTask;
+    }
+
+    /**
+     * The loaded state for the signed-in user, if it is ready
+     */
+    public State peekState() {
+        Task<State> task = stateTask;
+        if (task == null || !task.isComplete() || !task.isSuccessful() ||
+                userId == null || !userId.equals(AuthUtils.getCurrentUserId())) {
+            return null;
+        }
+        return task.getResult();
+    }
+
+    /**
+     * Let go of the warm-up subscriptions. The registry keeps each listener around briefly,
+     * which is enough for the dashboard tabs to attach to them.
+     */
+    public void release() {
+        for (ListenerRegistration registration : warmSubscriptions) {
+            registration.remove();
+        }
+        warmSubscriptions.clear();
+    }
+
+    /**
+     * Forget the loaded state (sign-out)
+     */
+    public void clear() {
+        release();
+        userId = null;
+        stateTask = null;
+    }
+
+    // ======================= LOADING =======================
+
+    private Task<List<Lab>> loadLabs(String role) {
+        Query query = role != null ? DatabaseUtils.getAvailableLabsForUserQuery(role) :
+                DatabaseUtils.getActiveLabsQuery();
+        return warm(query, DatabaseUtils.LABS_COLLECTION)
+                .continueWith(task -> LabRepository.parseLabs(task.getResult()));
+    }
+
+    /**
+     * Subscribe through the shared registry and complete with the first result
+     */
+    private Task<QuerySnapshot> warm(Query query, String collection) {
+        TaskCompletionSource<QuerySnapshot> first = new TaskCompletionSource<>();
+        warmSubscriptions.add(QueryListenerRegistry.getInstance().subscribe(query, collection,
+                (snapshot, error) -> {
+                    if (error != null) {
+                        first.trySetException(error);
+                    } else if (snapshot != null) {
+                        first.trySetResult(snapshot);
+                    }
+                }));
+        return first.getTask();
+    }
+
+    private static List<Booking> upcoming(List<Booking> bookings) {
+        String today = DateTimeUtils.getCurrentDate();
+        List<Booking> upcoming = new ArrayList<>();
+        for (Booking booking : bookings) {
+            boolean active = booking.getStatus() == BookingStatus.PENDING ||
+                    booking.getStatus() == BookingStatus.APPROVED;
+            if (active && booking.getDate() != null && booking.getDate().compareTo(today) >= 0) {
+                upcoming.add(booking);
+            }
+        }
+        return upcoming;
+    }
+
+    /**
+     * Everything the dashboard shows first
+     */
+    public static class State {
+        public final User user;
+        public final List<Lab> labs;
+        public final List<Booking> upcomingBookings;
+        public final int unreadCount;
+
+        State(User user, List<Lab> labs, List<Booking> upcomingBookings, int unreadCount) {
+            this.user = user;
+            this.labs = labs;
+            this.upcomingBookings = upcomingBookings;
+            this.unreadCount = unreadCount;
+        }
+    }
+}
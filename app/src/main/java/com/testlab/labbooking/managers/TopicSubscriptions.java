@@ -0,0 +1,136 @@
+package com.testlab.labbooking.managers;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.messaging.FirebaseMessaging;
+import com.testlab.labbooking.models.User;
+import com.testlab.labbooking.utils.AuthUtils;
+import com.testlab.labbooking.utils.DatabaseUtils;
+
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Keeps this device's FCM topic subscriptions in line with the signed-in user: everyone gets
+ * {@link AnnouncementManager#TOPIC_ALL_USERS}, plus the topic for their role and one per lab in
+ * their recent booking history. Only the difference to the last synced set is (un)subscribed.
+ */
+public class TopicSubscriptions {
+    private static final String TAG = "TopicSubscriptions";
+    private static final String PREFS_NAME = "topic_subscriptions";
+    private static final String PREF_TOPICS = "topics";
+    private static final int BOOKING_HISTORY_LIMIT = 50;
+
+    private static TopicSubscriptions instance;
+
+    private final SharedPreferences prefs;
+
+    private TopicSubscriptions(Context context) {
+        prefs = context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    public static synchronized TopicSubscriptions getInstance(Context context) {
+        if (instance == null) {
+            instance = new TopicSubscriptions(context);
+        }
+        return instance;
+    }
+
+    public static synchronized TopicSubscriptions peekInstance() {
+        return instance;
+    }
+
+    /**
+     * Topics this device is currently subscribed to (also the announcement feed's topics)
+     */
+    public Set<String> getSubscribedTopics() {
+        return new LinkedHashSet<>(prefs.getStringSet(PREF_TOPICS, new HashSet<>()));
+    }
+
+    /**
+     * Recompute the topics for the signed-in user and apply the difference
+     */
+    public void syncForCurrentUser() {
+        String userId = AuthUtils.getCurrentUserId();
+        if (userId == null) {
+            return;
+        }
+
+        AuthUtils.getCurrentUserData(new AuthUtils.UserDataCallback() {
+            @Override
+            public void onUserDataReceived(User user) {
+                Set<String> topics = new LinkedHashSet<>();
+                topics.add(AnnouncementManager.TOPIC_ALL_USERS);
+                if (user.getRole() != null) {
+                    topics.add(AnnouncementManager.roleTopic(user.getRole()));
+                }
+
+                DatabaseUtils.getUserBookingsQuery(userId, BOOKING_HISTORY_LIMIT).get()
+                        .addOnSuccessListener(snapshot -> {
+                            for (DocumentSnapshot doc : snapshot.getDocuments()) {
+                                String labId = doc.getString(DatabaseUtils.FIELD_LAB_ID);
+                                if (labId != null) {
+                                    topics.add(AnnouncementManager.labTopic(labId));
+                                }
+                            }
+                            apply(topics);
+                        })
+                        .addOnFailureListener(e -> {
+                            Log.e(TAG, "Error loading booking history; keeping lab topics", e);
+                            for (String topic : getSubscribedTopics()) {
+                                if (topic.startsWith(AnnouncementManager.labTopic(""))) {
+                                    topics.add(topic);
+                                }
+                            }
+                            apply(topics);
+                        });
+            }
+
+            @Override
+            public void onError(String error) {
+                Log.e(TAG, "Cannot sync topics: " + error);
+            }
+        });
+    }
+
+    /**
+     * Start following a lab right away (e.g. after booking it)
+     */
+    public void subscribeToLab(String labId) {
+        Set<String> topics = getSubscribedTopics();
+        if (labId != null && topics.add(AnnouncementManager.labTopic(labId))) {
+            apply(topics);
+        }
+    }
+
+    /**
+     * Drop every subscription (sign-out)
+     */
+    public void clear() {
+        apply(new HashSet<>());
+    }
+
+    private void apply(Set<String> desired) {
+        Set<String> current = getSubscribedTopics();
+        FirebaseMessaging messaging = FirebaseMessaging.getInstance();
+
+        for (String topic : desired) {
+            if (!current.contains(topic)) {
+                messaging.subscribeToTopic(topic)
+                        .addOnFailureListener(e -> Log.e(TAG, "Error subscribing to " + topic, e));
+            }
+        }
+        for (String topic : current) {
+            if (!desired.contains(topic)) {
+                messaging.unsubscribeFromTopic(topic)
+                        .addOnFailureListener(e -> Log.e(TAG, "Error unsubscribing from " + topic, e));
+            }
+        }
+
+        prefs.edit().putStringSet(PREF_TOPICS, new HashSet<>(desired)).apply();
+    }
+}
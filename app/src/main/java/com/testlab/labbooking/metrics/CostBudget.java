@@ -0,0 +1,104 @@
+package com.testlab.labbooking.metrics;
+
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-session Firestore read and write budgets.
+ *
+ * There is a budget for the whole session and one per screen, with a default for screens that
+ * have none of their own. Crossing {@link #WARN_FRACTION} of a budget logs a warning, and so
+ * does going over it. Each warning is raised once per session and kept for the session report.
+ * A budget of 0 means unlimited.
+ */
+public class CostBudget {
+    private static final String TAG = "CostBudget";
+    static final double WARN_FRACTION = 0.8;
+
+    private volatile long sessionReads = 5000;
+    private volatile long sessionWrites = 500;
+    private volatile long defaultScreenReads = 500;
+    private final Map<String, Long> screenReads = new ConcurrentHashMap<>();
+
+    // Guarded by this
+    private final Set<String> raised = new HashSet<>();
+    private final List<String> warnings = new ArrayList<>();
+
+    CostBudget() {
+    }
+
+    // ======================= CONFIGURATION =======================
+
+    public void setSessionBudget(long reads, long writes) {
+        sessionReads = reads;
+        sessionWrites = writes;
+    }
+
+    public void setDefaultScreenReadBudget(long reads) {
+        defaultScreenReads = reads;
+    }
+
+    public void setScreenReadBudget(String screen, long reads) {
+        screenReads.put(screen, reads);
+    }
+
+    public long getScreenReadBudget(String screen) {
+        Long reads = screenReads.get(screen);
+        return reads != null ? reads : defaultScreenReads;
+    }
+
+    public long getSessionReadBudget() {
+        return sessionReads;
+    }
+
+    public long getSessionWriteBudget() {
+        return sessionWrites;
+    }
+
+    // ======================= CHECKS =======================
+
+    void check(ScreenStats screen, long totalReads, long totalWrites) {
+        check("screen " + screen.getScreen() + " reads", screen.getDocumentsRead(),
+                getScreenReadBudget(screen.getScreen()));
+        check("session reads", totalReads, sessionReads);
+        check("session writes", totalWrites, sessionWrites);
+    }
+
+    private void check(String scope, long used, long budget) {
+        if (budget <= 0 || used < budget * WARN_FRACTION) {
+            return;
+        }
+        boolean exceeded = used > budget;
+        String key = scope + (exceeded ? ":over" : ":near");
+        String message;
+        synchronized (this) {
+            if (!raised.add(key)) {
+                return;
+            }
+            message = String.format(Locale.US, "%s %s budget: %d of %d",
+                    scope, exceeded ? "over" : "near", used, budget);
+            warnings.add(message);
+        }
+        Log.w(TAG, message);
+    }
+
+    /**
+     * Warnings raised this session, oldest first
+     */
+    public synchronized List<String> getWarnings() {
+        return Collections.unmodifiableList(new ArrayList<>(warnings));
+    }
+
+    synchronized void reset() {
+        raised.clear();
+        warnings.clear();
+    }
+}
@@ -0,0 +1,125 @@
+package com.testlab.labbooking.metrics;
+
+import com.google.android.gms.tasks.Task;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Records Firestore operations in the {@link MetricsRegistry}. Each helper returns the task it
+ * was given, so calls can be wrapped in place.
+ *
+ * Reads are counted the way Firestore bills them: nothing for results served from the local
+ * cache, at least one read for a server query (even an empty one), and only the changed
+ * documents for a listener update after the first.
+ *
+ * Operations are tagged with the screen in the foreground when they are issued; listener events
+ * carry the tag of whoever opened the listener, so re-deliveries are charged to it as well.
+ */
+public final class FirestoreMetrics {
+    // Record on the completing thread instead of hopping to the main thread
+    private static final Executor DIRECT = Runnable::run;
+
+    private FirestoreMetrics() {
+    }
+
+    public static Task<QuerySnapshot> query(String name, Task<QuerySnapshot> task) {
+        String tag = registry().getCurrentScreen();
+        long start = System.nanoTime();
+        task.addOnCompleteListener(DIRECT, done -> {
+            long nanos = System.nanoTime() - start;
+            if (done.isSuccessful() && done.getResult() != null) {
+                QuerySnapshot snapshot = done.getResult();
+                boolean cached = snapshot.getMetadata().isFromCache();
+                registry().record(name, tag, nanos, cached ? 0 : Math.max(1, snapshot.size()), 0, cached, false);
+            } else {
+                registry().record(name, tag, nanos, 0, 0, null, true);
+            }
+        });
+        return task;
+    }
+
+    public static Task<DocumentSnapshot> document(String name, Task<DocumentSnapshot> task) {
+        String tag = registry().getCurrentScreen();
+        long start = System.nanoTime();
+        task.addOnCompleteListener(DIRECT, done -> {
+            long nanos = System.nanoTime() - start;
+            if (done.isSuccessful() && done.getResult() != null) {
+                boolean cached = done.getResult().getMetadata().isFromCache();
+                registry().record(name, tag, nanos, cached ? 0 : 1, 0, cached, false);
+            } else {
+                registry().record(name, tag, nanos, 0, 0, null, true);
+            }
+        });
+        return task;
+    }
+
+    /**
+     * A write (set, update, delete, add or a batch) touching the given number of documents
+     */
+    public static <T> Task<T> write(String name, int documents, Task<T> task) {
+        String tag = registry().getCurrentScreen();
+        long start = System.nanoTime();
+        task.addOnCompleteListener(DIRECT, done -> registry().record(name, tag, System.nanoTime() - start,
+                0, done.isSuccessful() ? documents : 0, null, !done.isSuccessful()));
+        return task;
+    }
+
+    /**
+     * A transaction reading {@code reads} documents; the transaction function stores the number
+     * of documents its last attempt wrote in {@code written[0]}
+     */
+    public static <T> Task<T> transaction(String name, int reads, int[] written, Task<T> task) {
+        String tag = registry().getCurrentScreen();
+        long start = System.nanoTime();
+        task.addOnCompleteListener(DIRECT, done -> registry().record(name, tag, System.nanoTime() - start,
+                reads, done.isSuccessful() ? written[0] : 0, false, !done.isSuccessful()));
+        return task;
+    }
+
+    /**
+     * A multi-step workflow (e.g. a BookingManager flow); its reads and writes are recorded by
+     * the steps themselves
+     */
+    public static <T> Task<T> workflow(String name, Task<T> task) {
+        String tag = registry().getCurrentScreen();
+        long start = System.nanoTime();
+        task.addOnCompleteListener(DIRECT, done -> registry().record(name, tag, System.nanoTime() - start,
+                0, 0, null, !done.isSuccessful()));
+        return task;
+    }
+
+    /**
+     * A snapshot listener event charged to {@code tag}; {@code callbackNanos} is the time spent
+     * in the callbacks
+     */
+    public static void listenerEvent(String name, String tag, QuerySnapshot snapshot, Exception error,
+                                     long callbackNanos) {
+        if (error != null || snapshot == null) {
+            registry().record(name, tag, callbackNanos, 0, 0, null, true);
+            return;
+        }
+        boolean cached = snapshot.getMetadata().isFromCache();
+        int reads = cached ? 0 : Math.max(1, snapshot.getDocumentChanges().size());
+        registry().record(name, tag, callbackNanos, reads, 0, cached, false);
+    }
+
+    /**
+     * A document listener event charged to {@code tag}; {@code callbackNanos} is the time spent
+     * in the callback
+     */
+    public static void listenerEvent(String name, String tag, DocumentSnapshot snapshot, Exception error,
+                                     long callbackNanos) {
+        if (error != null || snapshot == null) {
+            registry().record(name, tag, callbackNanos, 0, 0, null, true);
+            return;
+        }
+        boolean cached = snapshot.getMetadata().isFromCache();
+        registry().record(name, tag, callbackNanos, cached ? 0 : 1, 0, cached, false);
+    }
+
+    private static MetricsRegistry registry() {
+        return MetricsRegistry.getInstance();
+    }
+}
@@ -0,0 +1,303 @@
+package com.testlab.labbooking.metrics;
+
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process metrics: per-operation counts, documents read and written, cache-vs-server origin,
+ * errors and latency histograms, plus the reads and writes attributed to each screen.
+ *
+ * Recording is lock-free (LongAdder counters, atomic histogram buckets) and safe from any
+ * thread. Operations are recorded through {@link FirestoreMetrics}; the foreground screen is
+ * set by the app's activity lifecycle callbacks.
+ *
+ * Cost is attributed to the screen that issued an operation or opened a listener, not to
+ * whatever is in the foreground when the result arrives, and is checked against the
+ * {@link CostBudget} for the session.
+ */
+public class MetricsRegistry {
+    private static final String TAG = "Metrics";
+    private static final String NO_SCREEN = "(background)";
+    private static final String SESSION_REPORT_PREFIX = "session-";
+    private static final int MAX_SESSION_REPORTS = 10;
+    private static MetricsRegistry instance;
+
+    private final ConcurrentMap<String, OperationStats> operations = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, ScreenStats> screens = new ConcurrentHashMap<>();
+    private final LongAdder sessionReads = new LongAdder();
+    private final LongAdder sessionWrites = new LongAdder();
+    private final CostBudget budget = new CostBudget();
+    private volatile String currentScreen = NO_SCREEN;
+    private volatile long startedAt = System.currentTimeMillis();
+    private volatile File reportDir;
+    // Session reports are written in order, off the caller's (often the main) thread
+    private final ExecutorService reportWriter = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "metrics-report");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private MetricsRegistry() {
+    }
+
+    public static synchronized MetricsRegistry getInstance() {
+        if (instance == null) {
+            instance = new MetricsRegistry();
+        }
+        return instance;
+    }
+
+    // ======================= RECORDING =======================
+
+    public void setCurrentScreen(String screen) {
+        currentScreen = screen != null ? screen : NO_SCREEN;
+    }
+
+    public String getCurrentScreen() {
+        return currentScreen;
+    }
+
+    public CostBudget getBudget() {
+        return budget;
+    }
+
+    /**
+     * Record one completed operation
+     *
+     * @param tag       the screen (or other cost tag) the cost is attributed to
+     * @param fromCache null when origin does not apply (writes, workflows)
+     */
+    public void record(String name, String tag, long nanos, int documentsRead, int documentsWritten,
+                       Boolean fromCache, boolean error) {
+        OperationStats stats = operation(name);
+        stats.calls.increment();
+        stats.latency.recordNanos(nanos);
+        if (error) {
+            stats.errors.increment();
+        }
+        if (documentsRead > 0) {
+            stats.documentsRead.add(documentsRead);
+        }
+        if (documentsWritten > 0) {
+            stats.documentsWritten.add(documentsWritten);
+        }
+        if (fromCache != null) {
+            (fromCache ? stats.fromCache : stats.fromServer).increment();
+        }
+
+        ScreenStats screen = screen(tag != null ? tag : NO_SCREEN);
+        screen.operations.increment();
+        if (documentsRead > 0) {
+            screen.addReads(name, documentsRead);
+            sessionReads.add(documentsRead);
+        }
+        if (documentsWritten > 0) {
+            screen.documentsWritten.add(documentsWritten);
+            sessionWrites.add(documentsWritten);
+        }
+        if (documentsRead > 0 || documentsWritten > 0) {
+            budget.check(screen, sessionReads.sum(), sessionWrites.sum());
+        }
+    }
+
+    private OperationStats operation(String name) {
+        OperationStats stats = operations.get(name);
+        if (stats == null) {
+            OperationStats created = new OperationStats(name);
+            stats = operations.putIfAbsent(name, created);
+            if (stats == null) {
+                stats = created;
+            }
+        }
+        return stats;
+    }
+
+    private ScreenStats screen(String name) {
+        ScreenStats stats = screens.get(name);
+        if (stats == null) {
+            ScreenStats created = new ScreenStats(name);
+            stats = screens.putIfAbsent(name, created);
+            if (stats == null) {
+                stats = created;
+            }
+        }
+        return stats;
+    }
+
+    // ======================= READING =======================
+
+    /**
+     * Operations, most documents read first
+     */
+    public List<OperationStats> getOperations() {
+        List<OperationStats> list = new ArrayList<>(operations.values());
+        Collections.sort(list, (a, b) -> Long.compare(b.getDocumentsRead(), a.getDocumentsRead()));
+        return list;
+    }
+
+    /**
+     * Screens, most documents read first
+     */
+    public List<ScreenStats> getScreens() {
+        List<ScreenStats> list = new ArrayList<>(screens.values());
+        Collections.sort(list, (a, b) -> Long.compare(b.getDocumentsRead(), a.getDocumentsRead()));
+        return list;
+    }
+
+    public void reset() {
+        for (OperationStats stats : operations.values()) {
+            stats.reset();
+        }
+        for (ScreenStats stats : screens.values()) {
+            stats.reset();
+        }
+        sessionReads.reset();
+        sessionWrites.reset();
+        budget.reset();
+        startedAt = System.currentTimeMillis();
+    }
+
+    /**
+     * Plain-text report of everything recorded since start or the last reset
+     */
+    public String dump() {
+        StringBuilder out = new StringBuilder();
+        long seconds = (System.currentTimeMillis() - startedAt) / 1000;
+        out.append("Firestore metrics over ").append(seconds).append(" s\n");
+        out.append(String.format(Locale.US, "Session: %d reads (budget %d), %d writes (budget %d)%n%n",
+                sessionReads.sum(), budget.getSessionReadBudget(),
+                sessionWrites.sum(), budget.getSessionWriteBudget()));
+
+        out.append("SCREENS                       reads  budget  writes     ops\n");
+        for (ScreenStats screen : getScreens()) {
+            out.append(String.format(Locale.US, "%-28s %6d %7d %7d %7d%n", screen.getScreen(),
+                    screen.getDocumentsRead(), budget.getScreenReadBudget(screen.getScreen()),
+                    screen.getDocumentsWritten(), screen.getOperations()));
+            for (Map.Entry<String, Long> reader : screen.getTopReaders(3)) {
+                out.append(String.format(Locale.US, "    %-24s %6d%n", reader.getKey(), reader.getValue()));
+            }
+        }
+
+        List<String> warnings = budget.getWarnings();
+        if (!warnings.isEmpty()) {
+            out.append("\nBUDGET WARNINGS\n");
+            for (String warning : warnings) {
+                out.append(warning).append('\n');
+            }
+        }
+
+        out.append("\nOPERATIONS                    calls  errs  reads writes cache  srv    p50    p95    p99    max\n");
+        for (OperationStats op : getOperations()) {
+            LatencyHistogram latency = op.getLatency();
+            out.append(String.format(Locale.US,
+                    "%-28s %6d %5d %6d %6d %5d %4d %6.0f %6.0f %6.0f %6.0f%n",
+                    op.getName(), op.getCalls(), op.getErrors(), op.getDocumentsRead(),
+                    op.getDocumentsWritten(), op.getFromCache(), op.getFromServer(),
+                    latency.getPercentileMillis(50), latency.getPercentileMillis(95),
+                    latency.getPercentileMillis(99), latency.getMaxMillis()));
+        }
+        return out.toString();
+    }
+
+    public void dumpToLog() {
+        for (String line : dump().split("\n")) {
+            Log.i(TAG, line);
+        }
+    }
+
+    /**
+     * Write the report to a file, replacing it
+     */
+    public void dumpToFile(File file) throws IOException {
+        writeFile(file, dump());
+    }
+
+    private static void writeFile(File file, String report) throws IOException {
+        try (Writer writer = new FileWriter(file)) {
+            writer.write(report);
+        }
+    }
+
+    // ======================= SESSION REPORTS =======================
+
+    /**
+     * Where session reports go; none are written until this is set
+     */
+    public void setReportDir(File dir) {
+        reportDir = dir;
+    }
+
+    /**
+     * Write this session's report, replacing the one written earlier in the same session; only
+     * the most recent {@link #MAX_SESSION_REPORTS} sessions are kept. The report is taken now
+     * and written on a background thread, so this is safe from the main thread.
+     *
+     * @return done once the report is on disk
+     */
+    public Future<?> writeSessionReport() {
+        return writeReport(startedAt);
+    }
+
+    /**
+     * Write the final report for this session and start a new one (sign-out)
+     *
+     * @return done once the final report is on disk
+     */
+    public Future<?> endSession() {
+        Future<?> written = writeReport(startedAt);
+        reset();
+        return written;
+    }
+
+    private Future<?> writeReport(long sessionStart) {
+        File dir = reportDir;
+        if (dir == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        String report = dump();
+        return reportWriter.submit(() -> writeReport(dir, sessionStart, report));
+    }
+
+    private static void writeReport(File dir, long sessionStart, String report) {
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            Log.e(TAG, "Cannot create " + dir);
+            return;
+        }
+        String name = SESSION_REPORT_PREFIX +
+                new SimpleDateFormat("yyyyMMdd-HHmmss", Locale.US).format(new Date(sessionStart)) + ".txt";
+        try {
+            writeFile(new File(dir, name), report);
+        } catch (IOException e) {
+            Log.e(TAG, "Error writing session report", e);
+            return;
+        }
+
+        File[] reports = dir.listFiles((d, file) -> file.startsWith(SESSION_REPORT_PREFIX));
+        if (reports != null && reports.length > MAX_SESSION_REPORTS) {
+            // Timestamped names sort oldest first
+            Arrays.sort(reports);
+            for (int i = 0; i < reports.length - MAX_SESSION_REPORTS; i++) {
+                reports[i].delete();
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.testlab.labbooking.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latencies for one named operation
+ */
+public class OperationStats {
+    private final String name;
+    final LongAdder calls = new LongAdder();
+    final LongAdder errors = new LongAdder();
+    final LongAdder documentsRead = new LongAdder();
+    final LongAdder documentsWritten = new LongAdder();
+    final LongAdder fromCache = new LongAdder();
+    final LongAdder fromServer = new LongAdder();
+    final LatencyHistogram latency = new LatencyHistogram();
+
+    OperationStats(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    public long getDocumentsRead() {
+        return documentsRead.sum();
+    }
+
+    public long getDocumentsWritten() {
+        return documentsWritten.sum();
+    }
+
+    public long getFromCache() {
+        return fromCache.sum();
+    }
+
+    public long getFromServer() {
+        return fromServer.sum();
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    void reset() {
+        calls.reset();
+        errors.reset();
+        documentsRead.reset();
+        documentsWritten.reset();
+        fromCache.reset();
+        fromServer.reset();
+        latency.reset();
+    }
+}
@@ -0,0 +1,77 @@
+package com.testlab.labbooking.metrics;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Firestore cost attributed to one screen (or other cost tag): every operation it issued and
+ * every event delivered to the listeners it opened
+ */
+public class ScreenStats {
+    private final String screen;
+    final LongAdder documentsRead = new LongAdder();
+    final LongAdder documentsWritten = new LongAdder();
+    final LongAdder operations = new LongAdder();
+    private final ConcurrentMap<String, LongAdder> readsByOperation = new ConcurrentHashMap<>();
+
+    ScreenStats(String screen) {
+        this.screen = screen;
+    }
+
+    void addReads(String operation, int documents) {
+        documentsRead.add(documents);
+        LongAdder reads = readsByOperation.get(operation);
+        if (reads == null) {
+            LongAdder created = new LongAdder();
+            reads = readsByOperation.putIfAbsent(operation, created);
+            if (reads == null) {
+                reads = created;
+            }
+        }
+        reads.add(documents);
+    }
+
+    public String getScreen() {
+        return screen;
+    }
+
+    public long getDocumentsRead() {
+        return documentsRead.sum();
+    }
+
+    public long getDocumentsWritten() {
+        return documentsWritten.sum();
+    }
+
+    public long getOperations() {
+        return operations.sum();
+    }
+
+    /**
+     * The operations that read the most documents for this screen, most first
+     */
+    public List<Map.Entry<String, Long>> getTopReaders(int limit) {
+        List<Map.Entry<String, Long>> list = new ArrayList<>();
+        for (Map.Entry<String, LongAdder> entry : readsByOperation.entrySet()) {
+            long reads = entry.getValue().sum();
+            if (reads > 0) {
+                list.add(new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), reads));
+            }
+        }
+        Collections.sort(list, (a, b) -> Long.compare(b.getValue(), a.getValue()));
+        return list.size() > limit ? list.subList(0, limit) : list;
+    }
+
+    void reset() {
+        documentsRead.reset();
+        documentsWritten.reset();
+        operations.reset();
+        readsByOperation.clear();
+    }
+}
@@ -5,6 +5,8 @@ import android.os.Parcelable;
 import com.google.firebase.firestore.Exclude;
 // import com.google.firebase.firestore.PropertyName; // No longer needed for 'status'
 import com.google.firebase.firestore.ServerTimestamp;
+import com.testlab.labbooking.core.BookingRequest;
+import com.testlab.labbooking.core.BookingRules;
 import com.testlab.labbooking.utils.DateTimeUtils;
 
 import java.io.Serializable;
@@ -13,7 +15,7 @@ import java.util.Date;
 import java.util.List;
 import java.util.Objects;
 
-public class Booking implements Parcelable, Serializable {
+public class Booking implements Parcelable, Serializable, BookingRequest {
     private String id;
     private String labId;
     private String userId;
@@ -36,6 +38,8 @@ public class Booking implements Parcelable, Serializable {
     private String reviewedBy; // Admin who reviewed the booking
     private Date reviewedAt; // When it was reviewed
     private int priority; // Booking priority (1 = highest)
+    private String claimedBy; // Admin currently reviewing it from the approval queue
+    private Date claimExpiresAt; // The claim lapses after this, returning it to the queue
 
     // Reminder and notification tracking
     private boolean reminderSent;
@@ -115,6 +119,8 @@ public class Booking implements Parcelable, Serializable {
         reviewedBy = in.readString();
         reviewedAt = (Date) in.readSerializable();
         priority = in.readInt();
+        claimedBy = in.readString();
+        claimExpiresAt = (Date) in.readSerializable();
         reminderSent = in.readByte() != 0;
         reminderSentAt = (Date) in.readSerializable();
         followUpSent = in.readByte() != 0;
@@ -311,6 +317,22 @@ public class Booking implements Parcelable, Serializable {
         this.priority = Math.max(1, Math.min(5, priority)); // 1-5 scale
     }
 
+    public String getClaimedBy() {
+        return claimedBy;
+    }
+
+    public void setClaimedBy(String claimedBy) {
+        this.claimedBy = claimedBy;
+    }
+
+    public Date getClaimExpiresAt() {
+        return claimExpiresAt;
+    }
+
+    public void setClaimExpiresAt(Date claimExpiresAt) {
+        this.claimExpiresAt = claimExpiresAt;
+    }
+
     // Notification tracking
     public boolean isReminderSent() {
         return reminderSent;
@@ -632,65 +654,12 @@ public class Booking implements Parcelable, Serializable {
 
     @Exclude
     public boolean isValid() {
-        return labId != null && !labId.trim().isEmpty() &&
-                userId != null && !userId.trim().isEmpty() &&
-                date != null && !date.trim().isEmpty() &&
-                startTime != null && !startTime.trim().isEmpty() &&
-                endTime != null && !endTime.trim().isEmpty() &&
-                purpose != null && !purpose.trim().isEmpty() &&
-                numberOfParticipants > 0;
+        return BookingRules.isComplete(this);
     }
 
     @Exclude
     public List<String> getValidationErrors() {
-        List<String> errors = new ArrayList<>();
-
-        if (labId == null || labId.trim().isEmpty()) {
-            errors.add("Lab ID is required");
-        }
-
-        if (userId == null || userId.trim().isEmpty()) {
-            errors.add("User ID is required");
-        }
-
-        if (date == null || date.trim().isEmpty()) {
-            errors.add("Date is required");
-        }
-
-        if (startTime == null || startTime.trim().isEmpty()) {
-            errors.add("Start time is required");
-        }
-
-        if (endTime == null || endTime.trim().isEmpty()) {
-            errors.add("End time is required");
-        }
-
-        if (purpose == null || purpose.trim().isEmpty()) {
-            errors.add("Purpose is required");
-        }
-
-        if (numberOfParticipants <= 0) {
-            errors.add("Number of participants must be greater than 0");
-        }
-
-        // Validate time logic
-        if (startTime != null && endTime != null) {
-            if (DateTimeUtils.isTimeAfter(startTime, endTime)) {
-                errors.add("Start time must be before end time");
-            }
-
-            int duration = getDurationMinutes();
-            if (duration < 15) {
-                errors.add("Booking duration must be at least 15 minutes");
-            }
-        }
-
-        // Validate date is not in the past
-        if (date != null && DateTimeUtils.isPastDate(date)) {
-            errors.add("Cannot book for past dates");
-        }
-
-        return errors;
+        return BookingRules.validationErrors(this, DateTimeUtils.getCurrentDate());
     }
 
     @Override
@@ -746,6 +715,8 @@ public class Booking implements Parcelable, Serializable {
         dest.writeString(reviewedBy);
         dest.writeSerializable(reviewedAt);
         dest.writeInt(priority);
+        dest.writeString(claimedBy);
+        dest.writeSerializable(claimExpiresAt);
         dest.writeByte((byte) (reminderSent ? 1 : 0));
         dest.writeSerializable(reminderSentAt);
         dest.writeByte((byte) (followUpSent ? 1 : 0));
@@ -3,18 +3,22 @@ package com.testlab.labbooking.models;
 import com.google.firebase.firestore.Exclude;
 import com.google.firebase.firestore.PropertyName;
 import com.google.firebase.firestore.ServerTimestamp;
+import com.testlab.labbooking.core.LabRules;
 
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
-public class Lab {
+public class Lab implements LabRules {
     private String id;
     private String name;
     private String description;
     private int capacity;
     private List<String> resources;
+    private Map<String, Integer> inventory; // Countable resources and the units the lab owns
     private String location;
     private boolean isActive;
     private String imageUrl;
@@ -40,6 +44,7 @@ public class Lab {
     private int advanceBookingDays; // How many days in advance can be booked
     private int minBookingMinutes; // Minimum booking duration in minutes
     private boolean requiresApproval; // Whether bookings need admin approval
+    private boolean sharedCapacity; // Overlapping bookings share the seats instead of taking the whole lab
 
     // New fields for better management
     private List<String> allowedUserTypes; // "student", "faculty", "admin"
@@ -61,6 +66,7 @@ public class Lab {
     public Lab() {
         // Empty constructor for Firestore
         this.resources = new ArrayList<>();
+        this.inventory = new HashMap<>();
         this.availableDays = new ArrayList<>();
         this.allowedUserTypes = new ArrayList<>();
         this.isActive = true;
@@ -141,6 +147,21 @@ public class Lab {
         this.resources = resources != null ? new ArrayList<>(resources) : new ArrayList<>();
     }
 
+    public Map<String, Integer> getInventory() {
+        return inventory != null ? inventory : new HashMap<>();
+    }
+
+    public void setInventory(Map<String, Integer> inventory) {
+        this.inventory = inventory != null ? new HashMap<>(inventory) : new HashMap<>();
+    }
+
+    /**
+     * Whether bookings here go through the per-day index of seats and counted equipment
+     */
+    public boolean usesDayIndex() {
+        return sharedCapacity || (inventory != null && !inventory.isEmpty());
+    }
+
     public String getLocation() {
         return location;
     }
@@ -297,6 +318,14 @@ public class Lab {
         this.requiresApproval = requiresApproval;
     }
 
+    public boolean isSharedCapacity() {
+        return sharedCapacity;
+    }
+
+    public void setSharedCapacity(boolean sharedCapacity) {
+        this.sharedCapacity = sharedCapacity;
+    }
+
     // New field getters and setters
     public List<String> getAllowedUserTypes() {
         return allowedUserTypes != null ? allowedUserTypes : new ArrayList<>();
@@ -535,6 +564,7 @@ public class Lab {
         copy.setDescription(this.description);
         copy.setCapacity(this.capacity);
         copy.setResources(new ArrayList<>(this.getResources()));
+        copy.setInventory(this.getInventory());
         copy.setLocation(this.location);
         copy.setActive(this.isActive);
         copy.setImageUrl(this.imageUrl);
@@ -554,6 +584,7 @@ public class Lab {
         copy.setAdvanceBookingDays(this.advanceBookingDays);
         copy.setMinBookingMinutes(this.minBookingMinutes);
         copy.setRequiresApproval(this.requiresApproval);
+        copy.setSharedCapacity(this.sharedCapacity);
         copy.setAllowedUserTypes(new ArrayList<>(this.getAllowedUserTypes()));
         copy.setCategory(this.category);
         copy.setPriority(this.priority);
@@ -23,6 +23,7 @@ public class Notification {
     private Date createdAt;
     private Date readAt;
     private Date dismissedAt;
+    private Date expireAt; // Removed by the retention job after this time
 
     // Rich notification data
     private String imageUrl;
@@ -178,6 +179,14 @@ public class Notification {
         this.dismissedAt = dismissedAt;
     }
 
+    public Date getExpireAt() {
+        return expireAt;
+    }
+
+    public void setExpireAt(Date expireAt) {
+        this.expireAt = expireAt;
+    }
+
     public String getImageUrl() {
         return imageUrl;
     }
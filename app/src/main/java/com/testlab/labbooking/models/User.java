@@ -35,6 +35,8 @@ public class User implements Parcelable, Serializable {
     private boolean emailNotifications;
     private boolean smsNotifications;
     private boolean pushNotifications;
+    private boolean digestNotifications; // Batch non-urgent notifications into a periodic digest
+    private int digestWindowHours; // How often the digest is delivered
     private String preferredLanguage;
     private String timezone;
 
@@ -70,6 +72,8 @@ public class User implements Parcelable, Serializable {
         this.emailNotifications = true;
         this.smsNotifications = false;
         this.pushNotifications = true;
+        this.digestNotifications = false;
+        this.digestWindowHours = 24;
         this.preferredLanguage = "en";
         this.timezone = "UTC";
         this.specializations = new ArrayList<>();
@@ -109,6 +113,8 @@ public class User implements Parcelable, Serializable {
         emailNotifications = in.readByte() != 0;
         smsNotifications = in.readByte() != 0;
         pushNotifications = in.readByte() != 0;
+        digestNotifications = in.readByte() != 0;
+        digestWindowHours = in.readInt();
         preferredLanguage = in.readString();
         timezone = in.readString();
         maxSimultaneousBookings = in.readInt();
@@ -284,6 +290,22 @@ public class User implements Parcelable, Serializable {
         this.pushNotifications = pushNotifications;
     }
 
+    public boolean isDigestNotifications() {
+        return digestNotifications;
+    }
+
+    public void setDigestNotifications(boolean digestNotifications) {
+        this.digestNotifications = digestNotifications;
+    }
+
+    public int getDigestWindowHours() {
+        return digestWindowHours > 0 ? digestWindowHours : 24;
+    }
+
+    public void setDigestWindowHours(int digestWindowHours) {
+        this.digestWindowHours = digestWindowHours;
+    }
+
     public String getPreferredLanguage() {
         return preferredLanguage != null ? preferredLanguage : "en";
     }
@@ -619,6 +641,8 @@ public class User implements Parcelable, Serializable {
         dest.writeByte((byte) (emailNotifications ? 1 : 0));
         dest.writeByte((byte) (smsNotifications ? 1 : 0));
         dest.writeByte((byte) (pushNotifications ? 1 : 0));
+        dest.writeByte((byte) (digestNotifications ? 1 : 0));
+        dest.writeInt(digestWindowHours);
         dest.writeString(preferredLanguage);
         dest.writeString(timezone);
         dest.writeInt(maxSimultaneousBookings);
@@ -0,0 +1,331 @@
+package com.testlab.labbooking.repositories;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentChange;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.testlab.labbooking.core.ApprovalHeap;
+import com.testlab.labbooking.core.ClaimLease;
+import com.testlab.labbooking.metrics.FirestoreMetrics;
+import com.testlab.labbooking.metrics.MetricsRegistry;
+import com.testlab.labbooking.models.Booking;
+import com.testlab.labbooking.utils.DatabaseUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The admin approval queue: pending bookings in (priority, createdAt) order, loaded a page at
+ * a time and kept current from document changes.
+ *
+ * Each page is found with a keyset read after the previous page's last document, then watched
+ * with a listener bounded to exactly that key range, so a change anywhere in the queue touches
+ * only the page it falls in and pages never shift into each other. The last page is left open
+ * at the end so new bookings that sort after everything loaded still appear. Changes are
+ * applied to an {@link ApprovalHeap} one document at a time instead of rebuilding the list.
+ *
+ * Several admins can work the queue together: {@link #claimNext(int)} claims bookings in a
+ * transaction, and bookings another admin has claimed are hidden from everyone else until they
+ * are reviewed or the claim lapses, when the queue is published again.
+ *
+ * Call from the main thread.
+ */
+public class ApprovalQueueRepository {
+    private static final String TAG = "ApprovalQueue";
+    private static final int PAGE_SIZE = 25;
+    // Claim candidates beyond the number asked for, for when another admin gets there first
+    private static final int CLAIM_SLACK = 5;
+
+    private static ApprovalQueueRepository instance;
+
+    private final ApprovalHeap<Booking> heap = new ApprovalHeap<>();
+    private final List<Page> pages = new ArrayList<>();
+    private final Map<String, Integer> pagesHolding = new HashMap<>();
+    private final MutableLiveData<List<Booking>> queueLiveData = new MutableLiveData<>();
+    private final MutableLiveData<String> errorLiveData = new MutableLiveData<>();
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable republish = this::publish;
+
+    private String adminId;
+    private boolean loadingPage = false;
+    private boolean hasMore = true;
+    private int generation = 0;
+
+    private ApprovalQueueRepository() {
+    }
+
+    public static synchronized ApprovalQueueRepository getInstance() {
+        if (instance == null) {
+            instance = new ApprovalQueueRepository();
+        }
+        return instance;
+    }
+
+    /**
+     * Pending bookings this admin can review, in queue order: unclaimed ones and their own
+     * claims, but not bookings another admin is reviewing
+     */
+    public LiveData<List<Booking>> getQueue() {
+        return queueLiveData;
+    }
+
+    public LiveData<String> getErrorLiveData() {
+        return errorLiveData;
+    }
+
+    public boolean hasMore() {
+        return hasMore;
+    }
+
+    /**
+     * Start watching the queue for {@code adminId}; a no-op if already watching for them
+     */
+    public void start(String adminId) {
+        if (adminId == null || adminId.equals(this.adminId)) {
+            return;
+        }
+        stop();
+        this.adminId = adminId;
+        loadNextPage();
+    }
+
+    /**
+     * Detach every page and forget the queue
+     */
+    public void stop() {
+        generation++;
+        handler.removeCallbacks(republish);
+        for (Page page : pages) {
+            page.registration.remove();
+        }
+        pages.clear();
+        pagesHolding.clear();
+        heap.clear();
+        adminId = null;
+        loadingPage = false;
+        hasMore = true;
+        queueLiveData.setValue(null);
+    }
+
+    // ======================= PAGING =======================
+
+    /**
+     * Load the page after the last one loaded; ignored while a page is loading or when the
+     * whole queue is loaded
+     */
+    public void loadNextPage() {
+        if (adminId == null || loadingPage || !hasMore) {
+            return;
+        }
+        loadingPage = true;
+        int loadGeneration = generation;
+        DocumentSnapshot after = pages.isEmpty() ? null : pages.get(pages.size() - 1).last;
+
+        // The keyset read finds where this page ends; its listener then covers exactly that range
+        FirestoreMetrics.query("approvalQueue.page",
+                        DatabaseUtils.getPendingBookingsPageQuery(after, PAGE_SIZE).get())
+                .addOnCompleteListener(task -> {
+                    if (loadGeneration != generation) {
+                        return; // stopped meanwhile
+                    }
+                    loadingPage = false;
+                    if (!task.isSuccessful()) {
+                        Log.e(TAG, "Error loading approval queue page", task.getException());
+                        errorLiveData.setValue(DatabaseUtils.getFormattedErrorMessage(task.getException()));
+                        return;
+                    }
+
+                    List<DocumentSnapshot> docs = task.getResult().getDocuments();
+                    boolean full = docs.size() == PAGE_SIZE;
+                    DocumentSnapshot last = full ? docs.get(docs.size() - 1) : null;
+                    hasMore = full;
+                    watch(after, last);
+                });
+    }
+
+    private void watch(DocumentSnapshot after, DocumentSnapshot last) {
+        Page page = new Page(last);
+        String costTag = MetricsRegistry.getInstance().getCurrentScreen();
+        Query query = DatabaseUtils.getPendingBookingsRangeQuery(after, last);
+        page.registration = query.addSnapshotListener((snapshot, error) -> {
+            long start = System.nanoTime();
+            onPageChanged(page, snapshot, error);
+            FirestoreMetrics.listenerEvent("listener:approvalQueue", costTag, snapshot, error,
+                    System.nanoTime() - start);
+        });
+        pages.add(page);
+    }
+
+    private void onPageChanged(Page page, QuerySnapshot snapshot, FirebaseFirestoreException error) {
+        if (!pages.contains(page)) {
+            return;
+        }
+        if (error != null) {
+            Log.e(TAG, "Approval queue listener failed", error);
+            errorLiveData.setValue(DatabaseUtils.getFormattedErrorMessage(error));
+            return;
+        }
+
+        for (DocumentChange change : snapshot.getDocumentChanges()) {
+            DocumentSnapshot doc = change.getDocument();
+            String id = doc.getId();
+            if (change.getType() == DocumentChange.Type.REMOVED) {
+                if (page.ids.remove(id)) {
+                    release(id);
+                }
+                continue;
+            }
+
+            Booking booking = doc.toObject(Booking.class);
+            if (booking == null) {
+                continue;
+            }
+            booking.setId(id);
+            if (page.ids.add(id)) {
+                Integer holding = pagesHolding.get(id);
+                pagesHolding.put(id, holding == null ? 1 : holding + 1);
+            }
+            heap.upsert(id, booking.getPriority(), createdAtMillis(booking), booking);
+        }
+        publish();
+    }
+
+    /**
+     * A page let go of a booking; it leaves the queue unless a neighbouring page picked it up
+     * first (a priority change moves a booking between pages)
+     */
+    private void release(String id) {
+        Integer holding = pagesHolding.get(id);
+        if (holding == null || holding <= 1) {
+            pagesHolding.remove(id);
+            heap.remove(id);
+        } else {
+            pagesHolding.put(id, holding - 1);
+        }
+    }
+
+    private void publish() {
+        long now = System.currentTimeMillis();
+        queueLiveData.setValue(heap.first(heap.size(), booking -> !isHeldByOther(booking, now)));
+
+        // A lapsing claim changes no document, so no listener would bring the booking back
+        handler.removeCallbacks(republish);
+        long nextExpiry = Long.MAX_VALUE;
+        for (Booking booking : heap.toList()) {
+            if (isHeldByOther(booking, now)) {
+                nextExpiry = Math.min(nextExpiry, claimExpiresAtMillis(booking));
+            }
+        }
+        if (nextExpiry != Long.MAX_VALUE) {
+            handler.postDelayed(republish, nextExpiry - now);
+        }
+    }
+
+    // ======================= CLAIMS =======================
+
+    /**
+     * Claim the next {@code count} bookings at the head of the queue for this admin. Fewer may
+     * come back when other admins claim at the same time or the loaded pages run out.
+     */
+    public Task<List<Booking>> claimNext(int count) {
+        if (adminId == null) {
+            return Tasks.forException(new IllegalStateException("Approval queue not started"));
+        }
+        String claimer = adminId;
+        long now = System.currentTimeMillis();
+        List<String> candidates = new ArrayList<>();
+        for (Booking booking : heap.first(count + CLAIM_SLACK,
+                booking -> !claimer.equals(booking.getClaimedBy()) && !isHeldByOther(booking, now))) {
+            candidates.add(booking.getId());
+        }
+        if (candidates.isEmpty()) {
+            return Tasks.forResult(new ArrayList<>());
+        }
+
+        return DatabaseUtils.claimPendingBookings(candidates, claimer, count, ClaimLease.DEFAULT_LEASE_MILLIS)
+                .continueWith(task -> {
+                    List<Booking> claimed = new ArrayList<>();
+                    for (String id : task.getResult()) {
+                        Booking booking = heap.get(id);
+                        if (booking != null) {
+                            claimed.add(booking);
+                        }
+                    }
+                    Log.d(TAG, "Claimed " + claimed.size() + " of " + count + " bookings");
+                    return claimed;
+                });
+    }
+
+    /**
+     * Bookings this admin has claimed and not yet reviewed, in queue order
+     */
+    public List<Booking> getMyClaims() {
+        String claimer = adminId;
+        long now = System.currentTimeMillis();
+        return heap.first(heap.size(), booking -> claimer != null &&
+                claimer.equals(booking.getClaimedBy()) && !isExpired(booking, now));
+    }
+
+    /**
+     * Hand this admin's claims back to the queue
+     */
+    public Task<Void> releaseMyClaims() {
+        List<String> ids = new ArrayList<>();
+        for (Booking booking : getMyClaims()) {
+            ids.add(booking.getId());
+        }
+        if (ids.isEmpty()) {
+            return Tasks.forResult(null);
+        }
+        return DatabaseUtils.releaseBookingClaims(ids, adminId);
+    }
+
+    /**
+     * Whether another admin is reviewing this booking right now
+     */
+    public boolean isHeldByOther(Booking booking) {
+        return isHeldByOther(booking, System.currentTimeMillis());
+    }
+
+    private boolean isHeldByOther(Booking booking, long now) {
+        return ClaimLease.isHeldByOther(booking.getClaimedBy(), claimExpiresAtMillis(booking), adminId, now);
+    }
+
+    private static boolean isExpired(Booking booking, long now) {
+        return claimExpiresAtMillis(booking) <= now;
+    }
+
+    private static long claimExpiresAtMillis(Booking booking) {
+        return booking.getClaimExpiresAt() != null ? booking.getClaimExpiresAt().getTime() : 0;
+    }
+
+    private static long createdAtMillis(Booking booking) {
+        // Null only until the server timestamp of a just-created booking arrives; it sorts last
+        return booking.getCreatedAt() != null ? booking.getCreatedAt().getTime() : Long.MAX_VALUE;
+    }
+
+    private static class Page {
+        final DocumentSnapshot last; // null for the open-ended last page
+        final Set<String> ids = new HashSet<>();
+        ListenerRegistration registration;
+
+        Page(DocumentSnapshot last) {
+            this.last = last;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.testlab.labbooking.repositories;
+
+import android.util.Log;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import com.google.android.gms.tasks.Task;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QueryDocumentSnapshot;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.testlab.labbooking.core.LabDay;
+import com.testlab.labbooking.models.Booking;
+import com.testlab.labbooking.models.Lab;
+import com.testlab.labbooking.utils.DatabaseUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class BookingRepository {
+    private static final String TAG = "BookingRepository";
+    private static BookingRepository instance;
+
+    private final QueryListenerRegistry listenerRegistry;
+
+    private BookingRepository() {
+        listenerRegistry = QueryListenerRegistry.getInstance();
+    }
+
+    public static BookingRepository getInstance() {
+        if (instance == null) {
+            instance = new BookingRepository();
+        }
+        return instance;
+    }
+
+    // ======================= BOOKING STREAMS =======================
+
+    /**
+     * Bookings made by a single user, newest first
+     */
+    public BookingListLiveData getUserBookings(String userId) {
+        return new BookingListLiveData(DatabaseUtils.getUserBookingsQuery(userId));
+    }
+
+    /**
+     * Pending bookings in review order (priority, then age)
+     */
+    public BookingListLiveData getPendingBookings() {
+        return new BookingListLiveData(DatabaseUtils.getPendingBookingsQuery());
+    }
+
+    /**
+     * Today's approved bookings ordered by start time
+     */
+    public BookingListLiveData getTodaysBookings() {
+        return new BookingListLiveData(DatabaseUtils.getTodaysBookingsQuery());
+    }
+
+    /**
+     * Every booking, newest first
+     */
+    public BookingListLiveData getAllBookings() {
+        return new BookingListLiveData(DatabaseUtils.getAllBookingsQuery());
+    }
+
+    // ======================= BOOKING WRITES =======================
+
+    public Task<DocumentReference> createBookingWithValidation(Booking booking) {
+        return DatabaseUtils.createBookingWithValidation(booking);
+    }
+
+    public Task<LabDay.Admission> reserveBooking(Booking booking, Lab lab) {
+        return DatabaseUtils.reserveBooking(booking, lab);
+    }
+
+    public Task<Void> cancelBookingWithRefund(String bookingId, String reason, String userId) {
+        return DatabaseUtils.cancelBookingWithRefund(bookingId, reason, userId);
+    }
+
+    public Task<Void> updateBookingStatus(String bookingId, String status, String adminId, String adminNotes) {
+        return DatabaseUtils.updateBookingStatus(bookingId, status, adminId, adminNotes);
+    }
+
+    public Task<List<String>> batchApproveBookings(List<String> bookingIds, String adminId, String notes) {
+        return DatabaseUtils.batchApproveBookings(bookingIds, adminId, notes);
+    }
+
+    // ======================= HELPER METHODS =======================
+
+    /**
+     * Convert a query snapshot into bookings with their document IDs set
+     */
+    public static List<Booking> parseBookings(QuerySnapshot snapshot) {
+        List<Booking> bookings = new ArrayList<>();
+        if (snapshot == null) {
+            return bookings;
+        }
+
+        for (QueryDocumentSnapshot document : snapshot) {
+            try {
+                Booking booking = document.toObject(Booking.class);
+                booking.setId(document.getId());
+                bookings.add(booking);
+            } catch (Exception e) {
+                Log.e(TAG, "Error parsing booking document: " + document.getId(), e);
+            }
+        }
+        return bookings;
+    }
+
+    /**
+     * LiveData backed by a shared snapshot listener. The listener is held only while the LiveData
+     * has active observers; the last delivered list stays cached in the LiveData itself, so a
+     * holder that survives configuration changes (a ViewModel) can re-display it immediately.
+     * Errors are reported on the stream's own {@link #getError()}, so one screen's failure is
+     * never shown on another.
+     */
+    public class BookingListLiveData extends LiveData<List<Booking>> {
+        private final Query query;
+        private final MutableLiveData<String> error = new MutableLiveData<>();
+        private ListenerRegistration registration;
+
+        BookingListLiveData(Query query) {
+            this.query = query;
+        }
+
+        public Query getQuery() {
+            return query;
+        }
+
+        public boolean hasLoaded() {
+            return getValue() != null;
+        }
+
+        public LiveData<String> getError() {
+            return error;
+        }
+
+        @Override
+        protected void onActive() {
+            if (registration == null) {
+                registration = listenerRegistry.subscribe(query, DatabaseUtils.BOOKINGS_COLLECTION,
+                        this::handleSnapshot);
+            }
+        }
+
+        @Override
+        protected void onInactive() {
+            if (registration != null) {
+                registration.remove();
+                registration = null;
+            }
+        }
+
+        private void handleSnapshot(QuerySnapshot snapshot, FirebaseFirestoreException e) {
+            if (e != null) {
+                String errorMessage = DatabaseUtils.getFormattedErrorMessage(e);
+                Log.e(TAG, "Error loading bookings: " + errorMessage, e);
+                error.setValue(errorMessage);
+                if (getValue() == null) {
+                    setValue(Collections.emptyList());
+                }
+
+                // The failed listener is gone; attach a new one next time we become active
+                registration = null;
+                return;
+            }
+
+            List<Booking> bookings = parseBookings(snapshot);
+            Log.d(TAG, "Loaded " + bookings.size() + " bookings");
+            setValue(bookings);
+        }
+    }
+}
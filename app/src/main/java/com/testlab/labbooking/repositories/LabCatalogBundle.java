@@ -0,0 +1,120 @@
+package com.testlab.labbooking.repositories;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.Source;
+import com.testlab.labbooking.utils.DatabaseUtils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+
+/**
+ * Prebuilt Firestore data bundle with the lab catalog, so labs render from the local cache on
+ * a fresh install before the first network round trip completes.
+ *
+ * The bundle is read from {@code files/lab_catalog.bundle} when present (a newer catalog
+ * downloaded or pushed to the device), otherwise from the {@code bundles/lab_catalog.bundle}
+ * asset. Release builds generate the asset with the bundlegen tool (the app's
+ * generateLabCatalogBundle task), whose named queries mirror
+ * {@link DatabaseUtils#getActiveLabsQuery()} and
+ * {@link DatabaseUtils#getAvailableLabsForUserQuery(String)}.
+ */
+public class LabCatalogBundle {
+    private static final String TAG = "LabCatalogBundle";
+    private static final String ASSET_PATH = "bundles/lab_catalog.bundle";
+    private static final String LOCAL_FILE_NAME = "lab_catalog.bundle";
+
+    // Named queries in the bundle; keep in sync with the bundlegen tool
+    public static final String ACTIVE_LABS_QUERY = "active-labs";
+    private static final String AVAILABLE_LABS_QUERY_PREFIX = "available-labs-";
+
+    private static LabCatalogBundle instance;
+
+    private final TaskCompletionSource<Boolean> loaded = new TaskCompletionSource<>();
+    private boolean started = false;
+
+    private LabCatalogBundle() {
+    }
+
+    public static synchronized LabCatalogBundle getInstance() {
+        if (instance == null) {
+            instance = new LabCatalogBundle();
+        }
+        return instance;
+    }
+
+    public static String availableLabsQueryName(String role) {
+        return AVAILABLE_LABS_QUERY_PREFIX + role.toLowerCase(Locale.US);
+    }
+
+    /**
+     * Load the bundle into the Firestore cache. Loading a bundle that is already in the cache
+     * is a no-op in Firestore, so this is cheap on every app start.
+     */
+    public synchronized void load(Context context) {
+        if (started) {
+            return;
+        }
+        started = true;
+
+        InputStream bundle;
+        try {
+            bundle = open(context);
+        } catch (IOException e) {
+            Log.d(TAG, "No lab catalog bundle available");
+            loaded.trySetResult(false);
+            return;
+        }
+
+        DatabaseUtils.getInstance().loadBundle(bundle)
+                .addOnCompleteListener(task -> {
+                    try {
+                        bundle.close();
+                    } catch (IOException ignored) {
+                    }
+
+                    if (task.isSuccessful()) {
+                        Log.d(TAG, "Loaded lab catalog bundle: " + task.getResult().getDocumentsLoaded() +
+                                "/" + task.getResult().getTotalDocuments() + " documents");
+                        loaded.trySetResult(true);
+                    } else {
+                        Log.e(TAG, "Error loading lab catalog bundle", task.getException());
+                        loaded.trySetResult(false);
+                    }
+                });
+    }
+
+    /**
+     * Results of a named query from the local cache only; fails when there is no bundle or the
+     * bundle does not contain the query
+     */
+    public Task<QuerySnapshot> getCachedResults(String queryName) {
+        return loaded.getTask().continueWithTask(loadTask -> {
+            if (!Boolean.TRUE.equals(loadTask.getResult())) {
+                return Tasks.forException(new IllegalStateException("No lab catalog bundle"));
+            }
+            return DatabaseUtils.getInstance().getNamedQuery(queryName).continueWithTask(queryTask -> {
+                if (!queryTask.isSuccessful() || queryTask.getResult() == null) {
+                    return Tasks.forException(new IllegalStateException("Bundle has no query " + queryName));
+                }
+                return queryTask.getResult().get(Source.CACHE);
+            });
+        });
+    }
+
+    private static InputStream open(Context context) throws IOException {
+        File local = new File(context.getFilesDir(), LOCAL_FILE_NAME);
+        if (local.isFile()) {
+            return new FileInputStream(local);
+        }
+        return context.getAssets().open(ASSET_PATH);
+    }
+}
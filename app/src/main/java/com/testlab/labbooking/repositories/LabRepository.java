@@ -4,8 +4,11 @@ import android.util.Log;
 
 import androidx.lifecycle.MutableLiveData;
 
+import com.google.android.gms.tasks.Task;
+import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.ListenerRegistration;
 import com.google.firebase.firestore.QueryDocumentSnapshot;
+import com.testlab.labbooking.metrics.FirestoreMetrics;
 import com.testlab.labbooking.models.Lab;
 import com.testlab.labbooking.models.User;
 import com.testlab.labbooking.utils.DatabaseUtils;
@@ -21,9 +24,13 @@ public class LabRepository {
     private MutableLiveData<String> errorLiveData;
     private MutableLiveData<Boolean> loadingLiveData;
 
+    private final QueryListenerRegistry listenerRegistry;
     private ListenerRegistration labsListenerRegistration;
+    private int labsLoadGeneration;
+    private boolean liveLabsReceived;
 
     private LabRepository() {
+        listenerRegistry = QueryListenerRegistry.getInstance();
         labsLiveData = new MutableLiveData<>();
         errorLiveData = new MutableLiveData<>();
         loadingLiveData = new MutableLiveData<>();
@@ -66,19 +73,22 @@ public class LabRepository {
         // Detach previous listener if exists
         detachListener();
 
+        // Show the bundled catalog from the local cache until the live result arrives
+        showBundledLabs(currentUser != null && currentUser.getRole() != null ?
+                LabCatalogBundle.availableLabsQueryName(currentUser.getRole()) :
+                LabCatalogBundle.ACTIVE_LABS_QUERY);
+
         // Use appropriate query based on user
         if (currentUser != null && currentUser.getRole() != null) {
             // Load labs available for user's role
-            labsListenerRegistration = DatabaseUtils.getAvailableLabsForUserQuery(currentUser.getRole())
-                    .addSnapshotListener((queryDocumentSnapshots, error) -> {
-                        handleLabsSnapshot(queryDocumentSnapshots, error);
-                    });
+            labsListenerRegistration = listenerRegistry.subscribe(
+                    DatabaseUtils.getAvailableLabsForUserQuery(currentUser.getRole()),
+                    DatabaseUtils.LABS_COLLECTION, this::handleLabsSnapshot);
         } else {
             // Load all active labs
-            labsListenerRegistration = DatabaseUtils.getActiveLabsQuery()
-                    .addSnapshotListener((queryDocumentSnapshots, error) -> {
-                        handleLabsSnapshot(queryDocumentSnapshots, error);
-                    });
+            labsListenerRegistration = listenerRegistry.subscribe(
+                    DatabaseUtils.getActiveLabsQuery(),
+                    DatabaseUtils.LABS_COLLECTION, this::handleLabsSnapshot);
         }
     }
 
@@ -91,10 +101,9 @@ public class LabRepository {
         setLoading(true);
         detachListener();
 
-        labsListenerRegistration = DatabaseUtils.getLabsByCategoryQuery(category)
-                .addSnapshotListener((queryDocumentSnapshots, error) -> {
-                    handleLabsSnapshot(queryDocumentSnapshots, error);
-                });
+        labsListenerRegistration = listenerRegistry.subscribe(
+                DatabaseUtils.getLabsByCategoryQuery(category),
+                DatabaseUtils.LABS_COLLECTION, this::handleLabsSnapshot);
     }
 
     /**
@@ -111,10 +120,9 @@ public class LabRepository {
         setLoading(true);
         detachListener();
 
-        labsListenerRegistration = DatabaseUtils.searchLabsQuery(searchTerm.trim())
-                .addSnapshotListener((queryDocumentSnapshots, error) -> {
-                    handleLabsSnapshot(queryDocumentSnapshots, error);
-                });
+        labsListenerRegistration = listenerRegistry.subscribe(
+                DatabaseUtils.searchLabsQuery(searchTerm.trim()),
+                DatabaseUtils.LABS_COLLECTION, this::handleLabsSnapshot);
     }
 
     /**
@@ -130,11 +138,73 @@ public class LabRepository {
         loadActiveLabs();
     }
 
+    // Lab writes
+
+    public Task<DocumentReference> createLab(Lab lab) {
+        return DatabaseUtils.createLab(lab);
+    }
+
+    public Task<Void> updateLab(String labId, Lab lab) {
+        return DatabaseUtils.updateLab(labId, lab);
+    }
+
+    public Task<Void> updateLabStatus(String labId, boolean isActive) {
+        return DatabaseUtils.updateLabStatus(labId, isActive);
+    }
+
+    public Task<Void> deleteLab(String labId) {
+        return DatabaseUtils.deleteLab(labId);
+    }
+
+    /**
+     * Convert a query snapshot into bookable labs with their document IDs set
+     */
+    public static List<Lab> parseLabs(com.google.firebase.firestore.QuerySnapshot snapshot) {
+        List<Lab> labs = new ArrayList<>();
+        if (snapshot == null) {
+            return labs;
+        }
+
+        for (QueryDocumentSnapshot document : snapshot) {
+            try {
+                Lab lab = document.toObject(Lab.class);
+                lab.setId(document.getId());
+
+                // Only add valid labs that are booking allowed
+                if (lab.isValid() && lab.isBookingAllowed()) {
+                    labs.add(lab);
+                }
+            } catch (Exception e) {
+                Log.e(TAG, "Error parsing lab document: " + document.getId(), e);
+            }
+        }
+        return labs;
+    }
+
+    /**
+     * Post labs from a bundled named query, unless the live listener has already delivered
+     */
+    private void showBundledLabs(String queryName) {
+        int generation = labsLoadGeneration;
+        LabCatalogBundle.getInstance().getCachedResults(queryName)
+                .addOnSuccessListener(snapshot -> {
+                    if (generation != labsLoadGeneration || liveLabsReceived || snapshot.isEmpty()) {
+                        return;
+                    }
+                    List<Lab> labs = parseLabs(snapshot);
+                    Log.d(TAG, "Showing " + labs.size() + " bundled labs");
+                    labsLiveData.setValue(labs);
+                    setLoading(false);
+                })
+                .addOnFailureListener(e -> Log.d(TAG, "No bundled labs: " + e.getMessage()));
+    }
+
     /**
      * Handle Firestore snapshot results
      */
     private void handleLabsSnapshot(com.google.firebase.firestore.QuerySnapshot queryDocumentSnapshots,
                                     com.google.firebase.firestore.FirebaseFirestoreException error) {
+        liveLabsReceived = true;
         setLoading(false);
 
         if (error != null) {
@@ -146,21 +216,7 @@ public class LabRepository {
         }
 
         if (queryDocumentSnapshots != null) {
-            List<Lab> labs = new ArrayList<>();
-
-            for (QueryDocumentSnapshot document : queryDocumentSnapshots) {
-                try {
-                    Lab lab = document.toObject(Lab.class);
-                    lab.setId(document.getId());
-
-                    // Only add valid labs that are booking allowed
-                    if (lab.isValid() && lab.isBookingAllowed()) {
-                        labs.add(lab);
-                    }
-                } catch (Exception e) {
-                    Log.e(TAG, "Error parsing lab document: " + document.getId(), e);
-                }
-            }
+            List<Lab> labs = parseLabs(queryDocumentSnapshots);
 
             Log.d(TAG, "Loaded " + labs.size() + " active labs");
             labsLiveData.setValue(labs);
@@ -181,13 +237,15 @@ public class LabRepository {
     }
 
     /**
-     * Detach Firestore listener to prevent memory leaks
+     * Release our subscription; the shared listener lingers briefly in case it is reused
      */
     private void detachListener() {
         if (labsListenerRegistration != null) {
             labsListenerRegistration.remove();
             labsListenerRegistration = null;
         }
+        labsLoadGeneration++;
+        liveLabsReceived = false;
     }
 
     /**
@@ -202,8 +260,7 @@ public class LabRepository {
      * Get available categories for filtering
      */
     public void getLabCategories(CategoryCallback callback) {
-        DatabaseUtils.getAllLabsQuery()
-                .get()
+        FirestoreMetrics.query("labCategories", DatabaseUtils.getAllLabsQuery().get())
                 .addOnSuccessListener(queryDocumentSnapshots -> {
                     List<String> categories = new ArrayList<>();
 
@@ -0,0 +1,242 @@
+package com.testlab.labbooking.repositories;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.DefaultLifecycleObserver;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleOwner;
+
+import com.google.firebase.firestore.EventListener;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.testlab.labbooking.metrics.FirestoreMetrics;
+import com.testlab.labbooking.metrics.MetricsRegistry;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Central registry for Firestore snapshot listeners.
+ *
+ * Listeners are keyed by query identity, so every observer of the same query shares a single
+ * Firestore listener. Subscriptions are reference counted; when the last observer goes away the
+ * listener lingers for a short period so a quick re-subscribe (rotation, tab switch,
+ * pull-to-refresh) reuses the warm listener and its last snapshot instead of re-reading.
+ *
+ * All methods must be called on the main thread, which is also where Firestore delivers events.
+ */
+public class QueryListenerRegistry {
+    private static final String TAG = "QueryListenerRegistry";
+    private static final long DEFAULT_LINGER_MILLIS = 15_000; // 15 seconds
+    private static QueryListenerRegistry instance;
+
+    private final Map<Query, SharedListener> listeners = new HashMap<>();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private long lingerMillis = DEFAULT_LINGER_MILLIS;
+
+    private QueryListenerRegistry() {
+    }
+
+    public static synchronized QueryListenerRegistry getInstance() {
+        if (instance == null) {
+            instance = new QueryListenerRegistry();
+        }
+        return instance;
+    }
+
+    /**
+     * Subscribe to a query. The caller owns the returned registration and must remove it.
+     */
+    public ListenerRegistration subscribe(@NonNull Query query,
+                                          @NonNull EventListener<QuerySnapshot> listener) {
+        return subscribe(query, (String) null, listener);
+    }
+
+    /**
+     * Subscribe to a query over the given collection; listener events are recorded in metrics
+     * under the collection name.
+     */
+    public ListenerRegistration subscribe(@NonNull Query query, String collection,
+                                          @NonNull EventListener<QuerySnapshot> listener) {
+        SharedListener shared = listeners.get(query);
+        if (shared == null) {
+            shared = new SharedListener(query, collection);
+            listeners.put(query, shared);
+            shared.attach();
+        }
+        return shared.addObserver(listener);
+    }
+
+    /**
+     * Subscribe to a query for the lifetime of a lifecycle owner. The subscription is released
+     * automatically when the owner is destroyed; it can also be removed earlier.
+     */
+    public ListenerRegistration subscribe(@NonNull Query query, @NonNull LifecycleOwner owner,
+                                          @NonNull EventListener<QuerySnapshot> listener) {
+        return subscribe(query, null, owner, listener);
+    }
+
+    /**
+     * Lifecycle-bound subscription to a query over the given collection
+     */
+    public ListenerRegistration subscribe(@NonNull Query query, String collection,
+                                          @NonNull LifecycleOwner owner,
+                                          @NonNull EventListener<QuerySnapshot> listener) {
+        Lifecycle lifecycle = owner.getLifecycle();
+        if (lifecycle.getCurrentState() == Lifecycle.State.DESTROYED) {
+            return () -> { };
+        }
+
+        ListenerRegistration subscription = subscribe(query, collection, listener);
+        DefaultLifecycleObserver lifecycleObserver = new DefaultLifecycleObserver() {
+            @Override
+            public void onDestroy(@NonNull LifecycleOwner source) {
+                subscription.remove();
+            }
+        };
+        lifecycle.addObserver(lifecycleObserver);
+
+        return () -> {
+            lifecycle.removeObserver(lifecycleObserver);
+            subscription.remove();
+        };
+    }
+
+    /**
+     * Set how long an unobserved listener stays attached before it is removed
+     */
+    public void setLingerMillis(long lingerMillis) {
+        this.lingerMillis = Math.max(0, lingerMillis);
+    }
+
+    /**
+     * Number of Firestore listeners currently attached (including lingering ones)
+     */
+    public int getActiveListenerCount() {
+        return listeners.size();
+    }
+
+    /**
+     * Detach every listener immediately (e.g. on sign-out)
+     */
+    public void clear() {
+        Log.d(TAG, "Clearing " + listeners.size() + " shared listeners");
+        for (SharedListener shared : new ArrayList<>(listeners.values())) {
+            shared.detach();
+        }
+        listeners.clear();
+    }
+
+    // ======================= SHARED LISTENER =======================
+
+    private class SharedListener {
+        private final Query query;
+        private final String collection;
+        private final String costTag; // screen that opened the listener; charged for its events
+        private final List<EventListener<QuerySnapshot>> observers = new ArrayList<>();
+        private ListenerRegistration registration;
+        private QuerySnapshot lastSnapshot;
+        private Runnable pendingRemoval;
+
+        SharedListener(Query query, String collection) {
+            this.query = query;
+            this.collection = collection;
+            this.costTag = MetricsRegistry.getInstance().getCurrentScreen();
+        }
+
+        void attach() {
+            registration = query.addSnapshotListener(this::dispatch);
+        }
+
+        void detach() {
+            cancelPendingRemoval();
+            if (registration != null) {
+                registration.remove();
+                registration = null;
+            }
+            lastSnapshot = null;
+        }
+
+        ListenerRegistration addObserver(EventListener<QuerySnapshot> listener) {
+            cancelPendingRemoval();
+            observers.add(listener);
+
+            // Serve the warm snapshot right away; posted so callers never see re-entrant callbacks
+            if (lastSnapshot != null) {
+                QuerySnapshot warmSnapshot = lastSnapshot;
+                mainHandler.post(() -> {
+                    if (observers.contains(listener) && lastSnapshot == warmSnapshot) {
+                        listener.onEvent(warmSnapshot, null);
+                    }
+                });
+            }
+
+            return new ListenerRegistration() {
+                private boolean removed = false;
+
+                @Override
+                public void remove() {
+                    if (removed) {
+                        return;
+                    }
+                    removed = true;
+                    removeObserver(listener);
+                }
+            };
+        }
+
+        private void removeObserver(EventListener<QuerySnapshot> listener) {
+            observers.remove(listener);
+            if (observers.isEmpty() && listeners.get(query) == this) {
+                scheduleRemoval();
+            }
+        }
+
+        private void dispatch(QuerySnapshot snapshot, FirebaseFirestoreException error) {
+            if (error != null) {
+                // Firestore terminates a listener after an error, so drop the entry and let the
+                // next subscriber attach a fresh one
+                Log.e(TAG, "Shared listener failed", error);
+                detach();
+                if (listeners.get(query) == this) {
+                    listeners.remove(query);
+                }
+            } else {
+                lastSnapshot = snapshot;
+            }
+
+            long start = System.nanoTime();
+            for (EventListener<QuerySnapshot> observer : new ArrayList<>(observers)) {
+                observer.onEvent(snapshot, error);
+            }
+            FirestoreMetrics.listenerEvent("listener:" + (collection != null ? collection : "query"),
+                    costTag, snapshot, error, System.nanoTime() - start);
+        }
+
+        private void scheduleRemoval() {
+            cancelPendingRemoval();
+            pendingRemoval = () -> {
+                pendingRemoval = null;
+                if (observers.isEmpty() && listeners.get(query) == this) {
+                    listeners.remove(query);
+                    detach();
+                }
+            };
+            mainHandler.postDelayed(pendingRemoval, lingerMillis);
+        }
+
+        private void cancelPendingRemoval() {
+            if (pendingRemoval != null) {
+                mainHandler.removeCallbacks(pendingRemoval);
+                pendingRemoval = null;
+            }
+        }
+    }
+}
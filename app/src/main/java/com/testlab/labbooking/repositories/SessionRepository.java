@@ -0,0 +1,200 @@
+package com.testlab.labbooking.repositories;
+
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.testlab.labbooking.managers.NotificationPreferenceCache;
+import com.testlab.labbooking.metrics.FirestoreMetrics;
+import com.testlab.labbooking.models.User;
+import com.testlab.labbooking.utils.AuthUtils;
+import com.testlab.labbooking.utils.DatabaseUtils;
+
+/**
+ * Holds the signed-in user's profile for the whole app.
+ *
+ * The profile is kept current by a single snapshot listener on the user document and exposed
+ * as LiveData. {@link #getUser()} answers from memory once the first snapshot has arrived;
+ * callers that ask before that share one pending Task instead of each starting a read.
+ */
+public class SessionRepository {
+    private static final String TAG = "SessionRepository";
+    private static SessionRepository instance;
+
+    private final MutableLiveData<User> userLiveData = new MutableLiveData<>();
+    private final Object lock = new Object();
+
+    // Guarded by lock; current is also volatile so peek() needs no lock
+    private volatile User current;
+    private Exception lastFailure; // e.g. profile not found; cleared by the next snapshot
+    private String userId;
+    private ListenerRegistration registration;
+    private TaskCompletionSource<User> pending;
+
+    private SessionRepository() {
+    }
+
+    public static synchronized SessionRepository getInstance() {
+        if (instance == null) {
+            instance = new SessionRepository();
+        }
+        return instance;
+    }
+
+    /**
+     * The signed-in user's profile; null while signed out or not yet loaded
+     */
+    public LiveData<User> getCurrentUser() {
+        return userLiveData;
+    }
+
+    /**
+     * The profile as last delivered by the listener, without waiting
+     */
+    public User peek() {
+        User user = current;
+        String signedInId = AuthUtils.getCurrentUserId();
+        return user != null && user.getId() != null && user.getId().equals(signedInId) ? user : null;
+    }
+
+    /**
+     * The signed-in user's profile. Completes immediately when it is already loaded; concurrent
+     * callers during the first load share the same Task.
+     */
+    public Task<User> getUser() {
+        String signedInId = AuthUtils.getCurrentUserId();
+        if (signedInId == null) {
+            return Tasks.forException(new IllegalStateException("User not logged in"));
+        }
+
+        synchronized (lock) {
+            if (!signedInId.equals(userId)) {
+                failPending(new IllegalStateException("Signed-in user changed"));
+                attach(signedInId);
+            }
+            User user = current;
+            if (user != null) {
+                return Tasks.forResult(user);
+            }
+            if (lastFailure != null && registration != null) {
+                return Tasks.forException(lastFailure);
+            }
+            if (pending == null) {
+                pending = new TaskCompletionSource<>();
+            }
+            if (registration == null) {
+                // The previous listener failed; try again
+                attach(signedInId);
+            }
+            return pending.getTask();
+        }
+    }
+
+    /**
+     * Detach and forget the profile (sign-out)
+     */
+    public void clear() {
+        synchronized (lock) {
+            detach();
+            userId = null;
+            failPending(new IllegalStateException("User not logged in"));
+        }
+        publish(null);
+    }
+
+    // ======================= LISTENER =======================
+
+    private void attach(String newUserId) {
+        detach();
+        userId = newUserId;
+        lastFailure = null;
+        publish(null);
+
+        registration = DatabaseUtils.getInstance().collection(DatabaseUtils.USERS_COLLECTION)
+                .document(newUserId)
+                .addSnapshotListener((snapshot, error) -> {
+                    long start = System.nanoTime();
+                    onSnapshot(newUserId, snapshot, error);
+                    FirestoreMetrics.listenerEvent("listener:users", TAG, snapshot, error,
+                            System.nanoTime() - start);
+                });
+    }
+
+    private void detach() {
+        if (registration != null) {
+            registration.remove();
+            registration = null;
+        }
+        current = null;
+    }
+
+    private void onSnapshot(String forUserId, DocumentSnapshot snapshot, FirebaseFirestoreException error) {
+        User user = null;
+        Exception failure = null;
+
+        if (error != null) {
+            Log.e(TAG, "Error listening to user profile", error);
+            failure = error;
+        } else if (snapshot == null || !snapshot.exists()) {
+            failure = new IllegalStateException("User profile not found");
+        } else {
+            user = snapshot.toObject(User.class);
+            if (user == null) {
+                failure = new IllegalStateException("Failed to parse user data");
+            } else {
+                user.setId(snapshot.getId());
+            }
+        }
+
+        TaskCompletionSource<User> waiting;
+        synchronized (lock) {
+            if (!forUserId.equals(userId)) {
+                return; // stale callback from a listener that was replaced
+            }
+            if (error != null) {
+                // Firestore ends a listener after an error; the next getUser() re-attaches
+                registration = null;
+            }
+            current = user;
+            lastFailure = failure;
+            waiting = pending;
+            pending = null;
+        }
+
+        if (user != null) {
+            NotificationPreferenceCache.getInstance().put(user);
+        }
+        publish(user);
+
+        if (waiting != null) {
+            if (user != null) {
+                waiting.trySetResult(user);
+            } else {
+                waiting.trySetException(failure);
+            }
+        }
+    }
+
+    private void failPending(Exception e) {
+        if (pending != null) {
+            pending.trySetException(e);
+            pending = null;
+        }
+    }
+
+    private void publish(User user) {
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            userLiveData.setValue(user);
+        } else {
+            userLiveData.postValue(user);
+        }
+    }
+}
@@ -1,41 +1,45 @@
 package com.testlab.labbooking.services;
 
-import android.Manifest;
-import android.content.pm.PackageManager;
-
 import androidx.annotation.NonNull;
-import androidx.core.app.ActivityCompat;
-import androidx.core.app.NotificationCompat;
-import androidx.core.app.NotificationManagerCompat;
 
 import com.google.firebase.messaging.FirebaseMessagingService;
 import com.google.firebase.messaging.RemoteMessage;
-import com.testlab.labbooking.R;
+import com.testlab.labbooking.managers.DeviceTokenRegistry;
 
 public class BookingNotificationService extends FirebaseMessagingService {
     public static final String CHANNEL_ID = "booking_channel"; // Add this constant
 
+    @Override
+    public void onNewToken(@NonNull String token) {
+        DeviceTokenRegistry.getInstance(this).onNewToken(token);
+    }
+
     @Override
     public void onMessageReceived(@NonNull RemoteMessage remoteMessage) {
         if (remoteMessage.getNotification() != null) {
-            showNotification(remoteMessage.getNotification().getTitle(),
+            showNotification(getNotificationKey(remoteMessage),
+                    remoteMessage.getNotification().getTitle(),
                     remoteMessage.getNotification().getBody());
         }
     }
 
-    private void showNotification(String title, String message) {
-        NotificationCompat.Builder builder = new NotificationCompat.Builder(this, CHANNEL_ID)
-                .setSmallIcon(R.drawable.ic_launcher_foreground)
-                .setContentTitle(title)
-                .setContentText(message)
-                .setPriority(NotificationCompat.PRIORITY_HIGH);
-
-        NotificationManagerCompat manager = NotificationManagerCompat.from(this);
+    private void showNotification(String key, String title, String message) {
+        NotificationCoalescer.getInstance(this).post(key, CHANNEL_ID, title, message);
+    }
 
-        if (ActivityCompat.checkSelfPermission(this, Manifest.permission.POST_NOTIFICATIONS)
-                != PackageManager.PERMISSION_GRANTED) {
-            return; // Silent fail if permission not granted
+    /**
+     * Stable key so later updates for the same booking replace the earlier notification
+     */
+    private static String getNotificationKey(RemoteMessage remoteMessage) {
+        String announcementId = remoteMessage.getData().get("announcementId");
+        if (announcementId != null && !announcementId.isEmpty()) {
+            return "announcement:" + announcementId;
+        }
+        String relatedId = remoteMessage.getData().get("relatedId");
+        if (relatedId != null && !relatedId.isEmpty()) {
+            return "booking:" + relatedId;
         }
-        manager.notify((int) System.currentTimeMillis(), builder.build());
+        String messageId = remoteMessage.getMessageId();
+        return "message:" + (messageId != null ? messageId : String.valueOf(System.currentTimeMillis()));
     }
-}
\ No newline at end of file
+}
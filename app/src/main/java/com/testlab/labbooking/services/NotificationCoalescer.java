@@ -0,0 +1,253 @@
+package com.testlab.labbooking.services;
+
+import android.Manifest;
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.os.Handler;
+import android.os.Looper;
+import android.service.notification.StatusBarNotification;
+
+import androidx.core.app.ActivityCompat;
+import androidx.core.app.NotificationCompat;
+import androidx.core.app.NotificationManagerCompat;
+
+import com.testlab.labbooking.R;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Coalesces system notifications before they reach the shade.
+ *
+ * Each notification is keyed (normally by booking ID) and posted under a stable tag, so an update
+ * for the same booking replaces the previous notification instead of stacking. The first
+ * notification is shown at once, so nothing waits in memory while the app is quiet; only updates
+ * arriving within a short window after it are held and then posted together as a group with an
+ * InboxStyle summary that alerts once. Every notification joins the same group, so the summary of
+ * a later burst also covers the ones already in the shade. Each channel may only make
+ * sound/vibrate a limited number of times per minute.
+ *
+ * Must be used from the main thread.
+ */
+public class NotificationCoalescer {
+    private static final long COALESCE_WINDOW_MILLIS = 1500;
+    private static final long RATE_WINDOW_MILLIS = 60 * 1000; // 1 minute
+    private static final int MAX_ALERTS_PER_WINDOW = 3;
+    private static final int MAX_SUMMARY_LINES = 5;
+
+    private static final String GROUP_KEY = "com.testlab.labbooking.BOOKING_UPDATES";
+    private static final String SUMMARY_TAG = "summary";
+    private static final int NOTIFICATION_ID = 1; // tags make notifications unique
+    private static final String NOTIFICATION_TAG_PREFIX = "labbooking:";
+
+    private static NotificationCoalescer instance;
+
+    private final Context context;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Map<String, PendingNotification> pending = new LinkedHashMap<>();
+    private final Map<String, ArrayDeque<Long>> alertTimesByChannel = new HashMap<>();
+    private boolean windowOpen = false;
+
+    private NotificationCoalescer(Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    public static synchronized NotificationCoalescer getInstance(Context context) {
+        if (instance == null) {
+            instance = new NotificationCoalescer(context);
+        }
+        return instance;
+    }
+
+    /**
+     * Show a notification, or hold it until the current window closes if one was just shown. A
+     * newer notification with the same key replaces an older one, both while pending and once
+     * shown.
+     */
+    public void post(String key, String channelId, String title, String message) {
+        mainHandler.post(() -> {
+            // Re-insert so the latest update sorts last
+            pending.remove(key);
+            pending.put(key, new PendingNotification(key, channelId, title, message));
+            if (!windowOpen) {
+                flush();
+            }
+        });
+    }
+
+    /**
+     * Remove a shown notification (e.g. the booking was opened in the app)
+     */
+    public void cancel(String key) {
+        mainHandler.post(() -> {
+            pending.remove(key);
+            NotificationManagerCompat.from(context).cancel(NOTIFICATION_TAG_PREFIX + key, NOTIFICATION_ID);
+        });
+    }
+
+    /**
+     * Post everything pending and open a window for the updates that follow; the window closes
+     * with nothing to flush once they stop
+     */
+    private void flush() {
+        windowOpen = false;
+        if (pending.isEmpty()) {
+            return;
+        }
+        if (ActivityCompat.checkSelfPermission(context, Manifest.permission.POST_NOTIFICATIONS)
+                != PackageManager.PERMISSION_GRANTED) {
+            pending.clear();
+            return; // Silent fail if permission not granted
+        }
+
+        List<PendingNotification> burst = new ArrayList<>(pending.values());
+        pending.clear();
+        windowOpen = true;
+        mainHandler.postDelayed(this::flush, COALESCE_WINDOW_MILLIS);
+
+        NotificationManagerCompat manager = NotificationManagerCompat.from(context);
+        List<String> groupedLines = getActiveGroupLines(burst);
+
+        if (burst.size() == 1 && groupedLines.isEmpty()) {
+            PendingNotification single = burst.get(0);
+            manager.notify(NOTIFICATION_TAG_PREFIX + single.key, NOTIFICATION_ID,
+                    buildNotification(single, false, tryAcquireAlert(single.channelId)).build());
+            return;
+        }
+
+        // Children stay quiet; the summary alerts at most once for the whole burst
+        for (PendingNotification notification : burst) {
+            manager.notify(NOTIFICATION_TAG_PREFIX + notification.key, NOTIFICATION_ID,
+                    buildNotification(notification, true, false).build());
+            groupedLines.add(notification.title + ": " + notification.message);
+        }
+
+        String channelId = burst.get(burst.size() - 1).channelId;
+        manager.notify(NOTIFICATION_TAG_PREFIX + SUMMARY_TAG, NOTIFICATION_ID,
+                buildSummary(channelId, groupedLines, tryAcquireAlert(channelId)).build());
+    }
+
+    /**
+     * @param burstChild posted with a summary, which alerts for it
+     */
+    private NotificationCompat.Builder buildNotification(PendingNotification notification,
+                                                         boolean burstChild, boolean alert) {
+        NotificationCompat.Builder builder = new NotificationCompat.Builder(context, notification.channelId)
+                .setSmallIcon(R.drawable.ic_launcher_foreground)
+                .setContentTitle(notification.title)
+                .setContentText(notification.message)
+                .setPriority(NotificationCompat.PRIORITY_HIGH)
+                .setAutoCancel(true)
+                .setGroup(GROUP_KEY)
+                .setSilent(!alert);
+
+        // A lone notification keeps alerting itself; it is grouped only so a later summary counts it
+        if (burstChild) {
+            builder.setGroupAlertBehavior(NotificationCompat.GROUP_ALERT_SUMMARY);
+        }
+        return builder;
+    }
+
+    private NotificationCompat.Builder buildSummary(String channelId, List<String> lines, boolean alert) {
+        NotificationCompat.InboxStyle style = new NotificationCompat.InboxStyle();
+        for (int i = 0; i < Math.min(lines.size(), MAX_SUMMARY_LINES); i++) {
+            style.addLine(lines.get(lines.size() - 1 - i)); // newest first
+        }
+        if (lines.size() > MAX_SUMMARY_LINES) {
+            style.setSummaryText("+" + (lines.size() - MAX_SUMMARY_LINES) + " more");
+        }
+
+        String title = lines.size() + " booking updates";
+        return new NotificationCompat.Builder(context, channelId)
+                .setSmallIcon(R.drawable.ic_launcher_foreground)
+                .setContentTitle(title)
+                .setContentText(lines.get(lines.size() - 1))
+                .setStyle(style.setBigContentTitle(title))
+                .setPriority(NotificationCompat.PRIORITY_HIGH)
+                .setGroup(GROUP_KEY)
+                .setGroupSummary(true)
+                .setGroupAlertBehavior(NotificationCompat.GROUP_ALERT_SUMMARY)
+                .setOnlyAlertOnce(true)
+                .setAutoCancel(true)
+                .setSilent(!alert);
+    }
+
+    /**
+     * Lines for grouped notifications still in the shade, excluding ones this burst replaces
+     */
+    private List<String> getActiveGroupLines(List<PendingNotification> burst) {
+        List<String> lines = new ArrayList<>();
+        android.app.NotificationManager systemManager =
+                (android.app.NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
+        if (systemManager == null) {
+            return lines;
+        }
+
+        for (StatusBarNotification active : systemManager.getActiveNotifications()) {
+            String tag = active.getTag();
+            android.app.Notification shown = active.getNotification();
+            if (tag == null || !tag.startsWith(NOTIFICATION_TAG_PREFIX) ||
+                    !GROUP_KEY.equals(shown.getGroup()) || isSummary(shown)) {
+                continue;
+            }
+
+            String key = tag.substring(NOTIFICATION_TAG_PREFIX.length());
+            boolean replaced = false;
+            for (PendingNotification notification : burst) {
+                if (notification.key.equals(key)) {
+                    replaced = true;
+                    break;
+                }
+            }
+            if (!replaced) {
+                CharSequence title = shown.extras.getCharSequence(NotificationCompat.EXTRA_TITLE);
+                CharSequence text = shown.extras.getCharSequence(NotificationCompat.EXTRA_TEXT);
+                lines.add(title + ": " + text);
+            }
+        }
+        return lines;
+    }
+
+    private static boolean isSummary(android.app.Notification notification) {
+        return (notification.flags & android.app.Notification.FLAG_GROUP_SUMMARY) != 0;
+    }
+
+    /**
+     * Sliding-window rate limit of audible alerts per channel
+     */
+    private boolean tryAcquireAlert(String channelId) {
+        long now = System.currentTimeMillis();
+        ArrayDeque<Long> alertTimes = alertTimesByChannel.get(channelId);
+        if (alertTimes == null) {
+            alertTimes = new ArrayDeque<>();
+            alertTimesByChannel.put(channelId, alertTimes);
+        }
+
+        while (!alertTimes.isEmpty() && now - alertTimes.peekFirst() >= RATE_WINDOW_MILLIS) {
+            alertTimes.pollFirst();
+        }
+        if (alertTimes.size() >= MAX_ALERTS_PER_WINDOW) {
+            return false;
+        }
+        alertTimes.addLast(now);
+        return true;
+    }
+
+    private static class PendingNotification {
+        final String key;
+        final String channelId;
+        final String title;
+        final String message;
+
+        PendingNotification(String key, String channelId, String title, String message) {
+            this.key = key;
+            this.channelId = channelId;
+            this.title = title;
+            this.message = message;
+        }
+    }
+}
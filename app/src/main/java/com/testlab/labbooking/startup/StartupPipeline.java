@@ -0,0 +1,195 @@
+package com.testlab.labbooking.startup;
+
+import android.app.Activity;
+import android.app.Application;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+import android.view.Choreographer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * App startup in three explicit phases, each step timed in a {@link StartupTrace}:
+ * <ul>
+ *     <li>critical: on the main thread in Application.onCreate, before the first frame;</li>
+ *     <li>background: on the startup thread, started right away;</li>
+ *     <li>deferred: on the startup thread once the first activity has drawn its first frame
+ *     (or after a few seconds when no activity starts, e.g. a push wakes the process).</li>
+ * </ul>
+ * Background and deferred steps run one at a time in the order they were added.
+ */
+public class StartupPipeline {
+    private static final String TAG = "StartupPipeline";
+    public static final String FIRST_FRAME = "first frame";
+    private static final long DEFERRED_FALLBACK_MILLIS = 5000;
+
+    private static StartupPipeline instance;
+
+    private final StartupTrace trace;
+    private final Executor startupThread;
+    private final List<Step> critical = new ArrayList<>();
+    private final List<Step> background = new ArrayList<>();
+    private final List<Step> deferred = new ArrayList<>();
+    private boolean deferredStarted = false;
+
+    private StartupPipeline() {
+        this(new StartupTrace(SystemClock::elapsedRealtimeNanos, Process.getStartElapsedRealtime() * 1_000_000L),
+                Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "startup")));
+    }
+
+    /**
+     * @param startupThread runs the background and deferred steps one at a time, in order
+     */
+    StartupPipeline(StartupTrace trace, Executor startupThread) {
+        this.trace = trace;
+        this.startupThread = startupThread;
+    }
+
+    public static synchronized StartupPipeline getInstance() {
+        if (instance == null) {
+            instance = new StartupPipeline();
+        }
+        return instance;
+    }
+
+    public StartupTrace getTrace() {
+        return trace;
+    }
+
+    public StartupPipeline critical(String name, Runnable step) {
+        critical.add(new Step(name, step));
+        return this;
+    }
+
+    public StartupPipeline background(String name, Runnable step) {
+        background.add(new Step(name, step));
+        return this;
+    }
+
+    public StartupPipeline deferred(String name, Runnable step) {
+        deferred.add(new Step(name, step));
+        return this;
+    }
+
+    /**
+     * Run the critical steps now, queue the background ones and wait for the first frame to
+     * start the deferred ones. Call once, from Application.onCreate.
+     */
+    public void start(Application app) {
+        runCritical();
+
+        Handler mainHandler = new Handler(Looper.getMainLooper());
+        app.registerActivityLifecycleCallbacks(new FirstFrameWatcher(app, mainHandler));
+        mainHandler.postDelayed(this::startDeferred, DEFERRED_FALLBACK_MILLIS);
+    }
+
+    /**
+     * Run the critical steps on the calling thread, then queue the background ones
+     */
+    void runCritical() {
+        for (Step step : critical) {
+            trace.run(step.name, step.action);
+        }
+        for (Step step : background) {
+            startupThread.execute(() -> runQuietly(step));
+        }
+    }
+
+    void markFirstFrame() {
+        trace.mark(FIRST_FRAME);
+    }
+
+    /**
+     * Queue the deferred steps, then the startup report; only the first call does anything
+     */
+    void startDeferred() {
+        if (deferredStarted) {
+            return;
+        }
+        deferredStarted = true;
+        for (Step step : deferred) {
+            startupThread.execute(() -> runQuietly(step));
+        }
+        startupThread.execute(() -> {
+            for (String line : trace.report().split("\n")) {
+                Log.i(TAG, line);
+            }
+        });
+    }
+
+    /**
+     * A failed background step is logged and recorded; it does not stop the ones after it
+     */
+    private void runQuietly(Step step) {
+        try {
+            trace.run(step.name, step.action);
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Startup step failed: " + step.name, e);
+        }
+    }
+
+    private static class Step {
+        final String name;
+        final Runnable action;
+
+        Step(String name, Runnable action) {
+            this.name = name;
+            this.action = action;
+        }
+    }
+
+    /**
+     * Marks the first frame of the first activity, then starts the deferred steps
+     */
+    private class FirstFrameWatcher implements Application.ActivityLifecycleCallbacks {
+        private final Application app;
+        private final Handler mainHandler;
+
+        FirstFrameWatcher(Application app, Handler mainHandler) {
+            this.app = app;
+            this.mainHandler = mainHandler;
+        }
+
+        @Override
+        public void onActivityResumed(Activity activity) {
+            app.unregisterActivityLifecycleCallbacks(this);
+            Choreographer.getInstance().postFrameCallback(frameTimeNanos -> {
+                Log.d(TAG, "First frame: " + activity.getClass().getSimpleName());
+                markFirstFrame();
+                // Let the frame finish drawing before competing with it
+                mainHandler.post(StartupPipeline.this::startDeferred);
+            });
+        }
+
+        @Override
+        public void onActivityCreated(Activity activity, Bundle savedInstanceState) {
+        }
+
+        @Override
+        public void onActivityStarted(Activity activity) {
+        }
+
+        @Override
+        public void onActivityPaused(Activity activity) {
+        }
+
+        @Override
+        public void onActivityStopped(Activity activity) {
+        }
+
+        @Override
+        public void onActivitySaveInstanceState(Activity activity, Bundle outState) {
+        }
+
+        @Override
+        public void onActivityDestroyed(Activity activity) {
+        }
+    }
+}
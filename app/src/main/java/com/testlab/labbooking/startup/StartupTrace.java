@@ -0,0 +1,150 @@
+package com.testlab.labbooking.startup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.LongSupplier;
+
+/**
+ * Timings of the app's startup phases, measured from process start.
+ *
+ * Plain Java on an injectable nanosecond clock, so the report can be built and checked on the
+ * JVM. Phases may run on any thread; each records the thread it ran on, and the report splits
+ * main-thread time (which delays the first frame) from background time.
+ */
+public class StartupTrace {
+    public static final String MAIN_THREAD = "main";
+
+    private final LongSupplier clock;
+    private final long originNanos;
+    private final List<Phase> phases = new ArrayList<>();
+    private final List<Mark> marks = new ArrayList<>();
+
+    /**
+     * @param clock       nanosecond clock, e.g. elapsed realtime
+     * @param originNanos process start on the same clock
+     */
+    public StartupTrace(LongSupplier clock, long originNanos) {
+        this.clock = clock;
+        this.originNanos = originNanos;
+    }
+
+    /**
+     * Run one phase on the calling thread and record how long it took. A failing phase is
+     * recorded as failed and its exception rethrown.
+     */
+    public void run(String name, Runnable phase) {
+        String thread = Thread.currentThread().getName();
+        long start = clock.getAsLong();
+        boolean failed = true;
+        try {
+            phase.run();
+            failed = false;
+        } finally {
+            long end = clock.getAsLong();
+            synchronized (this) {
+                phases.add(new Phase(name, thread, start - originNanos, end - start, failed));
+            }
+        }
+    }
+
+    /**
+     * Record a point in time, such as the first frame
+     */
+    public synchronized void mark(String name) {
+        marks.add(new Mark(name, clock.getAsLong() - originNanos));
+    }
+
+    public synchronized List<Phase> getPhases() {
+        return Collections.unmodifiableList(new ArrayList<>(phases));
+    }
+
+    /**
+     * Time from process start to the named mark, or -1 if it has not happened
+     */
+    public synchronized long getMarkNanos(String name) {
+        for (Mark mark : marks) {
+            if (mark.name.equals(name)) {
+                return mark.offsetNanos;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Total time the named thread spent in phases
+     */
+    public synchronized long getThreadNanos(String thread) {
+        long total = 0;
+        for (Phase phase : phases) {
+            if (phase.thread.equals(thread)) {
+                total += phase.durationNanos;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Cold start broken down by phase, in start order, followed by the marks
+     */
+    public synchronized String report() {
+        List<Phase> ordered = new ArrayList<>(phases);
+        Collections.sort(ordered, (a, b) -> Long.compare(a.startNanos, b.startNanos));
+
+        long mainNanos = getThreadNanos(MAIN_THREAD);
+        long backgroundNanos = 0;
+        for (Phase phase : ordered) {
+            if (!phase.thread.equals(MAIN_THREAD)) {
+                backgroundNanos += phase.durationNanos;
+            }
+        }
+
+        StringBuilder out = new StringBuilder();
+        out.append("STARTUP PHASE                  thread          start     took\n");
+        for (Phase phase : ordered) {
+            out.append(String.format(Locale.US, "%-30s %-12s %8.1f %8.1f%s%n", phase.name,
+                    phase.thread, millis(phase.startNanos), millis(phase.durationNanos),
+                    phase.failed ? "  FAILED" : ""));
+        }
+        out.append(String.format(Locale.US, "Main thread %.1f ms, background %.1f ms%n",
+                millis(mainNanos), millis(backgroundNanos)));
+        for (Mark mark : marks) {
+            out.append(String.format(Locale.US, "%s at %.1f ms%n", mark.name, millis(mark.offsetNanos)));
+        }
+        return out.toString();
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    /**
+     * One completed phase; times are relative to process start
+     */
+    public static class Phase {
+        public final String name;
+        public final String thread;
+        public final long startNanos;
+        public final long durationNanos;
+        public final boolean failed;
+
+        Phase(String name, String thread, long startNanos, long durationNanos, boolean failed) {
+            this.name = name;
+            this.thread = thread;
+            this.startNanos = startNanos;
+            this.durationNanos = durationNanos;
+            this.failed = failed;
+        }
+    }
+
+    private static class Mark {
+        final String name;
+        final long offsetNanos;
+
+        Mark(String name, long offsetNanos) {
+            this.name = name;
+            this.offsetNanos = offsetNanos;
+        }
+    }
+}
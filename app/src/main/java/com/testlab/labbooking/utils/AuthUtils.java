@@ -5,9 +5,13 @@ import android.util.Log;
 import com.google.android.gms.tasks.Task;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
-import com.google.firebase.firestore.FirebaseFirestore;
-import com.testlab.labbooking.managers.BookingManager;
+import com.testlab.labbooking.managers.DeviceTokenRegistry;
+import com.testlab.labbooking.managers.NotificationPreferenceCache;
+import com.testlab.labbooking.managers.SessionBootstrap;
+import com.testlab.labbooking.managers.TopicSubscriptions;
+import com.testlab.labbooking.metrics.MetricsRegistry;
 import com.testlab.labbooking.models.User;
+import com.testlab.labbooking.repositories.SessionRepository;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -15,7 +19,6 @@ import java.util.Map;
 public class AuthUtils {
     private static final String TAG = "AuthUtils";
     private static final FirebaseAuth mAuth = FirebaseAuth.getInstance();
-    private static final FirebaseFirestore db = FirebaseFirestore.getInstance();
 
     public static FirebaseAuth getInstance() {
         return mAuth;
@@ -50,6 +53,21 @@ public class AuthUtils {
     }
 
     public static void signOut() {
+        // Close out the signed-in user's Firestore cost report
+        MetricsRegistry.getInstance().endSession();
+        DeviceTokenRegistry tokenRegistry = DeviceTokenRegistry.peekInstance();
+        if (tokenRegistry != null) {
+            tokenRegistry.onUserSigningOut();
+        }
+        TopicSubscriptions topicSubscriptions = TopicSubscriptions.peekInstance();
+        if (topicSubscriptions != null) {
+            topicSubscriptions.clear();
+        }
+        SessionBootstrap bootstrap = SessionBootstrap.peekInstance();
+        if (bootstrap != null) {
+            bootstrap.clear();
+        }
+        SessionRepository.getInstance().clear();
         mAuth.signOut();
     }
 
@@ -139,7 +157,8 @@ public class AuthUtils {
         updates.put("pushNotifications", push);
         updates.put("updatedAt", System.currentTimeMillis());
 
-        db.collection(DatabaseUtils.USERS_COLLECTION)
+        NotificationPreferenceCache.getInstance().invalidate(userId);
+        DatabaseUtils.getInstance().collection(DatabaseUtils.USERS_COLLECTION)
                 .document(userId)
                 .update(updates)
                 .addOnSuccessListener(aVoid -> callback.onSuccess())
@@ -149,60 +168,30 @@ public class AuthUtils {
     // ======================= USER DATA RETRIEVAL =======================
 
     /**
-     * Get current user data with caching
+     * Get current user data from the session store (one shared listener, no read per call)
      */
-    private static User cachedUser = null;
-    private static long lastUserFetch = 0;
-    private static final long CACHE_DURATION = 5 * 60 * 1000; // 5 minutes
-
-    public static Task<BookingManager.BookingResult> getCurrentUserData(UserDataCallback callback) {
-        String userId = getCurrentUserId();
-        if (userId == null) {
-            callback.onError("User not logged in");
-            return null;
-        }
-
-        // Check cache first
-        if (cachedUser != null &&
-                System.currentTimeMillis() - lastUserFetch < CACHE_DURATION &&
-                userId.equals(cachedUser.getId())) {
-            callback.onUserDataReceived(cachedUser);
-            return null;
-        }
-
-        // Fetch from database
-        db.collection(DatabaseUtils.USERS_COLLECTION)
-                .document(userId)
-                .get()
-                .addOnSuccessListener(documentSnapshot -> {
-                    if (documentSnapshot.exists()) {
-                        User user = documentSnapshot.toObject(User.class);
-                        if (user != null) {
-                            // Cache the user data
-                            cachedUser = user;
-                            lastUserFetch = System.currentTimeMillis();
-
-                            callback.onUserDataReceived(user);
-                        } else {
-                            callback.onError("Failed to parse user data");
-                        }
-                    } else {
-                        callback.onError("User profile not found");
-                    }
-                })
+    public static Task<User> getCurrentUserData(UserDataCallback callback) {
+        return SessionRepository.getInstance().getUser()
+                .addOnSuccessListener(callback::onUserDataReceived)
                 .addOnFailureListener(e -> {
                     Log.e(TAG, "Error fetching user data", e);
-                    callback.onError(DatabaseUtils.getFormattedErrorMessage(e));
+                    callback.onError(e instanceof IllegalStateException ? e.getMessage() :
+                            DatabaseUtils.getFormattedErrorMessage(e));
                 });
-        return null;
+    }
+
+    /**
+     * Current user data, delivered once the session store has it
+     */
+    public static Task<User> getCurrentUserData() {
+        return SessionRepository.getInstance().getUser();
     }
 
     /**
      * Refresh cached user data
      */
     public static void refreshUserData(UserDataCallback callback) {
-        cachedUser = null;
-        lastUserFetch = 0;
+        // The session listener already delivers every change to the user document
         getCurrentUserData(callback);
     }
 
@@ -371,7 +360,7 @@ public class AuthUtils {
                     updates.put("isVerified", isVerified);
                     updates.put("updatedAt", System.currentTimeMillis());
 
-                    db.collection(DatabaseUtils.USERS_COLLECTION)
+                    DatabaseUtils.getInstance().collection(DatabaseUtils.USERS_COLLECTION)
                             .document(firebaseUser.getUid())
                             .update(updates)
                             .addOnSuccessListener(aVoid -> {
@@ -439,11 +428,11 @@ public class AuthUtils {
     // ======================= UTILITY METHODS =======================
 
     /**
-     * Clear cached user data (call when user data might have changed)
+     * Forget the signed-in user's profile (sign-out). Profile changes need no cache clearing;
+     * the session store listens to the user document.
      */
     public static void clearUserCache() {
-        cachedUser = null;
-        lastUserFetch = 0;
+        SessionRepository.getInstance().clear();
     }
 
     /**
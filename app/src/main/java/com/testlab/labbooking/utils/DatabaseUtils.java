@@ -4,6 +4,14 @@ import android.util.Log;
 import com.google.android.gms.tasks.Task;
 import com.google.android.gms.tasks.Tasks;
 import com.google.firebase.firestore.*;
+import com.testlab.labbooking.core.BookingRules;
+import com.testlab.labbooking.core.ClaimLease;
+import com.testlab.labbooking.core.LabDay;
+import com.testlab.labbooking.core.QuotaPolicy;
+import com.testlab.labbooking.core.RefundPolicy;
+import com.testlab.labbooking.core.SchedulingEngine;
+import com.testlab.labbooking.core.TimeOfDay;
+import com.testlab.labbooking.metrics.FirestoreMetrics;
 import com.testlab.labbooking.models.Booking;
 import com.testlab.labbooking.models.BookingStatus;
 import com.testlab.labbooking.models.Lab;
@@ -14,7 +22,6 @@ import java.util.concurrent.Callable;
 
 public class DatabaseUtils {
     private static final String TAG = "DatabaseUtils";
-    private static final FirebaseFirestore db = FirebaseFirestore.getInstance();
 
     // Collection names
     public static final String USERS_COLLECTION = "users";
@@ -23,6 +30,13 @@ public class DatabaseUtils {
     public static final String NOTIFICATIONS_COLLECTION = "notifications";
     public static final String SETTINGS_COLLECTION = "settings";
     public static final String ANALYTICS_COLLECTION = "analytics";
+    public static final String BROADCASTS_COLLECTION = "broadcasts";
+    public static final String NOTIFICATION_SUMMARIES_COLLECTION = "notificationSummaries";
+    public static final String ANNOUNCEMENTS_COLLECTION = "announcements";
+    public static final String DEVICE_TOKENS_COLLECTION = "deviceTokens"; // users/{userId}/deviceTokens
+    public static final String EMAIL_OUTBOX_COLLECTION = "emailOutbox";
+    public static final String NOTIFICATION_DIGESTS_COLLECTION = "notificationDigests"; // one per user
+    public static final String LAB_DAYS_COLLECTION = "labDays"; // "{labId}_{date}", seats and countable resources
 
     // Booking statuses (keeping string constants for backward compatibility)
     public static final String STATUS_PENDING = BookingStatus.PENDING.getValue();
@@ -49,9 +63,45 @@ public class DatabaseUtils {
     public static final String FIELD_ACTIVE = "isActive";
     public static final String FIELD_PRIORITY = "priority";
     public static final String FIELD_CATEGORY = "category";
+    public static final String FIELD_UNREAD_NOTIFICATIONS = "unreadNotifications";
+    public static final String FIELD_UNREAD_RECONCILED_AT = "unreadReconciledAt";
+    public static final String FIELD_APPROVED_BOOKINGS = "approvedBookings"; // analytics: admin reviews so far
+    public static final String FIELD_REJECTED_BOOKINGS = "rejectedBookings";
+    public static final String FIELD_EXPIRE_AT = "expireAt";
+    public static final String FIELD_LAST_SEEN_AT = "lastSeenAt";
+    public static final String FIELD_NEXT_ATTEMPT_AT = "nextAttemptAt";
+    public static final String FIELD_FLUSH_AT = "flushAt";
+    public static final String FIELD_CLAIMED_BY = "claimedBy";
+    public static final String FIELD_CLAIM_EXPIRES_AT = "claimExpiresAt";
+    public static final String FIELD_RESERVATIONS = "reservations"; // labDays: bookingId -> what it holds
+
+    // Notifications expire this long after creation, read or not
+    public static final long NOTIFICATION_RETENTION_MILLIS = 90L * 24 * 60 * 60 * 1000; // 90 days
+
+    // Local cache for offline use; Firestore's default size, set explicitly with the other settings
+    private static final long CACHE_SIZE_BYTES = 100L * 1024 * 1024;
 
+    /**
+     * The app's Firestore instance. Created on first use rather than when this class loads, with
+     * the settings applied before anything else can touch it; startup warms it up on a
+     * background thread.
+     */
     public static FirebaseFirestore getInstance() {
-        return db;
+        return FirestoreHolder.INSTANCE;
+    }
+
+    private static class FirestoreHolder {
+        static final FirebaseFirestore INSTANCE = createFirestore();
+    }
+
+    private static FirebaseFirestore createFirestore() {
+        FirebaseFirestore firestore = FirebaseFirestore.getInstance();
+        firestore.setFirestoreSettings(new FirebaseFirestoreSettings.Builder()
+                .setLocalCacheSettings(PersistentCacheSettings.newBuilder()
+                        .setSizeBytes(CACHE_SIZE_BYTES)
+                        .build())
+                .build());
+        return firestore;
     }
 
     // ======================= ENHANCED BOOKING QUERIES =======================
@@ -61,7 +111,7 @@ public class DatabaseUtils {
      */
     public static Query getConflictingBookingsQuery(String labId, String date,
                                                     String startTime, String endTime) {
-        return db.collection(BOOKINGS_COLLECTION)
+        return getInstance().collection(BOOKINGS_COLLECTION)
                 .whereEqualTo(FIELD_LAB_ID, labId)
                 .whereEqualTo(FIELD_DATE, date)
                 .whereIn(FIELD_STATUS, Arrays.asList(STATUS_PENDING, STATUS_APPROVED))
@@ -72,7 +122,7 @@ public class DatabaseUtils {
      * Get user's bookings with pagination
      */
     public static Query getUserBookingsQuery(String userId, int limit) {
-        return db.collection(BOOKINGS_COLLECTION)
+        return getInstance().collection(BOOKINGS_COLLECTION)
                 .whereEqualTo(FIELD_USER_ID, userId)
                 .orderBy(FIELD_CREATED_AT, Query.Direction.DESCENDING)
                 .limit(limit);
@@ -83,7 +133,7 @@ public class DatabaseUtils {
      */
     public static Query getUserUpcomingBookingsQuery(String userId) {
         String today = DateTimeUtils.getCurrentDate();
-        return db.collection(BOOKINGS_COLLECTION)
+        return getInstance().collection(BOOKINGS_COLLECTION)
                 .whereEqualTo(FIELD_USER_ID, userId)
                 .whereIn(FIELD_STATUS, Arrays.asList(STATUS_PENDING, STATUS_APPROVED))
                 .whereGreaterThanOrEqualTo(FIELD_DATE, today)
@@ -95,18 +145,45 @@ public class DatabaseUtils {
      * Get pending bookings with priority sorting
      */
     public static Query getPendingBookingsQuery() {
-        return db.collection(BOOKINGS_COLLECTION)
+        return getInstance().collection(BOOKINGS_COLLECTION)
                 .whereEqualTo(FIELD_STATUS, STATUS_PENDING)
                 .orderBy(FIELD_PRIORITY, Query.Direction.ASCENDING)
                 .orderBy(FIELD_CREATED_AT, Query.Direction.ASCENDING);
     }
 
+    /**
+     * One page of the pending queue after {@code after} (null for the first page), by keyset
+     * on (priority, createdAt, document ID)
+     */
+    public static Query getPendingBookingsPageQuery(DocumentSnapshot after, int limit) {
+        Query query = getPendingBookingsQuery();
+        if (after != null) {
+            query = query.startAfter(after);
+        }
+        return query.limit(limit);
+    }
+
+    /**
+     * The pending bookings between two queue positions: after {@code after} (null for the
+     * start of the queue) up to and including {@code last} (null for the end of the queue)
+     */
+    public static Query getPendingBookingsRangeQuery(DocumentSnapshot after, DocumentSnapshot last) {
+        Query query = getPendingBookingsQuery();
+        if (after != null) {
+            query = query.startAfter(after);
+        }
+        if (last != null) {
+            query = query.endAt(last);
+        }
+        return query;
+    }
+
     /**
      * Get today's bookings
      */
     public static Query getTodaysBookingsQuery() {
         String today = DateTimeUtils.getCurrentDate();
-        return db.collection(BOOKINGS_COLLECTION)
+        return getInstance().collection(BOOKINGS_COLLECTION)
                 .whereEqualTo(FIELD_DATE, today)
                 .whereIn(FIELD_STATUS, Arrays.asList(STATUS_APPROVED))
                 .orderBy(FIELD_START_TIME, Query.Direction.ASCENDING);
@@ -119,7 +196,7 @@ public class DatabaseUtils {
         String today = DateTimeUtils.getCurrentDate();
         String currentTime = DateTimeUtils.getCurrentTime();
 
-        return db.collection(BOOKINGS_COLLECTION)
+        return getInstance().collection(BOOKINGS_COLLECTION)
                 .whereEqualTo(FIELD_STATUS, STATUS_APPROVED)
                 .whereEqualTo("checkedIn", true)
                 .whereEqualTo("checkedOut", false)
@@ -130,7 +207,7 @@ public class DatabaseUtils {
      * Get lab usage analytics for date range
      */
     public static Query getLabUsageAnalyticsQuery(String labId, String startDate, String endDate) {
-        return db.collection(BOOKINGS_COLLECTION)
+        return getInstance().collection(BOOKINGS_COLLECTION)
                 .whereEqualTo(FIELD_LAB_ID, labId)
                 .whereGreaterThanOrEqualTo(FIELD_DATE, startDate)
                 .whereLessThanOrEqualTo(FIELD_DATE, endDate)
@@ -143,7 +220,7 @@ public class DatabaseUtils {
      * Get available labs for a specific user type
      */
     public static Query getAvailableLabsForUserQuery(String userType) {
-        return db.collection(LABS_COLLECTION)
+        return getInstance().collection(LABS_COLLECTION)
                 .whereEqualTo(FIELD_ACTIVE, true)
                 .whereEqualTo("maintenanceMode", false)
                 .whereArrayContains("allowedUserTypes", userType.toLowerCase())
@@ -155,7 +232,7 @@ public class DatabaseUtils {
      * Get labs by category
      */
     public static Query getLabsByCategoryQuery(String category) {
-        return db.collection(LABS_COLLECTION)
+        return getInstance().collection(LABS_COLLECTION)
                 .whereEqualTo(FIELD_ACTIVE, true)
                 .whereEqualTo(FIELD_CATEGORY, category)
                 .orderBy(FIELD_PRIORITY, Query.Direction.ASCENDING);
@@ -167,7 +244,7 @@ public class DatabaseUtils {
     public static Query searchLabsQuery(String searchTerm) {
         // Note: Firestore doesn't support full-text search natively
         // This is a basic implementation - consider using Algolia for better search
-        return db.collection(LABS_COLLECTION)
+        return getInstance().collection(LABS_COLLECTION)
                 .whereEqualTo(FIELD_ACTIVE, true)
                 .whereGreaterThanOrEqualTo("name", searchTerm)
                 .whereLessThanOrEqualTo("name", searchTerm + "\uf8ff")
@@ -178,7 +255,7 @@ public class DatabaseUtils {
      * Get labs requiring maintenance
      */
     public static Query getMaintenanceLabsQuery() {
-        return db.collection(LABS_COLLECTION)
+        return getInstance().collection(LABS_COLLECTION)
                 .whereEqualTo("maintenanceMode", true)
                 .orderBy("name", Query.Direction.ASCENDING);
     }
@@ -210,58 +287,389 @@ public class DatabaseUtils {
      * Create booking (internal method)
      */
     private static Task<DocumentReference> createBooking(Booking booking) {
-        return db.collection(BOOKINGS_COLLECTION).add(booking);
+        return FirestoreMetrics.write("createBooking", 1, getInstance().collection(BOOKINGS_COLLECTION).add(booking));
     }
 
     /**
-     * Batch approve multiple bookings
+     * Create a booking that has to fit the lab's day: in a shared-capacity lab its participants
+     * must fit alongside the other active bookings without the headcount going over capacity
+     * (otherwise no other booking may overlap it), and the countable resources it asks for must
+     * have units free for its whole time.
+     *
+     * Firestore transactions cannot run queries, so each lab and date has a labDays document
+     * indexing the bookings that hold seats or units there, each entry with the booking's status
+     * and what admission counts. The transaction reads only that document, counts seats and units
+     * with a sweep line, and writes the new booking together with the updated index; two people
+     * booking the same lab and day at once both write that document, so one of them retries
+     * against the other's booking. Reviews and cancellations update an entry's status in their
+     * own transactions. Only a day with no index yet is seeded from the conflict query, whose
+     * bookings the transaction then reads once.
+     *
+     * @return whether the booking was admitted, and what is left during its time range (after
+     *         it, when admitted)
      */
-    public static Task<Void> batchApproveBookings(List<String> bookingIds, String adminId, String notes) {
-        WriteBatch batch = db.batch();
+    public static Task<LabDay.Admission> reserveBooking(Booking booking, Lab lab) {
+        String labId = booking.getLabId();
+        String date = booking.getDate();
+        int start = TimeOfDay.toMinutes(booking.getStartTime());
+        int end = TimeOfDay.toMinutes(booking.getEndTime());
+        if (start == TimeOfDay.INVALID || end == TimeOfDay.INVALID || start >= end) {
+            return Tasks.forException(new IllegalArgumentException("Invalid booking time"));
+        }
+        Map<String, Integer> inventory = lab.getInventory();
 
-        for (String bookingId : bookingIds) {
-            DocumentReference bookingRef = db.collection(BOOKINGS_COLLECTION).document(bookingId);
-            Map<String, Object> updates = new HashMap<>();
-            updates.put(FIELD_STATUS, STATUS_APPROVED);
-            updates.put("reviewedBy", adminId);
-            updates.put("reviewedAt", FieldValue.serverTimestamp());
-            updates.put("adminNotes", notes);
-            updates.put(FIELD_UPDATED_AT, FieldValue.serverTimestamp());
+        DocumentReference dayRef = getLabDayRef(labId, date);
+        DocumentReference bookingRef = getInstance().collection(BOOKINGS_COLLECTION).document();
 
-            batch.update(bookingRef, updates);
-        }
+        return FirestoreMetrics.document("labDay", dayRef.get())
+                .continueWithTask(dayTask -> {
+                    if (!dayTask.isSuccessful()) {
+                        return Tasks.forException(Objects.requireNonNull(dayTask.getException()));
+                    }
+                    if (dayTask.getResult().get(FIELD_RESERVATIONS) instanceof Map) {
+                        return Tasks.forResult(Collections.<String>emptySet());
+                    }
+                    return FirestoreMetrics.query("conflictingBookings",
+                                    getConflictingBookingsQuery(labId, date, null, null).get())
+                            .continueWith(seedTask -> {
+                                Set<String> ids = new LinkedHashSet<>();
+                                for (DocumentSnapshot doc : seedTask.getResult().getDocuments()) {
+                                    ids.add(doc.getId());
+                                }
+                                return ids;
+                            });
+                })
+                .continueWithTask(seedTask -> {
+                    if (!seedTask.isSuccessful()) {
+                        return Tasks.forException(Objects.requireNonNull(seedTask.getException()));
+                    }
+                    Set<String> seedIds = seedTask.getResult();
+
+                    int[] written = new int[1];
+                    Task<LabDay.Admission> admission = getInstance().runTransaction(transaction -> {
+                        DocumentSnapshot day = transaction.get(dayRef);
+                        List<Booking> active;
+                        Object indexed = day.get(FIELD_RESERVATIONS);
+                        if (indexed instanceof Map) {
+                            active = fromLabDayEntries((Map<?, ?>) indexed, labId, date);
+                        } else {
+                            active = new ArrayList<>();
+                            for (String id : seedIds) {
+                                Booking other = transaction.get(getInstance().collection(BOOKINGS_COLLECTION)
+                                        .document(id)).toObject(Booking.class);
+                                if (other != null && other.isActive()) {
+                                    other.setId(id);
+                                    active.add(other);
+                                }
+                            }
+                        }
 
-        return batch.commit();
+                        LabDay.Admission result = LabDay.admit(booking, active, lab.isSharedCapacity(),
+                                lab.getCapacity(), inventory);
+                        if (!result.admitted) {
+                            written[0] = 0;
+                            return result;
+                        }
+
+                        // All reads come before the writes in a transaction. Rewriting the index
+                        // drops the entries of bookings that no longer hold the lab.
+                        Map<String, Object> reservations = new HashMap<>();
+                        for (Booking holder : active) {
+                            reservations.put(holder.getId(),
+                                    LabDay.toEntry(holder, holder.getStatus().getValue()));
+                        }
+                        reservations.put(bookingRef.getId(),
+                                LabDay.toEntry(booking, booking.getStatus().getValue()));
+                        Map<String, Object> dayData = new HashMap<>();
+                        dayData.put(FIELD_LAB_ID, labId);
+                        dayData.put(FIELD_DATE, date);
+                        dayData.put(FIELD_RESERVATIONS, reservations);
+                        dayData.put(FIELD_UPDATED_AT, FieldValue.serverTimestamp());
+                        transaction.set(bookingRef, booking);
+                        transaction.set(dayRef, dayData);
+                        written[0] = 2;
+
+                        result.bookingId = bookingRef.getId();
+                        return result;
+                    });
+                    // The day document, plus the seeded bookings the first time the day is indexed
+                    return FirestoreMetrics.transaction("reserveBooking", 1 + seedIds.size(), written, admission);
+                });
     }
 
     /**
-     * Cancel booking with automatic refund calculation
+     * The active bookings of a lab's day as far as seats and countable resources go: one read of
+     * the labDays index, or the day's bookings when nothing has been reserved through it yet
      */
-    public static Task<Void> cancelBookingWithRefund(String bookingId, String reason, String userId) {
-        return db.collection(BOOKINGS_COLLECTION).document(bookingId).get()
+    public static Task<List<Booking>> getLabDayReservations(String labId, String date) {
+        return FirestoreMetrics.document("labDay", getLabDayRef(labId, date).get())
                 .continueWithTask(task -> {
-                    if (task.isSuccessful()) {
-                        DocumentSnapshot doc = task.getResult();
-                        if (doc.exists()) {
-                            Booking booking = doc.toObject(Booking.class);
+                    if (!task.isSuccessful()) {
+                        return Tasks.forException(Objects.requireNonNull(task.getException()));
+                    }
+                    DocumentSnapshot day = task.getResult();
+                    Object indexed = day.get(FIELD_RESERVATIONS);
+                    if (indexed instanceof Map) {
+                        return Tasks.forResult(fromLabDayEntries((Map<?, ?>) indexed, labId, date));
+                    }
+                    return FirestoreMetrics.query("conflictingBookings",
+                                    getConflictingBookingsQuery(labId, date, null, null).get())
+                            .continueWith(bookingsTask -> bookingsTask.getResult().toObjects(Booking.class));
+                });
+    }
+
+    private static DocumentReference getLabDayRef(String labId, String date) {
+        return getInstance().collection(LAB_DAYS_COLLECTION).document(labId + "_" + date);
+    }
 
-                            Map<String, Object> updates = new HashMap<>();
-                            updates.put(FIELD_STATUS, STATUS_CANCELLED);
-                            updates.put("cancellationReason", reason);
-                            updates.put(FIELD_UPDATED_AT, FieldValue.serverTimestamp());
+    /**
+     * The labDays document of a stored booking, or null when it has no lab or date
+     */
+    private static DocumentReference getLabDayRef(DocumentSnapshot booking) {
+        String labId = booking.getString(FIELD_LAB_ID);
+        String date = booking.getString(FIELD_DATE);
+        return labId != null && date != null ? getLabDayRef(labId, date) : null;
+    }
 
-                            // Calculate refund if applicable
-                            if (booking != null && booking.getTotalCost() > 0) {
-                                double refundAmount = calculateRefundAmount(booking);
-                                updates.put("refundAmount", refundAmount);
-                                updates.put("refundProcessed", false);
+    /**
+     * Record in the day's index that a booking changed status, so a booking that stops holding
+     * the lab frees its seats and units in the same transaction. Bookings the index does not
+     * list (labs booked whole, or days not indexed yet) are left alone.
+     *
+     * @return whether the index was written
+     */
+    private static boolean updateLabDayEntry(Transaction transaction, DocumentSnapshot day, String bookingId,
+                                          String status) {
+        Object indexed = day != null ? day.get(FIELD_RESERVATIONS) : null;
+        if (indexed instanceof Map && ((Map<?, ?>) indexed).containsKey(bookingId)) {
+            transaction.update(day.getReference(),
+                    FieldPath.of(FIELD_RESERVATIONS, bookingId, LabDay.ENTRY_STATUS), status,
+                    FIELD_UPDATED_AT, FieldValue.serverTimestamp());
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Whether a booking with this status holds its time (pending or approved)
+     */
+    private static boolean holdsLab(String status) {
+        return STATUS_PENDING.equals(status) || STATUS_APPROVED.equals(status);
+    }
+
+    private static List<Booking> fromLabDayEntries(Map<?, ?> entries, String labId, String date) {
+        List<Booking> bookings = new ArrayList<>();
+        for (Map.Entry<?, ?> item : entries.entrySet()) {
+            if (!(item.getValue() instanceof Map)) {
+                continue;
+            }
+            Map<?, ?> entry = (Map<?, ?>) item.getValue();
+            // Entries written before the index kept a status belong to pending bookings
+            BookingStatus status = BookingStatus.fromString((String) entry.get(LabDay.ENTRY_STATUS));
+            if (!holdsLab(status.getValue())) {
+                continue;
+            }
+            Booking booking = new Booking();
+            booking.setId(String.valueOf(item.getKey()));
+            booking.setLabId(labId);
+            booking.setDate(date);
+            booking.setStartTime((String) entry.get(LabDay.ENTRY_START_TIME));
+            booking.setEndTime((String) entry.get(LabDay.ENTRY_END_TIME));
+            Object participants = entry.get(LabDay.ENTRY_PARTICIPANTS);
+            booking.setNumberOfParticipants(participants instanceof Number ? ((Number) participants).intValue() : 1);
+            List<String> units = new ArrayList<>();
+            Object resources = entry.get(LabDay.ENTRY_RESOURCES);
+            if (resources instanceof List) {
+                for (Object resource : (List<?>) resources) {
+                    units.add(String.valueOf(resource));
+                }
+            }
+            booking.setRequiredResources(units);
+            booking.setStatus(status);
+            bookings.add(booking);
+        }
+        return bookings;
+    }
+
+    /**
+     * Approve the bookings {@code adminId} may still review (see
+     * {@link #updateBookingStatus(String, String, String, String)}), in one transaction;
+     * the others are left as they are
+     *
+     * @return the IDs actually approved
+     */
+    public static Task<List<String>> batchApproveBookings(List<String> bookingIds, String adminId, String notes) {
+        int[] written = new int[1];
+        return FirestoreMetrics.transaction("batchApproveBookings", bookingIds.size(), written,
+                getInstance().runTransaction(transaction -> {
+                    long now = System.currentTimeMillis();
+                    List<DocumentReference> reviewable = new ArrayList<>();
+                    Map<String, Integer> approvedPerUser = new HashMap<>();
+                    for (String id : bookingIds) {
+                        DocumentReference ref = getInstance().collection(BOOKINGS_COLLECTION).document(id);
+                        DocumentSnapshot doc = transaction.get(ref);
+                        if (isReviewable(doc, adminId, now)) {
+                            reviewable.add(ref);
+                            String userId = doc.getString(FIELD_USER_ID);
+                            if (userId != null) {
+                                Integer count = approvedPerUser.get(userId);
+                                approvedPerUser.put(userId, count == null ? 1 : count + 1);
                             }
+                        }
+                    }
+
+                    // All reads come before the writes in a transaction
+                    List<String> approved = new ArrayList<>();
+                    for (DocumentReference ref : reviewable) {
+                        transaction.update(ref, reviewUpdates(STATUS_APPROVED, adminId, notes));
+                        approved.add(ref.getId());
+                    }
+                    for (Map.Entry<String, Integer> user : approvedPerUser.entrySet()) {
+                        countReviews(transaction, user.getKey(), STATUS_APPROVED, user.getValue());
+                    }
+                    written[0] = approved.size() + approvedPerUser.size();
+                    return approved;
+                }));
+    }
+
+    /**
+     * Whether {@code adminId} may review the booking: it is still pending and nobody else holds
+     * a live claim on it
+     */
+    private static boolean isReviewable(DocumentSnapshot doc, String adminId, long now) {
+        return doc.exists() && STATUS_PENDING.equals(doc.getString(FIELD_STATUS)) &&
+                ClaimLease.isAvailable(doc.getString(FIELD_CLAIMED_BY),
+                        millis(doc.getDate(FIELD_CLAIM_EXPIRES_AT)), adminId, now);
+    }
+
+    private static Map<String, Object> reviewUpdates(String status, String adminId, String adminNotes) {
+        Map<String, Object> updates = new HashMap<>();
+        updates.put(FIELD_STATUS, status);
+        updates.put("reviewedBy", adminId);
+        updates.put("reviewedAt", FieldValue.serverTimestamp());
+        updates.put(FIELD_UPDATED_AT, FieldValue.serverTimestamp());
+        // A reviewed booking leaves the approval queue; drop the claim on it
+        updates.put(FIELD_CLAIMED_BY, FieldValue.delete());
+        updates.put(FIELD_CLAIM_EXPIRES_AT, FieldValue.delete());
+        if (adminNotes != null && !adminNotes.trim().isEmpty()) {
+            updates.put("adminNotes", adminNotes);
+        }
+        return updates;
+    }
 
-                            return db.collection(BOOKINGS_COLLECTION).document(bookingId).update(updates);
+    /**
+     * Add {@code count} reviews with this outcome to the user's history, which auto-approval
+     * rules read back through {@link #getReviewHistoryRef(String)}
+     */
+    private static void countReviews(Transaction transaction, String userId, String status, int count) {
+        String field = STATUS_APPROVED.equals(status) ? FIELD_APPROVED_BOOKINGS :
+                STATUS_REJECTED.equals(status) ? FIELD_REJECTED_BOOKINGS : null;
+        if (field != null) {
+            transaction.set(getReviewHistoryRef(userId),
+                    Collections.singletonMap(field, FieldValue.increment(count)), SetOptions.merge());
+        }
+    }
+
+    /**
+     * Claim up to {@code count} of the candidate bookings for {@code adminId}, in candidate
+     * order. A candidate is skipped when it is no longer pending or another admin holds a live
+     * claim on it. The transaction re-reads every candidate, so two admins claiming at the same
+     * time never get the same booking; the loser's attempt retries and skips it.
+     *
+     * @return the IDs actually claimed
+     */
+    public static Task<List<String>> claimPendingBookings(List<String> candidateIds, String adminId,
+                                                          int count, long leaseMillis) {
+        int[] written = new int[1];
+        return FirestoreMetrics.transaction("claimPendingBookings", candidateIds.size(), written,
+                getInstance().runTransaction(transaction -> {
+                    long now = System.currentTimeMillis();
+                    List<DocumentReference> claimable = new ArrayList<>();
+                    for (String id : candidateIds) {
+                        DocumentReference ref = getInstance().collection(BOOKINGS_COLLECTION).document(id);
+                        DocumentSnapshot doc = transaction.get(ref);
+                        if (claimable.size() < count && doc.exists() &&
+                                STATUS_PENDING.equals(doc.getString(FIELD_STATUS)) &&
+                                ClaimLease.isAvailable(doc.getString(FIELD_CLAIMED_BY),
+                                        millis(doc.getDate(FIELD_CLAIM_EXPIRES_AT)), adminId, now)) {
+                            claimable.add(ref);
                         }
                     }
-                    return Tasks.forException(new IllegalStateException("Booking not found"));
-                });
+
+                    // All reads come before the writes in a transaction
+                    Date expiresAt = new Date(now + leaseMillis);
+                    List<String> claimed = new ArrayList<>();
+                    for (DocumentReference ref : claimable) {
+                        transaction.update(ref, FIELD_CLAIMED_BY, adminId, FIELD_CLAIM_EXPIRES_AT, expiresAt);
+                        claimed.add(ref.getId());
+                    }
+                    written[0] = claimed.size();
+                    return claimed;
+                }));
+    }
+
+    /**
+     * Give back claims held by {@code adminId}; bookings claimed by someone else are left alone
+     */
+    public static Task<Void> releaseBookingClaims(List<String> bookingIds, String adminId) {
+        int[] written = new int[1];
+        return FirestoreMetrics.transaction("releaseBookingClaims", bookingIds.size(), written,
+                getInstance().runTransaction(transaction -> {
+                    List<DocumentReference> mine = new ArrayList<>();
+                    for (String id : bookingIds) {
+                        DocumentReference ref = getInstance().collection(BOOKINGS_COLLECTION).document(id);
+                        if (adminId.equals(transaction.get(ref).getString(FIELD_CLAIMED_BY))) {
+                            mine.add(ref);
+                        }
+                    }
+                    for (DocumentReference ref : mine) {
+                        transaction.update(ref, FIELD_CLAIMED_BY, FieldValue.delete(),
+                                FIELD_CLAIM_EXPIRES_AT, FieldValue.delete());
+                    }
+                    written[0] = mine.size();
+                    return null;
+                }));
+    }
+
+    private static long millis(Date date) {
+        return date != null ? date.getTime() : 0;
+    }
+
+    /**
+     * Cancel booking with automatic refund calculation. The booking's labDays entry is marked
+     * cancelled in the same transaction, so its seats and units are free straight away.
+     */
+    public static Task<Void> cancelBookingWithRefund(String bookingId, String reason, String userId) {
+        DocumentReference ref = getInstance().collection(BOOKINGS_COLLECTION).document(bookingId);
+        int[] written = new int[1];
+        return FirestoreMetrics.transaction("cancelBooking", 2, written,
+                getInstance().runTransaction(transaction -> {
+                    DocumentSnapshot doc = transaction.get(ref);
+                    if (!doc.exists()) {
+                        throw new FirebaseFirestoreException("Booking not found",
+                                FirebaseFirestoreException.Code.NOT_FOUND);
+                    }
+                    Booking booking = doc.toObject(Booking.class);
+                    DocumentReference dayRef = getLabDayRef(doc);
+                    DocumentSnapshot day = dayRef != null ? transaction.get(dayRef) : null;
+
+                    Map<String, Object> updates = new HashMap<>();
+                    updates.put(FIELD_STATUS, STATUS_CANCELLED);
+                    updates.put("cancellationReason", reason);
+                    updates.put(FIELD_UPDATED_AT, FieldValue.serverTimestamp());
+
+                    // Calculate refund if applicable
+                    if (booking != null && booking.getTotalCost() > 0) {
+                        double refundAmount = calculateRefundAmount(booking);
+                        updates.put("refundAmount", refundAmount);
+                        updates.put("refundProcessed", false);
+                    }
+
+                    // All reads come before the writes in a transaction
+                    transaction.update(ref, updates);
+                    written[0] = updateLabDayEntry(transaction, day, bookingId, STATUS_CANCELLED) ? 2 : 1;
+                    return null;
+                }));
     }
 
     // ======================= USER MANAGEMENT =======================
@@ -270,9 +678,9 @@ public class DatabaseUtils {
      * Create user with role-based setup
      */
     public static Task<Void> createUserWithDefaults(String userId, User user) {
-        return db.collection(USERS_COLLECTION)
-                .document(userId)
-                .set(user)
+        return FirestoreMetrics.write("createUser", 1, getInstance().collection(USERS_COLLECTION)
+                        .document(userId)
+                        .set(user))
                 .continueWithTask(task -> {
                     if (task.isSuccessful()) {
                         // Create user analytics document
@@ -289,22 +697,30 @@ public class DatabaseUtils {
         Map<String, Object> updates = new HashMap<>();
         updates.put("lastLoginAt", FieldValue.serverTimestamp());
 
-        return db.collection(USERS_COLLECTION)
+        return FirestoreMetrics.write("updateUserLastLogin", 1, getInstance().collection(USERS_COLLECTION)
                 .document(userId)
-                .update(updates);
+                .update(updates));
     }
 
     /**
      * Get users by role with pagination
      */
     public static Query getUsersByRoleQuery(String role, int limit) {
-        return db.collection(USERS_COLLECTION)
+        return getInstance().collection(USERS_COLLECTION)
                 .whereEqualTo("role", role)
                 .whereEqualTo(FIELD_ACTIVE, true)
                 .orderBy("name", Query.Direction.ASCENDING)
                 .limit(limit);
     }
 
+    /**
+     * Push token document for one of a user's devices
+     */
+    public static DocumentReference getDeviceTokenRef(String userId, String deviceId) {
+        return getInstance().collection(USERS_COLLECTION).document(userId)
+                .collection(DEVICE_TOKENS_COLLECTION).document(deviceId);
+    }
+
     // ======================= ANALYTICS AND STATISTICS =======================
 
     /**
@@ -314,7 +730,7 @@ public class DatabaseUtils {
         Map<String, Object> stats = new HashMap<>();
 
         // Get all-time statistics
-        getAllBookingsQuery().get().addOnSuccessListener(allSnapshot -> {
+        FirestoreMetrics.query("statistics.allBookings", getAllBookingsQuery().get()).addOnSuccessListener(allSnapshot -> {
             if (allSnapshot != null) {
                 stats.put("totalBookings", allSnapshot.size());
 
@@ -353,14 +769,14 @@ public class DatabaseUtils {
                 stats.put("totalRevenue", totalRevenue);
 
                 // Get today's statistics
-                getTodaysBookingsQuery().get().addOnSuccessListener(todaySnapshot -> {
+                FirestoreMetrics.query("statistics.todayBookings", getTodaysBookingsQuery().get()).addOnSuccessListener(todaySnapshot -> {
                     stats.put("todayBookings", todaySnapshot != null ? todaySnapshot.size() : 0);
 
                     // Get this week's statistics
                     String weekStart = DateTimeUtils.getWeekStartDate();
                     String weekEnd = DateTimeUtils.getWeekEndDate();
 
-                    getBookingsByDateRangeQuery(weekStart, weekEnd).get()
+                    FirestoreMetrics.query("statistics.weekBookings", getBookingsByDateRangeQuery(weekStart, weekEnd).get())
                             .addOnSuccessListener(weekSnapshot -> {
                                 stats.put("weekBookings", weekSnapshot != null ? weekSnapshot.size() : 0);
                                 callback.onStatisticsReceived(stats);
@@ -377,7 +793,7 @@ public class DatabaseUtils {
      */
     public static void getLabUtilizationStats(String labId, String startDate, String endDate,
                                               UtilizationCallback callback) {
-        getLabUsageAnalyticsQuery(labId, startDate, endDate).get()
+        FirestoreMetrics.query("labUtilization", getLabUsageAnalyticsQuery(labId, startDate, endDate).get())
                 .addOnSuccessListener(querySnapshot -> {
                     if (querySnapshot != null) {
                         int totalBookings = querySnapshot.size();
@@ -409,7 +825,7 @@ public class DatabaseUtils {
      * Check user booking limits
      */
     public static Task<BookingLimitResult> checkUserBookingLimits(String userId, String date) {
-        return getUserActiveBookingsQuery(userId).get()
+        return FirestoreMetrics.query("userActiveBookings", getUserActiveBookingsQuery(userId).get())
                 .continueWithTask(task -> {
                     if (task.isSuccessful()) {
                         QuerySnapshot snapshot = task.getResult();
@@ -420,18 +836,7 @@ public class DatabaseUtils {
                                 User user = userTask.getResult().toObject(User.class);
 
                                 if (user != null && snapshot != null) {
-                                    int activeBookings = snapshot.size();
-                                    int weeklyHours = calculateWeeklyHours(snapshot.getDocuments(), date);
-
-                                    BookingLimitResult result = new BookingLimitResult();
-                                    result.canBook = activeBookings < user.getMaxSimultaneousBookings() &&
-                                            weeklyHours < user.getMaxWeeklyHours();
-                                    result.activeBookings = activeBookings;
-                                    result.maxBookings = user.getMaxSimultaneousBookings();
-                                    result.weeklyHours = weeklyHours;
-                                    result.maxWeeklyHours = user.getMaxWeeklyHours();
-
-                                    return result;
+                                    return buildBookingLimitResult(user, snapshot, date);
                                 }
                             }
                             return new BookingLimitResult(); // Default allow
@@ -441,6 +846,34 @@ public class DatabaseUtils {
                 });
     }
 
+    /**
+     * Check booking limits for a user profile the caller already holds (skips the user read)
+     */
+    public static Task<BookingLimitResult> checkUserBookingLimits(User user, String date) {
+        return FirestoreMetrics.query("userActiveBookings", getUserActiveBookingsQuery(user.getId()).get())
+                .continueWith(task -> {
+                    if (!task.isSuccessful()) {
+                        throw Objects.requireNonNull(task.getException());
+                    }
+                    return buildBookingLimitResult(user, task.getResult(), date);
+                });
+    }
+
+    private static BookingLimitResult buildBookingLimitResult(User user, QuerySnapshot activeBookings,
+                                                              String date) {
+        QuotaPolicy.Result quota = QuotaPolicy.check(activeBookings.size(), user.getMaxSimultaneousBookings(),
+                calculateWeeklyHours(activeBookings.getDocuments(), date), user.getMaxWeeklyHours());
+
+        BookingLimitResult result = new BookingLimitResult();
+        result.canBook = quota.canBook;
+        result.activeBookings = quota.activeBookings;
+        result.maxBookings = quota.maxBookings;
+        result.weeklyHours = quota.weeklyHours;
+        result.maxWeeklyHours = quota.maxWeeklyHours;
+        result.message = quota.message();
+        return result;
+    }
+
     // ======================= ENHANCED VALIDATION =======================
 
     /**
@@ -470,40 +903,10 @@ public class DatabaseUtils {
                             return result;
                         }
 
-                        if (!lab.isBookingAllowed()) {
-                            result.isValid = false;
-                            result.errors.add("Lab is not available for booking");
-                            return result;
-                        }
-
-                        // Check capacity
-                        if (booking.getNumberOfParticipants() > lab.getCapacity()) {
-                            result.isValid = false;
-                            result.errors.add("Number of participants exceeds lab capacity");
-                            return result;
-                        }
-
-                        // Check if booking is within lab hours
-                        if (!DateTimeUtils.isTimeWithinRange(booking.getStartTime(),
-                                lab.getOpenTime(), lab.getCloseTime()) ||
-                                !DateTimeUtils.isTimeWithinRange(booking.getEndTime(),
-                                        lab.getOpenTime(), lab.getCloseTime())) {
-                            result.isValid = false;
-                            result.errors.add("Booking time is outside lab operating hours");
-                            return result;
-                        }
-
-                        // Check duration limits
-                        int durationMinutes = booking.getDurationMinutes();
-                        if (durationMinutes < lab.getMinBookingMinutes()) {
+                        String labError = BookingRules.checkAgainstLab(booking, lab);
+                        if (labError != null) {
                             result.isValid = false;
-                            result.errors.add("Booking duration is less than minimum required");
-                            return result;
-                        }
-
-                        if (durationMinutes > lab.getMaxBookingHours() * 60) {
-                            result.isValid = false;
-                            result.errors.add("Booking duration exceeds maximum allowed");
+                            result.errors.add(labError);
                             return result;
                         }
 
@@ -527,6 +930,33 @@ public class DatabaseUtils {
     public static Task<DocumentReference> createNotification(String userId, String title,
                                                              String message, String type,
                                                              String relatedId) {
+        return createNotification(userId, title, message, type, relatedId, 2);
+    }
+
+    /**
+     * Create notification record and bump the user's unread counter in the same batch
+     */
+    public static Task<DocumentReference> createNotification(String userId, String title,
+                                                             String message, String type,
+                                                             String relatedId, int priority) {
+        WriteBatch batch = getInstance().batch();
+        DocumentReference notifRef = addNotificationToBatch(batch,
+                buildNotificationData(userId, title, message, type, relatedId, priority));
+
+        return FirestoreMetrics.write("createNotification", 2, batch.commit()).continueWithTask(task -> {
+            if (!task.isSuccessful()) {
+                return Tasks.forException(Objects.requireNonNull(task.getException()));
+            }
+            return Tasks.forResult(notifRef);
+        });
+    }
+
+    /**
+     * Build the stored representation of a notification
+     */
+    public static Map<String, Object> buildNotificationData(String userId, String title,
+                                                            String message, String type,
+                                                            String relatedId, int priority) {
         Map<String, Object> notification = new HashMap<>();
         notification.put("userId", userId);
         notification.put("title", title);
@@ -534,23 +964,115 @@ public class DatabaseUtils {
         notification.put("type", type); // "booking", "reminder", "admin", "system"
         notification.put("relatedId", relatedId);
         notification.put("read", false);
+        notification.put("dismissed", false);
+        notification.put(FIELD_PRIORITY, priority);
         notification.put("createdAt", FieldValue.serverTimestamp());
+        notification.put(FIELD_EXPIRE_AT, getNotificationExpiry());
+        return notification;
+    }
+
+    /**
+     * Expiry for a notification created now; also usable as a Firestore TTL field
+     */
+    public static Date getNotificationExpiry() {
+        return new Date(System.currentTimeMillis() + NOTIFICATION_RETENTION_MILLIS);
+    }
 
-        return db.collection(NOTIFICATIONS_COLLECTION).add(notification);
+    /**
+     * Add a notification write plus its unread counter increment to a batch (2 operations)
+     */
+    public static DocumentReference addNotificationToBatch(WriteBatch batch, Map<String, Object> notification) {
+        return addNotificationToBatch(batch, getInstance().collection(NOTIFICATIONS_COLLECTION).document(), notification);
+    }
+
+    /**
+     * Same as above, writing to a caller-chosen document (deterministic IDs make retries idempotent)
+     */
+    public static DocumentReference addNotificationToBatch(WriteBatch batch, DocumentReference notifRef,
+                                                           Map<String, Object> notification) {
+        batch.set(notifRef, notification);
+        incrementUnreadCounter(batch, (String) notification.get("userId"), 1);
+        return notifRef;
+    }
+
+    /**
+     * The transaction counterpart of {@link #addNotificationToBatch(WriteBatch, DocumentReference, Map)}
+     */
+    public static DocumentReference addNotificationToTransaction(Transaction transaction, DocumentReference notifRef,
+                                                                 Map<String, Object> notification) {
+        transaction.set(notifRef, notification);
+        String userId = (String) notification.get("userId");
+        if (userId != null) {
+            transaction.set(getUnreadCounterRef(userId),
+                    Collections.singletonMap(FIELD_UNREAD_NOTIFICATIONS, FieldValue.increment(1)),
+                    SetOptions.merge());
+        }
+        return notifRef;
     }
 
     /**
-     * Mark notifications as read
+     * Mark notifications as read, decrementing the unread counter only for those that were unread
      */
     public static Task<Void> markNotificationsAsRead(String userId, List<String> notificationIds) {
-        WriteBatch batch = db.batch();
+        int[] written = new int[1];
+        return FirestoreMetrics.transaction("markNotificationsAsRead", notificationIds.size(), written, getInstance().runTransaction(transaction -> {
+            List<DocumentReference> toUpdate = new ArrayList<>();
+
+            // All reads must happen before any write in a transaction
+            for (String notificationId : notificationIds) {
+                DocumentReference notifRef = getInstance().collection(NOTIFICATIONS_COLLECTION).document(notificationId);
+                DocumentSnapshot doc = transaction.get(notifRef);
+                if (doc.exists() && isUnread(doc)) {
+                    toUpdate.add(notifRef);
+                }
+            }
+
+            for (DocumentReference notifRef : toUpdate) {
+                transaction.update(notifRef, "read", true, "readAt", FieldValue.serverTimestamp());
+            }
+            if (!toUpdate.isEmpty()) {
+                transaction.set(getUnreadCounterRef(userId),
+                        Collections.singletonMap(FIELD_UNREAD_NOTIFICATIONS,
+                                FieldValue.increment(-toUpdate.size())),
+                        SetOptions.merge());
+            }
+            written[0] = toUpdate.isEmpty() ? 0 : toUpdate.size() + 1;
+            return null;
+        }));
+    }
+
+    /**
+     * Per-user unread notification counter (kept on the user's analytics document)
+     */
+    public static DocumentReference getUnreadCounterRef(String userId) {
+        return getInstance().collection(ANALYTICS_COLLECTION).document(userId);
+    }
+
+    /**
+     * Per-user count of approved and rejected bookings (kept on the user's analytics document)
+     */
+    public static DocumentReference getReviewHistoryRef(String userId) {
+        return getInstance().collection(ANALYTICS_COLLECTION).document(userId);
+    }
 
-        for (String notificationId : notificationIds) {
-            DocumentReference notifRef = db.collection(NOTIFICATIONS_COLLECTION).document(notificationId);
-            batch.update(notifRef, "read", true, "readAt", FieldValue.serverTimestamp());
+    /**
+     * Add an unread counter adjustment to an existing batch
+     */
+    public static void incrementUnreadCounter(WriteBatch batch, String userId, long delta) {
+        if (userId == null || delta == 0) {
+            return;
         }
+        batch.set(getUnreadCounterRef(userId),
+                Collections.singletonMap(FIELD_UNREAD_NOTIFICATIONS, FieldValue.increment(delta)),
+                SetOptions.merge());
+    }
 
-        return batch.commit();
+    /**
+     * Whether a notification document currently counts towards the unread badge
+     */
+    public static boolean isUnread(DocumentSnapshot notificationDoc) {
+        return !Boolean.TRUE.equals(notificationDoc.getBoolean("read")) &&
+                !Boolean.TRUE.equals(notificationDoc.getBoolean("dismissed"));
     }
 
     // ======================= HELPER CLASSES =======================
@@ -595,33 +1117,16 @@ public class DatabaseUtils {
     // ======================= UTILITY METHODS =======================
 
     private static int calculateWeeklyHours(List<DocumentSnapshot> bookings, String targetDate) {
-        String weekStart = DateTimeUtils.getWeekStartDate(targetDate);
-        String weekEnd = DateTimeUtils.getWeekEndDate(targetDate);
-
-        int totalMinutes = 0;
+        List<Booking> parsed = new ArrayList<>(bookings.size());
         for (DocumentSnapshot doc : bookings) {
-            Booking booking = doc.toObject(Booking.class);
-            if (booking != null &&
-                    DateTimeUtils.isDateInRange(booking.getDate(), weekStart, weekEnd)) {
-                totalMinutes += booking.getDurationMinutes();
-            }
+            parsed.add(doc.toObject(Booking.class));
         }
-
-        return totalMinutes / 60;
+        return DateTimeUtils.getBookedMinutesInWeek(parsed, targetDate) / 60;
     }
 
     private static double calculateRefundAmount(Booking booking) {
-        // Implement refund policy logic
-        // For example: full refund if cancelled 24h before, 50% if same day, etc.
         long hoursUntilStart = DateTimeUtils.getHoursUntilDateTime(booking.getDate(), booking.getStartTime());
-
-        if (hoursUntilStart >= 24) {
-            return booking.getTotalCost(); // Full refund
-        } else if (hoursUntilStart >= 4) {
-            return booking.getTotalCost() * 0.5; // 50% refund
-        } else {
-            return 0; // No refund
-        }
+        return RefundPolicy.STANDARD.refundAmount(booking.getTotalCost(), hoursUntilStart);
     }
 
     private static Task<Void> createUserAnalytics(String userId) {
@@ -633,9 +1138,9 @@ public class DatabaseUtils {
         analytics.put("lastBookingDate", null);
         analytics.put("createdAt", FieldValue.serverTimestamp());
 
-        return db.collection(ANALYTICS_COLLECTION)
+        return FirestoreMetrics.write("createUserAnalytics", 1, getInstance().collection(ANALYTICS_COLLECTION)
                 .document(userId)
-                .set(analytics);
+                .set(analytics));
     }
 
     /**
@@ -689,7 +1194,7 @@ public class DatabaseUtils {
     }
 
     public static Query getActiveLabsQuery() {
-        return db.collection(LABS_COLLECTION)
+        return getInstance().collection(LABS_COLLECTION)
                 .whereEqualTo(FIELD_ACTIVE, true)
                 .whereEqualTo("maintenanceMode", false)
                 .orderBy(FIELD_PRIORITY, Query.Direction.ASCENDING)
@@ -697,59 +1202,80 @@ public class DatabaseUtils {
     }
 
     public static Query getAllLabsQuery() {
-        return db.collection(LABS_COLLECTION)
+        return getInstance().collection(LABS_COLLECTION)
                 .orderBy(FIELD_PRIORITY, Query.Direction.ASCENDING)
                 .orderBy("name", Query.Direction.ASCENDING);
     }
 
     public static Task<DocumentSnapshot> getLabById(String labId) {
-        return db.collection(LABS_COLLECTION).document(labId).get();
+        return FirestoreMetrics.document("getLab", getInstance().collection(LABS_COLLECTION).document(labId).get());
     }
 
     public static Task<DocumentSnapshot> getUserById(String userId) {
-        return db.collection(USERS_COLLECTION).document(userId).get();
+        return FirestoreMetrics.document("getUser", getInstance().collection(USERS_COLLECTION).document(userId).get());
     }
 
     public static Query getAllUsersQuery() {
-        return db.collection(USERS_COLLECTION)
+        return getInstance().collection(USERS_COLLECTION)
                 .orderBy("name", Query.Direction.ASCENDING);
     }
 
     public static Query getAdminUsersQuery() {
-        return db.collection(USERS_COLLECTION)
+        return getInstance().collection(USERS_COLLECTION)
                 .whereEqualTo("role", ROLE_ADMIN);
     }
 
     public static Query getAllBookingsQuery() {
-        return db.collection(BOOKINGS_COLLECTION)
+        return getInstance().collection(BOOKINGS_COLLECTION)
                 .orderBy(FIELD_CREATED_AT, Query.Direction.DESCENDING);
     }
 
     public static Query getLabBookingsQuery(String labId) {
-        return db.collection(BOOKINGS_COLLECTION)
+        return getInstance().collection(BOOKINGS_COLLECTION)
                 .whereEqualTo(FIELD_LAB_ID, labId)
                 .orderBy(FIELD_DATE, Query.Direction.DESCENDING)
                 .orderBy(FIELD_START_TIME, Query.Direction.ASCENDING);
     }
 
     public static Query getBookingsByDateRangeQuery(String startDate, String endDate) {
-        return db.collection(BOOKINGS_COLLECTION)
+        return getInstance().collection(BOOKINGS_COLLECTION)
                 .whereGreaterThanOrEqualTo(FIELD_DATE, startDate)
                 .whereLessThanOrEqualTo(FIELD_DATE, endDate)
                 .orderBy(FIELD_DATE, Query.Direction.ASCENDING);
     }
 
-    public static Task<Void> updateBookingStatus(String bookingId, String status, String adminNotes) {
-        Map<String, Object> updates = new HashMap<>();
-        updates.put(FIELD_STATUS, status);
-        updates.put(FIELD_UPDATED_AT, FieldValue.serverTimestamp());
-        updates.put("reviewedAt", FieldValue.serverTimestamp());
-
-        if (adminNotes != null && !adminNotes.trim().isEmpty()) {
-            updates.put("adminNotes", adminNotes);
-        }
-
-        return db.collection(BOOKINGS_COLLECTION).document(bookingId).update(updates);
+    /**
+     * Approve or reject a booking as {@code adminId}. The transaction re-reads the booking, so
+     * the review only goes through while it is still pending and no other admin holds a live
+     * claim on it; otherwise the task fails and nothing is written.
+     */
+    public static Task<Void> updateBookingStatus(String bookingId, String status, String adminId, String adminNotes) {
+        DocumentReference ref = getInstance().collection(BOOKINGS_COLLECTION).document(bookingId);
+        // A rejection frees the booking's seats and units in the labDays index; approval keeps them
+        boolean releases = !holdsLab(status);
+        int[] written = new int[1];
+        return FirestoreMetrics.transaction("updateBookingStatus", releases ? 2 : 1, written,
+                getInstance().runTransaction(transaction -> {
+                    DocumentSnapshot doc = transaction.get(ref);
+                    if (!isReviewable(doc, adminId, System.currentTimeMillis())) {
+                        throw new FirebaseFirestoreException(doc.exists() &&
+                                STATUS_PENDING.equals(doc.getString(FIELD_STATUS)) ?
+                                "Another admin is reviewing this booking" : "This booking has already been reviewed",
+                                FirebaseFirestoreException.Code.FAILED_PRECONDITION);
+                    }
+                    DocumentReference dayRef = releases ? getLabDayRef(doc) : null;
+                    DocumentSnapshot day = dayRef != null ? transaction.get(dayRef) : null;
+
+                    // All reads come before the writes in a transaction
+                    transaction.update(ref, reviewUpdates(status, adminId, adminNotes));
+                    boolean released = updateLabDayEntry(transaction, day, bookingId, status);
+                    String userId = doc.getString(FIELD_USER_ID);
+                    if (userId != null) {
+                        countReviews(transaction, userId, status, 1);
+                    }
+                    written[0] = 1 + (userId != null ? 1 : 0) + (released ? 1 : 0);
+                    return null;
+                }));
     }
 
     public static Task<Void> cancelBooking(String bookingId, String reason) {
@@ -757,15 +1283,15 @@ public class DatabaseUtils {
     }
 
     public static Task<Void> deleteBooking(String bookingId) {
-        return db.collection(BOOKINGS_COLLECTION).document(bookingId).delete();
+        return FirestoreMetrics.write("deleteBooking", 1, getInstance().collection(BOOKINGS_COLLECTION).document(bookingId).delete());
     }
 
     public static Task<DocumentReference> createLab(Lab lab) {
-        return db.collection(LABS_COLLECTION).add(lab);
+        return FirestoreMetrics.write("createLab", 1, getInstance().collection(LABS_COLLECTION).add(lab));
     }
 
     public static Task<Void> updateLab(String labId, Lab lab) {
-        return db.collection(LABS_COLLECTION).document(labId).set(lab);
+        return FirestoreMetrics.write("updateLab", 1, getInstance().collection(LABS_COLLECTION).document(labId).set(lab));
     }
 
     public static Task<Void> updateLabStatus(String labId, boolean isActive) {
@@ -773,11 +1299,11 @@ public class DatabaseUtils {
         updates.put(FIELD_ACTIVE, isActive);
         updates.put(FIELD_UPDATED_AT, FieldValue.serverTimestamp());
 
-        return db.collection(LABS_COLLECTION).document(labId).update(updates);
+        return FirestoreMetrics.write("updateLabStatus", 1, getInstance().collection(LABS_COLLECTION).document(labId).update(updates));
     }
 
     public static Task<Void> deleteLab(String labId) {
-        return db.collection(LABS_COLLECTION).document(labId).delete();
+        return FirestoreMetrics.write("deleteLab", 1, getInstance().collection(LABS_COLLECTION).document(labId).delete());
     }
 
     public static Task<Void> saveUserProfile(String userId, User user) {
@@ -785,7 +1311,7 @@ public class DatabaseUtils {
             user.setCreatedAt(new Date());
         }
 
-        return db.collection(USERS_COLLECTION).document(userId).set(user);
+        return FirestoreMetrics.write("saveUserProfile", 1, getInstance().collection(USERS_COLLECTION).document(userId).set(user));
     }
 
     public static Task<Void> updateUserRole(String userId, boolean isAdmin) {
@@ -794,44 +1320,38 @@ public class DatabaseUtils {
         updates.put("role", isAdmin ? ROLE_ADMIN : ROLE_USER);
         updates.put(FIELD_UPDATED_AT, FieldValue.serverTimestamp());
 
-        return db.collection(USERS_COLLECTION).document(userId).update(updates);
+        return FirestoreMetrics.write("updateUserRole", 1, getInstance().collection(USERS_COLLECTION).document(userId).update(updates));
     }
 
     public static Task<Boolean> isTimeSlotAvailable(String labId, String date, String startTime, String endTime) {
-        return getConflictingBookingsQuery(labId, date, startTime, endTime)
-                .get()
+        return FirestoreMetrics.query("conflictingBookings",
+                        getConflictingBookingsQuery(labId, date, startTime, endTime).get())
                 .continueWith(task -> {
                     if (task.isSuccessful()) {
                         QuerySnapshot querySnapshot = task.getResult();
-                        if (querySnapshot != null && !querySnapshot.isEmpty()) {
-                            // Check for actual conflicts
-                            for (DocumentSnapshot doc : querySnapshot.getDocuments()) {
-                                Booking existingBooking = doc.toObject(Booking.class);
-                                if (existingBooking != null &&
-                                        DateTimeUtils.doTimeSlotsOverlap(startTime, endTime,
-                                                existingBooking.getStartTime(), existingBooking.getEndTime())) {
-                                    return false;
-                                }
-                            }
+                        if (querySnapshot == null || querySnapshot.isEmpty()) {
+                            return true;
                         }
-                        return true;
+                        // The query already narrowed it to the day's active bookings
+                        return SchedulingEngine.findConflicts(querySnapshot.toObjects(Booking.class),
+                                null, startTime, endTime).isEmpty();
                     }
                     return false;
                 });
     }
 
     public static Task<Void> batchUpdateBookings(Map<String, Map<String, Object>> bookingUpdates) {
-        WriteBatch batch = db.batch();
+        WriteBatch batch = getInstance().batch();
 
         for (Map.Entry<String, Map<String, Object>> entry : bookingUpdates.entrySet()) {
-            DocumentReference bookingRef = db.collection(BOOKINGS_COLLECTION).document(entry.getKey());
+            DocumentReference bookingRef = getInstance().collection(BOOKINGS_COLLECTION).document(entry.getKey());
             Map<String, Object> updates = entry.getValue();
             updates.put(FIELD_UPDATED_AT, FieldValue.serverTimestamp());
 
             batch.update(bookingRef, updates);
         }
 
-        return batch.commit();
+        return FirestoreMetrics.write("batchUpdateBookings", bookingUpdates.size(), batch.commit());
     }
 
     // Legacy callback interfaces for backward compatibility
@@ -2,6 +2,13 @@ package com.testlab.labbooking.utils;
 
 import android.util.Log;
 
+import com.testlab.labbooking.core.CalendarDates;
+import com.testlab.labbooking.core.QuotaPolicy;
+import com.testlab.labbooking.core.ResourceOccupancy;
+import com.testlab.labbooking.core.SchedulingEngine;
+import com.testlab.labbooking.core.SeatOccupancy;
+import com.testlab.labbooking.core.TimeOfDay;
+import com.testlab.labbooking.core.TimeRange;
 import com.testlab.labbooking.models.Booking;
 
 import java.text.ParseException;
@@ -9,8 +16,10 @@ import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
 import java.util.TimeZone;
 import java.util.concurrent.TimeUnit;
@@ -109,18 +118,11 @@ public class DateTimeUtils {
      * Get time difference in minutes between two times
      */
     public static int getTimeDifferenceInMinutes(String startTime, String endTime) {
-        try {
-            Date start = timeFormatter.parse(startTime);
-            Date end = timeFormatter.parse(endTime);
-
-            if (start != null && end != null) {
-                long diffInMillis = end.getTime() - start.getTime();
-                return (int) TimeUnit.MILLISECONDS.toMinutes(diffInMillis);
-            }
-        } catch (ParseException e) {
-            Log.e("DateTimeUtils", "Error parsing time: " + e.getMessage());
+        if (TimeOfDay.toMinutes(startTime) == TimeOfDay.INVALID || TimeOfDay.toMinutes(endTime) == TimeOfDay.INVALID) {
+            Log.e("DateTimeUtils", "Error parsing time: " + startTime + " - " + endTime);
+            return 0;
         }
-        return 0;
+        return TimeOfDay.minutesBetween(startTime, endTime);
     }
 
     /**
@@ -158,20 +160,7 @@ public class DateTimeUtils {
      * Check if two time slots overlap
      */
     public static boolean doTimeSlotsOverlap(String start1, String end1, String start2, String end2) {
-        try {
-            Date s1 = timeFormatter.parse(start1);
-            Date e1 = timeFormatter.parse(end1);
-            Date s2 = timeFormatter.parse(start2);
-            Date e2 = timeFormatter.parse(end2);
-
-            if (s1 != null && e1 != null && s2 != null && e2 != null) {
-                // Two time slots overlap if: start1 < end2 AND start2 < end1
-                return s1.before(e2) && s2.before(e1);
-            }
-        } catch (ParseException e) {
-            Log.e("DateTimeUtils", "Error parsing time slots: " + e.getMessage());
-        }
-        return false;
+        return SchedulingEngine.overlaps(start1, end1, start2, end2);
     }
 
     // ======================= DATE VALIDATION =======================
@@ -226,38 +215,21 @@ public class DateTimeUtils {
      * Check if date is within a range
      */
     public static boolean isDateInRange(String date, String startDate, String endDate) {
-        try {
-            Date dateObj = dateFormatter.parse(date);
-            Date startObj = dateFormatter.parse(startDate);
-            Date endObj = dateFormatter.parse(endDate);
-
-            if (dateObj != null && startObj != null && endObj != null) {
-                return !dateObj.before(startObj) && !dateObj.after(endObj);
-            }
-        } catch (ParseException e) {
-            Log.e("DateTimeUtils", "Error parsing date range: " + e.getMessage());
-        }
-        return false;
+        return CalendarDates.isInRange(date, startDate, endDate);
     }
 
     // ======================= WEEK CALCULATIONS =======================
 
     /**
-     * Get start of week for a given date
+     * Get start of week (Monday) for a given date
      */
     public static String getWeekStartDate(String date) {
-        try {
-            Date dateObj = dateFormatter.parse(date);
-            if (dateObj != null) {
-                Calendar cal = Calendar.getInstance();
-                cal.setTime(dateObj);
-                cal.set(Calendar.DAY_OF_WEEK, Calendar.MONDAY);
-                return dateFormatter.format(cal.getTime());
-            }
-        } catch (ParseException e) {
-            Log.e("DateTimeUtils", "Error getting week start: " + e.getMessage());
+        String weekStart = CalendarDates.weekStart(date);
+        if (weekStart == null) {
+            Log.e("DateTimeUtils", "Error getting week start: " + date);
+            return getCurrentDate();
         }
-        return getCurrentDate();
+        return weekStart;
     }
 
     /**
@@ -268,21 +240,15 @@ public class DateTimeUtils {
     }
 
     /**
-     * Get end of week for a given date
+     * Get end of week (Sunday) for a given date
      */
     public static String getWeekEndDate(String date) {
-        try {
-            Date dateObj = dateFormatter.parse(date);
-            if (dateObj != null) {
-                Calendar cal = Calendar.getInstance();
-                cal.setTime(dateObj);
-                cal.set(Calendar.DAY_OF_WEEK, Calendar.SUNDAY);
-                return dateFormatter.format(cal.getTime());
-            }
-        } catch (ParseException e) {
-            Log.e("DateTimeUtils", "Error getting week end: " + e.getMessage());
+        String weekEnd = CalendarDates.weekEnd(date);
+        if (weekEnd == null) {
+            Log.e("DateTimeUtils", "Error getting week end: " + date);
+            return getCurrentDate();
         }
-        return getCurrentDate();
+        return weekEnd;
     }
 
     /**
@@ -391,35 +357,79 @@ public class DateTimeUtils {
     public static List<TimeSlot> getAvailableSlots(String openTime, String closeTime,
                                                    int durationMinutes, int intervalMinutes) {
         List<TimeSlot> slots = new ArrayList<>();
+        for (TimeRange range : SchedulingEngine.generateSlots(openTime, closeTime, durationMinutes, intervalMinutes)) {
+            slots.add(new TimeSlot(range.getStartTime(), range.getEndTime()));
+        }
+        return slots;
+    }
 
-        try {
-            Date start = timeFormatter.parse(openTime);
-            Date end = timeFormatter.parse(closeTime);
+    /**
+     * Mark slots that overlap an active booking on the given date as unavailable
+     */
+    public static void markUnavailableSlots(List<TimeSlot> slots, List<Booking> bookings, String date) {
+        List<TimeRange> ranges = new ArrayList<>(slots.size());
+        for (TimeSlot slot : slots) {
+            ranges.add(new TimeRange(TimeOfDay.toMinutes(slot.getStartTime()), TimeOfDay.toMinutes(slot.getEndTime())));
+        }
 
-            if (start != null && end != null) {
-                Calendar cal = Calendar.getInstance();
-                cal.setTime(start);
+        boolean[] available = SchedulingEngine.availability(ranges, bookings, date);
+        for (int i = 0; i < available.length; i++) {
+            if (!available[i]) {
+                slots.get(i).setAvailable(false);
+            }
+        }
+    }
 
-                while (true) {
-                    Calendar endCal = (Calendar) cal.clone();
-                    endCal.add(Calendar.MINUTE, durationMinutes);
+    /**
+     * For a shared-capacity lab: set the seats left in each slot, marking full slots unavailable
+     */
+    public static void markRemainingSeats(List<TimeSlot> slots, List<Booking> bookings, String date, int capacity) {
+        List<TimeRange> ranges = new ArrayList<>(slots.size());
+        for (TimeSlot slot : slots) {
+            ranges.add(new TimeRange(TimeOfDay.toMinutes(slot.getStartTime()), TimeOfDay.toMinutes(slot.getEndTime())));
+        }
 
-                    if (endCal.getTime().after(end)) {
-                        break;
-                    }
+        int[] remaining = SeatOccupancy.of(bookings, date).remainingSeats(ranges, capacity);
+        for (int i = 0; i < remaining.length; i++) {
+            slots.get(i).setRemainingSeats(remaining[i]);
+            if (remaining[i] == 0) {
+                slots.get(i).setAvailable(false);
+            }
+        }
+    }
 
-                    String slotStart = timeFormatter.format(cal.getTime());
-                    String slotEnd = timeFormatter.format(endCal.getTime());
+    /**
+     * Set the units of each requested resource left in each slot, marking slots unavailable
+     * where any of them runs short
+     */
+    public static void markRemainingUnits(List<TimeSlot> slots, List<Booking> bookings, String date,
+                                          List<String> requiredResources, Map<String, Integer> inventory) {
+        Map<String, Integer> demand = ResourceOccupancy.demand(requiredResources, inventory);
+        if (demand.isEmpty()) {
+            return;
+        }
+        List<TimeRange> ranges = new ArrayList<>(slots.size());
+        for (TimeSlot slot : slots) {
+            ranges.add(new TimeRange(TimeOfDay.toMinutes(slot.getStartTime()), TimeOfDay.toMinutes(slot.getEndTime())));
+        }
 
-                    slots.add(new TimeSlot(slotStart, slotEnd));
-                    cal.add(Calendar.MINUTE, intervalMinutes);
+        ResourceOccupancy occupancy = ResourceOccupancy.of(bookings, date, inventory);
+        for (Map.Entry<String, Integer> units : demand.entrySet()) {
+            int[] remaining = occupancy.remainingUnits(units.getKey(), ranges, inventory);
+            for (int i = 0; i < remaining.length; i++) {
+                slots.get(i).getRemainingUnits().put(units.getKey(), remaining[i]);
+                if (remaining[i] < units.getValue()) {
+                    slots.get(i).setAvailable(false);
                 }
             }
-        } catch (ParseException e) {
-            Log.e("DateTimeUtils", "Error generating available slots: " + e.getMessage());
         }
+    }
 
-        return slots;
+    /**
+     * Total booked minutes in the Monday-to-Sunday week containing the target date
+     */
+    public static int getBookedMinutesInWeek(List<Booking> bookings, String targetDate) {
+        return QuotaPolicy.bookedMinutesInWeek(bookings, targetDate);
     }
 
     // ======================= DAY OF WEEK UTILITIES =======================
@@ -565,6 +575,8 @@ public class DateTimeUtils {
         private String startTime;
         private String endTime;
         private boolean isAvailable;
+        private int remainingSeats = -1; // Shared-capacity labs only; -1 when the lab is booked whole
+        private final Map<String, Integer> remainingUnits = new LinkedHashMap<>(); // Requested equipment only
 
         public TimeSlot(String startTime, String endTime) {
             this.startTime = startTime;
@@ -602,6 +614,18 @@ public class DateTimeUtils {
             isAvailable = available;
         }
 
+        public int getRemainingSeats() {
+            return remainingSeats;
+        }
+
+        public void setRemainingSeats(int remainingSeats) {
+            this.remainingSeats = remainingSeats;
+        }
+
+        public Map<String, Integer> getRemainingUnits() {
+            return remainingUnits;
+        }
+
         public String getDisplayTime() {
             return formatTimeForDisplay(startTime) + " - " + formatTimeForDisplay(endTime);
         }
@@ -612,6 +636,9 @@ public class DateTimeUtils {
 
         @Override
         public String toString() {
+            if (remainingSeats >= 0) {
+                return getDisplayTime() + " (" + remainingSeats + " seats left)";
+            }
             return getDisplayTime() + (isAvailable ? " (Available)" : " (Booked)");
         }
 
@@ -0,0 +1,53 @@
+package com.testlab.labbooking.viewmodels;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.ViewModel;
+
+import com.google.android.gms.tasks.Task;
+import com.testlab.labbooking.models.Booking;
+import com.testlab.labbooking.repositories.ApprovalQueueRepository;
+import com.testlab.labbooking.utils.AuthUtils;
+
+import java.util.List;
+
+public class ApprovalQueueViewModel extends ViewModel {
+
+    private ApprovalQueueRepository repository;
+
+    public ApprovalQueueViewModel() {
+        repository = ApprovalQueueRepository.getInstance();
+    }
+
+    public LiveData<List<Booking>> getQueue() {
+        return repository.getQueue();
+    }
+
+    public LiveData<String> getError() {
+        return repository.getErrorLiveData();
+    }
+
+    // Starts watching the queue once; later calls reuse the pages already loaded
+    public void loadQueue() {
+        repository.start(AuthUtils.getCurrentUserId());
+    }
+
+    public void loadMore() {
+        repository.loadNextPage();
+    }
+
+    public Task<List<Booking>> claimNext(int count) {
+        return repository.claimNext(count);
+    }
+
+    public boolean isHeldByOther(Booking booking) {
+        return repository.isHeldByOther(booking);
+    }
+
+    @Override
+    protected void onCleared() {
+        super.onCleared();
+        // Claims lapse on their own, but hand them back now so other admins need not wait
+        repository.releaseMyClaims();
+        repository.stop();
+    }
+}
@@ -0,0 +1,141 @@
+package com.testlab.labbooking.viewmodels;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MediatorLiveData;
+import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.ViewModel;
+
+import com.testlab.labbooking.models.Booking;
+import com.testlab.labbooking.models.BookingStatus;
+import com.testlab.labbooking.repositories.BookingRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+public class BookingViewModel extends ViewModel {
+
+    private BookingRepository repository;
+
+    // Current source stream and its in-memory filtered view
+    private BookingRepository.BookingListLiveData source;
+    private String sourceKey;
+    private MediatorLiveData<List<Booking>> bookings;
+
+    private MediatorLiveData<String> error;
+    private MutableLiveData<Boolean> isLoading;
+    private MutableLiveData<BookingStatus> statusFilter;
+
+    public BookingViewModel() {
+        repository = BookingRepository.getInstance();
+
+        bookings = new MediatorLiveData<>();
+        error = new MediatorLiveData<>();
+        isLoading = new MutableLiveData<>(false);
+        statusFilter = new MutableLiveData<>(null);
+
+        bookings.addSource(statusFilter, status -> applyFilter());
+    }
+
+    // Getters for LiveData
+    public LiveData<List<Booking>> getBookings() {
+        return bookings;
+    }
+
+    /**
+     * The current stream's last error, until {@link #onErrorShown()}
+     */
+    public LiveData<String> getError() {
+        return error;
+    }
+
+    // Call once the error has been shown, so it is not shown again when the screen re-subscribes
+    public void onErrorShown() {
+        error.setValue(null);
+    }
+
+    public LiveData<Boolean> getIsLoading() {
+        return isLoading;
+    }
+
+    public LiveData<BookingStatus> getStatusFilter() {
+        return statusFilter;
+    }
+
+    // Load operations; reloading the same view reuses the stream already held here
+    public void loadUserBookings(String userId) {
+        if (userId == null) {
+            return;
+        }
+        setSource("user:" + userId, repository::getUserBookings, userId);
+    }
+
+    public void loadPendingBookings() {
+        setSource("pending", id -> repository.getPendingBookings(), null);
+    }
+
+    public void loadTodaysBookings() {
+        setSource("today", id -> repository.getTodaysBookings(), null);
+    }
+
+    public void loadAllBookings() {
+        setSource("all", id -> repository.getAllBookings(), null);
+    }
+
+    // Status filtering happens in memory and costs no reads
+    public void filterByStatus(BookingStatus status) {
+        statusFilter.setValue(status);
+    }
+
+    public void clearFilter() {
+        statusFilter.setValue(null);
+    }
+
+    private void setSource(String key, SourceFactory factory, String argument) {
+        if (key.equals(sourceKey) && source != null) {
+            // Same view requested again (refresh, tab re-select); re-emit what we already hold
+            applyFilter();
+            return;
+        }
+
+        if (source != null) {
+            bookings.removeSource(source);
+            error.removeSource(source.getError());
+        }
+
+        sourceKey = key;
+        source = factory.create(argument);
+        isLoading.setValue(true);
+        error.setValue(null);
+        bookings.addSource(source, list -> applyFilter());
+        error.addSource(source.getError(), error::setValue);
+    }
+
+    private void applyFilter() {
+        if (source == null || !source.hasLoaded()) {
+            return;
+        }
+
+        List<Booking> all = source.getValue();
+        BookingStatus status = statusFilter.getValue();
+
+        List<Booking> filtered;
+        if (status == null) {
+            filtered = all;
+        } else {
+            filtered = new ArrayList<>();
+            for (Booking booking : all) {
+                if (Objects.equals(booking.getStatus(), status)) {
+                    filtered.add(booking);
+                }
+            }
+        }
+
+        isLoading.setValue(false);
+        bookings.setValue(filtered);
+    }
+
+    private interface SourceFactory {
+        BookingRepository.BookingListLiveData create(String argument);
+    }
+}
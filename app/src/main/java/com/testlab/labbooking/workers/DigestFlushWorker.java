@@ -0,0 +1,66 @@
+package com.testlab.labbooking.workers;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.Constraints;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.testlab.labbooking.managers.NotificationDigest;
+import com.testlab.labbooking.utils.AuthUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hourly flush of the signed-in user's notification digests whose window has ended (see
+ * {@link NotificationDigest}).
+ */
+public class DigestFlushWorker extends Worker {
+    private static final String TAG = "DigestFlushWorker";
+    private static final String WORK_NAME = "digest_flush";
+    private static final long RUN_BUDGET_MILLIS = 8 * 60 * 1000; // under WorkManager's 10 minute limit
+
+    public DigestFlushWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    /**
+     * Schedule the hourly flush; keeps an existing schedule
+     */
+    public static void schedule(Context context) {
+        Constraints constraints = new Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.CONNECTED)
+                .build();
+
+        PeriodicWorkRequest request = new PeriodicWorkRequest.Builder(
+                DigestFlushWorker.class, 1, TimeUnit.HOURS)
+                .setConstraints(constraints)
+                .build();
+
+        WorkManager.getInstance(context).enqueueUniquePeriodicWork(
+                WORK_NAME, ExistingPeriodicWorkPolicy.KEEP, request);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        String userId = AuthUtils.getCurrentUserId();
+        if (userId == null) {
+            return Result.success();
+        }
+
+        try {
+            NotificationDigest.flushDue(userId, System.currentTimeMillis() + RUN_BUDGET_MILLIS);
+            return Result.success();
+        } catch (Exception e) {
+            Log.e(TAG, "Digest flush failed", e);
+            return Result.retry();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.testlab.labbooking.workers;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.Constraints;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.google.android.gms.tasks.Tasks;
+import com.testlab.labbooking.managers.DeviceTokenRegistry;
+import com.testlab.labbooking.managers.NotificationCompactor;
+import com.testlab.labbooking.utils.AuthUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Daily background run of {@link NotificationCompactor} for the signed-in user, which also
+ * prunes the user's stale device tokens.
+ *
+ * Notifications of users who never open the app are covered by the expireAt field, which can
+ * also back a server-side Firestore TTL policy.
+ */
+public class NotificationCompactionWorker extends Worker {
+    private static final String TAG = "NotificationCompaction";
+    private static final String WORK_NAME = "notification_compaction";
+
+    public NotificationCompactionWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    /**
+     * Schedule the daily run; keeps an existing schedule
+     */
+    public static void schedule(Context context) {
+        Constraints constraints = new Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.UNMETERED)
+                .setRequiresBatteryNotLow(true)
+                .build();
+
+        PeriodicWorkRequest request = new PeriodicWorkRequest.Builder(
+                NotificationCompactionWorker.class, 1, TimeUnit.DAYS)
+                .setConstraints(constraints)
+                .build();
+
+        WorkManager.getInstance(context).enqueueUniquePeriodicWork(
+                WORK_NAME, ExistingPeriodicWorkPolicy.KEEP, request);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        String userId = AuthUtils.getCurrentUserId();
+        if (userId == null) {
+            return Result.success();
+        }
+
+        try {
+            NotificationCompactor.compact(userId);
+            Tasks.await(DeviceTokenRegistry.pruneStaleTokens(userId));
+            return Result.success();
+        } catch (Exception e) {
+            Log.e(TAG, "Notification compaction failed", e);
+            return Result.retry();
+        }
+    }
+}
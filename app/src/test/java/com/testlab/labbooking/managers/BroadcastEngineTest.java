@@ -0,0 +1,97 @@
+package com.testlab.labbooking.managers;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class BroadcastEngineTest {
+    private final FakeStore store = new FakeStore();
+    // Runs the broadcast on the test thread
+    private final BroadcastEngine engine = new BroadcastEngine(store, Runnable::run);
+
+    @Test
+    public void sendsEveryRecipientAndCompletes() {
+        Task<BroadcastEngine.BroadcastResult> result = engine.run(broadcast("u1", "u2", "u3"), null);
+
+        assertTrue(result.isSuccessful());
+        assertTrue(result.getResult().isComplete());
+        assertEquals(3, result.getResult().sent);
+        assertEquals(Arrays.asList("u1", "u2", "u3"), store.written);
+        assertEquals("u3", store.lastCheckpoint.get("cursor"));
+    }
+
+    @Test
+    public void failedRecipientsSurviveARetryWhereEveryCommitFails() {
+        BroadcastEngine.Broadcast broadcast = broadcast("u1", "u2", "u3");
+        broadcast.cursor = "u3";
+        broadcast.sent = 1;
+        broadcast.failed = 2;
+        broadcast.failedUserIds = new ArrayList<>(Arrays.asList("u1", "u2"));
+        store.failCommits = true;
+
+        Task<BroadcastEngine.BroadcastResult> result = engine.run(broadcast, null);
+
+        assertFalse(result.isSuccessful());
+        assertEquals(BroadcastEngine.STATUS_INTERRUPTED, store.lastCheckpoint.get("status"));
+        assertEquals(Arrays.asList("u1", "u2"), store.lastCheckpoint.get("failedUserIds"));
+        assertEquals(2, store.lastCheckpoint.get("failed"));
+        assertEquals(1, store.lastCheckpoint.get("sent"));
+
+        // The next resume retries them
+        store.failCommits = false;
+        Task<BroadcastEngine.BroadcastResult> resumed = engine.run(broadcast, null);
+        assertTrue(resumed.getResult().isComplete());
+        assertEquals(3, resumed.getResult().sent);
+        assertEquals(0, resumed.getResult().failed);
+        assertEquals(Arrays.asList("u1", "u2"), store.written);
+    }
+
+    @Test
+    public void firstPageFailingEverywhereKeepsTheCursor() {
+        store.failCommits = true;
+
+        Task<BroadcastEngine.BroadcastResult> result = engine.run(broadcast("u1", "u2"), null);
+
+        assertFalse(result.isSuccessful());
+        assertNull(store.lastCheckpoint.get("cursor"));
+        assertEquals(0, store.lastCheckpoint.get("sent"));
+        assertEquals(Collections.emptyList(), store.lastCheckpoint.get("failedUserIds"));
+    }
+
+    private static BroadcastEngine.Broadcast broadcast(String... recipients) {
+        BroadcastEngine.Broadcast broadcast = new BroadcastEngine.Broadcast();
+        broadcast.id = "broadcast";
+        broadcast.recipientIds = Arrays.asList(recipients);
+        return broadcast;
+    }
+
+    private static class FakeStore implements BroadcastEngine.Store {
+        boolean failCommits;
+        final List<String> written = new ArrayList<>();
+        Map<String, Object> lastCheckpoint;
+
+        @Override
+        public Task<Void> commit(BroadcastEngine.Broadcast broadcast, List<String> userIds) {
+            if (failCommits) {
+                return Tasks.forException(new IllegalStateException("offline"));
+            }
+            written.addAll(userIds);
+            return Tasks.forResult(null);
+        }
+
+        @Override
+        public Task<Void> saveCheckpoint(String broadcastId, Map<String, Object> checkpoint) {
+            lastCheckpoint = checkpoint;
+            return Tasks.forResult(null);
+        }
+    }
+}
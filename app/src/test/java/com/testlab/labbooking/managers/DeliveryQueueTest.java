@@ -0,0 +1,90 @@
+package com.testlab.labbooking.managers;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.testlab.labbooking.models.Notification;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class DeliveryQueueTest {
+    private static final long RETRY_BASE_MILLIS = 1;
+
+    @Test
+    public void failedBatchIsRetriedUntilItIsDelivered() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        NotificationDispatcher.DeliveryQueue queue = new NotificationDispatcher.DeliveryQueue("test", 10,
+                deliveries -> {
+                    if (calls.incrementAndGet() < 3) {
+                        throw new IllegalStateException("offline");
+                    }
+                }, RETRY_BASE_MILLIS);
+
+        TaskCompletionSource<Void> result = new TaskCompletionSource<>();
+        NotificationDispatcher.Delivery delivery = delivery(result);
+        queue.enqueue(delivery);
+        delivery.queued();
+
+        assertTrue(await(result.getTask()).isSuccessful());
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    public void deliveryFailsOnceItRunsOutOfAttempts() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        NotificationDispatcher.DeliveryQueue queue = new NotificationDispatcher.DeliveryQueue("test", 10,
+                deliveries -> {
+                    calls.incrementAndGet();
+                    throw new IllegalStateException("offline");
+                }, RETRY_BASE_MILLIS);
+
+        TaskCompletionSource<Void> result = new TaskCompletionSource<>();
+        NotificationDispatcher.Delivery delivery = delivery(result);
+        queue.enqueue(delivery);
+        delivery.queued();
+
+        Task<Void> task = await(result.getTask());
+        assertFalse(task.isSuccessful());
+        assertEquals("offline", task.getException().getMessage());
+        assertEquals(NotificationDispatcher.DeliveryQueue.MAX_DELIVERY_ATTEMPTS, calls.get());
+    }
+
+    @Test
+    public void completesOnlyAfterEveryChannelDelivered() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        NotificationDispatcher.DeliveryQueue fast = new NotificationDispatcher.DeliveryQueue("fast", 10,
+                deliveries -> { }, RETRY_BASE_MILLIS);
+        NotificationDispatcher.DeliveryQueue slow = new NotificationDispatcher.DeliveryQueue("slow", 10,
+                deliveries -> release.await(), RETRY_BASE_MILLIS);
+
+        TaskCompletionSource<Void> result = new TaskCompletionSource<>();
+        NotificationDispatcher.Delivery delivery = delivery(result);
+        fast.enqueue(delivery);
+        slow.enqueue(delivery);
+        delivery.queued();
+
+        Thread.sleep(50);
+        assertFalse(result.getTask().isComplete());
+
+        release.countDown();
+        assertTrue(await(result.getTask()).isSuccessful());
+    }
+
+    private static NotificationDispatcher.Delivery delivery(TaskCompletionSource<Void> result) {
+        Notification notification = new Notification("user", "Title", "Message",
+                Notification.NotificationType.ADMIN_MESSAGE);
+        return new NotificationDispatcher.Delivery(notification, null, result);
+    }
+
+    private static <T> Task<T> await(Task<T> task) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        task.addOnCompleteListener(Runnable::run, finished -> done.countDown());
+        assertTrue("Timed out", done.await(5, TimeUnit.SECONDS));
+        return task;
+    }
+}
@@ -0,0 +1,70 @@
+package com.testlab.labbooking.metrics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LatencyHistogramTest {
+    private static final long MILLIS = 1_000_000L;
+
+    @Test
+    public void emptyHistogramReportsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMeanMillis(), 0);
+        assertEquals(0, histogram.getPercentileMillis(99), 0);
+        assertEquals(0, histogram.getMaxMillis(), 0);
+    }
+
+    @Test
+    public void smallValuesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int micros = 1; micros <= 10; micros++) {
+            histogram.recordNanos(micros * 1000L);
+        }
+        assertEquals(10, histogram.getCount());
+        assertEquals(0.005, histogram.getPercentileMillis(50), 1e-9);
+        assertEquals(0.010, histogram.getPercentileMillis(100), 1e-9);
+        assertEquals(0.0055, histogram.getMeanMillis(), 1e-9);
+    }
+
+    @Test
+    public void percentilesStayWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.recordNanos(i * MILLIS);
+        }
+        assertEquals(500, histogram.getPercentileMillis(50), 500 * 0.04);
+        assertEquals(950, histogram.getPercentileMillis(95), 950 * 0.04);
+        assertEquals(990, histogram.getPercentileMillis(99), 990 * 0.04);
+        assertEquals(1000, histogram.getMaxMillis(), 0);
+    }
+
+    @Test
+    public void percentileNeverExceedsTheMaximum() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.recordNanos(1234 * MILLIS);
+        assertEquals(1234, histogram.getPercentileMillis(50), 0);
+        assertEquals(1234, histogram.getPercentileMillis(100), 0);
+    }
+
+    @Test
+    public void negativeAndHugeValuesAreClamped() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.recordNanos(-5);
+        histogram.recordNanos(Long.MAX_VALUE);
+        assertEquals(2, histogram.getCount());
+        assertEquals(0, histogram.getPercentileMillis(50), 0);
+        assertTrue(histogram.getMaxMillis() > 0);
+    }
+
+    @Test
+    public void resetClearsEverything() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.recordNanos(10 * MILLIS);
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getPercentileMillis(50), 0);
+        assertEquals(0, histogram.getMaxMillis(), 0);
+    }
+}
@@ -0,0 +1,116 @@
+package com.testlab.labbooking.metrics;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class MetricsRegistryTest {
+    private final MetricsRegistry registry = MetricsRegistry.getInstance();
+    private File reportDir;
+
+    @Before
+    public void setUp() throws IOException {
+        registry.reset();
+        reportDir = Files.createTempDirectory("metrics").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        registry.setReportDir(null);
+        File[] files = reportDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        reportDir.delete();
+    }
+
+    @Test
+    public void attributesCostToOperationsAndScreens() {
+        registry.record("labs", "Dashboard", 2_000_000, 10, 0, false, false);
+        registry.record("labs", "Dashboard", 4_000_000, 5, 0, true, false);
+        registry.record("createBooking", "Booking", 8_000_000, 0, 1, null, true);
+
+        List<OperationStats> operations = registry.getOperations();
+        OperationStats labs = operations.get(0);
+        assertEquals("labs", labs.getName());
+        assertEquals(2, labs.getCalls());
+        assertEquals(15, labs.getDocumentsRead());
+        assertEquals(1, labs.getFromCache());
+        assertEquals(1, labs.getFromServer());
+
+        OperationStats create = operations.get(1);
+        assertEquals(1, create.getErrors());
+        assertEquals(1, create.getDocumentsWritten());
+        assertEquals(0, create.getFromCache() + create.getFromServer());
+
+        ScreenStats dashboard = registry.getScreens().get(0);
+        assertEquals("Dashboard", dashboard.getScreen());
+        assertEquals(15, dashboard.getDocumentsRead());
+    }
+
+    @Test
+    public void resetClearsCounts() {
+        registry.record("labs", "Dashboard", 1_000_000, 3, 0, false, false);
+        registry.reset();
+        for (OperationStats operation : registry.getOperations()) {
+            assertEquals(0, operation.getCalls());
+            assertEquals(0, operation.getDocumentsRead());
+        }
+    }
+
+    @Test
+    public void noReportWithoutADirectory() throws Exception {
+        registry.setReportDir(null);
+        assertTrue(registry.writeSessionReport().isDone());
+    }
+
+    @Test
+    public void writesTheSessionReportInTheBackground() throws Exception {
+        registry.setReportDir(reportDir);
+        registry.record("labs", "Dashboard", 1_000_000, 7, 0, false, false);
+
+        registry.writeSessionReport().get(5, TimeUnit.SECONDS);
+        File[] reports = reportDir.listFiles();
+        assertEquals(1, reports.length);
+        assertTrue(reports[0].getName().startsWith("session-"));
+        assertTrue(read(reports[0]).contains("Session: 7 reads"));
+    }
+
+    @Test
+    public void endSessionWritesTheReportTakenBeforeTheReset() throws Exception {
+        registry.setReportDir(reportDir);
+        registry.record("labs", "Dashboard", 1_000_000, 4, 0, false, false);
+
+        registry.endSession().get(5, TimeUnit.SECONDS);
+        assertTrue(read(reportDir.listFiles()[0]).contains("Session: 4 reads"));
+        assertEquals(0, registry.getScreens().get(0).getDocumentsRead());
+    }
+
+    @Test
+    public void keepsOnlyTheLatestReports() throws Exception {
+        for (int i = 0; i < 12; i++) {
+            assertTrue(new File(reportDir, String.format("session-20200101-0000%02d.txt", i)).createNewFile());
+        }
+        registry.setReportDir(reportDir);
+
+        registry.writeSessionReport().get(5, TimeUnit.SECONDS);
+        File[] reports = reportDir.listFiles();
+        assertEquals(10, reports.length);
+        assertFalse(new File(reportDir, "session-20200101-000000.txt").exists());
+    }
+
+    private static String read(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,77 @@
+package com.testlab.labbooking.startup;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+
+import static org.junit.Assert.*;
+
+public class StartupPipelineTest {
+    private long now = 0;
+    private final StartupTrace trace = new StartupTrace(() -> now++, 0);
+    private final Queue<Runnable> startupThread = new ArrayDeque<>();
+    private final StartupPipeline pipeline = new StartupPipeline(trace, startupThread::add);
+    private final List<String> ran = new ArrayList<>();
+
+    @Test
+    public void criticalStepsRunBeforeReturningAndBackgroundOnesAreQueued() {
+        pipeline.critical("c1", () -> ran.add("c1"))
+                .background("b1", () -> ran.add("b1"))
+                .critical("c2", () -> ran.add("c2"))
+                .background("b2", () -> ran.add("b2"));
+
+        pipeline.runCritical();
+        assertEquals(Arrays.asList("c1", "c2"), ran);
+
+        drain();
+        assertEquals(Arrays.asList("c1", "c2", "b1", "b2"), ran);
+    }
+
+    @Test
+    public void deferredStepsWaitAndRunOnce() {
+        pipeline.background("b", () -> ran.add("b"))
+                .deferred("d1", () -> ran.add("d1"))
+                .deferred("d2", () -> ran.add("d2"));
+
+        pipeline.runCritical();
+        drain();
+        assertEquals(Collections.singletonList("b"), ran);
+
+        pipeline.startDeferred();
+        pipeline.startDeferred(); // first frame and the fallback timer both call it
+        drain();
+        assertEquals(Arrays.asList("b", "d1", "d2"), ran);
+    }
+
+    @Test
+    public void failedBackgroundStepDoesNotStopTheNext() {
+        pipeline.background("broken", () -> {
+                    throw new IllegalStateException("boom");
+                })
+                .background("after", () -> ran.add("after"));
+
+        pipeline.runCritical();
+        drain();
+        assertEquals(Collections.singletonList("after"), ran);
+        assertTrue(trace.getPhases().get(0).failed);
+    }
+
+    @Test
+    public void firstFrameIsMarkedUnderItsKey() {
+        assertEquals(-1, trace.getMarkNanos(StartupPipeline.FIRST_FRAME));
+        pipeline.markFirstFrame();
+        assertTrue(trace.getMarkNanos(StartupPipeline.FIRST_FRAME) >= 0);
+    }
+
+    private void drain() {
+        Runnable task;
+        while ((task = startupThread.poll()) != null) {
+            task.run();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.testlab.labbooking.startup;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class StartupTraceTest {
+    private static final long MILLIS = 1_000_000L;
+
+    private long now = 100 * MILLIS;
+    private final StartupTrace trace = new StartupTrace(() -> now, 40 * MILLIS);
+
+    @Test
+    public void recordsPhasesRelativeToProcessStart() {
+        trace.run("firebase", () -> now += 15 * MILLIS);
+
+        List<StartupTrace.Phase> phases = trace.getPhases();
+        assertEquals(1, phases.size());
+        StartupTrace.Phase phase = phases.get(0);
+        assertEquals("firebase", phase.name);
+        assertEquals(Thread.currentThread().getName(), phase.thread);
+        assertEquals(60 * MILLIS, phase.startNanos);
+        assertEquals(15 * MILLIS, phase.durationNanos);
+        assertFalse(phase.failed);
+    }
+
+    @Test
+    public void failedPhaseIsRecordedAndRethrown() {
+        try {
+            trace.run("broken", () -> {
+                now += 2 * MILLIS;
+                throw new IllegalStateException("boom");
+            });
+            fail("expected the phase's exception");
+        } catch (IllegalStateException expected) {
+            // rethrown as is
+        }
+        StartupTrace.Phase phase = trace.getPhases().get(0);
+        assertTrue(phase.failed);
+        assertEquals(2 * MILLIS, phase.durationNanos);
+    }
+
+    @Test
+    public void marksAreFoundByExactName() {
+        now = 250 * MILLIS;
+        trace.mark(StartupPipeline.FIRST_FRAME);
+        assertEquals(210 * MILLIS, trace.getMarkNanos(StartupPipeline.FIRST_FRAME));
+        assertEquals(-1, trace.getMarkNanos("never"));
+    }
+
+    @Test
+    public void sumsTimePerThread() throws InterruptedException {
+        trace.run("a", () -> now += 3 * MILLIS);
+        trace.run("b", () -> now += 4 * MILLIS);
+        Thread other = new Thread(() -> trace.run("c", () -> now += 5 * MILLIS), "startup");
+        other.start();
+        other.join();
+
+        String caller = Thread.currentThread().getName();
+        assertEquals(7 * MILLIS, trace.getThreadNanos(caller));
+        assertEquals(5 * MILLIS, trace.getThreadNanos("startup"));
+    }
+
+    @Test
+    public void reportListsPhasesThenMarks() {
+        trace.run("firebase", () -> now += MILLIS);
+        trace.run("metrics", () -> now += MILLIS);
+        trace.mark(StartupPipeline.FIRST_FRAME);
+
+        String report = trace.report();
+        assertTrue(report.indexOf("firebase") < report.indexOf("metrics"));
+        assertTrue(report.indexOf("metrics") < report.indexOf(StartupPipeline.FIRST_FRAME + " at 62.0 ms"));
+    }
+}
@@ -0,0 +1,47 @@
+// JMH suites for the scheduling and date/time hot paths.
+//   ./gradlew :benchmarks:jmh            results in benchmarks/build/results/jmh/results.json
+//   ./gradlew :benchmarks:jmh -Pjmh.includes=SlotAvailability
+plugins {
+    `java-library`
+    alias(libs.plugins.jmh)
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+// The measured code is compiled straight from the app's sources. Only classes that need
+// nothing from Android beyond android.util.Log and Parcel are listed; the Firestore mapping
+// annotations they carry are stubbed in src/main/java.
+val appSources = listOf(
+    "com/testlab/labbooking/utils/DateTimeUtils.java",
+    "com/testlab/labbooking/models/Booking.java",
+    "com/testlab/labbooking/models/BookingStatus.java",
+)
+
+sourceSets {
+    main {
+        java {
+            srcDir(rootProject.file("app/src/main/java"))
+            include(appSources)
+            include("com/google/firebase/firestore/**")
+        }
+    }
+}
+
+dependencies {
+    implementation(project(":core"))
+    // Method bodies throw at runtime; the benchmarks never reach Log or Parcel
+    implementation(libs.android.stubs)
+}
+
+jmh {
+    jmhVersion.set(libs.versions.jmh)
+    includes.set(listOfNotNull(findProperty("jmh.includes") as String?))
+    resultFormat.set("JSON")
+    resultsFile.set(layout.buildDirectory.file("results/jmh/results.json"))
+    fork.set(1)
+    warmupIterations.set(3)
+    iterations.set(5)
+}
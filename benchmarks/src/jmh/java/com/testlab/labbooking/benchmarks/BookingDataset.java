@@ -0,0 +1,66 @@
+package com.testlab.labbooking.benchmarks;
+
+import com.testlab.labbooking.models.Booking;
+import com.testlab.labbooking.models.BookingStatus;
+import com.testlab.labbooking.utils.DateTimeUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Seeded booking data shaped like a busy lab: bookings between the lab's opening hours, 30 to
+ * 180 minutes long on half-hour boundaries, mostly pending or approved, a few in other states
+ * and some on neighbouring days.
+ */
+final class BookingDataset {
+    static final String OPEN_TIME = "08:00";
+    static final String CLOSE_TIME = "20:00";
+    static final String LAB_ID = "lab-bench";
+
+    private static final BookingStatus[] STATUSES = {
+            BookingStatus.PENDING, BookingStatus.APPROVED, BookingStatus.APPROVED,
+            BookingStatus.APPROVED, BookingStatus.CANCELLED, BookingStatus.COMPLETED,
+            BookingStatus.REJECTED
+    };
+
+    private BookingDataset() {
+    }
+
+    /**
+     * A booking date a week out, so date checks never see it as past
+     */
+    static String targetDate() {
+        return DateTimeUtils.getDateFromToday(7);
+    }
+
+    /**
+     * {@code count} bookings for one lab; about 80% fall on {@code date}, the rest within
+     * three days either side
+     */
+    static List<Booking> bookings(int count, String date, long seed) {
+        Random random = new Random(seed);
+        List<Booking> bookings = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int startSlot = random.nextInt(22);              // 08:00 .. 18:30
+            int lengthSlots = 1 + random.nextInt(Math.min(6, 24 - startSlot));
+            String day = random.nextInt(5) == 0 ?
+                    DateTimeUtils.addDaysToDate(date, random.nextInt(7) - 3) : date;
+
+            Booking booking = new Booking(LAB_ID, "user-" + random.nextInt(count), "Bench Lab",
+                    "Student " + i, day, time(startSlot), time(startSlot + lengthSlots),
+                    "Experiment " + i);
+            booking.setId("booking-" + i);
+            booking.setStatus(STATUSES[random.nextInt(STATUSES.length)]);
+            booking.setNumberOfParticipants(1 + random.nextInt(4));
+            bookings.add(booking);
+        }
+        return bookings;
+    }
+
+    private static String time(int halfHourSlot) {
+        int minutes = 8 * 60 + halfHourSlot * 30;
+        return String.format(Locale.US, "%02d:%02d", minutes / 60, minutes % 60);
+    }
+}
@@ -0,0 +1,54 @@
+package com.testlab.labbooking.benchmarks;
+
+import com.testlab.labbooking.models.Booking;
+import com.testlab.labbooking.utils.DateTimeUtils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Booking validation and mapping bookings to calendar events
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BookingModelBenchmark {
+    @Param({"10", "100", "1000", "10000"})
+    public int bookings;
+
+    private List<Booking> dataset;
+
+    @Setup
+    public void setUp() {
+        dataset = BookingDataset.bookings(bookings, BookingDataset.targetDate(), 11);
+    }
+
+    @Benchmark
+    public void validationErrors(Blackhole blackhole) {
+        for (Booking booking : dataset) {
+            blackhole.consume(booking.getValidationErrors());
+        }
+    }
+
+    @Benchmark
+    public void isValid(Blackhole blackhole) {
+        for (Booking booking : dataset) {
+            blackhole.consume(booking.isValid());
+        }
+    }
+
+    @Benchmark
+    public List<DateTimeUtils.CalendarEvent> calendarEvents() {
+        return DateTimeUtils.getCalendarEvents(dataset);
+    }
+}
@@ -0,0 +1,62 @@
+package com.testlab.labbooking.benchmarks;
+
+import com.testlab.labbooking.utils.DateTimeUtils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The string parsing behind every date and time comparison in the app
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DateTimeBenchmark {
+    private String date;
+    private String weekStart;
+    private String weekEnd;
+
+    @Setup
+    public void setUp() {
+        date = BookingDataset.targetDate();
+        weekStart = DateTimeUtils.getWeekStartDate(date);
+        weekEnd = DateTimeUtils.getWeekEndDate(date);
+    }
+
+    @Benchmark
+    public boolean timeSlotsOverlap() {
+        return DateTimeUtils.doTimeSlotsOverlap("09:30", "11:00", "10:30", "12:00");
+    }
+
+    @Benchmark
+    public int timeDifference() {
+        return DateTimeUtils.getTimeDifferenceInMinutes("09:30", "11:00");
+    }
+
+    @Benchmark
+    public boolean timeAfter() {
+        return DateTimeUtils.isTimeAfter("11:00", "09:30");
+    }
+
+    @Benchmark
+    public boolean dateInRange() {
+        return DateTimeUtils.isDateInRange(date, weekStart, weekEnd);
+    }
+
+    @Benchmark
+    public String weekStartDate() {
+        return DateTimeUtils.getWeekStartDate(date);
+    }
+
+    @Benchmark
+    public boolean pastDate() {
+        return DateTimeUtils.isPastDate(date);
+    }
+}
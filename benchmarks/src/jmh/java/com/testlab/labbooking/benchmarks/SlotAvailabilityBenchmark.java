@@ -0,0 +1,64 @@
+package com.testlab.labbooking.benchmarks;
+
+import com.testlab.labbooking.core.SchedulingEngine;
+import com.testlab.labbooking.core.TimeRange;
+import com.testlab.labbooking.models.Booking;
+import com.testlab.labbooking.utils.DateTimeUtils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Slot generation and the slot marking done by BookingManager.getAvailableTimeSlots, for one
+ * lab-day with a growing number of bookings; engineAvailability skips the TimeSlot conversion
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SlotAvailabilityBenchmark {
+    @Param({"10", "100", "1000", "10000"})
+    public int bookingsPerLabDay;
+
+    @Param({"60", "120"})
+    public int durationMinutes;
+
+    private String date;
+    private List<Booking> bookings;
+    private List<TimeRange> ranges;
+
+    @Setup
+    public void setUp() {
+        date = BookingDataset.targetDate();
+        bookings = BookingDataset.bookings(bookingsPerLabDay, date, 42);
+        ranges = SchedulingEngine.generateSlots(BookingDataset.OPEN_TIME, BookingDataset.CLOSE_TIME,
+                durationMinutes, 30);
+    }
+
+    @Benchmark
+    public List<DateTimeUtils.TimeSlot> generateSlots() {
+        return DateTimeUtils.getAvailableSlots(BookingDataset.OPEN_TIME, BookingDataset.CLOSE_TIME,
+                durationMinutes, 30);
+    }
+
+    @Benchmark
+    public List<DateTimeUtils.TimeSlot> generateAndMarkSlots() {
+        List<DateTimeUtils.TimeSlot> slots = DateTimeUtils.getAvailableSlots(
+                BookingDataset.OPEN_TIME, BookingDataset.CLOSE_TIME, durationMinutes, 30);
+        DateTimeUtils.markUnavailableSlots(slots, bookings, date);
+        return slots;
+    }
+
+    @Benchmark
+    public boolean[] engineAvailability() {
+        return SchedulingEngine.availability(ranges, bookings, date);
+    }
+}
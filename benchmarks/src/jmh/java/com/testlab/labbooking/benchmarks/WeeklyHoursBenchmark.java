@@ -0,0 +1,41 @@
+package com.testlab.labbooking.benchmarks;
+
+import com.testlab.labbooking.models.Booking;
+import com.testlab.labbooking.utils.DateTimeUtils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The weekly quota sum behind DatabaseUtils.calculateWeeklyHours
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class WeeklyHoursBenchmark {
+    @Param({"10", "100", "1000", "10000"})
+    public int bookings;
+
+    private String date;
+    private List<Booking> userBookings;
+
+    @Setup
+    public void setUp() {
+        date = BookingDataset.targetDate();
+        userBookings = BookingDataset.bookings(bookings, date, 7);
+    }
+
+    @Benchmark
+    public int bookedMinutesInWeek() {
+        return DateTimeUtils.getBookedMinutesInWeek(userBookings, date);
+    }
+}
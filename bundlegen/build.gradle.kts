@@ -0,0 +1,24 @@
+// Generates the lab catalog Firestore bundle the app ships. Release builds run it through
+// :app:generateLabCatalogBundle; to write app/src/main/assets/bundles by hand instead, e.g. from
+// the emulator:
+//   FIRESTORE_EMULATOR_HOST=localhost:8080 ./gradlew :bundlegen:run --args="<project-id>"
+plugins {
+    application
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+application {
+    mainClass.set("com.testlab.labbooking.bundlegen.BundleGenerator")
+}
+
+tasks.named<JavaExec>("run") {
+    workingDir = rootDir
+}
+
+dependencies {
+    implementation(libs.firebase.admin)
+}
@@ -0,0 +1,95 @@
+package com.testlab.labbooking.bundlegen;
+
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.FirestoreBundle;
+import com.google.cloud.firestore.FirestoreOptions;
+import com.google.cloud.firestore.Query;
+import com.google.cloud.firestore.QuerySnapshot;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Builds the lab catalog data bundle the app loads on first launch (see LabCatalogBundle).
+ *
+ * The named queries must match the app's lab queries exactly (collection, filters and order),
+ * otherwise the app cannot answer them from the bundled documents.
+ *
+ * Usage: {@code BundleGenerator <project-id> [output-file]}. Reads from the Firestore emulator
+ * when FIRESTORE_EMULATOR_HOST is set, otherwise from the project with default credentials.
+ */
+public class BundleGenerator {
+    private static final String BUNDLE_ID = "lab-catalog";
+    private static final String DEFAULT_OUTPUT = "app/src/main/assets/bundles/lab_catalog.bundle";
+
+    // Mirrors DatabaseUtils and LabCatalogBundle in the app
+    private static final String LABS_COLLECTION = "labs";
+    private static final String FIELD_ACTIVE = "isActive";
+    private static final String FIELD_PRIORITY = "priority";
+    private static final String ACTIVE_LABS_QUERY = "active-labs";
+    private static final String AVAILABLE_LABS_QUERY_PREFIX = "available-labs-";
+    private static final String[] ROLES = {"student", "faculty", "admin"};
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: BundleGenerator <project-id> [output-file]");
+            System.exit(1);
+        }
+        String projectId = args[0];
+        File output = new File(args.length > 1 ? args[1] : DEFAULT_OUTPUT);
+
+        String emulator = System.getenv("FIRESTORE_EMULATOR_HOST");
+        System.out.println("Reading " + projectId + (emulator != null ? " from emulator " + emulator : ""));
+
+        Firestore db = FirestoreOptions.getDefaultInstance().toBuilder()
+                .setProjectId(projectId)
+                .build()
+                .getService();
+
+        try {
+            FirestoreBundle.Builder bundle = db.bundleBuilder(BUNDLE_ID);
+            add(bundle, ACTIVE_LABS_QUERY, labsQuery(db, null));
+            for (String role : ROLES) {
+                add(bundle, AVAILABLE_LABS_QUERY_PREFIX + role, labsQuery(db, role));
+            }
+            write(bundle.build().toByteBuffer(), output);
+        } finally {
+            db.close();
+        }
+    }
+
+    /**
+     * getActiveLabsQuery(), or getAvailableLabsForUserQuery(role) when a role is given
+     */
+    private static Query labsQuery(Firestore db, String role) {
+        Query query = db.collection(LABS_COLLECTION)
+                .whereEqualTo(FIELD_ACTIVE, true)
+                .whereEqualTo("maintenanceMode", false);
+        if (role != null) {
+            query = query.whereArrayContains("allowedUserTypes", role);
+        }
+        return query.orderBy(FIELD_PRIORITY, Query.Direction.ASCENDING)
+                .orderBy("name", Query.Direction.ASCENDING);
+    }
+
+    private static void add(FirestoreBundle.Builder bundle, String name, Query query) throws Exception {
+        QuerySnapshot snapshot = query.get().get();
+        bundle.add(name, snapshot);
+        System.out.println(name + ": " + snapshot.size() + " labs");
+    }
+
+    private static void write(ByteBuffer data, File output) throws Exception {
+        File dir = output.getAbsoluteFile().getParentFile();
+        if (dir != null && !dir.isDirectory() && !dir.mkdirs()) {
+            throw new IllegalStateException("Cannot create " + dir);
+        }
+        try (FileChannel channel = new FileOutputStream(output).getChannel()) {
+            while (data.hasRemaining()) {
+                channel.write(data);
+            }
+        }
+        System.out.println("Wrote " + output.length() + " bytes to " + output);
+    }
+}
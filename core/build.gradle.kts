@@ -0,0 +1,15 @@
+// Booking rules with no Android or Firestore dependencies: the scheduling engine, validation,
+// quota math and refund policy. Used by the app, the benchmarks and anything else on a JVM.
+plugins {
+    `java-library`
+}
+
+java {
+    // java.util only (no java.time), so the app needs no desugaring on minSdk 24
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+dependencies {
+    testImplementation(libs.junit)
+}
@@ -0,0 +1,196 @@
+package com.testlab.labbooking.core;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.Predicate;
+
+/**
+ * The pending-approval queue in memory: a binary min-heap ordered like the pending bookings
+ * query (priority, then creation time, then ID as a tie-breaker), indexed by booking ID so a
+ * document change updates or removes its entry in O(log n) instead of rebuilding the queue.
+ *
+ * Not thread-safe; the app keeps it on the main thread where Firestore delivers changes.
+ */
+public class ApprovalHeap<T> {
+    private final List<Entry<T>> heap = new ArrayList<>();
+    private final Map<String, Entry<T>> byId = new HashMap<>();
+
+    /**
+     * Add an entry or move an existing one to its new position
+     */
+    public void upsert(String id, int priority, long createdAtMillis, T value) {
+        Entry<T> entry = byId.get(id);
+        if (entry == null) {
+            entry = new Entry<>(id, priority, createdAtMillis, value);
+            entry.index = heap.size();
+            heap.add(entry);
+            byId.put(id, entry);
+            siftUp(entry.index);
+            return;
+        }
+
+        entry.value = value;
+        int order = compareKey(priority, createdAtMillis, id, entry);
+        entry.priority = priority;
+        entry.createdAtMillis = createdAtMillis;
+        if (order < 0) {
+            siftUp(entry.index);
+        } else if (order > 0) {
+            siftDown(entry.index);
+        }
+    }
+
+    /**
+     * Remove an entry; returns its value, or null if it was not queued
+     */
+    public T remove(String id) {
+        Entry<T> entry = byId.remove(id);
+        if (entry == null) {
+            return null;
+        }
+        int index = entry.index;
+        Entry<T> last = heap.remove(heap.size() - 1);
+        if (last != entry) {
+            heap.set(index, last);
+            last.index = index;
+            siftDown(index);
+            siftUp(last.index);
+        }
+        return entry.value;
+    }
+
+    public T get(String id) {
+        Entry<T> entry = byId.get(id);
+        return entry != null ? entry.value : null;
+    }
+
+    public boolean contains(String id) {
+        return byId.containsKey(id);
+    }
+
+    public T peek() {
+        return heap.isEmpty() ? null : heap.get(0).value;
+    }
+
+    public int size() {
+        return heap.size();
+    }
+
+    public boolean isEmpty() {
+        return heap.isEmpty();
+    }
+
+    public void clear() {
+        heap.clear();
+        byId.clear();
+    }
+
+    /**
+     * The first {@code limit} values in queue order that match {@code filter}, without
+     * changing the heap. Walks the heap best-first, so it costs O(k log k) for the k entries
+     * visited rather than sorting the whole queue.
+     */
+    public List<T> first(int limit, Predicate<T> filter) {
+        List<T> result = new ArrayList<>(Math.min(limit, heap.size()));
+        if (heap.isEmpty() || limit <= 0) {
+            return result;
+        }
+        PriorityQueue<Entry<T>> frontier = new PriorityQueue<>(ApprovalHeap::compare);
+        frontier.add(heap.get(0));
+        while (!frontier.isEmpty() && result.size() < limit) {
+            Entry<T> entry = frontier.poll();
+            if (filter == null || filter.test(entry.value)) {
+                result.add(entry.value);
+            }
+            int child = 2 * entry.index + 1;
+            if (child < heap.size()) {
+                frontier.add(heap.get(child));
+            }
+            if (child + 1 < heap.size()) {
+                frontier.add(heap.get(child + 1));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Every value in queue order
+     */
+    public List<T> toList() {
+        return first(heap.size(), null);
+    }
+
+    // ======================= HEAP =======================
+
+    private void siftUp(int index) {
+        Entry<T> entry = heap.get(index);
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            Entry<T> above = heap.get(parent);
+            if (compare(entry, above) >= 0) {
+                break;
+            }
+            place(above, index);
+            index = parent;
+        }
+        place(entry, index);
+    }
+
+    private void siftDown(int index) {
+        Entry<T> entry = heap.get(index);
+        int size = heap.size();
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && compare(heap.get(child + 1), heap.get(child)) < 0) {
+                child++;
+            }
+            Entry<T> below = heap.get(child);
+            if (compare(below, entry) >= 0) {
+                break;
+            }
+            place(below, index);
+            index = child;
+        }
+        place(entry, index);
+    }
+
+    private void place(Entry<T> entry, int index) {
+        heap.set(index, entry);
+        entry.index = index;
+    }
+
+    private static int compare(Entry<?> a, Entry<?> b) {
+        return compareKey(a.priority, a.createdAtMillis, a.id, b);
+    }
+
+    private static int compareKey(int priority, long createdAtMillis, String id, Entry<?> other) {
+        if (priority != other.priority) {
+            return Integer.compare(priority, other.priority);
+        }
+        if (createdAtMillis != other.createdAtMillis) {
+            return Long.compare(createdAtMillis, other.createdAtMillis);
+        }
+        return id.compareTo(other.id);
+    }
+
+    private static class Entry<T> {
+        final String id;
+        int priority;
+        long createdAtMillis;
+        T value;
+        int index;
+
+        Entry(String id, int priority, long createdAtMillis, T value) {
+            this.id = id;
+            this.priority = priority;
+            this.createdAtMillis = createdAtMillis;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,376 @@
+package com.testlab.labbooking.core;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Declarative rules that approve a booking at creation time instead of sending it to the
+ * approval queue.
+ *
+ * Rules come from the settings document as a list of maps and are compiled once into a chain of
+ * predicates. Each rule names an action ("approve" or "review") and any of these conditions,
+ * all of which must hold:
+ * <ul>
+ *     <li>{@code roles}: the user's role is one of these;</li>
+ *     <li>{@code categories}: the lab's category is one of these;</li>
+ *     <li>{@code maxDurationMinutes}, {@code maxParticipants};</li>
+ *     <li>{@code peakStart} / {@code peakEnd} ("HH:mm"): the booking stays outside this window;</li>
+ *     <li>{@code minApprovedBookings}, {@code maxRejectedBookings}: the user's history;</li>
+ *     <li>{@code minRemainingCapacityPercent}: share of the lab's opening hours that day still
+ *     free once this booking is placed.</li>
+ * </ul>
+ * The first rule that matches decides; a "review" rule carves out an exception that a later
+ * "approve" rule would otherwise cover. When no rule matches the booking waits for an admin.
+ *
+ * Within a rule, every condition is a constant-time check on the request except remaining
+ * capacity, the only one that needs the lab's bookings for the day, which runs last. If
+ * evaluation reaches it before the caller has supplied the capacity, the decision asks for it
+ * instead of guessing, so the caller only reads the day's bookings when a rule really depends
+ * on them.
+ */
+public final class AutoApprovalPolicy {
+    public static final String ACTION_APPROVE = "approve";
+    public static final String ACTION_REVIEW = "review";
+
+    /**
+     * Remaining capacity not yet known
+     */
+    public static final int UNKNOWN = -1;
+
+    private static final AutoApprovalPolicy NONE = new AutoApprovalPolicy(Collections.emptyList());
+
+    private final List<Rule> rules;
+
+    private AutoApprovalPolicy(List<Rule> rules) {
+        this.rules = rules;
+    }
+
+    /**
+     * A policy that approves nothing
+     */
+    public static AutoApprovalPolicy none() {
+        return NONE;
+    }
+
+    /**
+     * Compile rule maps as stored in the settings document
+     *
+     * @throws IllegalArgumentException for an unknown action or key, or an invalid value
+     */
+    public static AutoApprovalPolicy compile(List<? extends Map<String, Object>> ruleMaps) {
+        if (ruleMaps == null || ruleMaps.isEmpty()) {
+            return NONE;
+        }
+        List<Rule> rules = new ArrayList<>(ruleMaps.size());
+        for (int i = 0; i < ruleMaps.size(); i++) {
+            rules.add(compileRule(ruleMaps.get(i), i));
+        }
+        return new AutoApprovalPolicy(Collections.unmodifiableList(rules));
+    }
+
+    public boolean isEmpty() {
+        return rules.isEmpty();
+    }
+
+    public int size() {
+        return rules.size();
+    }
+
+    /**
+     * Whether any rule checks the user's approved or rejected bookings, so the caller knows
+     * whether the history is worth reading
+     */
+    public boolean usesHistory() {
+        for (Rule rule : rules) {
+            if (rule.usesHistory) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public Decision evaluate(Request request) {
+        for (Rule rule : rules) {
+            Match match = rule.match(request);
+            if (match == Match.NEEDS_CAPACITY) {
+                return new Decision(Outcome.NEEDS_CAPACITY, rule.name);
+            }
+            if (match == Match.YES) {
+                return new Decision(rule.approve ? Outcome.APPROVE : Outcome.REVIEW, rule.name);
+            }
+        }
+        return new Decision(Outcome.REVIEW, null);
+    }
+
+    /**
+     * Percent of the lab's opening hours on the day that stays free once [start, end) is booked
+     * alongside the given reservations; overlapping reservations count once. 0 when the opening
+     * hours are invalid.
+     */
+    public static int remainingCapacityPercent(Collection<? extends Reservation> reservations, String date,
+                                               String openTime, String closeTime,
+                                               String startTime, String endTime) {
+        int open = TimeOfDay.toMinutes(openTime);
+        int close = TimeOfDay.toMinutes(closeTime);
+        if (open == TimeOfDay.INVALID || close == TimeOfDay.INVALID || close <= open) {
+            return 0;
+        }
+
+        List<TimeRange> booked = new ArrayList<>();
+        addClipped(booked, TimeOfDay.toMinutes(startTime), TimeOfDay.toMinutes(endTime), open, close);
+        for (Reservation reservation : reservations) {
+            if (reservation != null && reservation.isActive() && date.equals(reservation.getDate())) {
+                addClipped(booked, TimeOfDay.toMinutes(reservation.getStartTime()),
+                        TimeOfDay.toMinutes(reservation.getEndTime()), open, close);
+            }
+        }
+        Collections.sort(booked, (a, b) -> Integer.compare(a.start, b.start));
+
+        int bookedMinutes = 0;
+        int coveredTo = open;
+        for (TimeRange range : booked) {
+            int from = Math.max(range.start, coveredTo);
+            if (range.end > from) {
+                bookedMinutes += range.end - from;
+                coveredTo = range.end;
+            }
+        }
+        int openMinutes = close - open;
+        return (openMinutes - bookedMinutes) * 100 / openMinutes;
+    }
+
+    private static void addClipped(List<TimeRange> ranges, int start, int end, int open, int close) {
+        if (start == TimeOfDay.INVALID || end == TimeOfDay.INVALID) {
+            return;
+        }
+        start = Math.max(start, open);
+        end = Math.min(end, close);
+        if (start < end) {
+            ranges.add(new TimeRange(start, end));
+        }
+    }
+
+    // ======================= COMPILING =======================
+
+    private static Rule compileRule(Map<String, Object> map, int index) {
+        if (map == null) {
+            throw new IllegalArgumentException("Rule " + index + " is empty");
+        }
+        Object nameValue = map.get("name");
+        String name = nameValue != null ? nameValue.toString() : "rule" + index;
+
+        Object actionValue = map.get("action");
+        String action = actionValue != null ? actionValue.toString() : ACTION_APPROVE;
+        if (!ACTION_APPROVE.equals(action) && !ACTION_REVIEW.equals(action)) {
+            throw new IllegalArgumentException(name + ": unknown action " + action);
+        }
+
+        List<Predicate<Request>> conditions = new ArrayList<>();
+        boolean usesHistory = false;
+        int minCapacity = UNKNOWN;
+        String peakStart = null;
+        String peakEnd = null;
+
+        for (Map.Entry<String, Object> entry : map.entrySet()) {
+            String key = entry.getKey();
+            Object value = entry.getValue();
+            switch (key) {
+                case "name":
+                case "action":
+                    break;
+                case "roles": {
+                    Set<String> roles = lowerCaseSet(name, key, value);
+                    conditions.add(r -> r.role != null && roles.contains(r.role.toLowerCase(Locale.US)));
+                    break;
+                }
+                case "categories": {
+                    Set<String> categories = lowerCaseSet(name, key, value);
+                    conditions.add(r -> r.category != null &&
+                            categories.contains(r.category.toLowerCase(Locale.US)));
+                    break;
+                }
+                case "maxDurationMinutes": {
+                    int max = number(name, key, value);
+                    conditions.add(r -> r.endMinutes - r.startMinutes <= max);
+                    break;
+                }
+                case "maxParticipants": {
+                    int max = number(name, key, value);
+                    conditions.add(r -> r.participants <= max);
+                    break;
+                }
+                case "minApprovedBookings": {
+                    int min = number(name, key, value);
+                    conditions.add(r -> r.approvedBookings >= min);
+                    usesHistory = true;
+                    break;
+                }
+                case "maxRejectedBookings": {
+                    int max = number(name, key, value);
+                    conditions.add(r -> r.rejectedBookings <= max);
+                    usesHistory = true;
+                    break;
+                }
+                case "peakStart":
+                    peakStart = String.valueOf(value);
+                    break;
+                case "peakEnd":
+                    peakEnd = String.valueOf(value);
+                    break;
+                case "minRemainingCapacityPercent":
+                    minCapacity = number(name, key, value);
+                    break;
+                default:
+                    throw new IllegalArgumentException(name + ": unknown condition " + key);
+            }
+        }
+
+        if (peakStart != null || peakEnd != null) {
+            int start = TimeOfDay.toMinutes(peakStart);
+            int end = TimeOfDay.toMinutes(peakEnd);
+            if (start == TimeOfDay.INVALID || end == TimeOfDay.INVALID || end <= start) {
+                throw new IllegalArgumentException(name + ": peakStart and peakEnd must be a valid HH:mm window");
+            }
+            TimeRange peak = new TimeRange(start, end);
+            conditions.add(r -> !peak.overlaps(r.startMinutes, r.endMinutes));
+        }
+
+        return new Rule(name, ACTION_APPROVE.equals(action), conditions, usesHistory, minCapacity);
+    }
+
+    private static Set<String> lowerCaseSet(String rule, String key, Object value) {
+        if (!(value instanceof Collection)) {
+            throw new IllegalArgumentException(rule + ": " + key + " must be a list");
+        }
+        Set<String> set = new HashSet<>();
+        for (Object item : (Collection<?>) value) {
+            if (item != null) {
+                set.add(item.toString().toLowerCase(Locale.US));
+            }
+        }
+        return set;
+    }
+
+    private static int number(String rule, String key, Object value) {
+        // Firestore hands back whole numbers as Long
+        if (!(value instanceof Number)) {
+            throw new IllegalArgumentException(rule + ": " + key + " must be a number");
+        }
+        return ((Number) value).intValue();
+    }
+
+    // ======================= TYPES =======================
+
+    private enum Match {
+        YES, NO, NEEDS_CAPACITY
+    }
+
+    private static final class Rule {
+        final String name;
+        final boolean approve;
+        final List<Predicate<Request>> conditions;
+        final boolean usesHistory;
+        final int minRemainingCapacityPercent; // UNKNOWN when the rule does not check capacity
+
+        Rule(String name, boolean approve, List<Predicate<Request>> conditions, boolean usesHistory,
+             int minRemainingCapacityPercent) {
+            this.name = name;
+            this.approve = approve;
+            this.conditions = conditions;
+            this.usesHistory = usesHistory;
+            this.minRemainingCapacityPercent = minRemainingCapacityPercent;
+        }
+
+        Match match(Request request) {
+            for (Predicate<Request> condition : conditions) {
+                if (!condition.test(request)) {
+                    return Match.NO;
+                }
+            }
+            if (minRemainingCapacityPercent == UNKNOWN) {
+                return Match.YES;
+            }
+            if (request.remainingCapacityPercent == UNKNOWN) {
+                return Match.NEEDS_CAPACITY;
+            }
+            return request.remainingCapacityPercent >= minRemainingCapacityPercent ? Match.YES : Match.NO;
+        }
+    }
+
+    public enum Outcome {
+        APPROVE,
+        REVIEW,
+        /**
+         * Evaluate again with {@link Request#withRemainingCapacity(int)}
+         */
+        NEEDS_CAPACITY
+    }
+
+    public static final class Decision {
+        public final Outcome outcome;
+        /**
+         * The rule that decided, or null when none matched
+         */
+        public final String ruleName;
+
+        Decision(Outcome outcome, String ruleName) {
+            this.outcome = outcome;
+            this.ruleName = ruleName;
+        }
+
+        public boolean isApproved() {
+            return outcome == Outcome.APPROVE;
+        }
+    }
+
+    /**
+     * What the rules know about a booking request
+     */
+    public static final class Request {
+        final String role;
+        final String category;
+        final int startMinutes;
+        final int endMinutes;
+        final int participants;
+        final int approvedBookings;
+        final int rejectedBookings;
+        final int remainingCapacityPercent;
+
+        /**
+         * @throws IllegalArgumentException if the times are not a valid range
+         */
+        public Request(String role, String category, String startTime, String endTime, int participants,
+                       int approvedBookings, int rejectedBookings) {
+            this(role, category, TimeOfDay.toMinutes(startTime), TimeOfDay.toMinutes(endTime),
+                    participants, approvedBookings, rejectedBookings, UNKNOWN);
+            if (startMinutes == TimeOfDay.INVALID || endMinutes == TimeOfDay.INVALID ||
+                    endMinutes <= startMinutes) {
+                throw new IllegalArgumentException("Invalid time range " + startTime + "-" + endTime);
+            }
+        }
+
+        private Request(String role, String category, int startMinutes, int endMinutes, int participants,
+                        int approvedBookings, int rejectedBookings, int remainingCapacityPercent) {
+            this.role = role;
+            this.category = category;
+            this.startMinutes = startMinutes;
+            this.endMinutes = endMinutes;
+            this.participants = participants;
+            this.approvedBookings = approvedBookings;
+            this.rejectedBookings = rejectedBookings;
+            this.remainingCapacityPercent = remainingCapacityPercent;
+        }
+
+        public Request withRemainingCapacity(int percent) {
+            return new Request(role, category, startMinutes, endMinutes, participants,
+                    approvedBookings, rejectedBookings, percent);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.testlab.labbooking.core;
+
+import java.util.List;
+
+/**
+ * The fields of a booking that the validation rules check
+ */
+public interface BookingRequest extends Reservation {
+    String getLabId();
+
+    String getUserId();
+
+    String getPurpose();
+
+    int getNumberOfParticipants();
+
+    /**
+     * Resource names, one entry per unit; names the lab does not count are free-form notes
+     */
+    List<String> getRequiredResources();
+}
@@ -0,0 +1,113 @@
+package com.testlab.labbooking.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Validation of booking requests, on their own and against the lab's limits
+ */
+public final class BookingRules {
+    public static final int MIN_DURATION_MINUTES = 15;
+
+    private BookingRules() {
+    }
+
+    /**
+     * Whether every required field is filled in
+     */
+    public static boolean isComplete(BookingRequest request) {
+        return !isBlank(request.getLabId()) &&
+                !isBlank(request.getUserId()) &&
+                !isBlank(request.getDate()) &&
+                !isBlank(request.getStartTime()) &&
+                !isBlank(request.getEndTime()) &&
+                !isBlank(request.getPurpose()) &&
+                request.getNumberOfParticipants() > 0;
+    }
+
+    /**
+     * Everything wrong with the request on its own; empty when it is valid
+     *
+     * @param today "yyyy-MM-dd", for rejecting past dates
+     */
+    public static List<String> validationErrors(BookingRequest request, String today) {
+        List<String> errors = new ArrayList<>();
+
+        if (isBlank(request.getLabId())) {
+            errors.add("Lab ID is required");
+        }
+        if (isBlank(request.getUserId())) {
+            errors.add("User ID is required");
+        }
+        if (isBlank(request.getDate())) {
+            errors.add("Date is required");
+        }
+        if (isBlank(request.getStartTime())) {
+            errors.add("Start time is required");
+        }
+        if (isBlank(request.getEndTime())) {
+            errors.add("End time is required");
+        }
+        if (isBlank(request.getPurpose())) {
+            errors.add("Purpose is required");
+        }
+        if (request.getNumberOfParticipants() <= 0) {
+            errors.add("Number of participants must be greater than 0");
+        }
+
+        if (request.getStartTime() != null && request.getEndTime() != null) {
+            int start = TimeOfDay.toMinutes(request.getStartTime());
+            int end = TimeOfDay.toMinutes(request.getEndTime());
+            if (start != TimeOfDay.INVALID && end != TimeOfDay.INVALID && start > end) {
+                errors.add("Start time must be before end time");
+            }
+            if (TimeOfDay.minutesBetween(request.getStartTime(), request.getEndTime()) < MIN_DURATION_MINUTES) {
+                errors.add("Booking duration must be at least " + MIN_DURATION_MINUTES + " minutes");
+            }
+        }
+
+        String date = request.getDate();
+        if (date != null && CalendarDates.isValid(date) && date.compareTo(today) < 0) {
+            errors.add("Cannot book for past dates");
+        }
+
+        return errors;
+    }
+
+    /**
+     * The first lab limit the request breaks, or null if it fits the lab
+     */
+    public static String checkAgainstLab(BookingRequest request, LabRules lab) {
+        if (!lab.isBookingAllowed()) {
+            return "Lab is not available for booking";
+        }
+        if (request.getNumberOfParticipants() > lab.getCapacity()) {
+            return "Number of participants exceeds lab capacity";
+        }
+
+        int open = TimeOfDay.toMinutes(lab.getOpenTime());
+        int close = TimeOfDay.toMinutes(lab.getCloseTime());
+        if (!isWithin(request.getStartTime(), open, close) || !isWithin(request.getEndTime(), open, close)) {
+            return "Booking time is outside lab operating hours";
+        }
+
+        int durationMinutes = TimeOfDay.minutesBetween(request.getStartTime(), request.getEndTime());
+        if (durationMinutes < lab.getMinBookingMinutes()) {
+            return "Booking duration is less than minimum required";
+        }
+        if (durationMinutes > lab.getMaxBookingHours() * 60) {
+            return "Booking duration exceeds maximum allowed";
+        }
+        return null;
+    }
+
+    private static boolean isWithin(String time, int open, int close) {
+        int minutes = TimeOfDay.toMinutes(time);
+        return minutes != TimeOfDay.INVALID && open != TimeOfDay.INVALID && close != TimeOfDay.INVALID &&
+                minutes >= open && minutes <= close;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+}
@@ -0,0 +1,95 @@
+package com.testlab.labbooking.core;
+
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.Locale;
+
+/**
+ * "yyyy-MM-dd" dates. Valid dates of this form sort as strings, so range checks need no parsing.
+ */
+public final class CalendarDates {
+
+    private CalendarDates() {
+    }
+
+    public static boolean isValid(String date) {
+        return toCalendar(date) != null;
+    }
+
+    /**
+     * Whether date is within [startDate, endDate]; false if any of them is invalid
+     */
+    public static boolean isInRange(String date, String startDate, String endDate) {
+        return isValid(date) && isValid(startDate) && isValid(endDate) &&
+                date.compareTo(startDate) >= 0 && date.compareTo(endDate) <= 0;
+    }
+
+    /**
+     * Monday of the week containing date, whatever the device locale's first day of week;
+     * null if date is invalid
+     */
+    public static String weekStart(String date) {
+        Calendar cal = toCalendar(date);
+        if (cal == null) {
+            return null;
+        }
+        int daysSinceMonday = (cal.get(Calendar.DAY_OF_WEEK) + 5) % 7;
+        cal.add(Calendar.DAY_OF_MONTH, -daysSinceMonday);
+        return format(cal);
+    }
+
+    /**
+     * Sunday of the week containing date; null if date is invalid
+     */
+    public static String weekEnd(String date) {
+        String start = weekStart(date);
+        return start != null ? addDays(start, 6) : null;
+    }
+
+    /**
+     * date plus days; null if date is invalid
+     */
+    public static String addDays(String date, int days) {
+        Calendar cal = toCalendar(date);
+        if (cal == null) {
+            return null;
+        }
+        cal.add(Calendar.DAY_OF_MONTH, days);
+        return format(cal);
+    }
+
+    private static Calendar toCalendar(String date) {
+        if (date == null || date.length() != 10 || date.charAt(4) != '-' || date.charAt(7) != '-') {
+            return null;
+        }
+        int year = digits(date, 0, 4);
+        int month = digits(date, 5, 7);
+        int day = digits(date, 8, 10);
+        if (year < 0 || month < 1 || month > 12 || day < 1) {
+            return null;
+        }
+        Calendar cal = new GregorianCalendar(year, month - 1, 1);
+        if (day > cal.getActualMaximum(Calendar.DAY_OF_MONTH)) {
+            return null;
+        }
+        cal.set(Calendar.DAY_OF_MONTH, day);
+        return cal;
+    }
+
+    private static int digits(String s, int from, int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static String format(Calendar cal) {
+        return String.format(Locale.US, "%04d-%02d-%02d", cal.get(Calendar.YEAR),
+                cal.get(Calendar.MONTH) + 1, cal.get(Calendar.DAY_OF_MONTH));
+    }
+}
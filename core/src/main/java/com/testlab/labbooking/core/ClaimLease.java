@@ -0,0 +1,30 @@
+package com.testlab.labbooking.core;
+
+/**
+ * Claims on pending bookings in the approval queue. An admin claims a booking before reviewing
+ * it so that no other admin reviews it too; the claim is a lease, so a booking whose reviewer
+ * walked away returns to the queue once the lease runs out.
+ */
+public final class ClaimLease {
+    public static final long DEFAULT_LEASE_MILLIS = 10 * 60 * 1000L;
+
+    private ClaimLease() {
+    }
+
+    /**
+     * Whether {@code adminId} may take the booking: it is unclaimed, already theirs, or the
+     * previous claim has lapsed
+     *
+     * @param expiresAtMillis when the current claim lapses; ignored when unclaimed
+     */
+    public static boolean isAvailable(String claimedBy, long expiresAtMillis, String adminId, long nowMillis) {
+        return claimedBy == null || claimedBy.equals(adminId) || expiresAtMillis <= nowMillis;
+    }
+
+    /**
+     * Whether someone other than {@code adminId} holds a live claim
+     */
+    public static boolean isHeldByOther(String claimedBy, long expiresAtMillis, String adminId, long nowMillis) {
+        return !isAvailable(claimedBy, expiresAtMillis, adminId, nowMillis);
+    }
+}
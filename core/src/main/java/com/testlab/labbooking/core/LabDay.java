@@ -0,0 +1,127 @@
+package com.testlab.labbooking.core;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Whether a booking fits one lab's day, and what the labDays index keeps about each booking.
+ *
+ * In a shared-capacity lab a booking's participants must fit alongside the other active
+ * bookings without the headcount going over capacity; otherwise no other booking may overlap
+ * it. Either way the countable resources it asks for must have units free for its whole time.
+ * The app decides this inside its reservation transaction and the load test replays the same
+ * decision, so both live here.
+ */
+public final class LabDay {
+    // Keys of an index entry
+    public static final String ENTRY_STATUS = "status";
+    public static final String ENTRY_START_TIME = "startTime";
+    public static final String ENTRY_END_TIME = "endTime";
+    public static final String ENTRY_PARTICIPANTS = "numberOfParticipants";
+    public static final String ENTRY_RESOURCES = "requiredResources";
+
+    private LabDay() {
+    }
+
+    /**
+     * Admit {@code booking} into the day held by the {@code active} reservations. Nothing is
+     * written; on admission the caller stores the booking and its index entry.
+     *
+     * @throws IllegalArgumentException if the booking's times are not a valid range
+     */
+    public static Admission admit(BookingRequest booking, Collection<? extends BookingRequest> active,
+                                  boolean sharedCapacity, int capacity, Map<String, Integer> inventory) {
+        String date = booking.getDate();
+        int start = TimeOfDay.toMinutes(booking.getStartTime());
+        int end = TimeOfDay.toMinutes(booking.getEndTime());
+        if (start == TimeOfDay.INVALID || end == TimeOfDay.INVALID || start >= end) {
+            throw new IllegalArgumentException("Invalid booking time");
+        }
+        Map<String, Integer> demand = ResourceOccupancy.demand(booking.getRequiredResources(), inventory);
+
+        Admission result = new Admission();
+        result.participants = booking.getNumberOfParticipants();
+        SeatOccupancy seats = sharedCapacity ? SeatOccupancy.of(active, date) : null;
+        ResourceOccupancy units = ResourceOccupancy.of(active, date, inventory);
+        result.resourceShortfalls = units.shortfalls(demand, start, end, inventory);
+        // A lab booked whole still only takes one booking at a time
+        result.slotTaken = !sharedCapacity && !SchedulingEngine.findConflicts(active, date,
+                booking.getStartTime(), booking.getEndTime()).isEmpty();
+        boolean seatsFit = seats == null || seats.fits(start, end, booking.getNumberOfParticipants(), capacity);
+        if (result.slotTaken || !seatsFit || !result.resourceShortfalls.isEmpty()) {
+            if (seats != null) {
+                result.remainingSeats = seats.windows(start, end, capacity);
+            }
+            return result;
+        }
+
+        List<BookingRequest> after = new ArrayList<>(active);
+        after.add(booking);
+        result.admitted = true;
+        if (sharedCapacity) {
+            result.remainingSeats = SeatOccupancy.of(after, date).windows(start, end, capacity);
+        }
+        ResourceOccupancy unitsAfter = ResourceOccupancy.of(after, date, inventory);
+        for (String resource : demand.keySet()) {
+            result.remainingUnits.put(resource, unitsAfter.remaining(resource, start, end, inventory));
+        }
+        return result;
+    }
+
+    /**
+     * What the index keeps about a booking: its status, time, headcount and the resources it asked
+     * for. The status is kept so a booking that stops holding the lab can be marked in place; all
+     * the resources are kept, not just today's inventory, so units the lab starts counting later
+     * are counted for bookings already made.
+     */
+    public static Map<String, Object> toEntry(BookingRequest booking, String status) {
+        List<String> resources = booking.getRequiredResources() != null ?
+                new ArrayList<>(booking.getRequiredResources()) : new ArrayList<>();
+        Map<String, Object> entry = new HashMap<>();
+        entry.put(ENTRY_STATUS, status);
+        entry.put(ENTRY_START_TIME, booking.getStartTime());
+        entry.put(ENTRY_END_TIME, booking.getEndTime());
+        entry.put(ENTRY_PARTICIPANTS, booking.getNumberOfParticipants());
+        entry.put(ENTRY_RESOURCES, resources);
+        return entry;
+    }
+
+    /**
+     * Outcome of {@link #admit}
+     */
+    public static final class Admission {
+        public boolean admitted;
+        public String bookingId; // Set by the caller once admitted
+        public int participants;
+        public boolean slotTaken; // Labs booked whole: another booking overlaps
+        // Shared-capacity labs only: the seats left in each part of the booking's time
+        public List<SeatOccupancy.Window> remainingSeats = new ArrayList<>();
+        // Countable resources that are short, with the units still free
+        public Map<String, Integer> resourceShortfalls = new LinkedHashMap<>();
+        // Once admitted: units of each requested resource still free during the booking
+        public Map<String, Integer> remainingUnits = new LinkedHashMap<>();
+
+        /**
+         * Why the booking did not fit, e.g. "10:00-11:00 (4 seats left), 3D Printer (0 left)"
+         */
+        public String describeShortfall() {
+            List<String> full = new ArrayList<>();
+            if (slotTaken) {
+                full.add("time slot is already booked");
+            }
+            for (SeatOccupancy.Window window : remainingSeats) {
+                if (window.remainingSeats < Math.max(1, participants)) {
+                    full.add(window.range + " (" + window.remainingSeats + " seats left)");
+                }
+            }
+            for (Map.Entry<String, Integer> resource : resourceShortfalls.entrySet()) {
+                full.add(resource.getKey() + " (" + resource.getValue() + " left)");
+            }
+            return "Not available: " + String.join(", ", full);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.testlab.labbooking.core;
+
+/**
+ * The limits a lab puts on bookings
+ */
+public interface LabRules {
+    boolean isBookingAllowed();
+
+    int getCapacity();
+
+    /**
+     * "HH:mm"
+     */
+    String getOpenTime();
+
+    /**
+     * "HH:mm"
+     */
+    String getCloseTime();
+
+    int getMinBookingMinutes();
+
+    int getMaxBookingHours();
+}
@@ -0,0 +1,65 @@
+package com.testlab.labbooking.core;
+
+import java.util.Collection;
+
+/**
+ * Per-user booking limits: concurrent active bookings and hours booked per week
+ */
+public final class QuotaPolicy {
+
+    private QuotaPolicy() {
+    }
+
+    /**
+     * Minutes booked in the Monday-to-Sunday week containing targetDate. The caller passes the
+     * reservations that count (e.g. the user's active bookings).
+     */
+    public static int bookedMinutesInWeek(Collection<? extends Reservation> reservations, String targetDate) {
+        String weekStart = CalendarDates.weekStart(targetDate);
+        String weekEnd = CalendarDates.weekEnd(targetDate);
+        if (weekStart == null) {
+            return 0;
+        }
+
+        int totalMinutes = 0;
+        for (Reservation reservation : reservations) {
+            if (reservation != null && CalendarDates.isInRange(reservation.getDate(), weekStart, weekEnd)) {
+                totalMinutes += Math.max(0, TimeOfDay.minutesBetween(
+                        reservation.getStartTime(), reservation.getEndTime()));
+            }
+        }
+        return totalMinutes;
+    }
+
+    public static Result check(int activeBookings, int maxBookings, int weeklyHours, int maxWeeklyHours) {
+        return new Result(activeBookings, maxBookings, weeklyHours, maxWeeklyHours);
+    }
+
+    public static final class Result {
+        public final boolean canBook;
+        public final int activeBookings;
+        public final int maxBookings;
+        public final int weeklyHours;
+        public final int maxWeeklyHours;
+
+        Result(int activeBookings, int maxBookings, int weeklyHours, int maxWeeklyHours) {
+            this.activeBookings = activeBookings;
+            this.maxBookings = maxBookings;
+            this.weeklyHours = weeklyHours;
+            this.maxWeeklyHours = maxWeeklyHours;
+            this.canBook = activeBookings < maxBookings && weeklyHours < maxWeeklyHours;
+        }
+
+        /**
+         * Which limit was reached, for the user; empty when booking is allowed
+         */
+        public String message() {
+            if (activeBookings >= maxBookings) {
+                return "You have reached your maximum concurrent bookings (" + maxBookings + ")";
+            } else if (weeklyHours >= maxWeeklyHours) {
+                return "You have reached your weekly booking limit (" + maxWeeklyHours + " hours)";
+            }
+            return "";
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.testlab.labbooking.core;
+
+/**
+ * How much of a booking's cost is returned when it is cancelled
+ */
+public interface RefundPolicy {
+    RefundPolicy STANDARD = new TieredRefundPolicy();
+
+    /**
+     * @param hoursUntilStart whole hours from cancellation to the booking's start; negative
+     *                        once it has started
+     */
+    double refundAmount(double totalCost, long hoursUntilStart);
+}
@@ -0,0 +1,27 @@
+package com.testlab.labbooking.core;
+
+/**
+ * A booking as far as scheduling is concerned: a time range on a date that may or may not
+ * still hold the lab
+ */
+public interface Reservation {
+    /**
+     * "yyyy-MM-dd"
+     */
+    String getDate();
+
+    /**
+     * "HH:mm"
+     */
+    String getStartTime();
+
+    /**
+     * "HH:mm"
+     */
+    String getEndTime();
+
+    /**
+     * Whether the reservation still holds its time (pending or approved)
+     */
+    boolean isActive();
+}
@@ -0,0 +1,111 @@
+package com.testlab.labbooking.core;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Units of a lab's countable equipment in use over one day, one {@link SeatOccupancy} step
+ * function per resource.
+ *
+ * The inventory maps each resource name to the units the lab owns. Required resources the
+ * inventory does not list are free-form notes and are never counted, as before.
+ */
+public final class ResourceOccupancy {
+    private static final SeatOccupancy NONE = new SeatOccupancy.Builder().build();
+
+    private final Map<String, SeatOccupancy> byResource;
+
+    private ResourceOccupancy(Map<String, SeatOccupancy> byResource) {
+        this.byResource = byResource;
+    }
+
+    /**
+     * Units of the inventoried resources used by the active reservations on the date
+     */
+    public static ResourceOccupancy of(Collection<? extends BookingRequest> reservations, String date,
+                                       Map<String, Integer> inventory) {
+        Map<String, SeatOccupancy.Builder> builders = new HashMap<>();
+        for (BookingRequest reservation : reservations) {
+            if (reservation == null || !reservation.isActive() || !date.equals(reservation.getDate())) {
+                continue;
+            }
+            int start = TimeOfDay.toMinutes(reservation.getStartTime());
+            int end = TimeOfDay.toMinutes(reservation.getEndTime());
+            for (Map.Entry<String, Integer> units : demand(reservation.getRequiredResources(), inventory).entrySet()) {
+                SeatOccupancy.Builder builder = builders.get(units.getKey());
+                if (builder == null) {
+                    builder = new SeatOccupancy.Builder();
+                    builders.put(units.getKey(), builder);
+                }
+                builder.add(start, end, units.getValue());
+            }
+        }
+
+        Map<String, SeatOccupancy> byResource = new HashMap<>();
+        for (Map.Entry<String, SeatOccupancy.Builder> entry : builders.entrySet()) {
+            byResource.put(entry.getKey(), entry.getValue().build());
+        }
+        return new ResourceOccupancy(byResource);
+    }
+
+    /**
+     * Units of each inventoried resource asked for; one unit per entry, so listing a resource
+     * twice asks for two
+     */
+    public static Map<String, Integer> demand(List<String> requiredResources, Map<String, Integer> inventory) {
+        Map<String, Integer> demand = new LinkedHashMap<>();
+        if (requiredResources == null || inventory == null || inventory.isEmpty()) {
+            return demand;
+        }
+        for (String resource : requiredResources) {
+            if (resource != null && inventory.containsKey(resource)) {
+                Integer units = demand.get(resource);
+                demand.put(resource, units == null ? 1 : units + 1);
+            }
+        }
+        return demand;
+    }
+
+    /**
+     * Units of the resource free for the whole of [start, end)
+     */
+    public int remaining(String resource, int start, int end, Map<String, Integer> inventory) {
+        Integer owned = inventory.get(resource);
+        if (owned == null) {
+            return 0;
+        }
+        return Math.max(0, owned - occupancy(resource).peak(start, end));
+    }
+
+    /**
+     * Resources in {@code demand} that are short during [start, end), with the units still free;
+     * empty when everything fits
+     */
+    public Map<String, Integer> shortfalls(Map<String, Integer> demand, int start, int end,
+                                           Map<String, Integer> inventory) {
+        Map<String, Integer> shortfalls = new LinkedHashMap<>();
+        for (Map.Entry<String, Integer> units : demand.entrySet()) {
+            int free = remaining(units.getKey(), start, end, inventory);
+            if (free < units.getValue()) {
+                shortfalls.put(units.getKey(), free);
+            }
+        }
+        return shortfalls;
+    }
+
+    /**
+     * For each slot, the units of the resource free for its whole length
+     */
+    public int[] remainingUnits(String resource, List<TimeRange> slots, Map<String, Integer> inventory) {
+        Integer owned = inventory.get(resource);
+        return occupancy(resource).remainingSeats(slots, owned != null ? owned : 0);
+    }
+
+    private SeatOccupancy occupancy(String resource) {
+        SeatOccupancy occupancy = byResource.get(resource);
+        return occupancy != null ? occupancy : NONE;
+    }
+}
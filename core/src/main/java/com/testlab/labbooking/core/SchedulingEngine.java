@@ -0,0 +1,138 @@
+package com.testlab.labbooking.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Slot generation and conflict detection for one lab.
+ *
+ * Marking slots against a day's bookings sorts the active bookings once and answers each slot
+ * with a binary search, so a busy day costs O((bookings + slots) log bookings) instead of one
+ * overlap check per slot and booking.
+ */
+public final class SchedulingEngine {
+
+    private SchedulingEngine() {
+    }
+
+    /**
+     * Whether [start1, end1) and [start2, end2) overlap; false if any time is invalid
+     */
+    public static boolean overlaps(String start1, String end1, String start2, String end2) {
+        int s1 = TimeOfDay.toMinutes(start1);
+        int e1 = TimeOfDay.toMinutes(end1);
+        int s2 = TimeOfDay.toMinutes(start2);
+        int e2 = TimeOfDay.toMinutes(end2);
+        if (s1 == TimeOfDay.INVALID || e1 == TimeOfDay.INVALID ||
+                s2 == TimeOfDay.INVALID || e2 == TimeOfDay.INVALID) {
+            return false;
+        }
+        return s1 < e2 && s2 < e1;
+    }
+
+    /**
+     * Reservations that overlap [startTime, endTime). Only active reservations on the date count,
+     * unless {@code date} is null, in which case the caller has already narrowed them down.
+     */
+    public static <R extends Reservation> List<R> findConflicts(Collection<R> reservations, String date,
+                                                              String startTime, String endTime) {
+        List<R> conflicts = new ArrayList<>();
+        int start = TimeOfDay.toMinutes(startTime);
+        int end = TimeOfDay.toMinutes(endTime);
+        if (start == TimeOfDay.INVALID || end == TimeOfDay.INVALID) {
+            return conflicts;
+        }
+
+        for (R reservation : reservations) {
+            if (reservation == null || (date != null && !holds(reservation, date))) {
+                continue;
+            }
+            int s = TimeOfDay.toMinutes(reservation.getStartTime());
+            int e = TimeOfDay.toMinutes(reservation.getEndTime());
+            if (s != TimeOfDay.INVALID && e != TimeOfDay.INVALID && start < e && s < end) {
+                conflicts.add(reservation);
+            }
+        }
+        return conflicts;
+    }
+
+    /**
+     * Slots of {@code durationMinutes} starting every {@code intervalMinutes} from open time,
+     * ending no later than close time
+     */
+    public static List<TimeRange> generateSlots(String openTime, String closeTime,
+                                                int durationMinutes, int intervalMinutes) {
+        List<TimeRange> slots = new ArrayList<>();
+        int open = TimeOfDay.toMinutes(openTime);
+        int close = TimeOfDay.toMinutes(closeTime);
+        if (open == TimeOfDay.INVALID || close == TimeOfDay.INVALID ||
+                durationMinutes <= 0 || intervalMinutes <= 0) {
+            return slots;
+        }
+
+        for (int start = open; start + durationMinutes <= close; start += intervalMinutes) {
+            slots.add(new TimeRange(start, start + durationMinutes));
+        }
+        return slots;
+    }
+
+    /**
+     * For each slot, whether no active reservation on the date overlaps it
+     */
+    public static boolean[] availability(List<TimeRange> slots, Collection<? extends Reservation> reservations,
+                                         String date) {
+        // Active bookings of the day, sorted by start, with the running maximum end time
+        int[][] booked = new int[reservations.size()][];
+        int count = 0;
+        for (Reservation reservation : reservations) {
+            if (reservation == null || !holds(reservation, date)) {
+                continue;
+            }
+            int s = TimeOfDay.toMinutes(reservation.getStartTime());
+            int e = TimeOfDay.toMinutes(reservation.getEndTime());
+            if (s != TimeOfDay.INVALID && e != TimeOfDay.INVALID && s < e) {
+                booked[count++] = new int[]{s, e};
+            }
+        }
+        Arrays.sort(booked, 0, count, (a, b) -> Integer.compare(a[0], b[0]));
+
+        int[] starts = new int[count];
+        int[] maxEnd = new int[count];
+        for (int i = 0; i < count; i++) {
+            starts[i] = booked[i][0];
+            maxEnd[i] = i == 0 ? booked[i][1] : Math.max(maxEnd[i - 1], booked[i][1]);
+        }
+
+        // A slot [a, b) is taken if some booking starting before b ends after a
+        boolean[] available = new boolean[slots.size()];
+        for (int i = 0; i < available.length; i++) {
+            TimeRange slot = slots.get(i);
+            int startingBefore = lowerBound(starts, count, slot.end);
+            available[i] = startingBefore == 0 || maxEnd[startingBefore - 1] <= slot.start;
+        }
+        return available;
+    }
+
+    private static boolean holds(Reservation reservation, String date) {
+        return date.equals(reservation.getDate()) && reservation.isActive();
+    }
+
+    /**
+     * Number of values in sorted[0, count) that are less than key
+     */
+    private static int lowerBound(int[] sorted, int count, int key) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
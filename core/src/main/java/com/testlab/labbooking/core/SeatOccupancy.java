@@ -0,0 +1,165 @@
+package com.testlab.labbooking.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Seats taken over one day in a lab that several groups can book at once.
+ *
+ * Built with a sweep line: every active booking contributes +participants at its start and
+ * -participants at its end, and a single pass over the sorted events gives the occupancy as a
+ * step function (a prefix sum of the deltas). Questions about a range then read only the steps
+ * that range covers, so marking a day's slots costs O((bookings + slots) log bookings).
+ */
+public final class SeatOccupancy {
+    // Occupancy is seats[i] from times[i] until times[i + 1]; zero before times[0] and after the last
+    private final int[] times;
+    private final int[] seats;
+
+    private SeatOccupancy(int[] times, int[] seats) {
+        this.times = times;
+        this.seats = seats;
+    }
+
+    /**
+     * Occupancy from the active reservations on the date. A booking takes at least one seat.
+     */
+    public static SeatOccupancy of(Collection<? extends BookingRequest> reservations, String date) {
+        Builder builder = new Builder();
+        for (BookingRequest reservation : reservations) {
+            if (reservation != null && reservation.isActive() && date.equals(reservation.getDate())) {
+                builder.add(TimeOfDay.toMinutes(reservation.getStartTime()),
+                        TimeOfDay.toMinutes(reservation.getEndTime()),
+                        Math.max(1, reservation.getNumberOfParticipants()));
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Most seats taken at any moment in [start, end)
+     */
+    public int peak(int start, int end) {
+        int peak = 0;
+        for (int i = stepAt(start); i < times.length && (i < 0 || times[i] < end); i++) {
+            if (i >= 0) {
+                peak = Math.max(peak, seats[i]);
+            }
+        }
+        return peak;
+    }
+
+    /**
+     * For each slot, the seats still free for its whole length (never negative)
+     */
+    public int[] remainingSeats(List<TimeRange> slots, int capacity) {
+        int[] remaining = new int[slots.size()];
+        for (int i = 0; i < remaining.length; i++) {
+            TimeRange slot = slots.get(i);
+            remaining[i] = Math.max(0, capacity - peak(slot.start, slot.end));
+        }
+        return remaining;
+    }
+
+    /**
+     * Whether {@code participants} more fit in [start, end) without going over capacity
+     */
+    public boolean fits(int start, int end, int participants, int capacity) {
+        return start < end && peak(start, end) + Math.max(1, participants) <= capacity;
+    }
+
+    /**
+     * [start, end) split where the occupancy changes, with the seats free in each piece
+     */
+    public List<Window> windows(int start, int end, int capacity) {
+        List<Window> windows = new ArrayList<>();
+        int from = start;
+        int i = stepAt(start);
+        while (from < end) {
+            int taken = i >= 0 ? seats[i] : 0;
+            int next = i + 1 < times.length ? Math.min(end, times[i + 1]) : end;
+            windows.add(new Window(from, next, Math.max(0, capacity - taken)));
+            from = next;
+            i++;
+        }
+        return windows;
+    }
+
+    /**
+     * Index of the step in force at {@code minute}, or -1 before the first
+     */
+    private int stepAt(int minute) {
+        int low = 0;
+        int high = times.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (times[mid] <= minute) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low - 1;
+    }
+
+    /**
+     * Collects [start, end) intervals that each take some seats (or units of anything countable)
+     */
+    public static final class Builder {
+        private final List<int[]> events = new ArrayList<>();
+
+        /**
+         * Ignored when the range is invalid or empty, or nothing is taken
+         */
+        public Builder add(int start, int end, int count) {
+            if (start != TimeOfDay.INVALID && end != TimeOfDay.INVALID && start < end && count > 0) {
+                events.add(new int[]{start, count});
+                events.add(new int[]{end, -count});
+            }
+            return this;
+        }
+
+        public SeatOccupancy build() {
+            int count = events.size();
+            int[][] sorted = events.toArray(new int[count][]);
+            Arrays.sort(sorted, (a, b) -> Integer.compare(a[0], b[0]));
+
+            // Merge events at the same minute so each step has a distinct start
+            int[] times = new int[count];
+            int[] seats = new int[count];
+            int steps = 0;
+            int running = 0;
+            for (int[] event : sorted) {
+                running += event[1];
+                if (steps > 0 && times[steps - 1] == event[0]) {
+                    seats[steps - 1] = running;
+                } else {
+                    times[steps] = event[0];
+                    seats[steps] = running;
+                    steps++;
+                }
+            }
+            return new SeatOccupancy(Arrays.copyOf(times, steps), Arrays.copyOf(seats, steps));
+        }
+    }
+
+    /**
+     * A stretch of the day with the same number of free seats
+     */
+    public static final class Window {
+        public final TimeRange range;
+        public final int remainingSeats;
+
+        Window(int start, int end, int remainingSeats) {
+            this.range = new TimeRange(start, end);
+            this.remainingSeats = remainingSeats;
+        }
+
+        @Override
+        public String toString() {
+            return range + " " + remainingSeats + " seats";
+        }
+    }
+}
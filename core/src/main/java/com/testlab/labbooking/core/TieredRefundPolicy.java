@@ -0,0 +1,30 @@
+package com.testlab.labbooking.core;
+
+/**
+ * Full refund when cancelled at least a day ahead, half at least four hours ahead, nothing later
+ */
+public class TieredRefundPolicy implements RefundPolicy {
+    private final long fullRefundHours;
+    private final long partialRefundHours;
+    private final double partialRefundShare;
+
+    public TieredRefundPolicy() {
+        this(24, 4, 0.5);
+    }
+
+    public TieredRefundPolicy(long fullRefundHours, long partialRefundHours, double partialRefundShare) {
+        this.fullRefundHours = fullRefundHours;
+        this.partialRefundHours = partialRefundHours;
+        this.partialRefundShare = partialRefundShare;
+    }
+
+    @Override
+    public double refundAmount(double totalCost, long hoursUntilStart) {
+        if (hoursUntilStart >= fullRefundHours) {
+            return totalCost;
+        } else if (hoursUntilStart >= partialRefundHours) {
+            return totalCost * partialRefundShare;
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,61 @@
+package com.testlab.labbooking.core;
+
+import java.util.Locale;
+
+/**
+ * "HH:mm" times as minutes since midnight. Parsing is by hand: this runs for every slot and
+ * booking compared, where SimpleDateFormat would allocate a Date per call.
+ */
+public final class TimeOfDay {
+    public static final int INVALID = -1;
+    public static final int END_OF_DAY = 24 * 60;
+
+    private TimeOfDay() {
+    }
+
+    /**
+     * Minutes since midnight for "H:mm" or "HH:mm" (up to "24:00"), or {@link #INVALID}
+     */
+    public static int toMinutes(String time) {
+        if (time == null) {
+            return INVALID;
+        }
+        int length = time.length();
+        int colon = time.indexOf(':');
+        if (colon < 1 || colon > 2 || length != colon + 3) {
+            return INVALID;
+        }
+
+        int hours = 0;
+        for (int i = 0; i < colon; i++) {
+            char c = time.charAt(i);
+            if (c < '0' || c > '9') {
+                return INVALID;
+            }
+            hours = hours * 10 + (c - '0');
+        }
+        char tens = time.charAt(colon + 1);
+        char units = time.charAt(colon + 2);
+        if (tens < '0' || tens > '5' || units < '0' || units > '9') {
+            return INVALID;
+        }
+        int minutes = hours * 60 + (tens - '0') * 10 + (units - '0');
+        return minutes <= END_OF_DAY ? minutes : INVALID;
+    }
+
+    /**
+     * "HH:mm" for minutes since midnight
+     */
+    public static String format(int minutes) {
+        return String.format(Locale.US, "%02d:%02d", minutes / 60, minutes % 60);
+    }
+
+    /**
+     * Minutes from start to end; 0 when either time is invalid
+     */
+    public static int minutesBetween(String startTime, String endTime) {
+        int start = toMinutes(startTime);
+        int end = toMinutes(endTime);
+        return start == INVALID || end == INVALID ? 0 : end - start;
+    }
+}
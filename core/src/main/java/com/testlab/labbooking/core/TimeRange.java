@@ -0,0 +1,44 @@
+package com.testlab.labbooking.core;
+
+/**
+ * A half-open range of minutes since midnight, [start, end)
+ */
+public final class TimeRange {
+    public final int start;
+    public final int end;
+
+    public TimeRange(int start, int end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    public boolean overlaps(int otherStart, int otherEnd) {
+        return start < otherEnd && otherStart < end;
+    }
+
+    public String getStartTime() {
+        return TimeOfDay.format(start);
+    }
+
+    public String getEndTime() {
+        return TimeOfDay.format(end);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof TimeRange)) return false;
+        TimeRange other = (TimeRange) o;
+        return start == other.start && end == other.end;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * start + end;
+    }
+
+    @Override
+    public String toString() {
+        return getStartTime() + "-" + getEndTime();
+    }
+}
@@ -0,0 +1,70 @@
+package com.testlab.labbooking.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CalendarDatesTest {
+    @Test
+    public void validatesDates() {
+        assertTrue(CalendarDates.isValid("2026-10-19"));
+        assertTrue(CalendarDates.isValid("2024-02-29"));
+    }
+
+    @Test
+    public void rejectsMalformedDates() {
+        assertFalse(CalendarDates.isValid(null));
+        assertFalse(CalendarDates.isValid(""));
+        assertFalse(CalendarDates.isValid("2026-1-19"));
+        assertFalse(CalendarDates.isValid("2026/10/19"));
+        assertFalse(CalendarDates.isValid("19-10-2026"));
+        assertFalse(CalendarDates.isValid("2026-10-1a"));
+    }
+
+    @Test
+    public void rejectsDatesThatDoNotExist() {
+        assertFalse(CalendarDates.isValid("2026-00-10"));
+        assertFalse(CalendarDates.isValid("2026-13-01"));
+        assertFalse(CalendarDates.isValid("2026-10-00"));
+        assertFalse(CalendarDates.isValid("2026-04-31"));
+        assertFalse(CalendarDates.isValid("2025-02-29"));
+    }
+
+    @Test
+    public void rangeIsInclusiveAndRejectsInvalidBounds() {
+        assertTrue(CalendarDates.isInRange("2026-10-19", "2026-10-19", "2026-10-25"));
+        assertTrue(CalendarDates.isInRange("2026-10-25", "2026-10-19", "2026-10-25"));
+        assertFalse(CalendarDates.isInRange("2026-10-26", "2026-10-19", "2026-10-25"));
+        assertFalse(CalendarDates.isInRange("2026-10-20", "2026-10-19", "2026-10-32"));
+        assertFalse(CalendarDates.isInRange("2026-10-2", "2026-10-19", "2026-10-25"));
+    }
+
+    @Test
+    public void weekRunsFromMondayToSunday() {
+        assertEquals("2026-10-19", CalendarDates.weekStart("2026-10-19"));
+        assertEquals("2026-10-25", CalendarDates.weekEnd("2026-10-19"));
+        assertEquals("2026-10-19", CalendarDates.weekStart("2026-10-25"));
+        assertEquals("2026-10-25", CalendarDates.weekEnd("2026-10-25"));
+        assertEquals("2026-10-26", CalendarDates.weekStart("2026-10-26"));
+    }
+
+    @Test
+    public void weekCrossesMonthAndYearEnds() {
+        assertEquals("2026-12-28", CalendarDates.weekStart("2027-01-03"));
+        assertEquals("2027-01-03", CalendarDates.weekEnd("2026-12-31"));
+        assertEquals("2024-02-26", CalendarDates.weekStart("2024-03-03"));
+    }
+
+    @Test
+    public void invalidDatesHaveNoWeek() {
+        assertNull(CalendarDates.weekStart("2026-02-30"));
+        assertNull(CalendarDates.weekEnd("not a date"));
+        assertNull(CalendarDates.addDays(null, 1));
+    }
+
+    @Test
+    public void addsDaysAcrossMonths() {
+        assertEquals("2024-03-01", CalendarDates.addDays("2024-02-28", 2));
+        assertEquals("2026-09-30", CalendarDates.addDays("2026-10-01", -1));
+    }
+}
@@ -0,0 +1,79 @@
+package com.testlab.labbooking.core;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class LabDayTest {
+    private static final String DATE = "2026-10-19";
+    private static final Map<String, Integer> NO_INVENTORY = Collections.emptyMap();
+    private static final Map<String, Integer> INVENTORY = Collections.singletonMap("Microscope", 2);
+
+    @Test
+    public void wholeLabTakesOneBookingAtATime() {
+        List<TestBooking> active = Collections.singletonList(new TestBooking(DATE, "10:00", "11:00"));
+
+        LabDay.Admission overlapping = LabDay.admit(new TestBooking(DATE, "10:30", "11:30"), active,
+                false, 30, NO_INVENTORY);
+        assertFalse(overlapping.admitted);
+        assertTrue(overlapping.slotTaken);
+        assertEquals("Not available: time slot is already booked", overlapping.describeShortfall());
+
+        assertTrue(LabDay.admit(new TestBooking(DATE, "11:00", "12:00"), active, false, 30, NO_INVENTORY).admitted);
+    }
+
+    @Test
+    public void sharedLabAdmitsUpToCapacity() {
+        List<TestBooking> active = Collections.singletonList(new TestBooking(DATE, "10:00", "11:00").participants(6));
+
+        LabDay.Admission fits = LabDay.admit(new TestBooking(DATE, "10:00", "11:00").participants(4), active,
+                true, 10, NO_INVENTORY);
+        assertTrue(fits.admitted);
+        assertEquals(0, fits.remainingSeats.get(0).remainingSeats);
+
+        LabDay.Admission full = LabDay.admit(new TestBooking(DATE, "10:30", "11:30").participants(5), active,
+                true, 10, NO_INVENTORY);
+        assertFalse(full.admitted);
+        assertFalse(full.slotTaken);
+        assertEquals("Not available: 10:30-11:00 (4 seats left)", full.describeShortfall());
+    }
+
+    @Test
+    public void countedEquipmentMustHaveUnitsFree() {
+        List<TestBooking> active = Arrays.asList(
+                new TestBooking(DATE, "09:00", "10:00").resources("Microscope"),
+                new TestBooking(DATE, "09:30", "10:30").resources("Microscope"));
+
+        LabDay.Admission shortOfUnits = LabDay.admit(new TestBooking(DATE, "09:45", "10:15").resources("Microscope"),
+                active, true, 30, INVENTORY);
+        assertFalse(shortOfUnits.admitted);
+        assertEquals(Collections.singletonMap("Microscope", 0), shortOfUnits.resourceShortfalls);
+
+        LabDay.Admission later = LabDay.admit(new TestBooking(DATE, "10:00", "11:00").resources("Microscope"),
+                active, true, 30, INVENTORY);
+        assertTrue(later.admitted);
+        assertEquals(Collections.singletonMap("Microscope", 0), later.remainingUnits);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsAnInvalidRange() {
+        LabDay.admit(new TestBooking(DATE, "11:00", "10:00"), Collections.<TestBooking>emptyList(),
+                true, 30, NO_INVENTORY);
+    }
+
+    @Test
+    public void entryKeepsEveryRequestedResource() {
+        Map<String, Object> entry = LabDay.toEntry(new TestBooking(DATE, "09:00", "10:00").participants(3)
+                .resources("Microscope", "Notes"), "pending");
+        assertEquals("pending", entry.get(LabDay.ENTRY_STATUS));
+        assertEquals("09:00", entry.get(LabDay.ENTRY_START_TIME));
+        assertEquals("10:00", entry.get(LabDay.ENTRY_END_TIME));
+        assertEquals(3, entry.get(LabDay.ENTRY_PARTICIPANTS));
+        assertEquals(Arrays.asList("Microscope", "Notes"), entry.get(LabDay.ENTRY_RESOURCES));
+    }
+}
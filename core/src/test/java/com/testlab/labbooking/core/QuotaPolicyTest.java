@@ -0,0 +1,59 @@
+package com.testlab.labbooking.core;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class QuotaPolicyTest {
+    @Test
+    public void countsOnlyTheMondayToSundayWeek() {
+        List<Reservation> bookings = Arrays.asList(
+                new TestBooking("2026-10-18", "09:00", "17:00"), // Sunday before
+                new TestBooking("2026-10-19", "09:00", "10:30"), // Monday
+                new TestBooking("2026-10-25", "22:00", "24:00"), // Sunday
+                new TestBooking("2026-10-26", "09:00", "10:00")); // Monday after
+        assertEquals(210, QuotaPolicy.bookedMinutesInWeek(bookings, "2026-10-19"));
+        assertEquals(210, QuotaPolicy.bookedMinutesInWeek(bookings, "2026-10-25"));
+    }
+
+    @Test
+    public void skipsInvalidTimesAndDates() {
+        List<Reservation> bookings = Arrays.asList(
+                new TestBooking("2026-10-20", "10:00", "09:00"),
+                new TestBooking("2026-10-20", "10:00", "noon"),
+                new TestBooking("2026-10-32", "09:00", "10:00"),
+                null);
+        assertEquals(0, QuotaPolicy.bookedMinutesInWeek(bookings, "2026-10-20"));
+        assertEquals(0, QuotaPolicy.bookedMinutesInWeek(bookings, "not a date"));
+    }
+
+    @Test
+    public void allowsBookingBelowBothLimits() {
+        QuotaPolicy.Result result = QuotaPolicy.check(4, 5, 19, 20);
+        assertTrue(result.canBook);
+        assertEquals("", result.message());
+    }
+
+    @Test
+    public void concurrentLimitIsReachedAtTheMaximum() {
+        QuotaPolicy.Result result = QuotaPolicy.check(5, 5, 0, 20);
+        assertFalse(result.canBook);
+        assertEquals("You have reached your maximum concurrent bookings (5)", result.message());
+    }
+
+    @Test
+    public void weeklyLimitIsReachedAtTheMaximum() {
+        QuotaPolicy.Result result = QuotaPolicy.check(0, 5, 20, 20);
+        assertFalse(result.canBook);
+        assertEquals("You have reached your weekly booking limit (20 hours)", result.message());
+    }
+
+    @Test
+    public void concurrentLimitIsReportedFirst() {
+        assertEquals("You have reached your maximum concurrent bookings (5)",
+                QuotaPolicy.check(6, 5, 25, 20).message());
+    }
+}
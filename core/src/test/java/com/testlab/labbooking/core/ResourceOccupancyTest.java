@@ -0,0 +1,91 @@
+package com.testlab.labbooking.core;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class ResourceOccupancyTest {
+    private static final String DATE = "2026-10-19";
+
+    private static Map<String, Integer> inventory() {
+        Map<String, Integer> inventory = new HashMap<>();
+        inventory.put("Microscope", 2);
+        inventory.put("3D Printer", 1);
+        return inventory;
+    }
+
+    private static int minutes(String time) {
+        return TimeOfDay.toMinutes(time);
+    }
+
+    @Test
+    public void demandCountsDuplicatesAndSkipsUncountedResources() {
+        Map<String, Integer> demand = ResourceOccupancy.demand(
+                Arrays.asList("Microscope", "Safety goggles", "Microscope", "3D Printer", null), inventory());
+
+        assertEquals(2, demand.size());
+        assertEquals(Integer.valueOf(2), demand.get("Microscope"));
+        assertEquals(Integer.valueOf(1), demand.get("3D Printer"));
+        assertFalse(demand.containsKey("Safety goggles"));
+    }
+
+    @Test
+    public void demandIsEmptyWithoutResourcesOrInventory() {
+        assertTrue(ResourceOccupancy.demand(null, inventory()).isEmpty());
+        assertTrue(ResourceOccupancy.demand(Collections.singletonList("Microscope"), null).isEmpty());
+        assertTrue(ResourceOccupancy.demand(Collections.singletonList("Microscope"),
+                Collections.<String, Integer>emptyMap()).isEmpty());
+    }
+
+    @Test
+    public void shortfallsListOnlyResourcesWithTooFewUnits() {
+        Map<String, Integer> inventory = inventory();
+        ResourceOccupancy units = ResourceOccupancy.of(Arrays.asList(
+                new TestBooking(DATE, "09:00", "10:00").resources("Microscope", "3D Printer"),
+                new TestBooking(DATE, "11:00", "12:00").resources("Microscope", "Microscope")), DATE, inventory);
+
+        Map<String, Integer> demand = ResourceOccupancy.demand(
+                Arrays.asList("Microscope", "3D Printer"), inventory);
+        assertEquals(Collections.singletonMap("3D Printer", 0),
+                units.shortfalls(demand, minutes("09:30"), minutes("10:30"), inventory));
+        assertTrue(units.shortfalls(demand, minutes("10:00"), minutes("11:00"), inventory).isEmpty());
+        assertEquals(Collections.singletonMap("Microscope", 0),
+                units.shortfalls(demand, minutes("10:30"), minutes("11:30"), inventory));
+    }
+
+    @Test
+    public void remainingUnitsPerSlot() {
+        Map<String, Integer> inventory = inventory();
+        ResourceOccupancy units = ResourceOccupancy.of(Arrays.asList(
+                new TestBooking(DATE, "09:00", "10:00").resources("Microscope"),
+                new TestBooking(DATE, "09:30", "10:30").resources("Microscope"),
+                new TestBooking(DATE, "09:00", "10:00", false).resources("Microscope")), DATE, inventory);
+
+        List<TimeRange> slots = Arrays.asList(
+                new TimeRange(minutes("09:00"), minutes("09:30")),
+                new TimeRange(minutes("09:30"), minutes("10:00")),
+                new TimeRange(minutes("10:00"), minutes("10:30")),
+                new TimeRange(minutes("10:30"), minutes("11:00")));
+        assertArrayEquals(new int[]{1, 0, 1, 2}, units.remainingUnits("Microscope", slots, inventory));
+        assertArrayEquals(new int[]{1, 1, 1, 1}, units.remainingUnits("3D Printer", slots, inventory));
+        assertArrayEquals(new int[]{0, 0, 0, 0}, units.remainingUnits("Oscilloscope", slots, inventory));
+    }
+
+    @Test
+    public void resourcesAddedToTheInventoryCountForExistingBookings() {
+        List<TestBooking> booked = Collections.singletonList(
+                new TestBooking(DATE, "09:00", "10:00").resources("Oscilloscope"));
+        Map<String, Integer> inventory = inventory();
+        inventory.put("Oscilloscope", 1);
+
+        ResourceOccupancy units = ResourceOccupancy.of(booked, DATE, inventory);
+        assertEquals(0, units.remaining("Oscilloscope", minutes("09:00"), minutes("10:00"), inventory));
+        assertEquals(1, units.remaining("Oscilloscope", minutes("10:00"), minutes("11:00"), inventory));
+    }
+}
@@ -0,0 +1,99 @@
+package com.testlab.labbooking.core;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SchedulingEngineTest {
+    private static final String DATE = "2026-10-19";
+
+    private static final List<TimeRange> HOURLY = SchedulingEngine.generateSlots("09:00", "13:00", 60, 60);
+
+    @Test
+    public void generatesSlotsThatEndByClosing() {
+        assertEquals(Arrays.asList(new TimeRange(540, 600), new TimeRange(600, 660),
+                new TimeRange(660, 720), new TimeRange(720, 780)), HOURLY);
+        assertEquals(3, SchedulingEngine.generateSlots("09:00", "12:30", 60, 60).size());
+        assertEquals(1, SchedulingEngine.generateSlots("23:00", "24:00", 60, 60).size());
+    }
+
+    @Test
+    public void generatesNoSlotsForInvalidInput() {
+        assertTrue(SchedulingEngine.generateSlots("9am", "17:00", 60, 60).isEmpty());
+        assertTrue(SchedulingEngine.generateSlots("09:00", "17:00", 0, 60).isEmpty());
+        assertTrue(SchedulingEngine.generateSlots("09:00", "17:00", 60, 0).isEmpty());
+    }
+
+    @Test
+    public void everySlotIsFreeOnAnEmptyDay() {
+        assertArrayEquals(new boolean[]{true, true, true, true},
+                SchedulingEngine.availability(HOURLY, Collections.<Reservation>emptyList(), DATE));
+    }
+
+    @Test
+    public void backToBackBookingsLeaveNeighbouringSlotsFree() {
+        List<Reservation> bookings = Arrays.asList(
+                new TestBooking(DATE, "10:00", "11:00"),
+                new TestBooking(DATE, "11:00", "12:00"));
+        assertArrayEquals(new boolean[]{true, false, false, true},
+                SchedulingEngine.availability(HOURLY, bookings, DATE));
+    }
+
+    @Test
+    public void partialOverlapTakesTheSlot() {
+        List<Reservation> bookings = Collections.singletonList(new TestBooking(DATE, "09:59", "10:01"));
+        assertArrayEquals(new boolean[]{false, false, true, true},
+                SchedulingEngine.availability(HOURLY, bookings, DATE));
+    }
+
+    @Test
+    public void longBookingCoversLaterSlotsPastShorterOnes() {
+        // The 09:00-12:00 booking still holds the 11:00 slot after the short one ends
+        List<Reservation> bookings = Arrays.asList(
+                new TestBooking(DATE, "09:00", "12:00"),
+                new TestBooking(DATE, "09:30", "10:00"));
+        assertArrayEquals(new boolean[]{false, false, false, true},
+                SchedulingEngine.availability(HOURLY, bookings, DATE));
+    }
+
+    @Test
+    public void ignoresInactiveOtherDayAndInvalidBookings() {
+        List<Reservation> bookings = Arrays.asList(
+                new TestBooking(DATE, "09:00", "10:00", false),
+                new TestBooking("2026-10-20", "10:00", "11:00"),
+                new TestBooking(DATE, "11:00", "late"),
+                new TestBooking(DATE, "13:00", "12:00"),
+                null);
+        assertArrayEquals(new boolean[]{true, true, true, true},
+                SchedulingEngine.availability(HOURLY, bookings, DATE));
+    }
+
+    @Test
+    public void bookingUntilMidnightTakesTheLastSlot() {
+        List<TimeRange> evening = SchedulingEngine.generateSlots("22:00", "24:00", 60, 60);
+        List<Reservation> bookings = Collections.singletonList(new TestBooking(DATE, "23:00", "24:00"));
+        assertArrayEquals(new boolean[]{true, false}, SchedulingEngine.availability(evening, bookings, DATE));
+    }
+
+    @Test
+    public void overlapIsHalfOpen() {
+        assertTrue(SchedulingEngine.overlaps("09:00", "10:00", "09:30", "10:30"));
+        assertFalse(SchedulingEngine.overlaps("09:00", "10:00", "10:00", "11:00"));
+        assertFalse(SchedulingEngine.overlaps("09:00", "10:00", "09:30", null));
+    }
+
+    @Test
+    public void findsConflictsOnTheDate() {
+        TestBooking overlapping = new TestBooking(DATE, "09:30", "10:30");
+        List<TestBooking> bookings = Arrays.asList(overlapping,
+                new TestBooking(DATE, "10:30", "11:00"),
+                new TestBooking(DATE, "09:00", "10:00", false),
+                new TestBooking("2026-10-20", "09:00", "10:00"));
+        assertEquals(Collections.singletonList(overlapping),
+                SchedulingEngine.findConflicts(bookings, DATE, "09:00", "10:30"));
+    }
+}
@@ -0,0 +1,79 @@
+package com.testlab.labbooking.core;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SeatOccupancyTest {
+    private static final String DATE = "2026-10-19";
+
+    private static int minutes(String time) {
+        return TimeOfDay.toMinutes(time);
+    }
+
+    @Test
+    public void backToBackBookingsDoNotAddUp() {
+        SeatOccupancy seats = SeatOccupancy.of(Arrays.asList(
+                new TestBooking(DATE, "09:00", "10:00").participants(8),
+                new TestBooking(DATE, "10:00", "11:00").participants(8)), DATE);
+
+        assertEquals(8, seats.peak(minutes("09:00"), minutes("11:00")));
+        assertEquals(8, seats.peak(minutes("09:30"), minutes("10:30")));
+        assertTrue(seats.fits(minutes("09:00"), minutes("11:00"), 2, 10));
+        assertFalse(seats.fits(minutes("09:00"), minutes("11:00"), 3, 10));
+    }
+
+    @Test
+    public void capacityExactlyReachedStillFits() {
+        SeatOccupancy seats = SeatOccupancy.of(Collections.singletonList(
+                new TestBooking(DATE, "10:00", "12:00").participants(6)), DATE);
+
+        assertTrue(seats.fits(minutes("10:00"), minutes("11:00"), 4, 10));
+        assertFalse(seats.fits(minutes("10:00"), minutes("11:00"), 5, 10));
+        assertArrayEquals(new int[]{4, 10},
+                seats.remainingSeats(Arrays.asList(new TimeRange(minutes("11:00"), minutes("12:00")),
+                        new TimeRange(minutes("12:00"), minutes("13:00"))), 10));
+    }
+
+    @Test
+    public void bookingsChangingAtTheSameMinuteMerge() {
+        SeatOccupancy seats = SeatOccupancy.of(Arrays.asList(
+                new TestBooking(DATE, "09:00", "10:00").participants(3),
+                new TestBooking(DATE, "09:00", "10:30").participants(2),
+                new TestBooking(DATE, "10:00", "11:00").participants(4)), DATE);
+
+        assertEquals(5, seats.peak(minutes("09:00"), minutes("10:00")));
+        assertEquals(6, seats.peak(minutes("10:00"), minutes("10:30")));
+        assertEquals(4, seats.peak(minutes("10:30"), minutes("11:00")));
+
+        List<SeatOccupancy.Window> windows = seats.windows(minutes("09:00"), minutes("11:00"), 10);
+        assertEquals(3, windows.size());
+        assertEquals("09:00-10:00 5 seats", windows.get(0).toString());
+        assertEquals("10:00-10:30 4 seats", windows.get(1).toString());
+        assertEquals("10:30-11:00 6 seats", windows.get(2).toString());
+    }
+
+    @Test
+    public void windowsOfAnEmptyDayCoverTheRangeOnce() {
+        SeatOccupancy seats = SeatOccupancy.of(Collections.<TestBooking>emptyList(), DATE);
+
+        List<SeatOccupancy.Window> windows = seats.windows(minutes("09:00"), minutes("17:00"), 12);
+        assertEquals(1, windows.size());
+        assertEquals("09:00-17:00 12 seats", windows.get(0).toString());
+        assertEquals(0, seats.peak(minutes("09:00"), minutes("17:00")));
+    }
+
+    @Test
+    public void ignoresInactiveAndOtherDaysAndCountsAtLeastOneSeat() {
+        SeatOccupancy seats = SeatOccupancy.of(Arrays.asList(
+                new TestBooking(DATE, "09:00", "10:00", false).participants(9),
+                new TestBooking("2026-10-20", "09:00", "10:00").participants(9),
+                new TestBooking(DATE, "09:00", "10:00").participants(0)), DATE);
+
+        assertEquals(1, seats.peak(minutes("09:00"), minutes("10:00")));
+    }
+}
@@ -0,0 +1,83 @@
+package com.testlab.labbooking.core;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A booking request with just the fields the tests set
+ */
+final class TestBooking implements BookingRequest {
+    private final String date;
+    private final String startTime;
+    private final String endTime;
+    private final boolean active;
+    private int participants = 1;
+    private List<String> resources = Collections.emptyList();
+
+    TestBooking(String date, String startTime, String endTime) {
+        this(date, startTime, endTime, true);
+    }
+
+    TestBooking(String date, String startTime, String endTime, boolean active) {
+        this.date = date;
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.active = active;
+    }
+
+    TestBooking participants(int participants) {
+        this.participants = participants;
+        return this;
+    }
+
+    TestBooking resources(String... resources) {
+        this.resources = Arrays.asList(resources);
+        return this;
+    }
+
+    @Override
+    public String getDate() {
+        return date;
+    }
+
+    @Override
+    public String getStartTime() {
+        return startTime;
+    }
+
+    @Override
+    public String getEndTime() {
+        return endTime;
+    }
+
+    @Override
+    public boolean isActive() {
+        return active;
+    }
+
+    @Override
+    public String getLabId() {
+        return "lab";
+    }
+
+    @Override
+    public String getUserId() {
+        return "user";
+    }
+
+    @Override
+    public String getPurpose() {
+        return "Testing";
+    }
+
+    @Override
+    public int getNumberOfParticipants() {
+        return participants;
+    }
+
+    @Override
+    public List<String> getRequiredResources() {
+        return resources;
+    }
+}
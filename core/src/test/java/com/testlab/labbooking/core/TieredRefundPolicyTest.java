@@ -0,0 +1,40 @@
+package com.testlab.labbooking.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TieredRefundPolicyTest {
+    private static final double COST = 80;
+    private static final double DELTA = 1e-9;
+
+    private final RefundPolicy policy = RefundPolicy.STANDARD;
+
+    @Test
+    public void fullRefundFromADayAhead() {
+        assertEquals(COST, policy.refundAmount(COST, 24), DELTA);
+        assertEquals(COST, policy.refundAmount(COST, 72), DELTA);
+    }
+
+    @Test
+    public void halfRefundFromFourHoursAhead() {
+        assertEquals(COST / 2, policy.refundAmount(COST, 23), DELTA);
+        assertEquals(COST / 2, policy.refundAmount(COST, 4), DELTA);
+    }
+
+    @Test
+    public void noRefundInTheLastFourHoursOrOnceStarted() {
+        assertEquals(0, policy.refundAmount(COST, 3), DELTA);
+        assertEquals(0, policy.refundAmount(COST, 0), DELTA);
+        assertEquals(0, policy.refundAmount(COST, -2), DELTA);
+    }
+
+    @Test
+    public void customTiers() {
+        RefundPolicy custom = new TieredRefundPolicy(48, 12, 0.25);
+        assertEquals(COST, custom.refundAmount(COST, 48), DELTA);
+        assertEquals(COST / 4, custom.refundAmount(COST, 47), DELTA);
+        assertEquals(COST / 4, custom.refundAmount(COST, 12), DELTA);
+        assertEquals(0, custom.refundAmount(COST, 11), DELTA);
+    }
+}
@@ -0,0 +1,54 @@
+package com.testlab.labbooking.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TimeOfDayTest {
+    @Test
+    public void parsesOneAndTwoDigitHours() {
+        assertEquals(0, TimeOfDay.toMinutes("00:00"));
+        assertEquals(9 * 60 + 5, TimeOfDay.toMinutes("9:05"));
+        assertEquals(9 * 60 + 5, TimeOfDay.toMinutes("09:05"));
+        assertEquals(23 * 60 + 59, TimeOfDay.toMinutes("23:59"));
+    }
+
+    @Test
+    public void acceptsMidnightAtTheEndOfTheDay() {
+        assertEquals(TimeOfDay.END_OF_DAY, TimeOfDay.toMinutes("24:00"));
+    }
+
+    @Test
+    public void rejectsTimesPastTheEndOfTheDay() {
+        assertEquals(TimeOfDay.INVALID, TimeOfDay.toMinutes("24:01"));
+        assertEquals(TimeOfDay.INVALID, TimeOfDay.toMinutes("25:00"));
+    }
+
+    @Test
+    public void rejectsMalformedTimes() {
+        assertEquals(TimeOfDay.INVALID, TimeOfDay.toMinutes(null));
+        assertEquals(TimeOfDay.INVALID, TimeOfDay.toMinutes(""));
+        assertEquals(TimeOfDay.INVALID, TimeOfDay.toMinutes("0900"));
+        assertEquals(TimeOfDay.INVALID, TimeOfDay.toMinutes(":30"));
+        assertEquals(TimeOfDay.INVALID, TimeOfDay.toMinutes("123:00"));
+        assertEquals(TimeOfDay.INVALID, TimeOfDay.toMinutes("09:5"));
+        assertEquals(TimeOfDay.INVALID, TimeOfDay.toMinutes("09:60"));
+        assertEquals(TimeOfDay.INVALID, TimeOfDay.toMinutes("ab:cd"));
+        assertEquals(TimeOfDay.INVALID, TimeOfDay.toMinutes("-1:00"));
+    }
+
+    @Test
+    public void formatsWithLeadingZeros() {
+        assertEquals("00:00", TimeOfDay.format(0));
+        assertEquals("09:05", TimeOfDay.format(9 * 60 + 5));
+        assertEquals("24:00", TimeOfDay.format(TimeOfDay.END_OF_DAY));
+    }
+
+    @Test
+    public void minutesBetweenIsZeroForInvalidTimes() {
+        assertEquals(90, TimeOfDay.minutesBetween("09:00", "10:30"));
+        assertEquals(60, TimeOfDay.minutesBetween("23:00", "24:00"));
+        assertEquals(0, TimeOfDay.minutesBetween("09:00", "9am"));
+        assertEquals(0, TimeOfDay.minutesBetween(null, "10:00"));
+    }
+}
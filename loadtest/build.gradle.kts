@@ -0,0 +1,23 @@
+// Exam-week rush simulation against the Firestore emulator.
+//   firebase emulators:start --only firestore
+//   FIRESTORE_EMULATOR_HOST=localhost:8080 ./gradlew :loadtest:run \
+//       --args="--project demo-labbooking --clients 500 --rate 200 --duration 30 --hotspot 0.8"
+plugins {
+    application
+}
+
+java {
+    // Virtual threads
+    toolchain {
+        languageVersion.set(JavaLanguageVersion.of(21))
+    }
+}
+
+application {
+    mainClass.set("com.testlab.labbooking.loadtest.LoadGenerator")
+}
+
+dependencies {
+    implementation(project(":core"))
+    implementation(libs.firebase.admin)
+}
@@ -0,0 +1,70 @@
+package com.testlab.labbooking.loadtest;
+
+import com.testlab.labbooking.core.BookingRequest;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One simulated student's booking request: one participant, no equipment
+ */
+final class BookingAttempt implements BookingRequest {
+    final String labId;
+    final String userId;
+    final String date;
+    final String startTime;
+    final String endTime;
+
+    BookingAttempt(String labId, String userId, String date, String startTime, String endTime) {
+        this.labId = labId;
+        this.userId = userId;
+        this.date = date;
+        this.startTime = startTime;
+        this.endTime = endTime;
+    }
+
+    @Override
+    public String getLabId() {
+        return labId;
+    }
+
+    @Override
+    public String getUserId() {
+        return userId;
+    }
+
+    @Override
+    public String getDate() {
+        return date;
+    }
+
+    @Override
+    public String getStartTime() {
+        return startTime;
+    }
+
+    @Override
+    public String getEndTime() {
+        return endTime;
+    }
+
+    @Override
+    public String getPurpose() {
+        return "Exam preparation";
+    }
+
+    @Override
+    public int getNumberOfParticipants() {
+        return 1;
+    }
+
+    @Override
+    public List<String> getRequiredResources() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public boolean isActive() {
+        return true; // Created pending
+    }
+}
@@ -0,0 +1,316 @@
+package com.testlab.labbooking.loadtest;
+
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.FieldValue;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.Query;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.QuerySnapshot;
+import com.testlab.labbooking.core.BookingRequest;
+import com.testlab.labbooking.core.LabDay;
+import com.testlab.labbooking.core.SchedulingEngine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One of the app's two ways of creating a booking, replayed step for step with the server SDK:
+ * the same collections, the conflict query of DatabaseUtils.getConflictingBookingsQuery, and the
+ * overlap and admission rules from :core. Like the app's transactions, these never run a query
+ * inside a transaction, which the Android SDK does not allow.
+ */
+abstract class BookingPath {
+    // Mirrors DatabaseUtils
+    static final String BOOKINGS_COLLECTION = "bookings";
+    static final String LAB_DAYS_COLLECTION = "labDays";
+    static final String FIELD_LAB_ID = "labId";
+    static final String FIELD_USER_ID = "userId";
+    static final String FIELD_DATE = "date";
+    static final String FIELD_STATUS = "status";
+    static final String FIELD_START_TIME = "startTime";
+    static final String FIELD_END_TIME = "endTime";
+    static final String FIELD_RESERVATIONS = "reservations";
+    static final String FIELD_UPDATED_AT = "updatedAt";
+    static final String STATUS_PENDING = "pending";
+    static final List<String> ACTIVE_STATUSES = Arrays.asList(STATUS_PENDING, "approved");
+
+    static final int LAB_CAPACITY = 30;
+
+    enum Outcome { CREATED, SLOT_TAKEN }
+
+    final Firestore db;
+
+    BookingPath(Firestore db) {
+        this.db = db;
+    }
+
+    static BookingPath forMode(String mode, Firestore db) {
+        return "reserve".equals(mode) ? new Reserve(db) : new QueryThenAdd(db);
+    }
+
+    /**
+     * Countable equipment of the seeded labs; the app reserves through the labDays index only
+     * in labs that share seats or count equipment
+     */
+    abstract Map<String, Integer> inventory();
+
+    /**
+     * Try to book; blocking
+     */
+    abstract Outcome book(BookingAttempt attempt) throws Exception;
+
+    /**
+     * Transaction attempts beyond the first, summed over all bookings
+     */
+    int retries() {
+        return 0;
+    }
+
+    Query conflictingBookingsQuery(String labId, String date) {
+        return db.collection(BOOKINGS_COLLECTION)
+                .whereEqualTo(FIELD_LAB_ID, labId)
+                .whereEqualTo(FIELD_DATE, date)
+                .whereIn(FIELD_STATUS, ACTIVE_STATUSES)
+                .orderBy(FIELD_START_TIME);
+    }
+
+    static Map<String, Object> bookingData(BookingAttempt attempt) {
+        Map<String, Object> data = new HashMap<>();
+        data.put(FIELD_LAB_ID, attempt.labId);
+        data.put(FIELD_USER_ID, attempt.userId);
+        data.put(FIELD_DATE, attempt.date);
+        data.put(FIELD_START_TIME, attempt.startTime);
+        data.put(FIELD_END_TIME, attempt.endTime);
+        data.put(FIELD_STATUS, STATUS_PENDING);
+        data.put("purpose", attempt.getPurpose());
+        data.put("numberOfParticipants", attempt.getNumberOfParticipants());
+        data.put("requiredResources", attempt.getRequiredResources());
+        data.put("createdAt", FieldValue.serverTimestamp());
+        return data;
+    }
+
+    /**
+     * DatabaseUtils.createBookingWithValidation, used for labs booked whole with no counted
+     * equipment: read the day's active bookings, then add the booking if nothing overlaps.
+     * Nothing stops two clients from both passing the check.
+     */
+    static final class QueryThenAdd extends BookingPath {
+        QueryThenAdd(Firestore db) {
+            super(db);
+        }
+
+        @Override
+        Map<String, Integer> inventory() {
+            return Collections.emptyMap();
+        }
+
+        @Override
+        Outcome book(BookingAttempt attempt) throws Exception {
+            QuerySnapshot existing = conflictingBookingsQuery(attempt.labId, attempt.date).get().get();
+            List<StoredReservation> reservations = new ArrayList<>();
+            for (QueryDocumentSnapshot doc : existing) {
+                reservations.add(StoredReservation.of(doc));
+            }
+            if (!SchedulingEngine.findConflicts(reservations, null, attempt.startTime, attempt.endTime).isEmpty()) {
+                return Outcome.SLOT_TAKEN;
+            }
+            db.collection(BOOKINGS_COLLECTION).add(bookingData(attempt)).get();
+            return Outcome.CREATED;
+        }
+    }
+
+    /**
+     * DatabaseUtils.reserveBooking, used for labs with counted equipment or shared seats: one
+     * transaction reads the labDays document, admits the booking against the active entries with
+     * {@link LabDay#admit}, and writes it together with the rewritten index. Only a day with no
+     * index yet is seeded from the conflict query, whose bookings the transaction reads once.
+     * Two clients booking the same lab and day both write the index, so one of them retries.
+     */
+    static final class Reserve extends BookingPath {
+        private static final Map<String, Integer> INVENTORY = Collections.singletonMap("Oscilloscope", 2);
+
+        private final AtomicInteger retries = new AtomicInteger();
+
+        Reserve(Firestore db) {
+            super(db);
+        }
+
+        @Override
+        Map<String, Integer> inventory() {
+            return INVENTORY;
+        }
+
+        @Override
+        Outcome book(BookingAttempt attempt) throws Exception {
+            DocumentReference dayRef = db.collection(LAB_DAYS_COLLECTION).document(attempt.labId + "_" + attempt.date);
+            Set<String> seedIds = new LinkedHashSet<>();
+            if (!(dayRef.get().get().get(FIELD_RESERVATIONS) instanceof Map)) {
+                for (QueryDocumentSnapshot doc : conflictingBookingsQuery(attempt.labId, attempt.date).get().get()) {
+                    seedIds.add(doc.getId());
+                }
+            }
+
+            DocumentReference bookingRef = db.collection(BOOKINGS_COLLECTION).document();
+            AtomicInteger runs = new AtomicInteger();
+            try {
+                return db.runTransaction(transaction -> {
+                    runs.incrementAndGet();
+                    DocumentSnapshot day = transaction.get(dayRef).get();
+                    Map<String, StoredReservation> active = new HashMap<>();
+                    Object indexed = day.get(FIELD_RESERVATIONS);
+                    if (indexed instanceof Map) {
+                        for (Map.Entry<?, ?> item : ((Map<?, ?>) indexed).entrySet()) {
+                            if (item.getValue() instanceof Map) {
+                                StoredReservation other = StoredReservation.of(attempt.labId, attempt.date,
+                                        (Map<?, ?>) item.getValue());
+                                if (other.isActive()) {
+                                    active.put(String.valueOf(item.getKey()), other);
+                                }
+                            }
+                        }
+                    } else {
+                        for (String id : seedIds) {
+                            DocumentSnapshot doc = transaction.get(db.collection(BOOKINGS_COLLECTION).document(id)).get();
+                            if (doc.exists()) {
+                                StoredReservation other = StoredReservation.of(doc);
+                                if (other.isActive()) {
+                                    active.put(id, other);
+                                }
+                            }
+                        }
+                    }
+
+                    LabDay.Admission admission = LabDay.admit(attempt, active.values(), false, LAB_CAPACITY,
+                            INVENTORY);
+                    if (!admission.admitted) {
+                        return Outcome.SLOT_TAKEN;
+                    }
+
+                    // All reads come before the writes in a transaction
+                    Map<String, Object> reservations = new HashMap<>();
+                    for (Map.Entry<String, StoredReservation> holder : active.entrySet()) {
+                        reservations.put(holder.getKey(),
+                                LabDay.toEntry(holder.getValue(), holder.getValue().status));
+                    }
+                    reservations.put(bookingRef.getId(), LabDay.toEntry(attempt, STATUS_PENDING));
+                    Map<String, Object> dayData = new HashMap<>();
+                    dayData.put(FIELD_LAB_ID, attempt.labId);
+                    dayData.put(FIELD_DATE, attempt.date);
+                    dayData.put(FIELD_RESERVATIONS, reservations);
+                    dayData.put(FIELD_UPDATED_AT, FieldValue.serverTimestamp());
+                    transaction.set(bookingRef, bookingData(attempt));
+                    transaction.set(dayRef, dayData);
+                    return Outcome.CREATED;
+                }).get();
+            } finally {
+                retries.addAndGet(Math.max(0, runs.get() - 1));
+            }
+        }
+
+        @Override
+        int retries() {
+            return retries.get();
+        }
+    }
+
+    /**
+     * A stored booking as the scheduling and admission rules see it
+     */
+    static final class StoredReservation implements BookingRequest {
+        private final String labId;
+        private final String userId;
+        private final String date;
+        private final String startTime;
+        private final String endTime;
+        private final int participants;
+        private final List<String> resources;
+        final String status;
+
+        private StoredReservation(String labId, String userId, String date, String startTime, String endTime,
+                                  Object participants, Object resources, String status) {
+            this.labId = labId;
+            this.userId = userId;
+            this.date = date;
+            this.startTime = startTime;
+            this.endTime = endTime;
+            this.participants = participants instanceof Number ? ((Number) participants).intValue() : 1;
+            List<String> units = new ArrayList<>();
+            if (resources instanceof List) {
+                for (Object resource : (List<?>) resources) {
+                    units.add(String.valueOf(resource));
+                }
+            }
+            this.resources = units;
+            this.status = status;
+        }
+
+        static StoredReservation of(DocumentSnapshot doc) {
+            return new StoredReservation(doc.getString(FIELD_LAB_ID), doc.getString(FIELD_USER_ID),
+                    doc.getString(FIELD_DATE), doc.getString(FIELD_START_TIME), doc.getString(FIELD_END_TIME),
+                    doc.get("numberOfParticipants"), doc.get("requiredResources"), doc.getString(FIELD_STATUS));
+        }
+
+        /**
+         * A labDays index entry; entries written before the index kept a status are pending
+         */
+        static StoredReservation of(String labId, String date, Map<?, ?> entry) {
+            Object status = entry.get(LabDay.ENTRY_STATUS);
+            return new StoredReservation(labId, null, date, (String) entry.get(LabDay.ENTRY_START_TIME),
+                    (String) entry.get(LabDay.ENTRY_END_TIME), entry.get(LabDay.ENTRY_PARTICIPANTS),
+                    entry.get(LabDay.ENTRY_RESOURCES), status != null ? status.toString() : STATUS_PENDING);
+        }
+
+        @Override
+        public String getLabId() {
+            return labId;
+        }
+
+        @Override
+        public String getUserId() {
+            return userId;
+        }
+
+        @Override
+        public String getDate() {
+            return date;
+        }
+
+        @Override
+        public String getStartTime() {
+            return startTime;
+        }
+
+        @Override
+        public String getEndTime() {
+            return endTime;
+        }
+
+        @Override
+        public String getPurpose() {
+            return null;
+        }
+
+        @Override
+        public int getNumberOfParticipants() {
+            return participants;
+        }
+
+        @Override
+        public List<String> getRequiredResources() {
+            return resources;
+        }
+
+        @Override
+        public boolean isActive() {
+            return ACTIVE_STATUSES.contains(status);
+        }
+    }
+}
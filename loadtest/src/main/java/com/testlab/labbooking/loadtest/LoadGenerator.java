@@ -0,0 +1,209 @@
+package com.testlab.labbooking.loadtest;
+
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.FirestoreOptions;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.QuerySnapshot;
+import com.google.cloud.firestore.WriteBatch;
+import com.testlab.labbooking.core.CalendarDates;
+import com.testlab.labbooking.core.SchedulingEngine;
+import com.testlab.labbooking.core.TimeOfDay;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reproduces the exam-week rush: many students trying to book the same lab and hour within
+ * seconds, against the Firestore emulator.
+ *
+ * Booking attempts arrive as a Poisson process at the configured rate; each runs on its own
+ * virtual thread, with at most {@code --clients} in flight. A share of attempts (the hotspot)
+ * goes to one lab, and all of them compete for a few one-hour slots. Afterwards every booking
+ * the run created is checked for overlaps on the same lab and date (double bookings).
+ *
+ * Refuses to run unless FIRESTORE_EMULATOR_HOST is set.
+ */
+public final class LoadGenerator {
+    private static final String LABS_COLLECTION = "labs";
+    private static final int FIRST_SLOT_MINUTES = 9 * 60;
+
+    private final LoadOptions options;
+    private final Firestore db;
+    private final String runId;
+    private final String date;
+
+    private LoadGenerator(LoadOptions options, Firestore db) {
+        this.options = options;
+        this.db = db;
+        this.runId = Long.toString(System.currentTimeMillis(), 36);
+        this.date = tomorrow();
+    }
+
+    public static void main(String[] args) throws Exception {
+        String emulator = System.getenv("FIRESTORE_EMULATOR_HOST");
+        if (emulator == null || emulator.isEmpty()) {
+            System.err.println("FIRESTORE_EMULATOR_HOST is not set; the load test only runs against the emulator");
+            System.exit(2);
+        }
+
+        LoadOptions options = LoadOptions.parse(args);
+        Firestore db = FirestoreOptions.getDefaultInstance().toBuilder()
+                .setProjectId(options.projectId)
+                .build()
+                .getService();
+        try {
+            new LoadGenerator(options, db).run();
+        } finally {
+            db.close();
+        }
+    }
+
+    private void run() throws Exception {
+        System.out.println("Run " + runId + " on " + date + ": " + options);
+        BookingPath path = BookingPath.forMode(options.mode, db);
+        List<String> labIds = seedLabs(path);
+        LoadStats stats = new LoadStats();
+        Random random = new Random(options.seed);
+        Semaphore clients = new Semaphore(options.clients);
+
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(options.durationSeconds);
+        long nextArrival = start;
+        int attempts = 0;
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            while (nextArrival < end) {
+                long wait = nextArrival - System.nanoTime();
+                if (wait > 0) {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                }
+
+                BookingAttempt attempt = nextAttempt(random, labIds, attempts++);
+                if (clients.tryAcquire()) {
+                    executor.submit(() -> {
+                        try {
+                            book(path, attempt, stats);
+                        } finally {
+                            clients.release();
+                        }
+                    });
+                } else {
+                    stats.shed.increment();
+                }
+
+                // Exponential gaps give Poisson arrivals
+                double gapSeconds = -Math.log(1 - random.nextDouble()) / options.arrivalsPerSecond;
+                nextArrival += (long) (gapSeconds * 1_000_000_000L);
+            }
+        } // waits for the in-flight attempts
+
+        double elapsedSeconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        report(stats, path, attempts, elapsedSeconds, countDoubleBookings(labIds));
+    }
+
+    private static void book(BookingPath path, BookingAttempt attempt, LoadStats stats) {
+        long started = System.nanoTime();
+        try {
+            BookingPath.Outcome outcome = path.book(attempt);
+            if (outcome == BookingPath.Outcome.CREATED) {
+                stats.created.increment();
+            } else {
+                stats.slotTaken.increment();
+            }
+        } catch (Exception e) {
+            stats.errors.increment();
+        } finally {
+            stats.recordLatency(System.nanoTime() - started);
+        }
+    }
+
+    private BookingAttempt nextAttempt(Random random, List<String> labIds, int index) {
+        String labId = random.nextDouble() < options.hotspotShare ? labIds.get(0) :
+                labIds.get(random.nextInt(labIds.size()));
+        int slotStart = FIRST_SLOT_MINUTES + random.nextInt(options.hotSlots) * 60;
+        return new BookingAttempt(labId, "student-" + runId + "-" + index, date,
+                TimeOfDay.format(slotStart), TimeOfDay.format(slotStart + 60));
+    }
+
+    // ======================= SETUP AND CHECKS =======================
+
+    private List<String> seedLabs(BookingPath path) throws Exception {
+        List<String> labIds = new ArrayList<>();
+        WriteBatch batch = db.batch();
+        for (int i = 0; i < options.labs; i++) {
+            String labId = "loadtest-" + runId + "-lab-" + i;
+            Map<String, Object> lab = new HashMap<>();
+            lab.put("name", "Load Test Lab " + i);
+            lab.put("capacity", BookingPath.LAB_CAPACITY);
+            lab.put("sharedCapacity", false);
+            lab.put("inventory", path.inventory());
+            lab.put("isActive", true);
+            lab.put("maintenanceMode", false);
+            lab.put("openTime", "08:00");
+            lab.put("closeTime", "20:00");
+            batch.set(db.collection(LABS_COLLECTION).document(labId), lab);
+            labIds.add(labId);
+        }
+        batch.commit().get();
+        return labIds;
+    }
+
+    /**
+     * Active bookings of this run that overlap another active booking of the same lab and date
+     */
+    private int countDoubleBookings(List<String> labIds) throws Exception {
+        int violations = 0;
+        for (String labId : labIds) {
+            QuerySnapshot snapshot = db.collection(BookingPath.BOOKINGS_COLLECTION)
+                    .whereEqualTo(BookingPath.FIELD_LAB_ID, labId)
+                    .whereEqualTo(BookingPath.FIELD_DATE, date)
+                    .get().get();
+
+            List<BookingPath.StoredReservation> bookings = new ArrayList<>();
+            for (QueryDocumentSnapshot doc : snapshot) {
+                bookings.add(BookingPath.StoredReservation.of(doc));
+            }
+            for (BookingPath.StoredReservation booking : bookings) {
+                // The booking itself is always among its conflicts
+                if (booking.isActive() && SchedulingEngine.findConflicts(bookings, date,
+                        booking.getStartTime(), booking.getEndTime()).size() > 1) {
+                    violations++;
+                }
+            }
+        }
+        return violations;
+    }
+
+    private void report(LoadStats stats, BookingPath path, int attempts, double elapsedSeconds,
+                        int doubleBookings) {
+        double[] latency = stats.percentilesMillis();
+        System.out.println();
+        System.out.printf(Locale.US, "Attempts:        %d (%d shed with all clients busy)%n", attempts,
+                stats.shed.sum());
+        System.out.printf(Locale.US, "Completed:       %d in %.1f s = %.1f bookings/s%n", stats.completed(),
+                elapsedSeconds, stats.completed() / elapsedSeconds);
+        System.out.printf(Locale.US, "Created:         %d%n", stats.created.sum());
+        System.out.printf(Locale.US, "Slot taken:      %d%n", stats.slotTaken.sum());
+        System.out.printf(Locale.US, "Errors:          %d%n", stats.errors.sum());
+        System.out.printf(Locale.US, "Latency ms:      p50 %.1f  p95 %.1f  p99 %.1f  max %.1f%n",
+                latency[0], latency[1], latency[2], latency[3]);
+        System.out.printf(Locale.US, "Txn retries:     %d%n", path.retries());
+        System.out.printf(Locale.US, "Double bookings: %d%n", doubleBookings);
+    }
+
+    private static String tomorrow() {
+        Calendar cal = Calendar.getInstance();
+        String today = String.format(Locale.US, "%04d-%02d-%02d", cal.get(Calendar.YEAR),
+                cal.get(Calendar.MONTH) + 1, cal.get(Calendar.DAY_OF_MONTH));
+        return CalendarDates.addDays(today, 1);
+    }
+}
@@ -0,0 +1,55 @@
+package com.testlab.labbooking.loadtest;
+
+/**
+ * Command line options for {@link LoadGenerator}
+ */
+final class LoadOptions {
+    String projectId = "demo-labbooking";
+    int clients = 200;              // concurrent simulated clients
+    double arrivalsPerSecond = 100; // Poisson arrival rate of booking attempts
+    int durationSeconds = 30;
+    int labs = 10;
+    double hotspotShare = 0.8;      // share of attempts aimed at the first lab
+    int hotSlots = 4;               // distinct one-hour slots students compete for
+    String mode = "app";            // "app" or "reserve", see BookingPath
+    long seed = 1;
+
+    static LoadOptions parse(String[] args) {
+        LoadOptions options = new LoadOptions();
+        for (int i = 0; i < args.length; i++) {
+            String value = i + 1 < args.length ? args[i + 1] : null;
+            switch (args[i]) {
+                case "--project": options.projectId = require(args[i], value); i++; break;
+                case "--clients": options.clients = Integer.parseInt(require(args[i], value)); i++; break;
+                case "--rate": options.arrivalsPerSecond = Double.parseDouble(require(args[i], value)); i++; break;
+                case "--duration": options.durationSeconds = Integer.parseInt(require(args[i], value)); i++; break;
+                case "--labs": options.labs = Integer.parseInt(require(args[i], value)); i++; break;
+                case "--hotspot": options.hotspotShare = Double.parseDouble(require(args[i], value)); i++; break;
+                case "--hot-slots": options.hotSlots = Integer.parseInt(require(args[i], value)); i++; break;
+                case "--mode": options.mode = require(args[i], value); i++; break;
+                case "--seed": options.seed = Long.parseLong(require(args[i], value)); i++; break;
+                default: throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        if (!options.mode.equals("app") && !options.mode.equals("reserve")) {
+            throw new IllegalArgumentException("--mode must be app or reserve");
+        }
+        if (options.hotSlots < 1 || options.hotSlots > 10) {
+            throw new IllegalArgumentException("--hot-slots must be between 1 and 10");
+        }
+        return options;
+    }
+
+    private static String require(String option, String value) {
+        if (value == null) {
+            throw new IllegalArgumentException(option + " needs a value");
+        }
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return "clients=" + clients + " rate=" + arrivalsPerSecond + "/s duration=" + durationSeconds +
+                "s labs=" + labs + " hotspot=" + hotspotShare + " hotSlots=" + hotSlots + " mode=" + mode;
+    }
+}
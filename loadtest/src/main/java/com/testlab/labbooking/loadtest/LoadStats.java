@@ -0,0 +1,57 @@
+package com.testlab.labbooking.loadtest;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Outcome counters and booking latencies for one run
+ */
+final class LoadStats {
+    private static final int MAX_SAMPLES = 1_000_000;
+
+    final LongAdder created = new LongAdder();
+    final LongAdder slotTaken = new LongAdder();
+    final LongAdder errors = new LongAdder();
+    final LongAdder shed = new LongAdder(); // arrivals with every client busy
+
+    private final long[] latenciesNanos = new long[MAX_SAMPLES];
+    private final AtomicInteger samples = new AtomicInteger();
+
+    void recordLatency(long nanos) {
+        int index = samples.getAndIncrement();
+        if (index < latenciesNanos.length) {
+            latenciesNanos[index] = nanos;
+        }
+    }
+
+    int completed() {
+        return Math.min(samples.get(), latenciesNanos.length);
+    }
+
+    /**
+     * Latency percentiles in milliseconds: p50, p95, p99, max
+     */
+    double[] percentilesMillis() {
+        int count = completed();
+        if (count == 0) {
+            return new double[4];
+        }
+        long[] sorted = Arrays.copyOf(latenciesNanos, count);
+        Arrays.sort(sorted);
+        return new double[]{
+                millis(sorted[percentileIndex(count, 0.50)]),
+                millis(sorted[percentileIndex(count, 0.95)]),
+                millis(sorted[percentileIndex(count, 0.99)]),
+                millis(sorted[count - 1])
+        };
+    }
+
+    private static int percentileIndex(int count, double percentile) {
+        return Math.min(count - 1, (int) Math.ceil(percentile * count) - 1);
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
@@ -0,0 +1,22 @@
+// Sends the email outbox the app fills. Runs on a trusted host next to the SMTP credentials;
+// client devices only write to the outbox.
+//   SMTP_HOST=smtp.example.com SMTP_USERNAME=... SMTP_PASSWORD=... MAIL_FROM=noreply@example.com \
+//       ./gradlew :maildrain:run --args="<project-id>"
+// Add FIRESTORE_EMULATOR_HOST=localhost:8080 to drain the emulator's outbox instead.
+plugins {
+    application
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+application {
+    mainClass.set("com.testlab.labbooking.maildrain.MailDrain")
+}
+
+dependencies {
+    implementation(libs.firebase.admin)
+    testImplementation(libs.junit)
+}
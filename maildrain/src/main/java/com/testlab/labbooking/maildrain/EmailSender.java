@@ -0,0 +1,37 @@
+package com.testlab.labbooking.maildrain;
+
+import java.util.List;
+
+/**
+ * Delivers rendered emails. Implementations block and are called from the drain's
+ * connection workers; one call is one batch and should reuse a single connection for it.
+ */
+public interface EmailSender {
+
+    /**
+     * Send messages and report one result per message, in the same order
+     */
+    List<Result> send(List<EmailMessage> messages) throws Exception;
+
+    enum Result {
+        SENT,
+        RETRY,    // transient failure (4xx, connection dropped); try again later
+        REJECTED  // permanent failure (5xx, bad address); dead-letter it
+    }
+
+    class EmailMessage {
+        public final String id; // outbox document ID
+        public final String to;
+        public final String subject;
+        public final String htmlBody;
+        public final String textBody;
+
+        public EmailMessage(String id, String to, String subject, String htmlBody, String textBody) {
+            this.id = id;
+            this.to = to;
+            this.subject = subject;
+            this.htmlBody = htmlBody;
+            this.textBody = textBody;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.testlab.labbooking.maildrain;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Email templates rendered at send time from the parameters stored with each outbox entry.
+ *
+ * Placeholders look like {@code {{name}}}; values are HTML-escaped in the HTML body and
+ * line breaks become {@code <br>}.
+ */
+public final class EmailTemplates {
+    // Mirrors EmailTemplates in the app, which picks the template and writes the parameters
+    public static final String TEMPLATE_DEFAULT = "default";
+    public static final String TEMPLATE_BOOKING_REMINDER = "booking_reminder";
+    public static final String TEMPLATE_BOOKING_UPDATE = "booking_update";
+
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\{\\{(\\w+)\\}\\}");
+
+    private static final String SIGNATURE_HTML = "<p>Best regards,<br>Lab Booking System</p>";
+    private static final String SIGNATURE_TEXT = "Best regards,\nLab Booking System";
+
+    private static final Map<String, Template> TEMPLATES = new HashMap<>();
+
+    static {
+        TEMPLATES.put(TEMPLATE_DEFAULT, new Template(
+                "{{title}}",
+                "<h2>{{title}}</h2><p>Dear {{name}},</p><p>{{message}}</p><br>" + SIGNATURE_HTML,
+                "Dear {{name}},\n\n{{message}}\n\n" + SIGNATURE_TEXT));
+        TEMPLATES.put(TEMPLATE_BOOKING_REMINDER, new Template(
+                "Reminder: {{title}}",
+                "<h2>{{title}}</h2><p>Dear {{name}},</p><p>{{message}}</p>" +
+                        "<p>Open the app to <b>{{actionText}}</b> when you arrive.</p><br>" + SIGNATURE_HTML,
+                "Dear {{name}},\n\n{{message}}\n\nOpen the app to {{actionText}} when you arrive.\n\n" +
+                        SIGNATURE_TEXT));
+        TEMPLATES.put(TEMPLATE_BOOKING_UPDATE, new Template(
+                "{{title}}",
+                "<h2>{{title}}</h2><p>Dear {{name}},</p><p>{{message}}</p>" +
+                        "<p>Open the app and choose <b>{{actionText}}</b> for details.</p><br>" + SIGNATURE_HTML,
+                "Dear {{name}},\n\n{{message}}\n\nOpen the app and choose {{actionText}} for details.\n\n" +
+                        SIGNATURE_TEXT));
+    }
+
+    private EmailTemplates() {
+    }
+
+    /**
+     * Render a stored outbox entry; unknown templates fall back to the default one
+     */
+    public static EmailSender.EmailMessage render(String id, String to, String templateId,
+                                                  Map<String, String> params) {
+        Template template = TEMPLATES.get(templateId);
+        if (template == null) {
+            template = TEMPLATES.get(TEMPLATE_DEFAULT);
+        }
+        return new EmailSender.EmailMessage(id, to,
+                fill(template.subject, params, false),
+                "<html><body>" + fill(template.html, params, true) + "</body></html>",
+                fill(template.text, params, false));
+    }
+
+    private static String fill(String template, Map<String, String> params, boolean html) {
+        Matcher matcher = PLACEHOLDER.matcher(template);
+        StringBuffer result = new StringBuffer();
+        while (matcher.find()) {
+            String value = params.get(matcher.group(1));
+            if (value == null) {
+                value = "";
+            }
+            if (html) {
+                value = escapeHtml(value).replace("\n", "<br>");
+            }
+            matcher.appendReplacement(result, Matcher.quoteReplacement(value));
+        }
+        matcher.appendTail(result);
+        return result.toString();
+    }
+
+    private static String escapeHtml(String value) {
+        return value.replace("&", "&amp;")
+                .replace("<", "&lt;")
+                .replace(">", "&gt;")
+                .replace("\"", "&quot;");
+    }
+
+    private static class Template {
+        final String subject;
+        final String html;
+        final String text;
+
+        Template(String subject, String html, String text) {
+            this.subject = subject;
+            this.html = html;
+            this.text = text;
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package com.testlab.labbooking.maildrain;
+
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.FieldValue;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.FirestoreOptions;
+import com.google.cloud.firestore.Query;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.QuerySnapshot;
+import com.google.cloud.firestore.WriteBatch;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Sends the emails the app writes to the emailOutbox collection. Runs on a trusted host: the SMTP
+ * credentials live here and never on client devices.
+ *
+ * Each pass leases a page of due pending entries in a transaction and sends them in batches,
+ * one mail server connection per batch and up to {@link #MAX_CONNECTIONS} batches at a time.
+ * Transient failures are retried with exponential backoff; rejected addresses and entries that
+ * run out of attempts are dead-lettered with the last error. An entry whose lease runs out before
+ * its result is recorded (the drain died mid-batch) is sent again, so delivery is at least once.
+ * Several drains can run side by side.
+ *
+ * Usage: {@code MailDrain <project-id> [--once]}. Without {@code --once} the drain keeps polling
+ * for due entries. Reads from the Firestore emulator when FIRESTORE_EMULATOR_HOST is set,
+ * otherwise from the project with default credentials. The mail server comes from SMTP_HOST,
+ * SMTP_PORT (465, implicit TLS, by default; any other port is plain), SMTP_USERNAME,
+ * SMTP_PASSWORD and MAIL_FROM.
+ */
+public final class MailDrain {
+    // Mirrors DatabaseUtils and EmailOutbox in the app
+    private static final String EMAIL_OUTBOX_COLLECTION = "emailOutbox";
+    private static final String FIELD_STATUS = "status";
+    private static final String FIELD_NEXT_ATTEMPT_AT = "nextAttemptAt";
+    private static final String FIELD_TO = "to";
+    private static final String FIELD_TEMPLATE = "template";
+    private static final String FIELD_PARAMS = "params";
+    private static final String FIELD_ATTEMPTS = "attempts";
+    private static final String FIELD_LAST_ERROR = "lastError";
+    private static final String FIELD_SENT_AT = "sentAt";
+    private static final String STATUS_PENDING = "pending";
+    private static final String STATUS_SENT = "sent";
+    private static final String STATUS_DEAD_LETTER = "dead_letter";
+
+    private static final int MAX_ATTEMPTS = 6;
+    private static final long BASE_BACKOFF_MILLIS = 60 * 1000; // 1 minute, doubled per attempt
+    private static final long MAX_BACKOFF_MILLIS = 60 * 60 * 1000; // 1 hour
+    private static final long LEASE_MILLIS = 5 * 60 * 1000;
+    private static final long IDLE_POLL_MILLIS = 10 * 1000;
+    private static final int CONNECTION_BATCH_SIZE = 50;
+    private static final int MAX_CONNECTIONS = 4;
+    private static final int PAGE_SIZE = CONNECTION_BATCH_SIZE * MAX_CONNECTIONS;
+    private static final int DEFAULT_SMTP_PORT = 465;
+
+    private final Firestore db;
+    private final EmailSender sender;
+    private final ExecutorService connections = Executors.newFixedThreadPool(MAX_CONNECTIONS);
+    private final Random random = new Random();
+
+    MailDrain(Firestore db, EmailSender sender) {
+        this.db = db;
+        this.sender = sender;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: MailDrain <project-id> [--once]");
+            System.exit(1);
+        }
+        String projectId = args[0];
+        boolean once = args.length > 1 && "--once".equals(args[1]);
+
+        String host = System.getenv("SMTP_HOST");
+        String from = System.getenv("MAIL_FROM");
+        if (host == null || from == null) {
+            System.err.println("SMTP_HOST and MAIL_FROM must be set");
+            System.exit(2);
+        }
+        String port = System.getenv("SMTP_PORT");
+        int smtpPort = port != null ? Integer.parseInt(port) : DEFAULT_SMTP_PORT;
+        EmailSender sender = new SmtpEmailSender(host, smtpPort, smtpPort == DEFAULT_SMTP_PORT, from,
+                System.getenv("SMTP_USERNAME"), System.getenv("SMTP_PASSWORD"));
+
+        String emulator = System.getenv("FIRESTORE_EMULATOR_HOST");
+        System.out.println("Draining " + projectId + (emulator != null ? " on emulator " + emulator : "") +
+                " through " + host + ":" + smtpPort);
+
+        Firestore db = FirestoreOptions.getDefaultInstance().toBuilder()
+                .setProjectId(projectId)
+                .build()
+                .getService();
+        MailDrain drain = new MailDrain(db, sender);
+        try {
+            do {
+                if (drain.drainDue() == 0 && !once) {
+                    Thread.sleep(IDLE_POLL_MILLIS);
+                }
+            } while (!once);
+        } finally {
+            drain.connections.shutdownNow();
+            db.close();
+        }
+    }
+
+    /**
+     * Send due pending entries until none are left. Blocking; returns the number of emails sent.
+     */
+    int drainDue() throws Exception {
+        int sent = 0;
+        while (true) {
+            QuerySnapshot snapshot = db.collection(EMAIL_OUTBOX_COLLECTION)
+                    .whereEqualTo(FIELD_STATUS, STATUS_PENDING)
+                    .whereLessThanOrEqualTo(FIELD_NEXT_ATTEMPT_AT, new Date())
+                    .orderBy(FIELD_NEXT_ATTEMPT_AT, Query.Direction.ASCENDING)
+                    .limit(PAGE_SIZE)
+                    .get()
+                    .get();
+            if (snapshot.isEmpty()) {
+                break;
+            }
+
+            List<Entry> entries = lease(snapshot.getDocuments());
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < entries.size(); i += CONNECTION_BATCH_SIZE) {
+                List<Entry> chunk = entries.subList(i, Math.min(entries.size(), i + CONNECTION_BATCH_SIZE));
+                results.add(connections.submit(() -> sendBatch(chunk)));
+            }
+            for (Future<Integer> result : results) {
+                sent += result.get();
+            }
+
+            if (snapshot.size() < PAGE_SIZE) {
+                break;
+            }
+        }
+
+        if (sent > 0) {
+            System.out.println("Drained " + sent + " emails from the outbox");
+        }
+        return sent;
+    }
+
+    /**
+     * Lease the entries that are still pending and due when re-read in a transaction, so two
+     * drains never send the same entry twice
+     */
+    private List<Entry> lease(List<QueryDocumentSnapshot> candidates) throws Exception {
+        DocumentReference[] refs = new DocumentReference[candidates.size()];
+        for (int i = 0; i < refs.length; i++) {
+            refs[i] = candidates.get(i).getReference();
+        }
+
+        return db.runTransaction(transaction -> {
+            Date now = new Date();
+            List<DocumentSnapshot> due = new ArrayList<>();
+            for (DocumentSnapshot doc : transaction.getAll(refs).get()) {
+                Date nextAttemptAt = doc.getDate(FIELD_NEXT_ATTEMPT_AT);
+                if (doc.exists() && STATUS_PENDING.equals(doc.getString(FIELD_STATUS)) &&
+                        (nextAttemptAt == null || !nextAttemptAt.after(now))) {
+                    due.add(doc);
+                }
+            }
+
+            // All reads come before the writes in a transaction
+            Date leaseUntil = new Date(now.getTime() + LEASE_MILLIS);
+            List<Entry> entries = new ArrayList<>();
+            for (DocumentSnapshot doc : due) {
+                transaction.update(doc.getReference(), FIELD_NEXT_ATTEMPT_AT, leaseUntil);
+                entries.add(Entry.from(doc));
+            }
+            return entries;
+        }).get();
+    }
+
+    /**
+     * Send one batch over one connection and record the outcome of each entry
+     */
+    private int sendBatch(List<Entry> entries) {
+        List<EmailSender.EmailMessage> messages = new ArrayList<>();
+        for (Entry entry : entries) {
+            messages.add(EmailTemplates.render(entry.id, entry.to, entry.template, entry.params));
+        }
+
+        List<EmailSender.Result> results;
+        String error;
+        try {
+            results = sender.send(messages);
+            error = null;
+        } catch (Exception e) {
+            System.err.println("Email batch of " + entries.size() + " failed: " + e.getMessage());
+            results = new ArrayList<>();
+            for (int i = 0; i < entries.size(); i++) {
+                results.add(EmailSender.Result.RETRY);
+            }
+            error = e.getMessage();
+        }
+
+        WriteBatch batch = db.batch();
+        int sent = 0;
+        int retried = 0;
+        int deadLettered = 0;
+
+        for (int i = 0; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+            EmailSender.Result result = results.get(i);
+            Map<String, Object> updates = new HashMap<>();
+
+            if (result == EmailSender.Result.SENT) {
+                updates.put(FIELD_STATUS, STATUS_SENT);
+                updates.put(FIELD_SENT_AT, FieldValue.serverTimestamp());
+                sent++;
+            } else {
+                int attempts = entry.attempts + 1;
+                updates.put(FIELD_ATTEMPTS, attempts);
+                updates.put(FIELD_LAST_ERROR, error != null ? error :
+                        result == EmailSender.Result.REJECTED ? "Rejected by mail server" : "Temporary failure");
+
+                if (result == EmailSender.Result.REJECTED || attempts >= MAX_ATTEMPTS) {
+                    updates.put(FIELD_STATUS, STATUS_DEAD_LETTER);
+                    deadLettered++;
+                } else {
+                    updates.put(FIELD_NEXT_ATTEMPT_AT,
+                            new Date(System.currentTimeMillis() + backoffMillis(attempts)));
+                    retried++;
+                }
+            }
+            batch.update(db.collection(EMAIL_OUTBOX_COLLECTION).document(entry.id), updates);
+        }
+
+        try {
+            batch.commit().get();
+        } catch (Exception e) {
+            // The lease runs out and the entries are sent again by the next pass
+            System.err.println("Error recording email results: " + e.getMessage());
+        }
+
+        System.out.println("Email batch: " + sent + " sent, " + retried + " to retry, " +
+                deadLettered + " dead-lettered");
+        return sent;
+    }
+
+    /**
+     * Exponential backoff with jitter: between half and all of base * 2^(attempts - 1), capped
+     */
+    private long backoffMillis(int attempts) {
+        long backoff = Math.min(MAX_BACKOFF_MILLIS, BASE_BACKOFF_MILLIS << Math.min(attempts - 1, 16));
+        synchronized (random) {
+            return backoff / 2 + (long) (random.nextDouble() * (backoff / 2));
+        }
+    }
+
+    private static class Entry {
+        final String id;
+        final String to;
+        final String template;
+        final Map<String, String> params;
+        final int attempts;
+
+        Entry(String id, String to, String template, Map<String, String> params, int attempts) {
+            this.id = id;
+            this.to = to;
+            this.template = template;
+            this.params = params;
+            this.attempts = attempts;
+        }
+
+        @SuppressWarnings("unchecked")
+        static Entry from(DocumentSnapshot doc) {
+            Map<String, String> params = (Map<String, String>) doc.get(FIELD_PARAMS);
+            Long attempts = doc.getLong(FIELD_ATTEMPTS);
+            return new Entry(doc.getId(), doc.getString(FIELD_TO), doc.getString(FIELD_TEMPLATE),
+                    params != null ? params : new HashMap<>(), attempts != null ? attempts.intValue() : 0);
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.testlab.labbooking.maildrain;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+import javax.net.ssl.SSLSocketFactory;
+
+/**
+ * Minimal SMTP client that sends a whole batch over one connection
+ * (EHLO once, then MAIL/RCPT/DATA per message, RSET after a failed message, QUIT).
+ *
+ * Use implicit TLS (port 465) for a real relay; plain connections are meant for the local
+ * stand-in server used in tests.
+ */
+public class SmtpEmailSender implements EmailSender {
+    private static final int TIMEOUT_MILLIS = 15_000;
+
+    private final String host;
+    private final int port;
+    private final boolean implicitTls;
+    private final String from;
+    private final String username;
+    private final String password;
+
+    /**
+     * @param username AUTH LOGIN user, or null to send without authentication
+     */
+    public SmtpEmailSender(String host, int port, boolean implicitTls, String from,
+                           String username, String password) {
+        this.host = host;
+        this.port = port;
+        this.implicitTls = implicitTls;
+        this.from = from;
+        this.username = username;
+        this.password = password;
+    }
+
+    @Override
+    public List<Result> send(List<EmailMessage> messages) throws Exception {
+        List<Result> results = new ArrayList<>();
+        Socket socket = implicitTls ? SSLSocketFactory.getDefault().createSocket() : new Socket();
+
+        try (Socket s = socket) {
+            s.connect(new InetSocketAddress(host, port), TIMEOUT_MILLIS);
+            s.setSoTimeout(TIMEOUT_MILLIS);
+            BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.US_ASCII));
+            OutputStream out = s.getOutputStream();
+
+            expect(in, 220);
+            command(out, in, "EHLO labbooking", 250);
+            if (username != null) {
+                command(out, in, "AUTH LOGIN", 334);
+                command(out, in, base64(username), 334);
+                command(out, in, base64(password), 235);
+            }
+
+            for (EmailMessage message : messages) {
+                try {
+                    results.add(sendOne(out, in, message));
+                } catch (IOException e) {
+                    // Connection is gone; this and the remaining messages are retried later
+                    while (results.size() < messages.size()) {
+                        results.add(Result.RETRY);
+                    }
+                    return results;
+                }
+            }
+
+            try {
+                command(out, in, "QUIT", 221);
+            } catch (IOException ignored) {
+                // All messages were already accepted
+            }
+        } catch (IOException e) {
+            if (results.isEmpty()) {
+                throw e; // could not connect at all; the caller retries the whole batch
+            }
+        }
+
+        while (results.size() < messages.size()) {
+            results.add(Result.RETRY);
+        }
+        return results;
+    }
+
+    private Result sendOne(OutputStream out, BufferedReader in, EmailMessage message) throws IOException {
+        int code = reply(out, in, "MAIL FROM:<" + from + ">");
+        if (code == 250) {
+            code = reply(out, in, "RCPT TO:<" + message.to + ">");
+        }
+        if (code == 250 || code == 251) {
+            code = reply(out, in, "DATA");
+        }
+        if (code == 354) {
+            write(out, buildMime(message));
+            write(out, ".\r\n");
+            code = readReply(in);
+            if (code == 250) {
+                return Result.SENT;
+            }
+        }
+
+        reply(out, in, "RSET");
+        return code >= 500 ? Result.REJECTED : Result.RETRY;
+    }
+
+    private String buildMime(EmailMessage message) {
+        String boundary = "lb-" + UUID.randomUUID();
+        SimpleDateFormat dateFormat = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss Z", Locale.US);
+
+        StringBuilder mime = new StringBuilder();
+        mime.append("From: Lab Booking System <").append(from).append(">\r\n");
+        mime.append("To: <").append(message.to).append(">\r\n");
+        mime.append("Subject: ").append(encodeHeader(message.subject)).append("\r\n");
+        mime.append("Date: ").append(dateFormat.format(new Date())).append("\r\n");
+        mime.append("Message-ID: <").append(message.id).append("@labbooking>\r\n");
+        mime.append("MIME-Version: 1.0\r\n");
+        mime.append("Content-Type: multipart/alternative; boundary=\"").append(boundary).append("\"\r\n\r\n");
+        appendPart(mime, boundary, "text/plain", message.textBody);
+        appendPart(mime, boundary, "text/html", message.htmlBody);
+        mime.append("--").append(boundary).append("--\r\n");
+        return mime.toString();
+    }
+
+    private static void appendPart(StringBuilder mime, String boundary, String contentType, String body) {
+        mime.append("--").append(boundary).append("\r\n");
+        mime.append("Content-Type: ").append(contentType).append("; charset=UTF-8\r\n");
+        mime.append("Content-Transfer-Encoding: base64\r\n\r\n");
+        String encoded = Base64.getEncoder().encodeToString(body.getBytes(StandardCharsets.UTF_8));
+        for (int i = 0; i < encoded.length(); i += 76) {
+            mime.append(encoded, i, Math.min(encoded.length(), i + 76)).append("\r\n");
+        }
+    }
+
+    private static String encodeHeader(String value) {
+        return "=?UTF-8?B?" + base64(value) + "?=";
+    }
+
+    private static String base64(String value) {
+        return Base64.getEncoder().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void command(OutputStream out, BufferedReader in, String line, int expected) throws IOException {
+        int code = reply(out, in, line);
+        if (code != expected) {
+            throw new IOException("SMTP " + line.split(" ")[0] + " failed with " + code);
+        }
+    }
+
+    private static int reply(OutputStream out, BufferedReader in, String line) throws IOException {
+        write(out, line + "\r\n");
+        return readReply(in);
+    }
+
+    private static void expect(BufferedReader in, int expected) throws IOException {
+        int code = readReply(in);
+        if (code != expected) {
+            throw new IOException("Unexpected SMTP greeting " + code);
+        }
+    }
+
+    private static void write(OutputStream out, String data) throws IOException {
+        out.write(data.getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    /**
+     * Read a (possibly multi-line) reply and return its status code
+     */
+    private static int readReply(BufferedReader in) throws IOException {
+        String line;
+        do {
+            line = in.readLine();
+            if (line == null || line.length() < 3) {
+                throw new IOException("Connection closed by SMTP server");
+            }
+        } while (line.length() > 3 && line.charAt(3) == '-');
+        try {
+            return Integer.parseInt(line.substring(0, 3));
+        } catch (NumberFormatException e) {
+            throw new IOException("Malformed SMTP reply: " + line);
+        }
+    }
+}
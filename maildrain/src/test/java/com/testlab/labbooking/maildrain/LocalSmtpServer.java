@@ -0,0 +1,163 @@
+package com.testlab.labbooking.maildrain;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Minimal local SMTP server for exercising the mail drain end to end, offline and under load.
+ *
+ * Listens on 127.0.0.1 and accepts any number of messages per connection. Recipients starting
+ * with {@link #REJECTED_PREFIX} get a permanent 550, recipients starting with
+ * {@link #DEFERRED_PREFIX} a transient 451; everything else is accepted after an optional delay.
+ *
+ * <pre>
+ * LocalSmtpServer server = LocalSmtpServer.start(20);
+ * EmailSender sender = new SmtpEmailSender("127.0.0.1", server.getPort(), false,
+ *         "noreply@labbooking.local", null, null);
+ * </pre>
+ */
+public class LocalSmtpServer {
+    private static final String TAG = "LocalSmtpServer";
+    public static final String REJECTED_PREFIX = "bounce-";
+    public static final String DEFERRED_PREFIX = "defer-";
+
+    private final ServerSocket serverSocket;
+    private final long messageDelayMillis;
+    private final ExecutorService connections = Executors.newCachedThreadPool();
+    private final AtomicInteger connectionCount = new AtomicInteger();
+    private final AtomicInteger acceptedCount = new AtomicInteger();
+    private final AtomicInteger rejectedCount = new AtomicInteger();
+    private volatile boolean running = true;
+
+    private LocalSmtpServer(long messageDelayMillis) throws IOException {
+        this.messageDelayMillis = messageDelayMillis;
+        this.serverSocket = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"));
+    }
+
+    /**
+     * Start on an ephemeral port
+     *
+     * @param messageDelayMillis simulated server latency per accepted message
+     */
+    public static LocalSmtpServer start(long messageDelayMillis) throws IOException {
+        LocalSmtpServer server = new LocalSmtpServer(messageDelayMillis);
+        Thread acceptor = new Thread(server::acceptLoop, TAG);
+        acceptor.setDaemon(true);
+        acceptor.start();
+        return server;
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public int getConnectionCount() {
+        return connectionCount.get();
+    }
+
+    public int getAcceptedCount() {
+        return acceptedCount.get();
+    }
+
+    public int getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    public void stop() {
+        running = false;
+        try {
+            serverSocket.close();
+        } catch (IOException ignored) {
+        }
+        connections.shutdownNow();
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                connectionCount.incrementAndGet();
+                connections.execute(() -> serve(socket));
+            } catch (IOException e) {
+                if (running) {
+                    System.err.println(TAG + ": accept failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (Socket s = socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+             OutputStream out = s.getOutputStream()) {
+            write(out, "220 localhost LocalSmtpServer ready");
+
+            String line;
+            while (running && (line = in.readLine()) != null) {
+                String verb = line.length() >= 4 ? line.substring(0, 4).toUpperCase(Locale.US) : line;
+                switch (verb) {
+                    case "EHLO":
+                    case "HELO":
+                        write(out, "250-localhost\r\n250 8BITMIME");
+                        break;
+                    case "RCPT":
+                        String recipient = line.substring(line.indexOf('<') + 1).toLowerCase(Locale.US);
+                        if (recipient.startsWith(REJECTED_PREFIX)) {
+                            rejectedCount.incrementAndGet();
+                            write(out, "550 5.1.1 Mailbox unavailable");
+                        } else if (recipient.startsWith(DEFERRED_PREFIX)) {
+                            write(out, "451 4.3.0 Try again later");
+                        } else {
+                            write(out, "250 OK");
+                        }
+                        break;
+                    case "DATA":
+                        write(out, "354 End data with <CR><LF>.<CR><LF>");
+                        String dataLine;
+                        while ((dataLine = in.readLine()) != null && !dataLine.equals(".")) {
+                            // Message content is discarded
+                        }
+                        if (messageDelayMillis > 0) {
+                            Thread.sleep(messageDelayMillis);
+                        }
+                        write(out, "250 OK queued as " + acceptedCount.incrementAndGet());
+                        break;
+                    case "AUTH":
+                        // AUTH LOGIN: any user name and password are accepted
+                        write(out, "334 VXNlcm5hbWU6");
+                        in.readLine();
+                        write(out, "334 UGFzc3dvcmQ6");
+                        in.readLine();
+                        write(out, "235 Authenticated");
+                        break;
+                    case "QUIT":
+                        write(out, "221 Bye");
+                        return;
+                    default:
+                        // MAIL, RSET and NOOP are accepted as-is
+                        write(out, "250 OK");
+                        break;
+                }
+            }
+        } catch (IOException | InterruptedException e) {
+            if (running) {
+                System.err.println(TAG + ": connection ended: " + e.getMessage());
+            }
+        }
+    }
+
+    private static void write(OutputStream out, String reply) throws IOException {
+        out.write((reply + "\r\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+}
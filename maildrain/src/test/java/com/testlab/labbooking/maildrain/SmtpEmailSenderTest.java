@@ -0,0 +1,90 @@
+package com.testlab.labbooking.maildrain;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class SmtpEmailSenderTest {
+    private LocalSmtpServer server;
+    private EmailSender sender;
+
+    @Before
+    public void startServer() throws Exception {
+        server = LocalSmtpServer.start(0);
+        sender = new SmtpEmailSender("127.0.0.1", server.getPort(), false,
+                "noreply@labbooking.local", null, null);
+    }
+
+    @After
+    public void stopServer() {
+        server.stop();
+    }
+
+    @Test
+    public void sendsABatchOverOneConnection() throws Exception {
+        List<EmailSender.EmailMessage> messages = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            messages.add(message("m" + i, "user" + i + "@example.com"));
+        }
+
+        List<EmailSender.Result> results = sender.send(messages);
+
+        assertEquals(Collections.nCopies(20, EmailSender.Result.SENT), results);
+        assertEquals(1, server.getConnectionCount());
+        assertEquals(20, server.getAcceptedCount());
+    }
+
+    @Test
+    public void reportsRejectedAndDeferredRecipientsWithoutDroppingTheRest() throws Exception {
+        List<EmailSender.Result> results = sender.send(Arrays.asList(
+                message("a", LocalSmtpServer.REJECTED_PREFIX + "a@example.com"),
+                message("b", "b@example.com"),
+                message("c", LocalSmtpServer.DEFERRED_PREFIX + "c@example.com"),
+                message("d", "d@example.com")));
+
+        assertEquals(Arrays.asList(EmailSender.Result.REJECTED, EmailSender.Result.SENT,
+                EmailSender.Result.RETRY, EmailSender.Result.SENT), results);
+        assertEquals(2, server.getAcceptedCount());
+        assertEquals(1, server.getRejectedCount());
+    }
+
+    @Test(expected = java.io.IOException.class)
+    public void failsTheWholeBatchWhenTheServerIsUnreachable() throws Exception {
+        int port = server.getPort();
+        server.stop();
+        new SmtpEmailSender("127.0.0.1", port, false, "noreply@labbooking.local", null, null)
+                .send(Collections.singletonList(message("a", "a@example.com")));
+    }
+
+    @Test
+    public void rendersTemplatesWithEscapedHtml() {
+        Map<String, String> params = new HashMap<>();
+        params.put("name", "Ada");
+        params.put("title", "Booking <approved>");
+        params.put("message", "Lab A\nRoom 2");
+        params.put("actionText", "View");
+
+        EmailSender.EmailMessage message = EmailTemplates.render("id", "ada@example.com",
+                EmailTemplates.TEMPLATE_BOOKING_UPDATE, params);
+
+        assertEquals("Booking <approved>", message.subject);
+        assertTrue(message.htmlBody.contains("<h2>Booking &lt;approved&gt;</h2>"));
+        assertTrue(message.htmlBody.contains("Lab A<br>Room 2"));
+        assertTrue(message.textBody.startsWith("Dear Ada,\n\nLab A\nRoom 2"));
+        assertEquals(EmailTemplates.render("id", "ada@example.com", "unknown", params).textBody,
+                EmailTemplates.render("id", "ada@example.com", EmailTemplates.TEMPLATE_DEFAULT, params).textBody);
+    }
+
+    private static EmailSender.EmailMessage message(String id, String to) {
+        return new EmailSender.EmailMessage(id, to, "Subject", "<p>Body</p>", "Body");
+    }
+}
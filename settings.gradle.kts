@@ -11,6 +11,10 @@ pluginManagement {
         gradlePluginPortal()
     }
 }
+plugins {
+    // Provisions the JDK 21 toolchain used by :loadtest
+    id("org.gradle.toolchains.foojay-resolver-convention") version "0.8.0"
+}
 dependencyResolutionManagement {
     repositoriesMode.set(RepositoriesMode.FAIL_ON_PROJECT_REPOS)
     repositories {
@@ -21,3 +25,8 @@ dependencyResolutionManagement {
 
 rootProject.name = "Lab Booking"
 include(":app")
+include(":core")
+include(":bundlegen")
+include(":benchmarks")
+include(":loadtest")
+include(":maildrain")